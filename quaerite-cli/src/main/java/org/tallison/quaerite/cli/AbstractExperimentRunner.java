@@ -17,10 +17,12 @@
 package org.tallison.quaerite.cli;
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -28,6 +30,7 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,16 +39,24 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.math3.stat.inference.TTest;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.apache.commons.math3.stat.descriptive.rank.Median;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.MultiSearchResult;
 import org.tallison.quaerite.connectors.QueryRequest;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
@@ -63,15 +74,19 @@ import org.tallison.quaerite.core.queries.Query;
 import org.tallison.quaerite.core.queries.TermsQuery;
 import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
 import org.tallison.quaerite.core.scorers.DistributionalScoreAggregator;
+import org.tallison.quaerite.core.scorers.JudgedResultList;
 import org.tallison.quaerite.core.scorers.JudgmentScorer;
 import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.core.scorers.SearchResultSetScorer;
 import org.tallison.quaerite.core.scorers.SummingScoreAggregator;
+import org.tallison.quaerite.core.stats.ExperimentNameScorePair;
+import org.tallison.quaerite.core.stats.SignificanceMatrix;
 import org.tallison.quaerite.core.util.MapUtil;
 import org.tallison.quaerite.db.ExperimentDB;
 import org.tallison.quaerite.db.QueryRunnerDBClient;
+import org.tallison.quaerite.db.SearchResultCache;
 
-public abstract class AbstractExperimentRunner extends AbstractCLI {
+public abstract class AbstractExperimentRunner extends AbstractCLI implements Closeable {
     static final Judgments POISON = new Judgments(new QueryInfo("",
             "", new QueryStrings(), -1));
 
@@ -79,6 +94,8 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
 
     //number of retries allowed for querying the search application
     static final int MAX_RETRIES = 2;
+    //wait this long times the number of tries before retrying a request
+    static final long RETRY_BACKOFF_MS = 500;
 
     static final int DEFAULT_NUM_THREADS = 8;
     private static final int MAX_MATRIX_COLS = 100;
@@ -87,25 +104,305 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
     Map<String, JudgmentList> searchServerValidatedMap = new HashMap<>();
 
     private final ExperimentConfig experimentConfig;
+    //opened on the first experiment if the config specifies a cache dir
+    private SearchResultCache searchResultCache;
+    //started on the first call to runExperiments and kept for the runner's lifetime
+    private ExperimentScheduler scheduler;
+    //if set, runExperiments hands the queries out to workers instead
+    private Coordinator coordinator;
+    //if set, the scheduler, coordinator, cache and validated judgments are this runner's
+    private final AbstractExperimentRunner shared;
+    //limit the blocking searches (numThreads) and the async requests (maxInFlight)
+    //across this runner and the runners that share it; created on first use
+    private Semaphore searchPermits;
+    private Semaphore inFlightPermits;
     NumberFormat threePlaces = new DecimalFormat(".000",
             DecimalFormatSymbols.getInstance(Locale.US));
 
     public AbstractExperimentRunner(ExperimentConfig experimentConfig) {
         this.experimentConfig = experimentConfig;
+        this.shared = null;
+        //make sure the pools are big enough to actually keep maxInFlight requests in flight
+        SearchClientFactory.configurePools(Math.max(experimentConfig.getMaxConnectionsPerHost(),
+                experimentConfig.getMaxInFlight()),
+                experimentConfig.getKeepAliveSeconds());
     }
 
 
+    /**
+     * Creates a runner that runs its experiments with <code>shared</code>'s
+     * scheduler (or coordinator) and search result cache, so that runners
+     * working at the same time share one limit on the number of queries
+     * in flight.  Closing this runner leaves those open.
+     */
+    AbstractExperimentRunner(ExperimentConfig experimentConfig,
+                             AbstractExperimentRunner shared) {
+        this.experimentConfig = experimentConfig;
+        this.shared = shared;
+    }
+
     void runExperiment(Experiment experiment, List<Scorer> scorers,
                        int maxRows, ExperimentDB experimentDB, JudgmentList judgmentList,
                        String judgmentListId, boolean logResults)
             throws SQLException, IOException, SearchClientException {
-        if (experimentDB.hasScores(experiment.getName())) {
+        runExperiment(experiment, scorers, maxRows, experimentDB, judgmentList,
+                judgmentListId, logResults, null);
+    }
+
+    /**
+     * @param race if not <code>null</code>, the queries are run in blocks
+     *             and the experiment is abandoned as soon as it can't beat
+     *             the race's incumbent
+     * @return the number of queries that were skipped because the experiment
+     * was abandoned
+     */
+    int runExperiment(Experiment experiment, List<Scorer> scorers,
+                      int maxRows, ExperimentDB experimentDB, JudgmentList judgmentList,
+                      String judgmentListId, boolean logResults, Race race)
+            throws SQLException, IOException, SearchClientException {
+        return runExperiment(experiment, scorers, maxRows, experimentDB, judgmentList,
+                judgmentListId, logResults, race, false);
+    }
+
+    /**
+     * @param partial whether <code>judgmentList</code> is only some of the
+     *                queries, e.g. a subset of the training queries; the
+     *                aggregated scores are marked as partial when they're written
+     */
+    int runExperiment(Experiment experiment, List<Scorer> scorers,
+                      int maxRows, ExperimentDB experimentDB, JudgmentList judgmentList,
+                      String judgmentListId, boolean logResults, Race race, boolean partial)
+            throws SQLException, IOException, SearchClientException {
+        if (experimentDB.hasCompleteScores(experiment.getName())) {
             LOG.info("Already has scores for " + experiment.getName() + "; skipping.  " +
                     "Use the -freshStart commandline option to clear all scores");
-            return;
+            return 0;
+        }
+        experimentDB.initScoreTable(scorers);
+        JudgmentList validated = getValidated(experiment, judgmentList, judgmentListId);
+        List<Judgments> judgmentsList = validated.getJudgmentsList();
+        List<Judgments> toRun = startRun(experiment.getName(), scorers, experimentDB,
+                judgmentsList, resumes(experiment, experimentDB));
+        int skipped = 0;
+        if (race == null) {
+            runQueries(experiment, scorers, maxRows, experimentDB, toRun);
+        } else {
+            List<Judgments> evaluated = new ArrayList<>(judgmentsList);
+            evaluated.removeAll(new HashSet<>(toRun));
+            for (List<Judgments> block : race.getBlocks(toRun)) {
+                if (race.cannotWin(scorers, evaluated, judgmentsList.size())) {
+                    skipped = judgmentsList.size() - evaluated.size();
+                    LOG.debug("abandoning " + experiment.getName() + " after " +
+                            evaluated.size() + " of " + judgmentsList.size() +
+                            " queries; it can't beat " + race.getIncumbent());
+                    break;
+                }
+                runQueries(experiment, scorers, maxRows, experimentDB, block);
+                evaluated.addAll(block);
+            }
+        }
+        experimentDB.insertScoresAggregated(experiment.getName(), scorers,
+                partial || skipped > 0);
+        if (logResults) {
+            logResults(experiment.getName(), scorers);
+        }
+        return skipped;
+    }
+
+    /**
+     * Runs the experiments as one stream of (experiment, query) tasks on
+     * the runner's long-lived scheduler, so that threads don't sit idle
+     * at the end of one experiment.  Each experiment is scored with its own
+     * copy of <code>scorers</code> and its aggregated scores are written
+     * as soon as its last query lands.
+     * <p>
+     * If a {@link Coordinator} has been set, the queries are run by its
+     * workers instead.  Otherwise, falls back to running the experiments one
+     * at a time if the config asks for batched or asynchronous search requests.
+     *
+     * @return the names of the experiments that failed to finish; these have
+     * no aggregated scores
+     */
+    List<String> runExperiments(List<Experiment> experiments, List<Scorer> scorers,
+                        int maxRows, ExperimentDB experimentDB, JudgmentList judgmentList,
+                        String judgmentListId, boolean logResults)
+            throws SQLException, IOException, SearchClientException {
+        Coordinator activeCoordinator = getCoordinator();
+        if (activeCoordinator == null && (experimentConfig.getMaxInFlight() > 0 ||
+                experimentConfig.getSearchBatchSize() > 1)) {
+            for (Experiment experiment : experiments) {
+                runExperiment(experiment, scorers, maxRows, experimentDB, judgmentList,
+                        judgmentListId, logResults);
+            }
+            return Collections.emptyList();
         }
         experimentDB.initScoreTable(scorers);
-        //this client is only used in a single thread!
+        ExperimentScheduler experimentScheduler = (activeCoordinator == null) ? getScheduler() : null;
+        long start = System.currentTimeMillis();
+        AtomicInteger finished = new AtomicInteger();
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<List<Scorer>>> futures = new ArrayList<>();
+        for (Experiment experiment : experiments) {
+            if (experimentDB.hasCompleteScores(experiment.getName())) {
+                LOG.info("Already has scores for " + experiment.getName() + "; skipping.  " +
+                        "Use the -freshStart commandline option to clear all scores");
+                continue;
+            }
+            //validate on this thread before any of the experiment's queries are queued
+            JudgmentList validated = getValidated(experiment, judgmentList, judgmentListId);
+            String name = experiment.getName();
+            boolean resume = resumes(experiment, experimentDB);
+            CompletableFuture<List<Scorer>> future = (activeCoordinator == null) ?
+                    experimentScheduler.submit(experiment, scorers,
+                            experimentConfig.getIdField(), maxRows,
+                            validated.getJudgmentsList(), experimentDB, resume) :
+                    activeCoordinator.submit(experiment, scorers,
+                            experimentConfig.getIdField(), maxRows,
+                            validated.getJudgmentsList(), experimentDB, resume);
+            futures.add(future.whenComplete((experimentScorers, t) -> {
+                int done = finished.incrementAndGet();
+                if (t != null) {
+                    LOG.warn("problem finishing experiment " + name, t);
+                    failed.add(name);
+                    return;
+                }
+                if (logResults) {
+                    logResults(name, experimentScorers);
+                }
+                LOG.info("Finished " + done + " in " +
+                        (double) (System.currentTimeMillis() - start) / (double) 1000 +
+                        " seconds");
+            }));
+        }
+        for (CompletableFuture<List<Scorer>> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                //already logged
+            }
+        }
+        return new ArrayList<>(failed);
+    }
+
+    /**
+     * Whether an experiment that has stored search results but no aggregated
+     * scores is picked up from those results (see {@link #resume}).  This is off
+     * by default, so that experiments that are rerun after their scores were
+     * cleared are searched again.
+     */
+    boolean resumesQueries() {
+        return false;
+    }
+
+    /**
+     * An experiment that has per query scores but no complete aggregated
+     * scores was interrupted, e.g. by a crash, and is always picked up
+     * from its stored results.
+     */
+    private boolean resumes(Experiment experiment, ExperimentDB experimentDB)
+            throws SQLException {
+        return resumesQueries() || experimentDB.hasScores(experiment.getName());
+    }
+
+    /**
+     * @param resume if <code>false</code>, any scores and search results
+     *               stored by an earlier run of the experiment are deleted
+     * @return the queries that have to be run
+     */
+    static List<Judgments> startRun(String experimentName, List<Scorer> scorers,
+                                    ExperimentDB experimentDB, List<Judgments> judgmentsList,
+                                    boolean resume)
+            throws SQLException, IOException {
+        if (resume) {
+            return resume(experimentName, scorers, experimentDB, judgmentsList);
+        }
+        experimentDB.clearScores(experimentName);
+        experimentDB.clearSearchResults(experimentName);
+        return judgmentsList;
+    }
+
+    /**
+     * Picks up an experiment whose run was interrupted, e.g. by a crash,
+     * before its aggregated scores were written.  The queries whose search
+     * results were stored by that run are scored from the stored results,
+     * and their per query scores are rewritten; only the other queries have
+     * to be run.
+     *
+     * @param scorers the scorers for the experiment's run, which are
+     *                updated with the stored queries' scores
+     * @return the queries that still have to be run
+     */
+    static List<Judgments> resume(String experimentName, List<Scorer> scorers,
+                                  ExperimentDB experimentDB, List<Judgments> judgmentsList)
+            throws SQLException, IOException {
+        Map<String, SearchResultSet> stored = experimentDB.getSearchResults(experimentName);
+        //the stored results are the record of what finished; per query scores
+        //are written in a separate batch and may be ahead of them, and the
+        //aggregated scores of a run that was abandoned in a race are partial
+        experimentDB.clearScores(experimentName);
+        if (stored.isEmpty()) {
+            return judgmentsList;
+        }
+        List<Judgments> toRun = new ArrayList<>();
+        JudgedResultList judgedResults = new JudgedResultList();
+        try (QueryRunnerDBClient dbClient = experimentDB.getQueryRunnerDBClient(scorers)) {
+            for (Judgments judgments : judgmentsList) {
+                SearchResultSet searchResultSet =
+                        stored.get(judgments.getQueryInfo().getQueryId());
+                if (searchResultSet == null) {
+                    toRun.add(judgments);
+                    continue;
+                }
+                score(judgments, searchResultSet, scorers, judgedResults);
+                dbClient.insertScores(judgments.getQueryInfo(), experimentName, scorers);
+            }
+        }
+        LOG.info("resuming " + experimentName + " with the stored results of " +
+                (judgmentsList.size() - toRun.size()) + " queries; " + toRun.size() +
+                " left to run");
+        return toRun;
+    }
+
+    /**
+     * @param coordinator coordinator to hand queries out to in
+     *                    {@link #runExperiments}; the caller closes it
+     */
+    void setCoordinator(Coordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    private Coordinator getCoordinator() {
+        return (shared == null) ? coordinator : shared.getCoordinator();
+    }
+
+    private synchronized ExperimentScheduler getScheduler() throws SQLException, IOException {
+        if (shared != null) {
+            return shared.getScheduler();
+        }
+        if (scheduler == null) {
+            scheduler = new ExperimentScheduler(experimentConfig.getNumThreads(),
+                    experimentConfig.getSleep(), getSearchResultCache());
+        }
+        return scheduler;
+    }
+
+    /**
+     * Synchronized so that experiments that run concurrently
+     * validate a judgment list only once.
+     */
+    private synchronized JudgmentList getValidated(Experiment experiment,
+                                                   JudgmentList judgmentList,
+                                                   String judgmentListId)
+            throws IOException, SearchClientException {
+        if (shared != null) {
+            JudgmentList validated = shared.getValidated(experiment, judgmentList,
+                    judgmentListId);
+            if (StringUtils.isBlank(experimentConfig.getIdField())) {
+                experimentConfig.setIdField(shared.experimentConfig.getIdField());
+            }
+            return validated;
+        }
+        //shared, thread safe client
         SearchClient searchClient =
                 SearchClientFactory.getClient(experiment.getServerConnection());
 
@@ -127,15 +424,58 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
             searchServerValidatedMap.put(experiment.getServerConnection()
                     + "_" + judgmentListId, validated);
         }
+        return validated;
+    }
+
+    /**
+     * Validates <code>judgmentList</code> against the experiment's server,
+     * once per server, and caches the judgments of <code>queryIds</code>
+     * from the validated list as <code>subsetId</code>.  Experiments that are
+     * then run on <code>subsetId</code> use that subset instead of
+     * validating it again.
+     */
+    synchronized void cacheValidatedSubset(Experiment experiment, JudgmentList judgmentList,
+                                           String judgmentListId, Set<String> queryIds,
+                                           String subsetId)
+            throws IOException, SearchClientException {
+        if (shared != null) {
+            shared.cacheValidatedSubset(experiment, judgmentList, judgmentListId, queryIds,
+                    subsetId);
+            return;
+        }
+        String key = experiment.getServerConnection() + "_" + subsetId;
+        if (searchServerValidatedMap.containsKey(key)) {
+            return;
+        }
+        JudgmentList validated = getValidated(experiment, judgmentList, judgmentListId);
+        JudgmentList subset = new JudgmentList();
+        for (Judgments judgments : validated.getJudgmentsList()) {
+            if (queryIds.contains(judgments.getQueryInfo().getQueryId())) {
+                subset.addJudgments(judgments);
+            }
+        }
+        searchServerValidatedMap.put(key, subset);
+    }
+
+    private void runQueries(Experiment experiment, List<Scorer> scorers, int maxRows,
+                            ExperimentDB experimentDB, List<Judgments> judgmentsList)
+            throws SQLException, IOException, SearchClientException {
+        SearchResultCache cache = getSearchResultCache();
+        if (experimentConfig.getMaxInFlight() > 0) {
+            new AsyncQueryRunner(experimentConfig.getIdField(), experimentConfig.getSleep(),
+                    maxRows, experimentConfig.getMaxInFlight(), getInFlightPermits(),
+                    experiment, experimentDB, cache, scorers).run(judgmentsList);
+            return;
+        }
         ExecutorService executorService = Executors.newFixedThreadPool(
                 experimentConfig.getNumThreads());
         ExecutorCompletionService<Integer> executorCompletionService =
                 new ExecutorCompletionService<>(executorService);
         ArrayBlockingQueue<Judgments> queue = new ArrayBlockingQueue<>(
-                validated.getJudgmentsList().size() +
+                judgmentsList.size() +
                         experimentConfig.getNumThreads());
 
-        queue.addAll(validated.getJudgmentsList());
+        queue.addAll(judgmentsList);
         for (int i = 0; i < experimentConfig.getNumThreads(); i++) {
             queue.add(POISON);
         }
@@ -144,8 +484,8 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
             executorCompletionService.submit(
                     new QueryRunner(experimentConfig.getIdField(),
                             experimentConfig.getSleep(),
-                            maxRows,
-                            queue, experiment, experimentDB, scorers));
+                            maxRows, experimentConfig.getSearchBatchSize(), getSearchPermits(),
+                            queue, experiment, experimentDB, cache, scorers));
         }
 
         int completed = 0;
@@ -161,10 +501,56 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         }
         executorService.shutdown();
         executorService.shutdownNow();
-        //insertScores(experimentDB, experimentName, scoreAggregators);
-        experimentDB.insertScoresAggregated(experiment.getName(), scorers);
-        if (logResults) {
-            logResults(experiment.getName(), scorers);
+    }
+
+    /**
+     * Each runner's pool has numThreads threads, so with several runners
+     * working at the same time, e.g. islands, these permits keep the number
+     * of searches at numThreads overall.
+     */
+    private synchronized Semaphore getSearchPermits() {
+        if (shared != null) {
+            return shared.getSearchPermits();
+        }
+        if (searchPermits == null) {
+            searchPermits = new Semaphore(experimentConfig.getNumThreads());
+        }
+        return searchPermits;
+    }
+
+    private synchronized Semaphore getInFlightPermits() {
+        if (shared != null) {
+            return shared.getInFlightPermits();
+        }
+        if (inFlightPermits == null) {
+            inFlightPermits = new Semaphore(Math.max(1, experimentConfig.getMaxInFlight()));
+        }
+        return inFlightPermits;
+    }
+
+    private synchronized SearchResultCache getSearchResultCache()
+            throws SQLException, IOException {
+        if (shared != null) {
+            return shared.getSearchResultCache();
+        }
+        if (searchResultCache == null &&
+                ! StringUtils.isBlank(experimentConfig.getSearchCacheDir())) {
+            searchResultCache = SearchResultCache.open(
+                    Paths.get(experimentConfig.getSearchCacheDir()),
+                    experimentConfig.getSearchCacheMaxEntries());
+        }
+        return searchResultCache;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.close();
+            scheduler = null;
+        }
+        if (searchResultCache != null) {
+            searchResultCache.close();
+            searchResultCache = null;
         }
     }
 
@@ -311,8 +697,9 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                     LOG.debug("Could not find " + e.getKey() + " in the index!");
                 }
             }
-            if (winnowedJugments.getSortedJudgments().size() > 0) {
-                retList.addJudgments(winnowedJugments);
+            if (winnowedJugments.size() > 0) {
+                //build the index once, up front; the scorers only read from it
+                retList.addJudgments(winnowedJugments.freeze());
                 validQueries++;
             } else {
                 LOG.warn(
@@ -379,16 +766,28 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         private final Experiment experiment;
         private final Query query;//thread safe clone of the query
         private final List<Scorer> scorers;
-        private final SearchClient searchClient;//created fresh one per thread
+        private final SearchClient searchClient;//shared across threads
         private final QueryRunnerDBClient dbClient;
+        private final SearchResultCache cache;//can be null
+        //reused for every query scored by this runner's single scoring thread
+        private final JudgedResultList judgedResults = new JudgedResultList();
+        //number of queries to send per request if the client supports batching
+        private final int searchBatchSize;
+        //shared with the other runners' threads
+        private final Semaphore searchPermits;
         private int batched = 0;
 
-        public QueryRunner(String idField, long sleep, int maxRows, ArrayBlockingQueue<Judgments> judgments,
+        public QueryRunner(String idField, long sleep, int maxRows, int searchBatchSize,
+                           Semaphore searchPermits,
+                           ArrayBlockingQueue<Judgments> judgments,
                            Experiment experiment, ExperimentDB experimentDB,
+                           SearchResultCache cache,
                            List<Scorer> scorers) throws SQLException, IOException, SearchClientException {
             this.idField = idField;
             this.sleep = sleep;
             this.maxRows = maxRows;
+            this.searchBatchSize = searchBatchSize;
+            this.searchPermits = searchPermits;
             this.queue = judgments;
             this.experiment = experiment;
             this.query = experiment.getQuery();
@@ -396,6 +795,7 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                     SearchClientFactory.getClient(experiment.getServerConnection());
             this.scorers = scorers;
             this.dbClient = experimentDB.getQueryRunnerDBClient(scorers);
+            this.cache = cache;
         }
 
         @Override
@@ -408,7 +808,25 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
 //                    LOG.trace(threadNum + ": scorer thread hit poison. stopping now");
                         return 1;
                     }
-                    scoreEach(judgments, scorers);
+                    if (searchBatchSize > 1) {
+                        List<Judgments> batch = new ArrayList<>();
+                        batch.add(judgments);
+                        boolean poisoned = false;
+                        while (batch.size() < searchBatchSize) {
+                            Judgments next = queue.poll();
+                            if (next.equals(POISON)) {
+                                poisoned = true;
+                                break;
+                            }
+                            batch.add(next);
+                        }
+                        scoreBatch(batch, scorers);
+                        if (poisoned) {
+                            return 1;
+                        }
+                    } else {
+                        scoreEach(judgments, scorers);
+                    }
                     if (batched++ > 100) {
                         batched = 0;
                         dbClient.executeBatch();
@@ -435,56 +853,415 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                                List<Scorer> scorers) throws SQLException {
             query.setQueryStrings(judgments.getQueryStrings());
 
-            QueryRequest queryRequest = new QueryRequest(query, experiment.getCustomHandler(), idField);
-            queryRequest.addFieldsToRetrieve(idField);
-            if (experiment.getFilterQueries().size() > 0) {
-                queryRequest.addFilterQueries(experiment.getFilterQueries());
+            QueryRequest queryRequest = buildQueryRequest(query, experiment, idField, maxRows);
+            SearchResultSet searchResultSet = search(searchClient, queryRequest, cache,
+                    searchPermits, judgments.getQueryStrings());
+            if (searchResultSet == null) {
+                LOG.warn("failed to get results for: " +
+                        judgments.getQueryStrings() + ". Ignoring this query.");
+                return;
             }
-            queryRequest.setNumResults(maxRows);
+            storeAndScore(judgments, searchResultSet, scorers);
+        }
 
-            SearchResultSet searchResultSet = null;
-            int tries = 0;
-            boolean success = false;
-            while (! success && tries++ < MAX_RETRIES) {
-                try {
-                    searchResultSet = searchClient.search(queryRequest);
-                    success = true;
-                } catch (SearchClientException | IOException e) {
-                    //TODO add exception to searchResultSet and log
-                    LOG.warn("error getting results for: "
-                            + judgments.getQueryStrings(), e);
+        private void scoreBatch(List<Judgments> allJudgments,
+                                List<Scorer> scorers) throws SQLException {
+            List<Judgments> batch = new ArrayList<>();
+            List<QueryRequest> queryRequests = new ArrayList<>();
+            List<String> cacheKeys = new ArrayList<>();
+            for (Judgments judgments : allJudgments) {
+                //each request needs its own copy of the query
+                Query q = experiment.getQuery();
+                q.setQueryStrings(judgments.getQueryStrings());
+                QueryRequest queryRequest = buildQueryRequest(q, experiment, idField, maxRows);
+                String cacheKey = getCacheKey(cache, searchClient, queryRequest);
+                SearchResultSet cached = (cacheKey == null) ? null : cache.get(cacheKey);
+                if (cached != null) {
+                    storeAndScore(judgments, cached, scorers);
+                } else {
+                    batch.add(judgments);
+                    queryRequests.add(queryRequest);
+                    cacheKeys.add(cacheKey);
                 }
             }
-            if (success == false || searchResultSet == null) {
-                LOG.warn("failed to get results for: " +
-                        judgments.getQueryStrings() + ". Ignoring this query.");
+            if (batch.isEmpty()) {
                 return;
             }
-            dbClient.insertSearchResults(judgments.getQueryInfo(),
-                    experiment.getName(), searchResultSet);
-
-            for (Scorer scorer : scorers) {
-                if (scorer instanceof JudgmentScorer) {
-                    ((JudgmentScorer) scorer).score(judgments, searchResultSet);
-                } else if (scorer instanceof SearchResultSetScorer) {
-                    ((SearchResultSetScorer) scorer).score(judgments.getQueryInfo(),
-                            searchResultSet);
+            MultiSearchResult results = searchWithRetries(
+                    () -> searchClient.searchBatch(queryRequests), searchPermits,
+                    "batch of " + batch.size());
+            if (results == null) {
+                LOG.warn("failed to get results for batch. Trying queries one at a time.");
+                for (Judgments judgments : batch) {
+                    scoreEach(judgments, scorers);
+                }
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Judgments judgments = batch.get(i);
+                if (results.hasError(i)) {
+                    LOG.warn("error in batch for: " + judgments.getQueryStrings() +
+                            "; " + results.getError(i) + ". Retrying on its own.");
+                    scoreEach(judgments, scorers);
                 } else {
-                    throw new IllegalArgumentException("Scorer class not yet supported: "
-                            + scorer.getClass());
+                    if (cacheKeys.get(i) != null) {
+                        cache.put(cacheKeys.get(i), results.getResultSet(i));
+                    }
+                    storeAndScore(judgments, results.getResultSet(i), scorers);
                 }
             }
+        }
+
+        private void storeAndScore(Judgments judgments, SearchResultSet searchResultSet,
+                                   List<Scorer> scorers) throws SQLException {
+            dbClient.insertSearchResults(judgments.getQueryInfo(),
+                    experiment.getName(), searchResultSet);
+
+            score(judgments, searchResultSet, scorers, judgedResults);
             LOG.debug("processed '" + judgments.getQueryStrings()
                     + "'; total: " + PROCESSED.incrementAndGet());
             dbClient.insertScores(judgments.getQueryInfo(), experiment.getName(), scorers);
         }
     }
 
+    /**
+     * @return the key to cache the request's results under or <code>null</code>
+     * if there's no cache or the request can't be canonicalized
+     */
+    static String getCacheKey(SearchResultCache cache, SearchClient searchClient,
+                              QueryRequest queryRequest) {
+        if (cache == null) {
+            return null;
+        }
+        try {
+            return searchClient.getCanonicalRequest(queryRequest);
+        } catch (SearchClientException | IOException | RuntimeException e) {
+            LOG.warn("couldn't build cache key; not caching", e);
+            return null;
+        }
+    }
+
+    /**
+     * A search that can be retried.
+     */
+    interface Search<T> {
+        T search() throws SearchClientException, IOException;
+    }
+
+    /**
+     * @param tries number of tries so far
+     * @return milliseconds to wait before the next try, or -1 if there
+     * are no tries left
+     */
+    static long getRetryDelay(int tries) {
+        return (tries < MAX_RETRIES) ? RETRY_BACKOFF_MS * tries : -1;
+    }
+
+    /**
+     * Tries the search up to {@link #MAX_RETRIES} times, backing off
+     * between tries.
+     *
+     * @param permits permits to hold while a search is running, or <code>null</code>
+     * @param description what is being searched for, for the logs
+     * @return the results or <code>null</code> if every try failed
+     */
+    static <T> T searchWithRetries(Search<T> search, Semaphore permits, Object description) {
+        int tries = 0;
+        while (true) {
+            tries++;
+            if (permits != null) {
+                permits.acquireUninterruptibly();
+            }
+            try {
+                return search.search();
+            } catch (SearchClientException | IOException e) {
+                LOG.warn("error getting results for: " + description, e);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+            long delay = getRetryDelay(tries);
+            if (delay < 0) {
+                return null;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the cached results if there are any, otherwise searches with
+     * retries and caches the results.
+     *
+     * @param cache can be <code>null</code>
+     * @param permits permits to hold while a search is running, or <code>null</code>
+     * @param description what is being searched for, for the logs
+     * @return the results or <code>null</code> if every try failed
+     */
+    static SearchResultSet search(SearchClient searchClient, QueryRequest queryRequest,
+                                  SearchResultCache cache, Semaphore permits,
+                                  Object description) throws SQLException {
+        String cacheKey = getCacheKey(cache, searchClient, queryRequest);
+        if (cacheKey != null) {
+            SearchResultSet cached = cache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SearchResultSet searchResultSet = searchWithRetries(
+                () -> searchClient.search(queryRequest), permits, description);
+        if (searchResultSet != null && cacheKey != null) {
+            cache.put(cacheKey, searchResultSet);
+        }
+        return searchResultSet;
+    }
+
+    static QueryRequest buildQueryRequest(Query query, Experiment experiment,
+                                          String idField, int maxRows) {
+        QueryRequest queryRequest = new QueryRequest(query, experiment.getCustomHandler(), idField);
+        queryRequest.addFieldsToRetrieve(idField);
+        if (experiment.getFilterQueries().size() > 0) {
+            queryRequest.addFilterQueries(experiment.getFilterQueries());
+        }
+        queryRequest.setNumResults(maxRows);
+        return queryRequest;
+    }
+
+    /**
+     * Resolves the judgments for the results once into <code>judgedResults</code>
+     * and then has every scorer read from that.
+     */
+    static void score(Judgments judgments, SearchResultSet searchResultSet,
+                      List<Scorer> scorers, JudgedResultList judgedResults) {
+        judgedResults.reset(judgments, searchResultSet);
+        for (Scorer scorer : scorers) {
+            if (scorer instanceof JudgmentScorer) {
+                ((JudgmentScorer) scorer).score(judgedResults);
+            } else if (scorer instanceof SearchResultSetScorer) {
+                ((SearchResultSetScorer) scorer).score(judgments.getQueryInfo(),
+                        searchResultSet);
+            } else {
+                throw new IllegalArgumentException("Scorer class not yet supported: "
+                        + scorer.getClass());
+            }
+        }
+    }
+
+    /**
+     * Sends queries with the non-blocking client, keeping up to
+     * <code>maxInFlight</code> requests outstanding at a time, and no more
+     * than <code>sharedInFlight</code> allows across runners.  Results
+     * are scored and written to the db by a single thread so that the
+     * db client is never shared.
+     */
+    static class AsyncQueryRunner {
+        private final String idField;
+        private final long sleep;
+        private final int maxRows;
+        private final int maxInFlight;
+        private final Experiment experiment;
+        private final List<Scorer> scorers;
+        private final SearchClient searchClient;
+        private final QueryRunnerDBClient dbClient;
+        private final SearchResultCache cache;//can be null
+        //reused for every query scored by this runner's single scoring thread
+        private final JudgedResultList judgedResults = new JudgedResultList();
+        private final Semaphore inFlight;
+        //shared with the other runners; held while a request is on the wire
+        private final Semaphore sharedInFlight;
+        private final ExecutorService scoringExecutor = Executors.newSingleThreadExecutor();
+        //resends failed requests after a backoff
+        private final ScheduledExecutorService retryExecutor =
+                Executors.newSingleThreadScheduledExecutor();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private int batched = 0;//only touched by the scoring thread
+
+        AsyncQueryRunner(String idField, long sleep, int maxRows, int maxInFlight,
+                         Semaphore sharedInFlight, Experiment experiment, ExperimentDB experimentDB,
+                         SearchResultCache cache, List<Scorer> scorers)
+                throws SQLException, IOException, SearchClientException {
+            this.idField = idField;
+            this.sleep = sleep;
+            this.maxRows = maxRows;
+            this.maxInFlight = maxInFlight;
+            this.experiment = experiment;
+            this.scorers = scorers;
+            this.searchClient =
+                    SearchClientFactory.getClient(experiment.getServerConnection());
+            this.dbClient = experimentDB.getQueryRunnerDBClient(scorers);
+            this.cache = cache;
+            this.inFlight = new Semaphore(maxInFlight);
+            this.sharedInFlight = sharedInFlight;
+        }
+
+        void run(List<Judgments> judgmentsList) throws IOException, SQLException {
+            try {
+                for (Judgments judgments : judgmentsList) {
+                    inFlight.acquire();
+                    //experiment.getQuery() returns a deep copy, so each
+                    //request gets its own query
+                    Query query = experiment.getQuery();
+                    query.setQueryStrings(judgments.getQueryStrings());
+                    QueryRequest queryRequest = buildQueryRequest(query, experiment,
+                            idField, maxRows);
+                    String cacheKey = getCacheKey(cache, searchClient, queryRequest);
+                    SearchResultSet cached = (cacheKey == null) ? null : cache.get(cacheKey);
+                    if (cached != null) {
+                        submitScoring(judgments, cached, null);
+                        continue;
+                    }
+                    sharedInFlight.acquire();
+                    send(judgments, queryRequest, cacheKey, 0);
+                    if (sleep > 0) {
+                        Thread.sleep(sleep);
+                    }
+                }
+                //wait for everything to land
+                inFlight.acquire(maxInFlight);
+                scoringExecutor.shutdown();
+                //every scoring task has released its permit, so this should be immediate
+                if (! scoringExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    throw new RuntimeException("timed out waiting for the scoring of " +
+                            experiment.getName() + " to finish");
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                retryExecutor.shutdownNow();
+                scoringExecutor.shutdownNow();
+                try {
+                    dbClient.close();
+                } finally {
+                    LOG.debug("async runner processed " + processed.get() + " queries with " +
+                            failed.get() + " failures for " + experiment.getName());
+                }
+            }
+        }
+
+        private void send(Judgments judgments, QueryRequest queryRequest,
+                          String cacheKey, int tries) {
+            searchClient.searchAsync(queryRequest).whenComplete((searchResultSet, t) -> {
+                if (t != null) {
+                    LOG.warn("error getting results for: "
+                            + judgments.getQueryStrings(), t);
+                    long delay = getRetryDelay(tries + 1);
+                    if (delay >= 0) {
+                        try {
+                            retryExecutor.schedule(
+                                    () -> send(judgments, queryRequest, cacheKey, tries + 1),
+                                    delay, TimeUnit.MILLISECONDS);
+                            return;
+                        } catch (RejectedExecutionException e) {
+                            //the runner is shutting down
+                        }
+                    }
+                    giveUp(judgments);
+                    return;
+                }
+                sharedInFlight.release();
+                submitScoring(judgments, searchResultSet, cacheKey);
+            });
+        }
+
+        private void giveUp(Judgments judgments) {
+            LOG.warn("failed to get results for: " +
+                    judgments.getQueryStrings() + ". Ignoring this query.");
+            failed.incrementAndGet();
+            sharedInFlight.release();
+            inFlight.release();
+        }
+
+        int getFailed() {
+            return failed.get();
+        }
+
+        /**
+         * scores on the scoring thread and releases the permit
+         */
+        private void submitScoring(Judgments judgments, SearchResultSet searchResultSet,
+                                   String cacheKey) {
+            try {
+                scoringExecutor.execute(() -> {
+                    try {
+                        if (cacheKey != null) {
+                            cache.put(cacheKey, searchResultSet);
+                        }
+                        scoreAndStore(judgments, searchResultSet);
+                    } catch (SQLException | RuntimeException e) {
+                        LOG.warn("problem scoring: " + judgments.getQueryStrings(), e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+            }
+        }
+
+        private void scoreAndStore(Judgments judgments, SearchResultSet searchResultSet)
+                throws SQLException {
+            dbClient.insertSearchResults(judgments.getQueryInfo(),
+                    experiment.getName(), searchResultSet);
+            score(judgments, searchResultSet, scorers, judgedResults);
+            dbClient.insertScores(judgments.getQueryInfo(), experiment.getName(), scorers);
+            processed.incrementAndGet();
+            if (batched++ > 100) {
+                batched = 0;
+                dbClient.executeBatch();
+            }
+        }
+    }
+
+
+    void reportFinal(ExperimentDB experimentDB, String testPrefix, Scorer testScorer, int num)
+            throws SQLException {
+
+        System.out.println("--------------------------------");
+        System.out.println("FINAL RESULTS ON TESTING:");
+        List<ExperimentNameScorePair> scores = experimentDB.getNBestExperimentNames(
+                testPrefix, num, testScorer.getPrimaryStatisticName());
+
+        SummaryStatistics summaryStatistics = new SummaryStatistics();
+        double[] vals = new double[scores.size()];
+        int i = 0;
+        for (ExperimentNameScorePair esp : scores) {
+            System.out.println("experiment '" + esp.getExperimentName() + "': "
+                    + threePlaces.format(esp.getScore()));
+            vals[i++] = esp.getScore();
+            summaryStatistics.addValue(esp.getScore());
+        }
+        if (scores.size() > 1) {
+            Median median = new Median();
+            median.setData(vals);
+            System.out.println("");
+
+            System.out.println("mean: " +
+                    threePlaces.format(summaryStatistics.getMean()));
+            System.out.println("median: " +
+                    threePlaces.format(median.evaluate()));
+            System.out.println("stdev:" +
+                    threePlaces.format(summaryStatistics.getStandardDeviation()));
+        }
+    }
 
     ////////////DUMP RESULTS
     static void dumpResults(ExperimentSet experimentSet, ExperimentDB experimentDB,
                             List<String> querySets,
                             List<Scorer> scorers, Path outputDir, boolean isTest) throws Exception {
+        dumpResults(experimentSet, experimentDB, querySets, scorers, new SignificanceMatrix(),
+                outputDir, isTest);
+    }
+
+    static void dumpResults(ExperimentSet experimentSet, ExperimentDB experimentDB,
+                            List<String> querySets, List<Scorer> scorers,
+                            SignificanceMatrix significanceMatrix,
+                            Path outputDir, boolean isTest) throws Exception {
         if (!Files.isDirectory(outputDir)) {
             Files.createDirectories(outputDir);
         }
@@ -525,11 +1302,12 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         }
         if (querySets.size() > 0) {
             for (String querySet : querySets) {
-                dumpSignificanceMatrices(querySet, scorers, experimentDB, outputDir);
+                dumpSignificanceMatrices(querySet, scorers, experimentDB,
+                        significanceMatrix, outputDir);
             }
         }
         //now dump across all query sets
-        dumpSignificanceMatrices("", scorers, experimentDB, outputDir);
+        dumpSignificanceMatrices("", scorers, experimentDB, significanceMatrix, outputDir);
 
 
     }
@@ -569,8 +1347,8 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
     private static void dumpSignificanceMatrices(String querySet,
                                                  List<Scorer> targetScorers,
                                                  ExperimentDB experimentDB,
+                                                 SignificanceMatrix significanceMatrix,
                                                  Path outputDir) throws Exception {
-        TTest tTest = new TTest();
         for (Scorer scorer : targetScorers) {
             if (scorer instanceof AbstractJudgmentScorer &&
                     ((AbstractJudgmentScorer) scorer).getExportPMatrix()) {
@@ -580,13 +1358,14 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                 Map<String, Double> sorted = MapUtil.sortByDescendingValue(aggregatedScores);
                 List<String> experiments = new ArrayList();
                 experiments.addAll(sorted.keySet());
-                writeMatrix(tTest, (AbstractJudgmentScorer) scorer,
+                writeMatrix(significanceMatrix, (AbstractJudgmentScorer) scorer,
                         querySet, experiments, experimentDB, outputDir);
             }
         }
     }
 
-    private static void writeMatrix(TTest tTest, AbstractJudgmentScorer scorer,
+    private static void writeMatrix(SignificanceMatrix significanceMatrix,
+                                    AbstractJudgmentScorer scorer,
                                     String querySet,
                                     List<String> experiments,
                                     ExperimentDB experimentDB,
@@ -599,6 +1378,13 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         for (int i = 0; i < experiments.size() && i < MAX_MATRIX_COLS; i++) {
             matrixExperiments.add(experiments.get(i));
         }
+        //load the scores once, aligned by query, and calculate all pairs before writing
+        double[][] scores = experimentDB.getScoreMatrix(querySet,
+                matrixExperiments, scorer.getName());
+        if (scores.length > 0 && scores[0].length < 2) {
+            LOG.warn("too few examples for significance tests; reporting -1");
+        }
+        double[][] pValues = significanceMatrix.calculate(scores);
         try (BufferedWriter writer = Files.newBufferedWriter(outputDir.resolve(fileName))) {
 
             for (String experiment : matrixExperiments) {
@@ -608,22 +1394,12 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
             writer.write("\n");
 
             for (int i = 0; i < matrixExperiments.size(); i++) {
-                String experimentA = matrixExperiments.get(i);
-                writer.write(experimentA);
+                writer.write(matrixExperiments.get(i));
                 for (int k = 0; k <= i; k++) {
                     writer.write(",");
                 }
-                writer.write(String.format(Locale.US, "%.3G", 1.0d) + ",");//p-value of itself
-                //map of query -> score for experiment A given this particular scorer
-                Map<String, Double> scoresA = experimentDB.getScores(querySet,
-                        experimentA, scorer.getName());
-                for (int j = i + 1; j < matrixExperiments.size(); j++) {
-                    String experimentB = matrixExperiments.get(j);
-                    double significance =
-                            calcSignificance(tTest, querySet, scoresA,
-                                    experimentA, experimentB,
-                            scorer.getName(), experimentDB);
-                    writer.write(String.format(Locale.US, "%.3G", significance));
+                for (int j = i; j < matrixExperiments.size(); j++) {
+                    writer.write(String.format(Locale.US, "%.3G", pValues[i][j]));
                     writer.write(",");
                 }
                 writer.write("\n");
@@ -631,45 +1407,6 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         }
     }
 
-    private static double calcSignificance(TTest tTest, String querySet,
-                                           Map<String, Double> scoresA, String experimentA,
-                                           String experimentB, String scorer,
-                                           ExperimentDB experimentDB) throws SQLException {
-
-        Map<String, Double> scoresB = experimentDB.getScores(querySet, experimentB, scorer);
-        if (scoresA.size() != scoresB.size()) {
-            //log
-            LOG.warn("Different number of scores for " +
-                    experimentA + "(" + scoresA.size() +
-                    ") vs. " + experimentB + "(" + scoresB.size() + ")");
-        }
-        double[] arrA = new double[scoresA.size()];
-        double[] arrB = new double[scoresB.size()];
-
-        int i = 0;
-        for (String query : scoresA.keySet()) {
-            Double scoreA = scoresA.get(query);
-            Double scoreB = scoresB.get(query);
-            if (scoreA == null || scoreA < 0) {
-                scoreA = 0.0d;
-            }
-            if (scoreB == null || scoreB < 0) {
-                scoreB = 0.0d;
-            }
-            arrA[i] = scoreA;
-            arrB[i] = scoreB;
-            i++;
-        }
-//        WilcoxonSignedRankTest w = new WilcoxonSignedRankTest();
-        //      w.wilcoxonSignedRankTest()
-        if (arrA.length < 2) {
-            LOG.warn("too few examples for t-test; returning -1");
-            return -1;
-        }
-        return tTest.tTest(arrA, arrB);
-
-    }
-
     private static void writeHeaders(ResultSetMetaData metaData, BufferedWriter writer)
             throws Exception {
         for (int i = 1; i <= metaData.getColumnCount(); i++) {
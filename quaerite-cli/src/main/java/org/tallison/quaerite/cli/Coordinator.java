@@ -0,0 +1,426 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.util.CommandLineUtil;
+import org.tallison.quaerite.db.ExperimentDB;
+
+/**
+ * Splits experiments into leases of (experiment, batch of queries) and
+ * hands them out to {@link RunWorker}s, which run the searches with their
+ * own search clients and send back the results.  The coordinator is the
+ * only process that scores and writes to the {@link ExperimentDB}.
+ * <p>
+ * A lease that isn't returned within the lease timeout is handed out
+ * again, so a dead worker only costs the timeout; if the original worker
+ * returns it after all, the first set of results wins.
+ * <p>
+ * The protocol is one line of json per request and one line of json per
+ * response, one request per connection.  Every request has to carry the
+ * coordinator's shared token.  The coordinator listens on the loopback
+ * address unless it is told to bind to another one.  The search server's
+ * credentials are stripped from the experiments in the leases; workers
+ * supply their own.
+ */
+class Coordinator implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(Coordinator.class);
+
+    static final int DEFAULT_LEASE_SIZE = 20;
+    static final long DEFAULT_LEASE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    //how long to keep answering workers with DONE after the last experiment
+    private static final long DONE_GRACE_MILLIS = 3000;
+    private static final int SOCKET_TIMEOUT_MILLIS = 60000;
+
+    private static final Gson GSON = new GsonBuilder().create();
+
+    enum Status {
+        LEASE, WAIT, DONE, OK, DENIED
+    }
+
+    private final ServerSocket serverSocket;
+    private final byte[] token;
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final int leaseSize;
+    private final long leaseTimeoutMillis;
+    private final AtomicInteger leaseIds = new AtomicInteger();
+
+    //all guarded by this
+    private final Deque<Lease> pending = new ArrayDeque<>();
+    //leases that haven't been returned yet, by id
+    private final Map<String, Lease> leases = new HashMap<>();
+    private final Map<String, WorkerStats> workers = new TreeMap<>();
+    private final Set<String> toldDone = new HashSet<>();
+    private int reissued = 0;
+    private boolean finished = false;
+
+    Coordinator(int port, InetAddress bindAddress, String token) throws IOException {
+        this(port, bindAddress, token, DEFAULT_LEASE_SIZE, DEFAULT_LEASE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param port port to listen on; 0 picks a free port
+     * @param bindAddress address to listen on; <code>null</code> for the loopback address
+     * @param token token that the workers have to send with each request
+     */
+    Coordinator(int port, InetAddress bindAddress, String token,
+                int leaseSize, long leaseTimeoutMillis) throws IOException {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("the coordinator needs a token");
+        }
+        this.serverSocket = new ServerSocket(port, 50,
+                (bindAddress == null) ? InetAddress.getLoopbackAddress() : bindAddress);
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.leaseSize = leaseSize;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        executorService.execute(this::accept);
+        LOG.info("coordinator listening on " + serverSocket.getInetAddress().getHostAddress() +
+                ":" + getPort());
+    }
+
+    /**
+     * @return a coordinator configured by the <code>-coordinator</code>, <code>-bind</code>
+     * and <code>-token</code> options, or <code>null</code> if there's no
+     * <code>-coordinator</code> option.  If there's no <code>-token</code>,
+     * a random one is generated and logged.
+     */
+    static Coordinator fromCommandLine(CommandLine commandLine) throws IOException {
+        if (!commandLine.hasOption("coordinator")) {
+            return null;
+        }
+        InetAddress bindAddress = commandLine.hasOption("bind") ?
+                InetAddress.getByName(commandLine.getOptionValue("bind")) : null;
+        String token = commandLine.getOptionValue("token");
+        if (token == null) {
+            byte[] bytes = new byte[16];
+            new SecureRandom().nextBytes(bytes);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format(Locale.US, "%02x", b));
+            }
+            token = sb.toString();
+            LOG.info("start the workers with -token " + token);
+        }
+        return new Coordinator(CommandLineUtil.getInt(commandLine, "coordinator", -1),
+                bindAddress, token);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Queues the experiment's queries as leases, except, if <code>resume</code>
+     * is set, for the queries that an interrupted run of the experiment already
+     * stored results for.  The scorers are copied, so the caller's scorers are left untouched.
+     *
+     * @return a future that completes with the experiment's scorers after
+     * its aggregated scores have been written to the db
+     */
+    CompletableFuture<List<Scorer>> submit(Experiment experiment, List<Scorer> scorers,
+                                           String idField, int maxRows,
+                                           List<Judgments> judgmentsList,
+                                           ExperimentDB experimentDB, boolean resume)
+            throws SQLException, IOException {
+        List<Scorer> runScorers = ExperimentScheduler.copy(scorers);
+        List<Judgments> toRun = AbstractExperimentRunner.startRun(experiment.getName(),
+                runScorers, experimentDB, judgmentsList, resume);
+        ExperimentScheduler.ExperimentRun run = new ExperimentScheduler.ExperimentRun(
+                experiment, runScorers, idField, maxRows, toRun.size(), experimentDB);
+        if (toRun.isEmpty()) {
+            run.complete();
+            return run.getFuture();
+        }
+        //the workers supply their own credentials
+        Experiment leased = experiment.deepCopy();
+        leased.setServerConnection(new ServerConnection(experiment.getServerConnection().getURL()));
+        String experimentJson = leased.toJson();
+        synchronized (this) {
+            for (int start = 0; start < toRun.size(); start += leaseSize) {
+                Lease lease = new Lease("lease_" + leaseIds.getAndIncrement(), run,
+                        experimentJson, toRun.subList(start,
+                        Math.min(start + leaseSize, toRun.size())));
+                pending.add(lease);
+                leases.put(lease.id, lease);
+            }
+        }
+        return run.getFuture();
+    }
+
+    synchronized int getReissued() {
+        return reissued;
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executorService.execute(() -> handle(socket));
+            } catch (SocketException e) {
+                //closed
+                return;
+            } catch (IOException e) {
+                LOG.warn("problem accepting a worker connection", e);
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            s.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            Request request = GSON.fromJson(reader.readLine(), Request.class);
+            Response response;
+            if (request == null || request.token == null || !MessageDigest.isEqual(token,
+                    request.token.getBytes(StandardCharsets.UTF_8))) {
+                LOG.warn("denying a request without a valid token from " +
+                        s.getInetAddress().getHostAddress());
+                response = new Response(Status.DENIED);
+            } else if (request.leaseId == null) {
+                response = nextLease(request.worker);
+            } else {
+                complete(request);
+                response = new Response(Status.OK);
+            }
+            Writer writer = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(GSON.toJson(response));
+            writer.write("\n");
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("problem handling a worker request", e);
+        }
+    }
+
+    private synchronized Response nextLease(String worker) {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            if (lease.worker != null && lease.deadline < now) {
+                LOG.warn("re-issuing " + lease.id + " for " + lease.run.getExperiment().getName() +
+                        "; worker " + lease.worker + " didn't return it in time");
+                workers.get(lease.worker).expired++;
+                lease.worker = null;
+                pending.addFirst(lease);
+                reissued++;
+            }
+        }
+        WorkerStats stats = workers.computeIfAbsent(worker, k -> new WorkerStats());
+        Lease lease = pending.poll();
+        if (lease == null) {
+            if (finished && leases.isEmpty()) {
+                toldDone.add(worker);
+                notifyAll();
+                return new Response(Status.DONE);
+            }
+            return new Response(Status.WAIT);
+        }
+        lease.worker = worker;
+        lease.deadline = now + leaseTimeoutMillis;
+        if (stats.leases++ == 0) {
+            stats.firstLease = now;
+        }
+        Response response = new Response(Status.LEASE);
+        response.leaseId = lease.id;
+        response.experiment = lease.experimentJson;
+        response.idField = lease.run.getIdField();
+        response.maxRows = lease.run.getMaxRows();
+        response.queries = new LinkedHashMap<>();
+        for (Judgments judgments : lease.judgmentsList) {
+            response.queries.put(judgments.getQueryInfo().getQueryId(), judgments.getQueryStrings());
+        }
+        return response;
+    }
+
+    private void complete(Request request) {
+        Lease lease;
+        synchronized (this) {
+            lease = leases.remove(request.leaseId);
+            if (lease == null) {
+                LOG.debug("ignoring late results for " + request.leaseId + " from " +
+                        request.worker);
+                return;
+            }
+            //it may have timed out and be waiting to be handed out again
+            pending.remove(lease);
+            WorkerStats stats = workers.computeIfAbsent(request.worker,
+                    k -> new WorkerStats());
+            stats.queries += lease.judgmentsList.size();
+            stats.lastResult = System.currentTimeMillis();
+        }
+        for (Judgments judgments : lease.judgmentsList) {
+            try {
+                SearchResultSet searchResultSet = (request.results == null) ? null :
+                        request.results.get(judgments.getQueryInfo().getQueryId());
+                if (searchResultSet == null) {
+                    LOG.warn("worker " + request.worker + " failed to get results for: " +
+                            judgments.getQueryStrings() + ". Ignoring this query.");
+                } else {
+                    lease.run.scoreAndStore(judgments, searchResultSet);
+                }
+            } catch (SQLException | RuntimeException e) {
+                LOG.warn("problem scoring: " + judgments.getQueryStrings(), e);
+            } finally {
+                lease.run.queryDone();
+            }
+        }
+    }
+
+    /**
+     * Tells the workers that there's no more work, logs each worker's
+     * throughput and stops listening.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            finished = true;
+            long end = System.currentTimeMillis() + DONE_GRACE_MILLIS;
+            try {
+                while (toldDone.size() < workers.size() && System.currentTimeMillis() < end) {
+                    wait(Math.max(1, end - System.currentTimeMillis()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Map.Entry<String, WorkerStats> e : workers.entrySet()) {
+                LOG.info("worker " + e.getKey() + ": " + e.getValue());
+            }
+        }
+        serverSocket.close();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Sends a request to the coordinator and returns its response.
+     */
+    static Response exchange(String host, int port, Request request) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            writer.write(GSON.toJson(request));
+            writer.write("\n");
+            writer.flush();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("coordinator closed the connection");
+            }
+            return GSON.fromJson(line, Response.class);
+        }
+    }
+
+    /**
+     * Asks for a lease if <code>leaseId</code> is <code>null</code>;
+     * otherwise returns the results of that lease, keyed by query id.
+     */
+    static class Request {
+        String token;
+        String worker;
+        String leaseId;
+        Map<String, SearchResultSet> results;
+    }
+
+    static class Response {
+        Status status;
+        String leaseId;
+        String experiment;
+        String idField;
+        int maxRows;
+        //query id -> query strings
+        Map<String, QueryStrings> queries;
+
+        Response(Status status) {
+            this.status = status;
+        }
+    }
+
+    private static class Lease {
+        private final String id;
+        private final ExperimentScheduler.ExperimentRun run;
+        private final String experimentJson;
+        private final List<Judgments> judgmentsList;
+        private String worker;
+        private long deadline;
+
+        Lease(String id, ExperimentScheduler.ExperimentRun run, String experimentJson,
+                List<Judgments> judgmentsList) {
+            this.id = id;
+            this.run = run;
+            this.experimentJson = experimentJson;
+            this.judgmentsList = new ArrayList<>(judgmentsList);
+        }
+    }
+
+    private static class WorkerStats {
+        private int leases;
+        private int expired;
+        private long queries;
+        private long firstLease;
+        private long lastResult;
+
+        @Override
+        public String toString() {
+            double seconds = (lastResult - firstLease) / 1000.0;
+            return "leases=" + leases + ", expired=" + expired + ", queries=" + queries +
+                    ", seconds=" + seconds + ", queries/second=" +
+                    ((seconds > 0) ? String.format(Locale.US, "%.2f",
+                            queries / seconds) : "n/a");
+        }
+    }
+}
@@ -42,9 +42,13 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.BulkIndexer;
+import org.tallison.quaerite.connectors.RawDocumentFilter;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.connectors.SolrClient;
+import org.tallison.quaerite.core.RawDocument;
 import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.queries.LuceneQuery;
 import org.tallison.quaerite.core.queries.Query;
@@ -102,6 +106,22 @@ public class CopyIndex extends AbstractCLI {
                         .required(false)
                         .desc("batch size; default: " + BATCH_SIZE).build()
         );
+        OPTIONS.addOption(
+                Option.builder("export")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("Solr only: stream ids with the /export handler; " +
+                                "requires docValues on the id field").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("raw")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("pass the source documents' json through without decoding it; " +
+                                "only the id field is renamed and include/exclude fields are applied. " +
+                                "Unlike the default, blank values and nested objects " +
+                                "are copied as is").build()
+        );
         OPTIONS.addOption(
                 Option.builder("n")
                         .longOpt("numThreads")
@@ -113,6 +133,8 @@ public class CopyIndex extends AbstractCLI {
 
     private int numThreads = NUM_THREADS;
     private int batchSize = BATCH_SIZE;
+    private boolean useExport = false;
+    private boolean raw = false;
 
     public static void main(String[] args) throws Exception {
         CommandLine commandLine = null;
@@ -150,6 +172,13 @@ public class CopyIndex extends AbstractCLI {
         }
         copyIndex.setNumThreads(getInt(commandLine, "numThreads", NUM_THREADS));
         copyIndex.setBatchSize(getInt(commandLine, "b", BATCH_SIZE));
+        if (commandLine.hasOption("export")) {
+            if (!(srcClient instanceof SolrClient)) {
+                throw new IllegalArgumentException("-export is only supported for Solr");
+            }
+            copyIndex.setUseExport(true);
+        }
+        copyIndex.setRaw(commandLine.hasOption("raw"));
 
         copyIndex.execute(srcClient, destClient, filterQueries, includeFields,
                 excludeFields);
@@ -173,6 +202,14 @@ public class CopyIndex extends AbstractCLI {
         this.batchSize = batchSize;
     }
 
+    private void setUseExport(boolean useExport) {
+        this.useExport = useExport;
+    }
+
+    private void setRaw(boolean raw) {
+        this.raw = raw;
+    }
+
     private static Set<String> splitComma(String s) {
         if (StringUtils.isBlank(s)) {
             return Collections.EMPTY_SET;
@@ -196,14 +233,30 @@ public class CopyIndex extends AbstractCLI {
         String srcIdField = srcClient.getDefaultIdField();
         String destIdField = destClient.getDefaultIdField();
 
-        executorCompletionService.submit(srcClient.getIdGrabber(idQueue,
-                batchSize, numThreads, filterQueries));
+        if (useExport) {
+            executorCompletionService.submit(((SolrClient) srcClient).getExportIdGrabber(idQueue,
+                    batchSize, numThreads, filterQueries));
+        } else {
+            executorCompletionService.submit(srcClient.getIdGrabber(idQueue,
+                    batchSize, numThreads, filterQueries));
+        }
 
-        for (int i = 0; i < numThreads; i++) {
-            executorCompletionService.submit(new Copier(
-                    idQueue, srcClient, destClient,
-                    includeFields, excludeFields));
+        //shared by the copiers so that batches are sized by bytes across threads;
+        //closed after the copiers have been shut down, even if copying failed
+        try (BulkIndexer bulkIndexer = destClient.getBulkIndexer()) {
+            for (int i = 0; i < numThreads; i++) {
+                executorCompletionService.submit(new Copier(
+                        idQueue, srcClient, destClient, bulkIndexer,
+                        includeFields, excludeFields, raw));
+            }
+            waitForCopiers(executorService, executorCompletionService, numThreads);
         }
+    }
+
+    private static void waitForCopiers(ExecutorService executorService,
+                                       ExecutorCompletionService<Integer>
+                                               executorCompletionService,
+                                       int numThreads) {
         int finished = 0;
         try {
             while (finished < numThreads + 1) {
@@ -228,8 +281,9 @@ public class CopyIndex extends AbstractCLI {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
         }
-        executorService.shutdownNow();
     }
 
     private static class Copier implements Callable<Integer> {
@@ -237,22 +291,26 @@ public class CopyIndex extends AbstractCLI {
         private final String destIdField;
         private final ArrayBlockingQueue<Set<String>> ids;
         private final SearchClient src;
-        private final SearchClient dest;
+        private final BulkIndexer bulkIndexer;
         private final Set<String> includeFields;
         private final Set<String> excludeFields;
+        private final RawDocumentFilter rawDocumentFilter;
         private int totalDocs = 0;
 
         private Copier(ArrayBlockingQueue<Set<String>> ids,
-                       SearchClient src, SearchClient dest,
-                       Set<String> includeFields, Set<String> excludeFields)
+                       SearchClient src, SearchClient dest, BulkIndexer bulkIndexer,
+                       Set<String> includeFields, Set<String> excludeFields,
+                       boolean raw)
                 throws IOException, SearchClientException {
             this.srcIdField = src.getDefaultIdField();
             this.destIdField = dest.getDefaultIdField();
             this.ids = ids;
             this.src = src;
-            this.dest = dest;
+            this.bulkIndexer = bulkIndexer;
             this.includeFields = includeFields;
             this.excludeFields = excludeFields;
+            this.rawDocumentFilter = raw ? new RawDocumentFilter(includeFields, excludeFields,
+                    srcIdField, destIdField, dest.requiresIdInDocument()) : null;
         }
 
         @Override
@@ -264,6 +322,16 @@ public class CopyIndex extends AbstractCLI {
                 if (myIds.size() == 0) {
                     return totalDocs;
                 }
+                if (rawDocumentFilter != null) {
+                    List<RawDocument> docs = src.getRawDocs(srcIdField, myIds,
+                            includeFields, rawDocumentFilter);
+                    for (RawDocument d : docs) {
+                        bulkIndexer.addRaw(d);
+                    }
+                    totalDocs += docs.size();
+                    LOG.debug("inserted : " + totalDocs);
+                    continue;
+                }
                 List<StoredDocument> docs = src.getDocs(srcIdField, myIds,
                         includeFields, excludeFields);
                 if (!srcIdField.equals(destIdField)) {
@@ -271,8 +339,9 @@ public class CopyIndex extends AbstractCLI {
                         d.rename(srcIdField, destIdField);
                     }
                 }
-
-                dest.addDocuments(docs);
+                for (StoredDocument d : docs) {
+                    bulkIndexer.add(d);
+                }
                 LOG.debug("inserted : " + totalDocs);
                 totalDocs += docs.size();
             }
@@ -17,6 +17,10 @@
  */
 package org.tallison.quaerite.cli;
 
+import static org.tallison.quaerite.core.util.CommandLineUtil.getInt;
+import static org.tallison.quaerite.core.util.CommandLineUtil.getLong;
+import static org.tallison.quaerite.core.util.CommandLineUtil.getString;
+
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -34,6 +38,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.stats.SignificanceMatrix;
 import org.tallison.quaerite.db.ExperimentDB;
 
 public class DumpResults extends AbstractExperimentRunner {
@@ -71,6 +76,30 @@ public class DumpResults extends AbstractExperimentRunner {
                         .desc("scorers to dump in statistical " +
                                 "significance matrices (comma-delimited)").build()
         );
+        OPTIONS.addOption(
+                Option.builder("sig")
+                        .longOpt("significanceTest")
+                        .hasArg()
+                        .required(false)
+                        .desc("significance test for the matrices: ttest, bootstrap " +
+                                "or randomization (optional; default: ttest)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("resamples")
+                        .hasArg()
+                        .required(false)
+                        .desc("number of resamples for the bootstrap and randomization " +
+                                "tests (optional; default: " +
+                                SignificanceMatrix.DEFAULT_RESAMPLES + ")").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("seed")
+                        .hasArg()
+                        .required(false)
+                        .desc("random seed for the bootstrap and randomization " +
+                                "tests (optional; default: " +
+                                SignificanceMatrix.DEFAULT_SEED + ")").build()
+        );
     }
 
     public DumpResults() {
@@ -88,7 +117,7 @@ public class DumpResults extends AbstractExperimentRunner {
                     OPTIONS);
             return;
         }
-        Path outputDir = Paths.get(commandLine.getOptionValue("d"));
+        Path outputDir = Paths.get(getString(commandLine, "r", DEFAULT_REPORT_DIR));
         Path dbDir = Paths.get(commandLine.getOptionValue("db"));
         Set<String> scorers = new TreeSet<>();
         if (commandLine.hasOption("s")) {
@@ -103,6 +132,10 @@ public class DumpResults extends AbstractExperimentRunner {
         } else {
             querySets.add("");
         }
+        SignificanceMatrix significanceMatrix = new SignificanceMatrix(
+                SignificanceMatrix.parseTest(getString(commandLine, "sig", "ttest")),
+                getInt(commandLine, "resamples", SignificanceMatrix.DEFAULT_RESAMPLES),
+                getLong(commandLine, "seed", SignificanceMatrix.DEFAULT_SEED));
         Files.createDirectories(outputDir);
         List<Scorer> targetScorers = new ArrayList<>();
         try (ExperimentDB experimentDB = ExperimentDB.open(dbDir)) {
@@ -116,7 +149,7 @@ public class DumpResults extends AbstractExperimentRunner {
                 }
             }
             dumpResults(experimentDB.getExperiments(), experimentDB,
-                    querySets, targetScorers, outputDir, false);
+                    querySets, targetScorers, significanceMatrix, outputDir, false);
         }
     }
 }
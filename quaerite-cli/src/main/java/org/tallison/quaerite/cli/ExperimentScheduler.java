@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.queries.Query;
+import org.tallison.quaerite.core.scorers.JudgedResultList;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.serializers.ScorerListSerializer;
+import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.QueryRunnerDBClient;
+import org.tallison.quaerite.db.SearchResultCache;
+
+/**
+ * Runs many experiments as one stream of (experiment, query) tasks
+ * over a single, long-lived pool of threads so that the pool never drains
+ * at the end of an experiment while the next one waits to start.
+ * <p>
+ * Each submitted experiment gets its own copy of the scorers and its own
+ * db client.  Searches run concurrently, but an experiment's scoring and
+ * inserts are serialized on that experiment's {@link ExperimentRun}, so the
+ * scorers are never shared across experiments and never reset while
+ * another experiment is still scoring.  As soon as an experiment's last query
+ * lands, its scores are aggregated into the db and its future completes.
+ */
+class ExperimentScheduler implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(ExperimentScheduler.class);
+
+    private final ExecutorService executorService;
+    private final long sleep;
+    private final SearchResultCache cache;//can be null
+
+    ExperimentScheduler(int numThreads, long sleep, SearchResultCache cache) {
+        this.executorService = Executors.newFixedThreadPool(numThreads);
+        this.sleep = sleep;
+        this.cache = cache;
+    }
+
+    /**
+     * Queues one task per query in <code>judgmentsList</code>, except, if
+     * <code>resume</code> is set, for the queries that an interrupted run of the
+     * experiment already stored results for.  The scorers are copied, so the
+     * caller's scorers are left untouched.
+     *
+     * @return a future that completes with the experiment's scorers after
+     * its aggregated scores have been written to the db
+     */
+    CompletableFuture<List<Scorer>> submit(Experiment experiment, List<Scorer> scorers,
+                                           String idField, int maxRows,
+                                           List<Judgments> judgmentsList,
+                                           ExperimentDB experimentDB, boolean resume)
+            throws SQLException, IOException {
+        List<Scorer> runScorers = copy(scorers);
+        List<Judgments> toRun = AbstractExperimentRunner.startRun(experiment.getName(),
+                runScorers, experimentDB, judgmentsList, resume);
+        ExperimentRun run = new ExperimentRun(experiment, runScorers, idField, maxRows,
+                toRun.size(), experimentDB);
+        if (toRun.isEmpty()) {
+            run.complete();
+            return run.future;
+        }
+        int queued = 0;
+        for (Judgments judgments : toRun) {
+            try {
+                executorService.execute(() -> runQuery(run, judgments));
+                queued++;
+            } catch (RejectedExecutionException e) {
+                run.abandon(toRun.size() - queued, e);
+                break;
+            }
+        }
+        return run.future;
+    }
+
+    private void runQuery(ExperimentRun run, Judgments judgments) {
+        try {
+            //experiment.getQuery() returns a deep copy, so each task gets its own query
+            Query query = run.experiment.getQuery();
+            query.setQueryStrings(judgments.getQueryStrings());
+            QueryRequest queryRequest = AbstractExperimentRunner.buildQueryRequest(query,
+                    run.experiment, run.idField, run.maxRows);
+            SearchResultSet searchResultSet = search(run.experiment, queryRequest, judgments);
+            if (searchResultSet != null) {
+                run.scoreAndStore(judgments, searchResultSet);
+            }
+            if (sleep > 0) {
+                Thread.sleep(sleep);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.warn("problem running " + judgments.getQueryStrings() + " for " +
+                    run.experiment.getName(), e);
+        } finally {
+            run.queryDone();
+        }
+    }
+
+    /**
+     * @return the results from the cache or the search server, or
+     * <code>null</code> if the search failed after retries
+     */
+    SearchResultSet search(Experiment experiment, QueryRequest queryRequest,
+                           Judgments judgments)
+            throws IOException, SQLException, SearchClientException {
+        //shared, thread safe client
+        SearchClient searchClient =
+                SearchClientFactory.getClient(experiment.getServerConnection());
+        SearchResultSet searchResultSet = AbstractExperimentRunner.search(searchClient,
+                queryRequest, cache, null, judgments.getQueryStrings());
+        if (searchResultSet == null) {
+            LOG.warn("failed to get results for: " +
+                    judgments.getQueryStrings() + ". Ignoring this query.");
+        }
+        return searchResultSet;
+    }
+
+    static List<Scorer> copy(List<Scorer> scorers) {
+        return ScorerListSerializer.fromJsonList(ScorerListSerializer.toJson(scorers));
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * The state of one experiment.  Everything that touches the scorers or
+     * the db client is synchronized on the run.
+     */
+    static class ExperimentRun {
+        private final Experiment experiment;
+        private final List<Scorer> scorers;
+        private final String idField;
+        private final int maxRows;
+        private final AtomicInteger remaining;
+        private final ExperimentDB experimentDB;
+        private final QueryRunnerDBClient dbClient;
+        private final JudgedResultList judgedResults = new JudgedResultList();
+        private final CompletableFuture<List<Scorer>> future = new CompletableFuture<>();
+        private int batched = 0;
+        //set if some of the queries couldn't be queued
+        private volatile Throwable abandoned;
+
+        ExperimentRun(Experiment experiment, List<Scorer> scorers, String idField,
+                      int maxRows, int queries, ExperimentDB experimentDB)
+                throws SQLException {
+            this.experiment = experiment;
+            this.scorers = scorers;
+            this.idField = idField;
+            this.maxRows = maxRows;
+            this.remaining = new AtomicInteger(queries);
+            this.experimentDB = experimentDB;
+            this.dbClient = experimentDB.getQueryRunnerDBClient(scorers);
+        }
+
+        synchronized void scoreAndStore(Judgments judgments, SearchResultSet searchResultSet)
+                throws SQLException {
+            dbClient.insertSearchResults(judgments.getQueryInfo(),
+                    experiment.getName(), searchResultSet);
+            AbstractExperimentRunner.score(judgments, searchResultSet, scorers, judgedResults);
+            dbClient.insertScores(judgments.getQueryInfo(), experiment.getName(), scorers);
+            if (batched++ > 100) {
+                batched = 0;
+                dbClient.executeBatch();
+            }
+        }
+
+        /**
+         * Call once per query, whether or not it could be scored; the
+         * last call aggregates the experiment.
+         */
+        void queryDone() {
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        /**
+         * Gives up on <code>unqueued</code> queries that couldn't be queued.
+         * Once the queued queries are done, the db client is closed and the
+         * future fails without aggregated scores being written.
+         */
+        void abandon(int unqueued, Throwable t) {
+            abandoned = t;
+            if (remaining.addAndGet(-unqueued) == 0) {
+                complete();
+            }
+        }
+
+        Experiment getExperiment() {
+            return experiment;
+        }
+
+        String getIdField() {
+            return idField;
+        }
+
+        int getMaxRows() {
+            return maxRows;
+        }
+
+        CompletableFuture<List<Scorer>> getFuture() {
+            return future;
+        }
+
+        synchronized void complete() {
+            try {
+                dbClient.close();
+                if (abandoned != null) {
+                    future.completeExceptionally(abandoned);
+                    return;
+                }
+                experimentDB.insertScoresAggregated(experiment.getName(), scorers);
+                future.complete(scorers);
+            } catch (IOException | SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -26,7 +26,7 @@ public class QuaeriteCLI {
     public static void usage() {
         System.err.println("Specify a tool: \n" +
                 "\tRunExperiments, GenerateExperiments,\n" +
-                "\tRunGA, DumpExperiments, DumpResults,\n" +
+                "\tRunGA, RunHyperband, RunWorker, Rescore, DumpExperiments, DumpResults,\n" +
                 "\tFindFeatures or StartDB");
         System.exit(1);
     }
@@ -42,6 +42,8 @@ public class QuaeriteCLI {
             DumpExperiments.main(newArgs);
         } else if (tool.equals("RunExperiments")) {
             RunExperiments.main(newArgs);
+        } else if (tool.equals("Rescore")) {
+            Rescore.main(newArgs);
         } else if (tool.equals("FindFeatures")) {
             FindFeatures.main(newArgs);
         } else if (tool.equals("GenerateExperiments")) {
@@ -52,6 +54,10 @@ public class QuaeriteCLI {
             startDB();
         } else if (tool.equals("RunGA")) {
             RunGA.main(newArgs);
+        } else if (tool.equals("RunHyperband")) {
+            RunHyperband.main(newArgs);
+        } else if (tool.equals("RunWorker")) {
+            RunWorker.main(newArgs);
         } else {
             System.err.println("I'm sorry, but I don't recognize \"" + tool + "\" as a tool");
         }
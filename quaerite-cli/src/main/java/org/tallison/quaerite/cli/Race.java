@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.cli;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.tallison.quaerite.core.GAConfig;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * Races a candidate experiment against an incumbent on the same queries.
+ * <p>
+ * The queries are evaluated in blocks in a random order that is the
+ * same for every candidate.  After each block, the candidate's per-query
+ * scores are paired with the incumbent's, and the candidate is abandoned
+ * if the upper confidence bound on the mean difference is below zero.
+ * The significance level is split evenly across the checks so that the
+ * chance of wrongly abandoning a candidate that is as good as the
+ * incumbent is at most <code>alpha</code>.
+ */
+class Race {
+
+    private final String incumbent;
+    private final Map<String, Double> incumbentScores;
+    private final String scorerName;
+    private final int blocks;
+    private final float minFraction;
+    private final long seed;
+    private final double zCritical;
+
+    /**
+     * @param incumbent name of the incumbent experiment
+     * @param incumbentScores query id -&gt; the incumbent's score
+     * @param scorerName name of the scorer to compare
+     */
+    Race(GAConfig gaConfig, String incumbent, Map<String, Double> incumbentScores,
+            String scorerName) {
+        this(incumbent, incumbentScores, scorerName, gaConfig.getRacingBlocks(),
+                gaConfig.getRacingMinFraction(), gaConfig.getRacingAlpha(),
+                gaConfig.getRacingSeed());
+    }
+
+    Race(String incumbent, Map<String, Double> incumbentScores, String scorerName,
+            int blocks, float minFraction, float alpha, long seed) {
+        if (blocks < 1) {
+            throw new IllegalArgumentException("racingBlocks must be > 0");
+        }
+        if (alpha <= 0.0f || alpha >= 1.0f) {
+            throw new IllegalArgumentException("racingAlpha must be > 0 and < 1");
+        }
+        this.incumbent = incumbent;
+        this.incumbentScores = incumbentScores;
+        this.scorerName = scorerName;
+        this.blocks = blocks;
+        this.minFraction = minFraction;
+        this.seed = seed;
+        this.zCritical = new NormalDistribution(0, 1)
+                .inverseCumulativeProbability(1.0 - alpha / blocks);
+    }
+
+    String getIncumbent() {
+        return incumbent;
+    }
+
+    /**
+     * @return the judgments shuffled into the racing order and split into blocks
+     */
+    List<List<Judgments>> getBlocks(List<Judgments> judgments) {
+        List<Judgments> shuffled = new ArrayList<>(judgments);
+        //sort first so that the order doesn't depend on the order that they were loaded in
+        shuffled.sort((a, b) -> a.getQueryInfo().getQueryId().compareTo(
+                b.getQueryInfo().getQueryId()));
+        Collections.shuffle(shuffled, new Random(seed));
+        List<List<Judgments>> ret = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < blocks; i++) {
+            int end = (int) (((long) shuffled.size() * (i + 1)) / blocks);
+            if (end > start) {
+                ret.add(shuffled.subList(start, end));
+            }
+            start = end;
+        }
+        return ret;
+    }
+
+    /**
+     * @param scorers the candidate's scorers
+     * @param evaluated queries that the candidate has been scored on so far
+     * @param total total number of queries in the race
+     * @return whether the candidate is significantly worse than the incumbent
+     */
+    boolean cannotWin(List<Scorer> scorers, List<Judgments> evaluated, int total) {
+        if (evaluated.size() < minFraction * total) {
+            return false;
+        }
+        Scorer scorer = getScorer(scorers);
+        int n = 0;
+        double mean = 0.0d;
+        double m2 = 0.0d;
+        for (Judgments judgments : evaluated) {
+            Double candidateScore = scorer.getScore(judgments.getQueryInfo());
+            Double incumbentScore = incumbentScores.get(judgments.getQueryInfo().getQueryId());
+            if (candidateScore == null || incumbentScore == null ||
+                    candidateScore == AbstractJudgmentScorer.ERROR_VALUE ||
+                    incumbentScore == AbstractJudgmentScorer.ERROR_VALUE) {
+                continue;
+            }
+            //Welford's
+            double diff = candidateScore - incumbentScore;
+            n++;
+            double delta = diff - mean;
+            mean += delta / n;
+            m2 += delta * (diff - mean);
+        }
+        if (n < 2) {
+            return false;
+        }
+        double stdErr = Math.sqrt(m2 / (n - 1) / n);
+        return mean + zCritical * stdErr < 0.0d;
+    }
+
+    private Scorer getScorer(List<Scorer> scorers) {
+        for (Scorer scorer : scorers) {
+            if (scorer.getName().equals(scorerName)) {
+                return scorer;
+            }
+        }
+        throw new IllegalArgumentException("couldn't find scorer: " + scorerName);
+    }
+}
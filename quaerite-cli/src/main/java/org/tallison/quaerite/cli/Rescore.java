@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.tallison.quaerite.core.util.CommandLineUtil.getBoolean;
+import static org.tallison.quaerite.core.util.CommandLineUtil.getInt;
+import static org.tallison.quaerite.core.util.CommandLineUtil.getPath;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.ExperimentConfig;
+import org.tallison.quaerite.core.ExperimentSet;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.scorers.JudgedResultList;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.serializers.ScorerListSerializer;
+import org.tallison.quaerite.core.util.StringUtil;
+import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.QueryRunnerDBClient;
+
+/**
+ * Recalculates the scores of experiments from the search results stored
+ * in the db without sending any requests to the search server.  Use this
+ * after adding a scorer or fixing judgments.
+ * <p>
+ * This is incremental: a fingerprint of the judgments and the scorers is
+ * stored with each query's scores, and only the scores of queries whose
+ * fingerprint changed are rewritten.  The aggregated scores are
+ * recalculated only for experiments with changed queries.
+ * <p>
+ * Unlike {@link RunExperiments}, this can't check which judged documents
+ * are still in the index, so judgments for documents that are missing
+ * from the index are kept.
+ */
+public class Rescore extends AbstractExperimentRunner {
+
+    static Logger LOG = LogManager.getLogger(Rescore.class);
+
+    static Options OPTIONS = new Options();
+
+    static {
+        OPTIONS.addOption(
+                Option.builder("db")
+                        .hasArg()
+                        .required()
+                        .desc("database folder (required)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("j")
+                        .longOpt("judgments")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("judgment .csv file to replace the judgments in the db " +
+                                "(optional; default: use the judgments in the db)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("x")
+                        .longOpt("experiment")
+                        .required(false)
+                        .hasArg()
+                        .desc("rescore only this experiment (optional; default=all)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("full")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("rescore every query, even if its judgments " +
+                                "haven't changed (optional)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("n")
+                        .longOpt("numThreads")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("number of experiments to rescore at once; default: " +
+                                DEFAULT_NUM_THREADS).build()
+        );
+        OPTIONS.addOption(
+                Option.builder("r")
+                        .longOpt("reportsDir")
+                        .hasArg()
+                        .required(false)
+                        .desc("directory for reports (optional; default: don't write reports)")
+                        .build()
+        );
+    }
+
+    private int numThreads = DEFAULT_NUM_THREADS;
+    private boolean full = false;
+
+    public Rescore() {
+        super(new ExperimentConfig());
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine commandLine = null;
+
+        try {
+            commandLine = new DefaultParser().parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            HelpFormatter helpFormatter = new HelpFormatter();
+            helpFormatter.printHelp("java -jar org.tallison.quaerite.cli.Rescore", OPTIONS);
+            return;
+        }
+        Path dbDir = Paths.get(commandLine.getOptionValue("db"));
+        Path judgments = getPath(commandLine, "j", false);
+        Path reportDir = getPath(commandLine, "r", false);
+        String experimentName = (commandLine.hasOption("x")) ?
+                commandLine.getOptionValue("x") : "";
+        Rescore rescore = new Rescore();
+        rescore.setNumThreads(getInt(commandLine, "n", DEFAULT_NUM_THREADS));
+        rescore.setFull(getBoolean(commandLine, "full"));
+
+        try (ExperimentDB experimentDB = ExperimentDB.open(dbDir)) {
+            if (judgments != null) {
+                QueryLoader.loadJudgments(experimentDB, judgments, true);
+            }
+            ExperimentSet experimentSet = experimentDB.getExperiments();
+            List<String> experimentNames = new ArrayList<>();
+            if (StringUtils.isBlank(experimentName)) {
+                experimentNames.addAll(experimentSet.getExperiments().keySet());
+            } else {
+                experimentNames.add(experimentName);
+            }
+            rescore.rescore(experimentDB, experimentNames, experimentSet.getScorers());
+            if (reportDir != null) {
+                LOG.info("starting to write reports to: " + reportDir);
+                dumpResults(experimentSet, experimentDB, experimentDB.getQuerySets(),
+                        experimentSet.getScorers(), reportDir, false);
+            }
+        }
+    }
+
+    void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    void setFull(boolean full) {
+        this.full = full;
+    }
+
+    /**
+     * @return the number of experiments whose scores changed
+     */
+    int rescore(ExperimentDB experimentDB, List<String> experimentNames,
+                List<Scorer> scorers) throws SQLException, IOException {
+        if (scorers.size() == 0) {
+            throw new IllegalArgumentException("There are no scorers in the db");
+        }
+        //this drops the scores if the scorers have changed
+        experimentDB.initScoreTable(scorers);
+        String scorersJson = ScorerListSerializer.toJson(scorers);
+        Map<String, Judgments> judgmentsMap = new HashMap<>();
+        Map<String, String> fingerprints = new HashMap<>();
+        for (Judgments judgments : experimentDB.getJudgments().getJudgmentsList()) {
+            judgmentsMap.put(judgments.getQueryInfo().getQueryId(), judgments.freeze());
+            fingerprints.put(judgments.getQueryInfo().getQueryId(),
+                    getFingerprint(judgments, scorersJson));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        List<Future<List<Scorer>>> futures = new ArrayList<>();
+        for (String experimentName : experimentNames) {
+            futures.add(executorService.submit(() ->
+                    rescoreExperiment(experimentDB, experimentName, scorersJson,
+                            judgmentsMap, fingerprints)));
+        }
+        int changed = 0;
+        try {
+            //aggregate on this thread; insertScoresAggregated isn't thread safe
+            for (int i = 0; i < futures.size(); i++) {
+                List<Scorer> experimentScorers = futures.get(i).get();
+                if (experimentScorers != null) {
+                    //experiments that were abandoned in a race stay partial
+                    boolean partial = experimentDB.isPartial(experimentNames.get(i));
+                    experimentDB.clearScoresAggregated(experimentNames.get(i));
+                    experimentDB.insertScoresAggregated(experimentNames.get(i),
+                            experimentScorers, partial);
+                    changed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        LOG.info("rescored " + changed + " of " + experimentNames.size() + " experiments");
+        return changed;
+    }
+
+    /**
+     * @return the experiment's scorers for aggregation or <code>null</code>
+     * if none of its queries' scores changed
+     */
+    private List<Scorer> rescoreExperiment(ExperimentDB experimentDB, String experimentName,
+                                           String scorersJson,
+                                           Map<String, Judgments> judgmentsMap,
+                                           Map<String, String> fingerprints)
+            throws SQLException, IOException {
+        //each experiment gets its own scorers so that experiments can run in parallel
+        List<Scorer> scorers = ScorerListSerializer.fromJsonList(scorersJson);
+        boolean rescoreAll = full || ! experimentDB.hasScores(experimentName);
+        Map<String, String> scored = experimentDB.getScoredJudgments(experimentName);
+        JudgedResultList judgedResults = new JudgedResultList();
+        int changed = 0;
+        int total = 0;
+        try (QueryRunnerDBClient dbClient = experimentDB.getQueryRunnerDBClient(scorers);
+                ExperimentDB.SearchResultsReader reader =
+                        experimentDB.readSearchResults(experimentName)) {
+            while (reader.next()) {
+                String queryId = reader.getQueryId();
+                Judgments judgments = judgmentsMap.get(queryId);
+                String fingerprint = fingerprints.get(queryId);
+                if (judgments == null) {
+                    //the query was removed from the judgments
+                    if (scored.containsKey(queryId) || rescoreAll) {
+                        dbClient.deleteScores(queryId, experimentName);
+                        changed++;
+                    }
+                    continue;
+                }
+                total++;
+                SearchResultSet searchResultSet = reader.getSearchResultSet();
+                //score every query; the aggregated scores need all of them
+                score(judgments, searchResultSet, scorers, judgedResults);
+                if (rescoreAll || ! fingerprint.equals(scored.get(queryId))) {
+                    dbClient.deleteScores(queryId, experimentName);
+                    dbClient.insertScores(judgments.getQueryInfo(), experimentName, scorers);
+                    dbClient.insertScoredJudgments(queryId, experimentName, fingerprint);
+                    changed++;
+                }
+                if (changed > 0 && changed % 1000 == 0) {
+                    dbClient.executeBatch();
+                }
+            }
+        }
+        LOG.info(experimentName + ": rescored " + changed + " of " + total + " queries");
+        return (changed > 0) ? scorers : null;
+    }
+
+    static String getFingerprint(Judgments judgments, String scorersJson) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(judgments.getQueryInfo().getQueryId()).append('\n');
+        sb.append(judgments.getQuerySet()).append('\n');
+        sb.append(judgments.getQueryStrings()).append('\n');
+        sb.append(judgments.getQueryCount()).append('\n');
+        sb.append(new TreeMap<>(judgments.getSortedJudgments())).append('\n');
+        sb.append(scorersJson);
+        return StringUtil.sha256Hex(sb.toString());
+    }
+}
@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -34,6 +37,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
 import org.tallison.quaerite.core.Experiment;
 import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.ExperimentSet;
@@ -105,6 +109,30 @@ public class RunExperiments extends AbstractExperimentRunner {
                                 "default=false)").build()
         );
 
+        OPTIONS.addOption(
+                Option.builder("coordinator")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("listen on this port and hand the queries out to workers " +
+                                "started with RunWorker instead of running them here " +
+                                "(optional)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("bind")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -coordinator, the address to listen on, e.g. 0.0.0.0 " +
+                                "for all interfaces (optional; default: loopback)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("token")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -coordinator, the token that the workers have to " +
+                                "send (optional; default: a random token, which is " +
+                                "logged)").build()
+        );
+
         OPTIONS.addOption(
                 Option.builder("test")
                         .hasArg(false)
@@ -115,8 +143,6 @@ public class RunExperiments extends AbstractExperimentRunner {
         );
     }
 
-    long batchStart = -1l;
-
     public RunExperiments() {
         super(new ExperimentConfig());
     }
@@ -163,8 +189,18 @@ public class RunExperiments extends AbstractExperimentRunner {
                 freshStart = false;
 
             }
-            runExperiments.run(experimentSet, experimentDB, experimentName,
-                    freshStart, latest);
+            Coordinator coordinator = Coordinator.fromCommandLine(commandLine);
+            runExperiments.setCoordinator(coordinator);
+            try {
+                runExperiments.run(experimentSet, experimentDB, experimentName,
+                        freshStart, latest);
+            } finally {
+                runExperiments.close();
+                if (coordinator != null) {
+                    coordinator.close();
+                }
+                SearchClientFactory.closeAll();
+            }
 
 
             LOG.info("starting to write reports to: " + reportDir);
@@ -187,27 +223,10 @@ public class RunExperiments extends AbstractExperimentRunner {
         }
 
         if (StringUtils.isBlank(experimentName)) {
-            batchStart = System.currentTimeMillis();
-            int finished = 0;
-
-            for (Experiment ex : experimentSet.getExperiments().values()) {
-                LOG.info("running experiment: '" + ex.getName() + "'");
-                runExperiment(ex, experimentSet.getScorers(), experimentSet.getMaxRows(),
-                        experimentDB,
-                        experimentDB.getJudgments(),
-                        "train", true);
-                long elapsed = System.currentTimeMillis() - batchStart;
-                finished++;
-                LOG.info("Finished " + finished + " in " +
-                        (double) elapsed / (double) 1000 + " seconds");
-                double perExperiment = (double) elapsed / (double) finished;
-                int togo = experimentSet.getExperiments().entrySet().size() - finished;
-                if (togo > 0) {
-                    LOG.info("Still have " + togo + " to go; estimate: " +
-                            threePlaces.format(((double) togo * perExperiment) /
-                                    (double) 1000) + " seconds\n\n");
-                }
-            }
+            LOG.info("running " + experimentSet.getExperiments().size() + " experiments");
+            logFailed(runExperiments(new ArrayList<>(experimentSet.getExperiments().values()),
+                    experimentSet.getScorers(), experimentSet.getMaxRows(),
+                    experimentDB, experimentDB.getJudgments(), "train", true));
         } else {
             Experiment experiment = experimentSet.getExperiment(experimentName);
             if (experiment == null) {
@@ -217,9 +236,15 @@ public class RunExperiments extends AbstractExperimentRunner {
             }
             experimentDB.clearScores(experimentName);
 
-            runExperiment(experiment, experimentSet.getScorers(),
-                    experimentSet.getMaxRows(), experimentDB, experimentDB.getJudgments(),
-                    "train", true);
+            logFailed(runExperiments(Collections.singletonList(experiment),
+                    experimentSet.getScorers(), experimentSet.getMaxRows(), experimentDB,
+                    experimentDB.getJudgments(), "train", true));
+        }
+    }
+
+    private static void logFailed(List<String> failed) {
+        if (failed.size() > 0) {
+            LOG.error(failed.size() + " experiment(s) failed and have no scores: " + failed);
         }
     }
 }
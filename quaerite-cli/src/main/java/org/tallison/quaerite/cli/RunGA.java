@@ -16,6 +16,7 @@
  */
 package org.tallison.quaerite.cli;
 
+import static org.tallison.quaerite.core.util.CommandLineUtil.getInt;
 import static org.tallison.quaerite.core.util.CommandLineUtil.getPath;
 
 import java.io.IOException;
@@ -26,7 +27,20 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -35,23 +49,25 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
-import org.apache.commons.math3.stat.descriptive.rank.Median;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
 import org.tallison.quaerite.core.Experiment;
 import org.tallison.quaerite.core.ExperimentFactory;
 import org.tallison.quaerite.core.ExperimentSet;
 import org.tallison.quaerite.core.GAConfig;
 import org.tallison.quaerite.core.JudgmentList;
 import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.Objective;
 import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
 import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.core.stats.ExperimentNameScorePair;
 import org.tallison.quaerite.core.stats.ExperimentScorePair;
+import org.tallison.quaerite.core.stats.ExperimentScoreVector;
 import org.tallison.quaerite.core.util.GAOperation;
 import org.tallison.quaerite.core.util.MathUtil;
+import org.tallison.quaerite.core.util.ParetoUtil;
 import org.tallison.quaerite.db.ExperimentDB;
 import org.tallison.quaerite.db.GADB;
 import org.tallison.quaerite.db.TrainTestJudmentListPair;
@@ -67,6 +83,10 @@ public class RunGA extends AbstractExperimentRunner {
     private static String TEST_PREFIX = "test_";
     private static String FOLD_PREFIX = "fold_";
     private static String SEED_PREFIX = "seed_";
+    private static String ISLAND_PREFIX = "island_";
+    private static String MIGRANT_PREFIX = "migrant_";
+    //how often to check whether another island has finished a generation
+    private static final long ISLAND_POLL_MILLIS = 1000;
 
 
     static {
@@ -124,15 +144,90 @@ public class RunGA extends AbstractExperimentRunner {
                         .required(false)
                         .desc("training judgments ('truth') file").build()
         );
+        OPTIONS.addOption(
+                Option.builder("island")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with islands > 1 in the gaConfig, run only this island " +
+                                "in this process; start island 0 first, and start the " +
+                                "others with the same arguments (optional; default: " +
+                                "run all of the islands in this process)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("resume")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("pick up a run that was interrupted from the last completed " +
+                                "generation in the -db instead of starting over; experiments " +
+                                "that were partially run reuse their stored search results " +
+                                "(optional)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("coordinator")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("listen on this port and hand the queries out to workers " +
+                                "started with RunWorker instead of running them here " +
+                                "(optional)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("bind")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -coordinator, the address to listen on, e.g. 0.0.0.0 " +
+                                "for all interfaces (optional; default: loopback)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("token")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -coordinator, the token that the workers have to " +
+                                "send (optional; default: a random token, which is " +
+                                "logged)").build()
+        );
     }
 
     private final GAConfig gaConfig;
     private final ExperimentFactory experimentFactory;
+    //fingerprint -> name of the first experiment with that fingerprint that
+    //was scored on the current fold's training set; shared by the islands
+    private final Map<String, String> scoredFingerprints;
+    //the island that this runner evolves, or -1 if this isn't an island
+    private final int island;
+    //if >= 0, this process runs only this island
+    private int islandProcess = -1;
+    //whether to pick up where an earlier run in the same db stopped
+    private boolean resume = false;
 
     public RunGA(ExperimentFactory experimentFactory) {
         super(experimentFactory.getGAConfig());
         this.gaConfig = experimentFactory.getGAConfig();
         this.experimentFactory = experimentFactory;
+        this.scoredFingerprints = new ConcurrentHashMap<>();
+        this.island = -1;
+    }
+
+    /**
+     * Creates an island that runs its experiments with the parent's
+     * scheduler, so that all of the islands share one limit on the
+     * number of queries in flight.
+     *
+     * @param islandFactory the island's own copy of the experiment factory
+     */
+    private RunGA(RunGA parent, ExperimentFactory islandFactory, int island) {
+        super(islandFactory.getGAConfig(), parent);
+        islandFactory.getGAConfig().applyIslandConfig(island);
+        validateSettings(islandFactory);
+        this.gaConfig = islandFactory.getGAConfig();
+        this.experimentFactory = islandFactory;
+        this.scoredFingerprints = parent.scoredFingerprints;
+        this.island = island;
+        this.resume = parent.resume;
+    }
+
+    @Override
+    boolean resumesQueries() {
+        return resume;
     }
 
     public static void main(String[] args) throws Exception {
@@ -163,11 +258,25 @@ public class RunGA extends AbstractExperimentRunner {
         LOG.debug(experimentFactory.getGAConfig());
         validateCommandLine(gaPaths);
         validateSettings(experimentFactory);
-        RunGA runGA = new RunGA(experimentFactory);
-        if (gaPaths.judgmentsFile != null) {
-            runGA.executeNFold(gaPaths);
-        } else {
-            runGA.executeTrainTest(gaPaths);
+        Coordinator coordinator = Coordinator.fromCommandLine(commandLine);
+        try (RunGA runGA = new RunGA(experimentFactory)) {
+            runGA.setCoordinator(coordinator);
+            runGA.islandProcess = getInt(commandLine, "island", -1);
+            runGA.resume = commandLine.hasOption("resume");
+            if (runGA.islandProcess >= experimentFactory.getGAConfig().getIslands()) {
+                throw new IllegalArgumentException("-island must be less than the number " +
+                        "of islands in the gaConfig");
+            }
+            if (gaPaths.judgmentsFile != null) {
+                runGA.executeNFold(gaPaths);
+            } else {
+                runGA.executeTrainTest(gaPaths);
+            }
+        } finally {
+            if (coordinator != null) {
+                coordinator.close();
+            }
+            SearchClientFactory.closeAll();
         }
     }
 
@@ -178,27 +287,36 @@ public class RunGA extends AbstractExperimentRunner {
             Files.createDirectories(gaPaths.outputDir);
         }
 
-        GADB gaDb = GADB.openAndDrop(gaPaths.dbPath);
-        //gaDb = GADB.open(gaPaths.dbPath);
+        if (islandProcess > 0) {
+            runIslandProcess(1, gaPaths);
+            return;
+        }
+        GADB gaDb = openDb(gaPaths);
 
-        QueryLoader.loadJudgments(gaDb, gaPaths.testJudgmentsFile, true);
-        JudgmentList testJudgments = gaDb.getJudgments();
-        QueryLoader.loadJudgments(gaDb, gaPaths.trainJudgmentsFile, false);
-        JudgmentList allJudgments = gaDb.getJudgments();
-        gaDb.initTrainTest(testJudgments, allJudgments);
+        //if resuming, the judgments, seed and split are already in the db
+        if (!gaDb.hasTrainTest()) {
+            QueryLoader.loadJudgments(gaDb, gaPaths.testJudgmentsFile, true);
+            JudgmentList testJudgments = gaDb.getJudgments();
+            QueryLoader.loadJudgments(gaDb, gaPaths.trainJudgmentsFile, false);
+            JudgmentList allJudgments = gaDb.getJudgments();
 
-        if (gaPaths.seedExperiments != null) {
-            loadSeed(gaDb, gaPaths.seedExperiments, gaConfig.getNFolds());
-        }
+            if (gaPaths.seedExperiments != null) {
+                loadSeed(gaDb, gaPaths.seedExperiments, gaConfig.getNFolds());
+            }
 
-        if (gaPaths.seedExperiments == null) {
-            //write out the seed generation
-            generateRandomSeeds(experimentFactory, gaDb);
+            if (gaPaths.seedExperiments == null) {
+                //write out the seed generation
+                generateRandomSeeds(experimentFactory, gaDb);
+            }
+            //last, so that a resumed run knows that the set up finished
+            gaDb.initTrainTest(testJudgments, allJudgments);
         }
         gaDb.addScoreAggregators(experimentFactory.getScorers());
 
         runFold(0, gaDb, experimentFactory, gaPaths);
-        reportFinal(gaDb, experimentFactory, 1);
+        if (gaConfig.getObjectives().isEmpty()) {
+            reportFinal(gaDb, TEST_PREFIX, experimentFactory.getTestScorer(), 1);
+        }
     }
 
     private void executeNFold(GAPaths gaPaths) throws IOException, SQLException,
@@ -208,63 +326,39 @@ public class RunGA extends AbstractExperimentRunner {
             Files.createDirectories(gaPaths.outputDir);
         }
 
-        GADB gaDb = GADB.openAndDrop(gaPaths.dbPath);
-
-        QueryLoader.loadJudgments(gaDb, gaPaths.judgmentsFile, true);
-
-        if (gaPaths.seedExperiments != null) {
-            loadSeed(gaDb, gaPaths.seedExperiments, gaConfig.getNFolds());
+        if (islandProcess > 0) {
+            runIslandProcess(gaConfig.getNFolds(), gaPaths);
+            return;
         }
+        GADB gaDb = openDb(gaPaths);
+
+        //if resuming, the judgments, seed and folds are already in the db
+        if (!gaDb.hasTrainTest()) {
+            QueryLoader.loadJudgments(gaDb, gaPaths.judgmentsFile, true);
 
-        //gaDb = GADB.open(gaPaths.dbPath);
+            if (gaPaths.seedExperiments != null) {
+                loadSeed(gaDb, gaPaths.seedExperiments, gaConfig.getNFolds());
+            }
 
-        if (gaPaths.seedExperiments == null) {
-            //write out the seed generation
-            generateRandomSeeds(experimentFactory, gaDb);
+            if (gaPaths.seedExperiments == null) {
+                //write out the seed generation
+                generateRandomSeeds(experimentFactory, gaDb);
+            }
+            //last, so that a resumed run knows that the set up finished
+            gaDb.initTrainTest(gaConfig.getNFolds());
         }
         gaDb.addScoreAggregators(experimentFactory.getScorers());
 
-        gaDb.initTrainTest(gaConfig.getNFolds());
-
         for (int i = 0; i < gaConfig.getNFolds(); i++) {
             runFold(i, gaDb, experimentFactory, gaPaths);
         }
-        reportFinal(gaDb, experimentFactory, gaConfig.getNFolds());
-    }
-
-    private void reportFinal(GADB gaDb, ExperimentFactory experimentFactory, int num)
-            throws SQLException {
-
-        System.out.println("--------------------------------");
-        System.out.println("FINAL RESULTS ON TESTING:");
-        List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
-                TEST_PREFIX, num,
-                experimentFactory.getTestScorer().getPrimaryStatisticName());
-
-        SummaryStatistics summaryStatistics = new SummaryStatistics();
-        double[] vals = new double[gaConfig.getNFolds()];
-        int i = 0;
-        for (ExperimentNameScorePair esp : scores) {
-            System.out.println("experiment '" + esp.getExperimentName() + "': "
-                    + threePlaces.format(esp.getScore()));
-            vals[i++] = esp.getScore();
-            summaryStatistics.addValue(esp.getScore());
-        }
-        if (scores.size() > 1) {
-            Median median = new Median();
-            median.setData(vals);
-            System.out.println("");
-
-            System.out.println("mean: " +
-                    threePlaces.format(summaryStatistics.getMean()));
-            System.out.println("median: " +
-                    threePlaces.format(median.evaluate()));
-            System.out.println("stdev:" +
-                    threePlaces.format(summaryStatistics.getStandardDeviation()));
+        if (gaConfig.getObjectives().isEmpty()) {
+            reportFinal(gaDb, TEST_PREFIX, experimentFactory.getTestScorer(),
+                    gaConfig.getNFolds());
         }
     }
 
-    private static ExperimentFactory loadExperimentFactory(Path experimentFactories)
+    static ExperimentFactory loadExperimentFactory(Path experimentFactories)
             throws IOException {
         try (Reader reader = Files.newBufferedReader(experimentFactories,
                 StandardCharsets.UTF_8)) {
@@ -296,6 +390,10 @@ public class RunGA extends AbstractExperimentRunner {
         TrainTestJudmentListPair trainTestJudmentListPair = gaDb.getTrainTestJudgmentsByFold(fold);
         JudgmentList trainJudgmentList = trainTestJudmentListPair.getTrain();
         LOG.info("scoring training seed for fold: " + fold);
+        scoredFingerprints.clear();
+        if (resume) {
+            restoreScoredFingerprints(fold, gaDb);
+        }
 
         scoreSeed(fold, gaDb, trainJudgmentList,
                 experimentFactory, gaPaths);
@@ -312,8 +410,14 @@ public class RunGA extends AbstractExperimentRunner {
             }
         }
 
-        for (int i = 0; i < gaConfig.getGenerations(); i++) {
-            runGeneration(fold, i, gaDb, experimentFactory, trainJudgmentList, gaPaths);
+        if (gaConfig.getIslands() > 1) {
+            runIslands(fold, gaDb, trainJudgmentList, gaPaths);
+        } else {
+            for (int i = gaDb.getLastCompletedGeneration(fold, island) + 1;
+                    i < gaConfig.getGenerations(); i++) {
+                runGeneration(fold, i, gaDb, experimentFactory, trainJudgmentList, gaPaths);
+                gaDb.setGenerationComplete(fold, island, i);
+            }
         }
         List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
                 TRAIN_PREFIX + FOLD_PREFIX + fold + "_*", 10,
@@ -326,6 +430,10 @@ public class RunGA extends AbstractExperimentRunner {
         System.out.println("");
 
         JudgmentList testingJudgments = trainTestJudmentListPair.getTest();
+        if (!gaConfig.getObjectives().isEmpty()) {
+            testParetoFront(fold, gaDb, experimentFactory, testingJudgments, gaPaths);
+            return;
+        }
         String scoreColumnName = experimentFactory.getTrainScorer().getName() + "_"
                 + experimentFactory.getTrainScorer().getPrimaryStatisticName();
         List<ExperimentScorePair> experiments = gaDb.getNBestExperiments(
@@ -335,7 +443,7 @@ public class RunGA extends AbstractExperimentRunner {
         String testName = getTestExperimentName(bestTrainingExperiment.getName());
 
         bestTrainingExperiment.setName(testName);
-        gaDb.addExperiment(bestTrainingExperiment);
+        gaDb.addExperiment(bestTrainingExperiment, true);
 
         runExperiment(bestTrainingExperiment, experimentFactory.getScorers(),
                 experimentFactory.getMaxRows(),
@@ -352,20 +460,320 @@ public class RunGA extends AbstractExperimentRunner {
 
     }
 
+    /**
+     * Writes out the Pareto front of all of the experiments that were
+     * trained on the fold, and then runs each of them on the fold's testing
+     * queries so that a trade-off, e.g. the best relevance within a latency
+     * budget, can be picked on held-out queries.
+     */
+    private void testParetoFront(int fold, GADB gaDb, ExperimentFactory experimentFactory,
+                                 JudgmentList testingJudgments, GAPaths gaPaths)
+            throws SQLException, IOException, SearchClientException {
+        List<ExperimentScoreVector> candidates = dedupe(gaDb.getExperimentScoreVectors(
+                TRAIN_PREFIX + FOLD_PREFIX + fold + "_", getObjectiveStatistics()));
+        List<List<ExperimentScoreVector>> fronts = ParetoUtil.rank(candidates, getMaximize());
+        if (fronts.size() == 0) {
+            LOG.warn("no scored experiments for fold " + fold);
+            return;
+        }
+        List<ExperimentScoreVector> front = fronts.get(0);
+        printFront("FOLD " + fold + " TRAINING (PARETO FRONT)", front);
+
+        List<String> names = new ArrayList<>();
+        List<Experiment> testExperiments = new ArrayList<>();
+        for (ExperimentScoreVector v : front) {
+            Experiment experiment = v.getExperiment();
+            names.add(experiment.getName());
+            experiment.setName(getTestExperimentName(experiment.getName()));
+            gaDb.addExperiment(experiment, true);
+            testExperiments.add(experiment);
+        }
+        String json = gaDb.getExperiments(gaConfig).toJson(names);
+        Files.write(gaPaths.outputDir.resolve("fold_" + fold + "_pareto_front.json"),
+                json.getBytes(StandardCharsets.UTF_8));
+
+        List<String> failed = runExperiments(testExperiments, experimentFactory.getScorers(),
+                experimentFactory.getMaxRows(), gaDb, testingJudgments, "test_" + fold, false);
+        if (failed.size() > 0) {
+            LOG.warn("fold " + fold + ": these experiments failed on the testing queries " +
+                    "and are left out of the testing front: " + failed);
+        }
+        List<ExperimentScoreVector> tested = gaDb.getExperimentScoreVectors(
+                TEST_PREFIX + FOLD_PREFIX + fold + "_", getObjectiveStatistics());
+        //the training front isn't necessarily non-dominated on the testing queries
+        ParetoUtil.rank(tested, getMaximize());
+        printFront("FOLD " + fold + " TESTING (TRAINING PARETO FRONT)", tested);
+    }
+
+    /**
+     * Prints the experiments from best to worst on the first objective.
+     */
+    private void printFront(String title, List<ExperimentScoreVector> front) {
+        List<Objective> objectives = gaConfig.getObjectives();
+        List<ExperimentScoreVector> sorted = new ArrayList<>(front);
+        sorted.sort((a, b) -> objectives.get(0).getMaximize() ?
+                Double.compare(b.getScores()[0], a.getScores()[0]) :
+                Double.compare(a.getScores()[0], b.getScores()[0]));
+        System.out.println(title);
+        for (ExperimentScoreVector v : sorted) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("experiment '").append(v.getExperiment().getName()).append("':");
+            for (int i = 0; i < objectives.size(); i++) {
+                sb.append(" ").append(objectives.get(i).getStatistic()).append("=")
+                        .append(threePlaces.format(v.getScores()[i]));
+            }
+            if (v.getRank() > 0) {
+                sb.append(" (dominated)");
+            }
+            System.out.println(sb);
+        }
+        System.out.println("");
+    }
+
+    /**
+     * Evolves the fold's islands from the shared seed generation.  Unless
+     * this process runs only island 0, each island runs on its own thread
+     * with its own connection to the db.  This returns when the last
+     * generation of every island has been scored.
+     */
+    private void runIslands(int fold, GADB gaDb, JudgmentList trainJudgmentList,
+                            GAPaths gaPaths)
+            throws IOException, SQLException, SearchClientException {
+        long start = System.currentTimeMillis();
+        if (islandProcess == 0) {
+            //let the other islands' processes know that the seed has been scored
+            Files.write(getSeedScoredMarker(gaPaths, fold), new byte[0]);
+            try (RunGA islandRunner = newIsland(0, gaPaths)) {
+                islandRunner.runIsland(fold, trainJudgmentList, gaPaths);
+            }
+        } else {
+            ExecutorService executorService = Executors.newFixedThreadPool(
+                    gaConfig.getIslands());
+            ExecutorCompletionService<Integer> completionService =
+                    new ExecutorCompletionService<>(executorService);
+            for (int i = 0; i < gaConfig.getIslands(); i++) {
+                int islandNumber = i;
+                completionService.submit(() -> {
+                    try (RunGA islandRunner = newIsland(islandNumber, gaPaths)) {
+                        islandRunner.runIsland(fold, trainJudgmentList, gaPaths);
+                    }
+                    return islandNumber;
+                });
+            }
+            try {
+                //in the order they finish so that a failure isn't stuck behind
+                //an island that is waiting for the failed island's migrants
+                for (int i = 0; i < gaConfig.getIslands(); i++) {
+                    completionService.take().get();
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("island failed", e.getCause());
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+        if (gaConfig.getGenerations() > 0) {
+            for (int i = 0; i < gaConfig.getIslands(); i++) {
+                waitForGeneration(gaDb, fold, i, gaConfig.getGenerations() - 1,
+                        gaConfig.getPopulation(), start, getIslandWaitMillis());
+            }
+        }
+    }
+
+    /**
+     * Runs this process's island for each fold, once island 0's process
+     * has set up the db and scored the fold's seed generation.
+     */
+    private void runIslandProcess(int folds, GAPaths gaPaths)
+            throws IOException, SQLException, SearchClientException {
+        for (int fold = 0; fold < folds; fold++) {
+            Path marker = getSeedScoredMarker(gaPaths, fold);
+            LOG.info("island " + islandProcess + " waiting for the seed of fold " + fold);
+            long deadline = System.currentTimeMillis() + getIslandWaitMillis();
+            while (!Files.exists(marker)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new RuntimeException("gave up waiting for island 0 to score the " +
+                            "seed of fold " + fold + " after " + gaConfig.getIslandWaitMinutes() +
+                            " minutes");
+                }
+                sleep(ISLAND_POLL_MILLIS);
+            }
+            JudgmentList trainJudgmentList;
+            try (GADB gaDb = GADB.openShared(gaPaths.dbPath, false)) {
+                trainJudgmentList = gaDb.getTrainTestJudgmentsByFold(fold).getTrain();
+            }
+            scoredFingerprints.clear();
+            if (resume) {
+                try (GADB gaDb = GADB.openShared(gaPaths.dbPath, false)) {
+                    restoreScoredFingerprints(fold, gaDb);
+                }
+            }
+            try (RunGA islandRunner = newIsland(islandProcess, gaPaths)) {
+                islandRunner.runIsland(fold, trainJudgmentList, gaPaths);
+            }
+        }
+    }
+
+    private RunGA newIsland(int islandNumber, GAPaths gaPaths) throws IOException {
+        //each island gets its own copy of the factory and its gaConfig
+        return new RunGA(this, loadExperimentFactory(gaPaths.experimentFactory), islandNumber);
+    }
+
+    /**
+     * Runs this island's generations.  Every migrationInterval generations,
+     * this waits for the previous island (in a ring) to finish the same
+     * generation and then takes in its best experiments.  If this island
+     * fails, the failure is recorded so that the island waiting for it stops.
+     */
+    private void runIsland(int fold, JudgmentList trainJudgmentList, GAPaths gaPaths)
+            throws IOException, SQLException, SearchClientException {
+        long start = System.currentTimeMillis();
+        try (GADB islandDb = GADB.openShared(gaPaths.dbPath, false)) {
+            try {
+                evolveIsland(fold, start, islandDb, trainJudgmentList, gaPaths);
+            } catch (IOException | SQLException | SearchClientException | RuntimeException e) {
+                islandDb.setIslandFailed(fold, island, e.toString());
+                throw e;
+            }
+        }
+    }
+
+    private void evolveIsland(int fold, long start, GADB islandDb,
+                              JudgmentList trainJudgmentList, GAPaths gaPaths)
+            throws IOException, SQLException, SearchClientException {
+        for (int i = islandDb.getLastCompletedGeneration(fold, island) + 1;
+                i < gaConfig.getGenerations(); i++) {
+            runGeneration(fold, i, islandDb, experimentFactory, trainJudgmentList, gaPaths);
+            if ((i + 1) % gaConfig.getMigrationInterval() == 0 &&
+                    i + 1 < gaConfig.getGenerations()) {
+                int from = (island + gaConfig.getIslands() - 1) % gaConfig.getIslands();
+                String fromPrefix = getGenerationPrefix(fold, from, i);
+                waitForGeneration(islandDb, fold, from, i, gaConfig.getPopulation(),
+                        start, getIslandWaitMillis());
+                List<String> migrants = migrate(islandDb, fromPrefix,
+                        getGenerationPrefix(fold, island, i), gaConfig.getMigrants(),
+                        experimentFactory.getTrainScorer().getPrimaryStatisticName());
+                LOG.info("generation " + i + " for fold " + fold + getIslandLabel() +
+                        ": took in " + migrants.size() + " migrant(s) from island " + from);
+            }
+            islandDb.setGenerationComplete(fold, island, i);
+        }
+    }
+
+    /**
+     * Copies the best <code>migrants</code> experiments that were bred in the
+     * generation with <code>fromPrefix</code>, along with their scores, into
+     * the generation with <code>toPrefix</code>, where they compete with that
+     * generation's experiments to be parents of the next generation.
+     *
+     * @return the names of the copies
+     */
+    static List<String> migrate(ExperimentDB experimentDB, String fromPrefix, String toPrefix,
+                                int migrants, String scorerName) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (ExperimentScorePair esp : experimentDB.getNBestExperiments(fromPrefix + "exp_",
+                migrants, scorerName)) {
+            Experiment migrant = esp.getExperiment();
+            String source = migrant.getName();
+            String name = toPrefix + MIGRANT_PREFIX + names.size();
+            //a copy that was interrupted has no aggregated scores and is redone
+            if (!experimentDB.hasCompleteScores(name)) {
+                migrant.setName(name);
+                experimentDB.addExperiment(migrant, true);
+                experimentDB.copyScores(source, name);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Blocks until all <code>population</code> experiments that were bred in
+     * the island's generation have been scored, possibly by another thread
+     * or process.
+     *
+     * @param since failures of the island that were recorded before this are ignored
+     * @throws RuntimeException if the island fails or if the generation isn't
+     * scored within <code>timeoutMillis</code>
+     */
+    static void waitForGeneration(GADB gaDb, int fold, int island, int generation,
+                                  int population, long since, long timeoutMillis)
+            throws SQLException {
+        String prefix = getGenerationPrefix(fold, island, generation);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (gaDb.countScoredExperiments(prefix + "exp_") < population) {
+            String failure = gaDb.getIslandFailure(fold, island, since);
+            if (failure != null) {
+                throw new RuntimeException("island " + island + " failed before scoring " +
+                        "generation " + generation + ": " + failure);
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("gave up waiting for island " + island +
+                        " to score generation " + generation + " after " +
+                        timeoutMillis + " ms");
+            }
+            sleep(ISLAND_POLL_MILLIS);
+        }
+    }
+
+    private long getIslandWaitMillis() {
+        return gaConfig.getIslandWaitMinutes() * 60L * 1000L;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Path getSeedScoredMarker(GAPaths gaPaths, int fold) {
+        return gaPaths.dbPath.resolve("fold_" + fold + "_seed_scored");
+    }
+
+    /**
+     * Opens the db as it is if resuming, and otherwise drops everything
+     * in it.  With islands, the db is opened so that island processes can
+     * share it.
+     */
+    private GADB openDb(GAPaths gaPaths) throws SQLException, IOException {
+        if (resume) {
+            GADB gaDb = (gaConfig.getIslands() <= 1) ? GADB.open(gaPaths.dbPath) :
+                    GADB.openShared(gaPaths.dbPath, false);
+            if (gaDb.hasTrainTest()) {
+                LOG.info("resuming the run in " + gaPaths.dbPath);
+                return gaDb;
+            }
+            LOG.warn("no run to resume in " + gaPaths.dbPath + "; starting over");
+            gaDb.close();
+        }
+        if (gaConfig.getIslands() <= 1) {
+            return GADB.openAndDrop(gaPaths.dbPath);
+        }
+        for (int fold = 0; fold < gaConfig.getNFolds(); fold++) {
+            Files.deleteIfExists(getSeedScoredMarker(gaPaths, fold));
+        }
+        return GADB.openShared(gaPaths.dbPath, true);
+    }
+
     private void scoreSeed(int fold, GADB gaDb, JudgmentList trainJudgmentList,
                            ExperimentFactory experimentFactory, GAPaths gaPaths)
             throws SQLException, IOException, SearchClientException {
         ExperimentSet experimentSet = gaDb.getExperiments(gaConfig);
 
         String trainFoldSeedPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + SEED_PREFIX;
+        List<String> seedNames = new ArrayList<>();
         for (String experimentName : gaDb.getExperimentNames()) {
             if (experimentName.startsWith(trainFoldSeedPrefix)) {
-                Experiment ex = gaDb.getExperiment(experimentName);
-                runExperiment(ex, experimentFactory.getScorers(), experimentFactory.getMaxRows(),
-                        gaDb, trainJudgmentList,
-                        "seed_test_fold_" + fold, false);
+                seedNames.add(experimentName);
             }
         }
+        runOrReuseExperiments(seedNames, experimentFactory, gaDb, trainJudgmentList,
+                "seed_test_fold_" + fold);
 
         System.out.println("FOLD " + fold + " TRAINING (SEED)");
         List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
@@ -390,18 +798,50 @@ public class RunGA extends AbstractExperimentRunner {
                                ExperimentFactory experimentFactory,
                                JudgmentList judgmentList, GAPaths gaPaths)
             throws SQLException, IOException, SearchClientException {
-        List<String> experimentNames = generateNewExperiments(fold, generation,
-                experimentDB, experimentFactory);
-        LOG.info("starting generation " + generation + " for fold " + fold);
-        for (String experimentName : experimentNames) {
-            Experiment ex = experimentDB.getExperiment(experimentName);
-            runExperiment(ex, experimentFactory.getScorers(), experimentFactory.getMaxRows(),
-                    experimentDB, judgmentList, "foldId_" + fold,
-                    false);
+        Race race = gaConfig.getRacing() ?
+                getRace(fold, generation, experimentDB, experimentFactory) : null;
+        List<String> experimentNames = getBredExperiments(fold, generation, experimentDB);
+        if (experimentNames.size() < gaConfig.getPopulation()) {
+            experimentNames = generateNewExperiments(fold, generation,
+                    experimentDB, experimentFactory);
+        } else {
+            LOG.info("resuming generation " + generation + " for fold " + fold +
+                    getIslandLabel() + " with the experiments that were already bred");
+        }
+        LOG.info("starting generation " + generation + " for fold " + fold + getIslandLabel());
+        int reused = 0;
+        int abandoned = 0;
+        long skipped = 0;
+        if (race == null) {
+            reused = runOrReuseExperiments(experimentNames, experimentFactory, experimentDB,
+                    judgmentList, "foldId_" + fold);
+        } else {
+            //racing needs each experiment's blocks in order, so these run one at a time
+            for (String experimentName : experimentNames) {
+                Experiment ex = experimentDB.getExperiment(experimentName);
+                int skippedQueries = runOrReuseExperiment(ex, experimentFactory, experimentDB,
+                        judgmentList, "foldId_" + fold, race);
+                if (skippedQueries < 0) {
+                    reused++;
+                } else if (skippedQueries > 0) {
+                    abandoned++;
+                    skipped += skippedQueries;
+                }
+            }
+        }
+        LOG.info("generation " + generation + " for fold " + fold + getIslandLabel() +
+                ": reused the scores of " +
+                reused + " duplicate experiment(s) out of " + experimentNames.size());
+        if (race != null) {
+            LOG.info("generation " + generation + " for fold " + fold + getIslandLabel() +
+                    ": abandoned " +
+                    abandoned + " experiment(s) that couldn't beat " + race.getIncumbent() +
+                    ", skipping " + skipped + " of " +
+                    ((long) experimentNames.size() * judgmentList.getJudgmentsList().size()) +
+                    " queries");
         }
         if (LOG.isDebugEnabled()) {
-            String experimentPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + GEN_PREFIX
-                    + generation;
+            String experimentPrefix = getGenerationPrefix(fold, island, generation);
             List<ExperimentNameScorePair> results = experimentDB.getNBestExperimentNames(
                     experimentPrefix, 10,
                     experimentFactory.getTrainScorer().getPrimaryStatisticName());
@@ -414,84 +854,248 @@ public class RunGA extends AbstractExperimentRunner {
         ExperimentSet experimentSet = experimentDB.getExperiments(experimentFactory.getGAConfig());
         String json = experimentSet.toJson(experimentNames);
 
-        Files.write(gaPaths.outputDir.resolve("fold_" + fold + "_gen_" + generation +
+        Files.write(gaPaths.outputDir.resolve("fold_" + fold +
+                        ((island < 0) ? "" : "_" + ISLAND_PREFIX + island) + "_gen_" + generation +
                         "_experiments.json"),
                 json.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * The incumbent is the experiment with the median score in the
+     * generation that the new generation is bred from.
+     */
+    private Race getRace(int fold, int generation, ExperimentDB experimentDB,
+                         ExperimentFactory experimentFactory) throws SQLException {
+        List<ExperimentNameScorePair> scores = experimentDB.getNBestExperimentNames(
+                getParentPrefix(fold, generation, experimentDB, experimentFactory), -1,
+                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        if (scores.size() == 0) {
+            return null;
+        }
+        String incumbent = scores.get(scores.size() / 2).getExperimentName();
+        String scorerName = experimentFactory.getTrainScorer().getName();
+        return new Race(gaConfig, incumbent,
+                experimentDB.getScores("", incumbent, scorerName), scorerName);
+    }
+
+    /**
+     * This currently only pulls from the previous generation.  If every
+     * experiment in that generation was abandoned in a race, this pulls
+     * from the latest generation with complete scores.
+     */
+    private String getParentPrefix(int fold, int generation, ExperimentDB experimentDB,
+                                   ExperimentFactory experimentFactory) throws SQLException {
+        for (int parent = generation - 1; parent >= 0; parent--) {
+            String prefix = getGenerationPrefix(fold, island, parent);
+            if (experimentDB.getNBestExperimentNames(prefix, 1,
+                    experimentFactory.getTrainScorer().getPrimaryStatisticName()).size() > 0) {
+                return prefix;
+            }
+        }
+        return TRAIN_PREFIX + FOLD_PREFIX + fold + "_seed";
+    }
+
+    /**
+     * @return the names of the experiments that have been bred for the
+     * generation, in order, e.g. by a run that was interrupted while scoring them
+     */
+    private List<String> getBredExperiments(int fold, int generation,
+                                            ExperimentDB experimentDB) throws SQLException {
+        Set<String> names = new HashSet<>(experimentDB.getExperimentNames());
+        List<String> bred = new ArrayList<>();
+        while (names.contains(getTrainExperimentName(fold, generation, bred.size()))) {
+            bred.add(getTrainExperimentName(fold, generation, bred.size()));
+        }
+        return bred;
+    }
+
+    /**
+     * Refills the map of fingerprints with the experiments that were scored
+     * on the fold's training set before the run was interrupted.
+     */
+    private void restoreScoredFingerprints(int fold, ExperimentDB experimentDB)
+            throws SQLException {
+        String foldPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_";
+        for (String name : experimentDB.getExperimentNames()) {
+            if (name.startsWith(foldPrefix) && experimentDB.hasCompleteScores(name)) {
+                scoredFingerprints.putIfAbsent(
+                        getFingerprint(experimentDB.getExperiment(name)), name);
+            }
+        }
+    }
+
     private List<String> generateNewExperiments(int fold, int generation,
                                                 ExperimentDB experimentDB,
                                                 ExperimentFactory experimentFactory)
             throws SQLException {
 
-        //this currently only pulls from the previous generation
-        String genString = (generation == 0) ? "seed" : GEN_PREFIX + (generation - 1);
-
-        List<ExperimentScorePair> scorePairs = experimentDB.getNBestExperiments(
-                TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + genString,
-                gaConfig.getPopulation(),
-                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        Supplier<Experiment> parents;
+        if (gaConfig.getObjectives().isEmpty()) {
+            List<ExperimentScorePair> scorePairs = experimentDB.getNBestExperiments(
+                    getParentPrefix(fold, generation, experimentDB, experimentFactory),
+                    gaConfig.getPopulation(),
+                    experimentFactory.getTrainScorer().getPrimaryStatisticName());
 
-        if (scorePairs.size() == 0) {
-            throw new IllegalArgumentException(
-                    "Need to have some experiments from seed/last generation!");
+            if (scorePairs.size() == 0) {
+                throw new IllegalArgumentException(
+                        "Need to have some experiments from seed/last generation!");
+            }
+            List<ExperimentScorePair> fitnessProportions =
+                    MathUtil.calcFitnessProportions(scorePairs);
+            parents = () -> MathUtil.select(fitnessProportions);
+        } else {
+            //NSGA-II: the parents are the best of the earlier parents and their children
+            List<ExperimentScoreVector> survivors = ParetoUtil.selectSurvivors(
+                    getLineage(fold, experimentDB), gaConfig.getPopulation(), getMaximize());
+            if (survivors.size() == 0) {
+                throw new IllegalArgumentException(
+                        "Need to have some experiments from seed/last generation!");
+            }
+            parents = () -> ParetoUtil.tournament(survivors);
         }
-        int expCount = 0;
-
-        List<ExperimentScorePair> fitnessProportions = MathUtil.calcFitnessProportions(scorePairs);
         List<String> nextGenExpNames = new ArrayList<>();
-
+        Set<String> nextGenFingerprints = new HashSet<>();
+        int resamples = 0;
         while (nextGenExpNames.size() < gaConfig.getPopulation()) {
             GAOperation gaOperation = MathUtil.nextGAOperation(gaConfig);
+            List<Experiment> children = null;
             switch (gaOperation) {
                 case CROSSOVER:
-                    crossover(fold, generation, fitnessProportions, nextGenExpNames, experimentDB);
+                    children = crossover(parents);
                     break;
                 case REPRODUCE:
-                    reproduce(fold, generation, fitnessProportions, nextGenExpNames, experimentDB);
+                    children = reproduce(parents);
                     break;
                 case MUTATE:
-                    mutate(fold, generation, fitnessProportions, nextGenExpNames, experimentDB);
+                    children = mutate(parents);
                     break;
             }
+            for (Experiment child : children) {
+                if (nextGenExpNames.size() >= gaConfig.getPopulation()) {
+                    break;
+                }
+                String fingerprint = getFingerprint(child);
+                //reproduction copies on purpose, and its scores are reused for free
+                if (gaOperation != GAOperation.REPRODUCE &&
+                        resamples < gaConfig.getMaxDuplicateResamples() &&
+                        (scoredFingerprints.containsKey(fingerprint) ||
+                                nextGenFingerprints.contains(fingerprint))) {
+                    resamples++;
+                    continue;
+                }
+                resamples = 0;
+                String name = getTrainExperimentName(fold, generation, nextGenExpNames.size());
+                child.setName(name);
+                //replaces leftovers from an interrupted run that didn't finish breeding
+                experimentDB.addExperiment(child, true);
+                nextGenExpNames.add(name);
+                nextGenFingerprints.add(fingerprint);
+            }
         }
         return nextGenExpNames;
     }
 
-    private void mutate(int fold, int generation,
-                        List<ExperimentScorePair> fitnessProportions,
-                        List<String> nextGenExpNames, ExperimentDB experimentDB)
-            throws SQLException {
-        Experiment parent = MathUtil.select(fitnessProportions);
+    /**
+     * Runs the experiment unless an experiment with the same fingerprint
+     * has already been scored on this fold, in which case that
+     * experiment's scores are copied.
+     *
+     * @param race race to run the experiment in, or <code>null</code>
+     * @return -1 if the scores were reused, otherwise the number of queries
+     * that were skipped because the experiment was abandoned in the race
+     */
+    private int runOrReuseExperiment(Experiment ex, ExperimentFactory experimentFactory,
+                                     ExperimentDB experimentDB, JudgmentList judgmentList,
+                                     String judgmentListId, Race race)
+            throws SQLException, IOException, SearchClientException {
+        String fingerprint = getFingerprint(ex);
+        String scored = scoredFingerprints.get(fingerprint);
+        if (scored != null && !experimentDB.hasCompleteScores(ex.getName())) {
+            LOG.debug("reusing the scores of " + scored + " for duplicate " + ex.getName());
+            experimentDB.copyScores(scored, ex.getName());
+            return -1;
+        }
+        int skipped = runExperiment(ex, experimentFactory.getScorers(),
+                experimentFactory.getMaxRows(), experimentDB, judgmentList, judgmentListId,
+                false, race);
+        if (skipped <= 0) {
+            //an experiment that was abandoned in the race only has partial scores
+            scoredFingerprints.putIfAbsent(fingerprint, ex.getName());
+        }
+        return skipped;
+    }
+
+    /**
+     * Runs the experiments together on the runner's scheduler, except for
+     * duplicates, which copy the scores of the first experiment with the
+     * same fingerprint once that experiment has been scored.
+     *
+     * @return the number of experiments whose scores were reused
+     */
+    private int runOrReuseExperiments(List<String> experimentNames,
+                                      ExperimentFactory experimentFactory,
+                                      ExperimentDB experimentDB, JudgmentList judgmentList,
+                                      String judgmentListId)
+            throws SQLException, IOException, SearchClientException {
+        List<Experiment> toRun = new ArrayList<>();
+        Map<String, String> pending = new HashMap<>();
+        //duplicate -> experiment to copy the scores from
+        Map<String, String> duplicates = new LinkedHashMap<>();
+        for (String experimentName : experimentNames) {
+            Experiment ex = experimentDB.getExperiment(experimentName);
+            if (experimentDB.hasCompleteScores(ex.getName())) {
+                continue;
+            }
+            String fingerprint = getFingerprint(ex);
+            String scored = scoredFingerprints.containsKey(fingerprint) ?
+                    scoredFingerprints.get(fingerprint) : pending.get(fingerprint);
+            if (scored != null) {
+                duplicates.put(ex.getName(), scored);
+            } else {
+                pending.put(fingerprint, ex.getName());
+                toRun.add(ex);
+            }
+        }
+        List<String> failed = runExperiments(toRun, experimentFactory.getScorers(),
+                experimentFactory.getMaxRows(), experimentDB, judgmentList, judgmentListId, false);
+        if (failed.size() > 0) {
+            //selection would otherwise silently treat these as unscored
+            throw new RuntimeException("failed to run experiment(s): " + failed);
+        }
+        for (Map.Entry<String, String> e : pending.entrySet()) {
+            scoredFingerprints.putIfAbsent(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, String> e : duplicates.entrySet()) {
+            LOG.debug("reusing the scores of " + e.getValue() + " for duplicate " + e.getKey());
+            experimentDB.copyScores(e.getValue(), e.getKey());
+        }
+        return duplicates.size();
+    }
+
+    private String getFingerprint(Experiment experiment) {
+        return experiment.getFingerprint(gaConfig.getFingerprintPrecision());
+    }
+
+    private List<Experiment> mutate(Supplier<Experiment> parents) {
+        Experiment parent = parents.get();
         Experiment mutated = experimentFactory.mutate(parent,
                 gaConfig.getMutationProbability(), gaConfig.getMutationAmplitude());
-        String name = getTrainExperimentName(fold, generation, nextGenExpNames.size());
-        mutated.setName(name);
-        nextGenExpNames.add(name);
-        experimentDB.addExperiment(mutated);
+        return Collections.singletonList(mutated);
     }
 
-    private void reproduce(int fold, int generation, List<ExperimentScorePair> fitnessProportions,
-                           List<String> nextGenExpNames, ExperimentDB experimentDB)
-            throws SQLException {
-        Experiment parent = MathUtil.select(fitnessProportions);
+    private List<Experiment> reproduce(Supplier<Experiment> parents) {
+        Experiment parent = parents.get();
         LOG.trace("reproducing: " + parent);
-        String name = getTrainExperimentName(fold, generation, nextGenExpNames.size());
-        Experiment child = parent.deepCopy();
-        child.setName(name);
-        experimentDB.addExperiment(child);
-        nextGenExpNames.add(name);
+        return Collections.singletonList(parent.deepCopy());
     }
 
-    private void crossover(int fold, int generation, List<ExperimentScorePair> fitnessProportions,
-                           List<String> nextGenExpNames, ExperimentDB experimentDB)
-            throws SQLException {
-        Experiment parentA = MathUtil.select(fitnessProportions);
-        Experiment parentB = MathUtil.select(fitnessProportions);
+    private List<Experiment> crossover(Supplier<Experiment> parents) {
+        Experiment parentA = parents.get();
+        Experiment parentB = parents.get();
         int tries = 0;
         while (parentA.getName().equals(parentB.getName()) && tries++ < 5) {
-            parentA = MathUtil.select(fitnessProportions);
-            parentB = MathUtil.select(fitnessProportions);
+            parentA = parents.get();
+            parentB = parents.get();
         }
         if (tries == 5 && parentA.getName().equals(parentB.getName())) {
             LOG.warn("crossover with self: " + parentA.getName());
@@ -499,24 +1103,13 @@ public class RunGA extends AbstractExperimentRunner {
         LOG.trace("crossing over: " + parentA + " : " + parentB);
         Pair<Experiment, Experiment> pair = experimentFactory.crossover(parentA, parentB);
 
-        String nameA = getTrainExperimentName(fold, generation, nextGenExpNames.size());
-        pair.getLeft().setName(nameA);
-
         LOG.trace(parentA +
                 "\n+\n" + parentB + "\n->\n" + pair.getLeft());
-        experimentDB.addExperiment(pair.getLeft());
-        nextGenExpNames.add(nameA);
-
-        if (nextGenExpNames.size() >= gaConfig.getPopulation()) {
-            return;
-        }
-
-        String nameB = getTrainExperimentName(fold, generation, nextGenExpNames.size());
-        pair.getRight().setName(nameB);
         LOG.trace("childB: " + pair.getRight());
-
-        nextGenExpNames.add(nameB);
-        experimentDB.addExperiment(pair.getRight());
+        List<Experiment> children = new ArrayList<>();
+        children.add(pair.getLeft());
+        children.add(pair.getRight());
+        return children;
     }
 
     private String getSeedName(int fold, int i) {
@@ -531,7 +1124,75 @@ public class RunGA extends AbstractExperimentRunner {
     }
 
     private String getTrainExperimentName(int fold, int generation, int i) {
-        return TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + GEN_PREFIX + generation + "_exp_" + i;
+        return getGenerationPrefix(fold, island, generation) + "exp_" + i;
+    }
+
+    /**
+     * @param island island number or -1 if not using islands
+     * @return the prefix of the names of the experiments in a generation,
+     * including the trailing underscore
+     */
+    static String getGenerationPrefix(int fold, int island, int generation) {
+        return getLineagePrefix(fold, island) + generation + "_";
+    }
+
+    /**
+     * @param island island number or -1 if not using islands
+     * @return the prefix of the names of the experiments in all of the
+     * fold's (or island's) generations
+     */
+    static String getLineagePrefix(int fold, int island) {
+        return TRAIN_PREFIX + FOLD_PREFIX + fold + "_" +
+                ((island < 0) ? "" : ISLAND_PREFIX + island + "_") + GEN_PREFIX;
+    }
+
+    /**
+     * Every generation's experiments stay in the db, so NSGA-II's elitism,
+     * choosing the next parents from the earlier parents and their children,
+     * is a selection from the seed and all of this fold's (or island's)
+     * generations so far.
+     */
+    private List<ExperimentScoreVector> getLineage(int fold, ExperimentDB experimentDB)
+            throws SQLException {
+        List<ExperimentScoreVector> lineage = new ArrayList<>();
+        lineage.addAll(experimentDB.getExperimentScoreVectors(
+                TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + SEED_PREFIX, getObjectiveStatistics()));
+        lineage.addAll(experimentDB.getExperimentScoreVectors(
+                getLineagePrefix(fold, island), getObjectiveStatistics()));
+        return dedupe(lineage);
+    }
+
+    /**
+     * Duplicates reuse each other's scores, so keep only the first
+     * experiment with each fingerprint.
+     */
+    private List<ExperimentScoreVector> dedupe(List<ExperimentScoreVector> vectors) {
+        Map<String, ExperimentScoreVector> unique = new LinkedHashMap<>();
+        for (ExperimentScoreVector v : vectors) {
+            unique.putIfAbsent(getFingerprint(v.getExperiment()), v);
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    private List<String> getObjectiveStatistics() {
+        List<String> statistics = new ArrayList<>();
+        for (Objective objective : gaConfig.getObjectives()) {
+            statistics.add(objective.getStatistic());
+        }
+        return statistics;
+    }
+
+    private boolean[] getMaximize() {
+        List<Objective> objectives = gaConfig.getObjectives();
+        boolean[] maximize = new boolean[objectives.size()];
+        for (int i = 0; i < maximize.length; i++) {
+            maximize[i] = objectives.get(i).getMaximize();
+        }
+        return maximize;
+    }
+
+    private String getIslandLabel() {
+        return (island < 0) ? "" : " on island " + island;
     }
 
     private void generateRandomSeeds(ExperimentFactory experimentFactory, GADB gadb)
@@ -546,7 +1207,7 @@ public class RunGA extends AbstractExperimentRunner {
     }
 
 
-    private static class GAPaths {
+    static class GAPaths {
         Path testJudgmentsFile;
         Path trainJudgmentsFile;
         Path judgmentsFile;
@@ -558,6 +1219,7 @@ public class RunGA extends AbstractExperimentRunner {
 
     private static void validateSettings(ExperimentFactory experimentFactory) {
         GAConfig gaConfig = experimentFactory.getGAConfig();
+        validateObjectives(experimentFactory);
         double gaOpProbs = gaConfig.getCrossoverProbability() +
                 gaConfig.getMutationProbability() + gaConfig.getReproductionProbability();
         if (Math.abs(1.0d - gaOpProbs) > 0.001) {
@@ -589,7 +1251,31 @@ public class RunGA extends AbstractExperimentRunner {
         }
     }
 
-    private static void validateCommandLine(GAPaths gaPaths) {
+    static void validateObjectives(ExperimentFactory experimentFactory) {
+        GAConfig gaConfig = experimentFactory.getGAConfig();
+        if (gaConfig.getObjectives().isEmpty()) {
+            return;
+        }
+        if (gaConfig.getRacing()) {
+            throw new IllegalArgumentException(
+                    "Can't combine racing, which races on the train scorer, with objectives");
+        }
+        Set<String> statistics = new HashSet<>();
+        for (Scorer scorer : experimentFactory.getScorers()) {
+            for (String statistic : scorer.getStatistics()) {
+                statistics.add((scorer.getName() + "_" + statistic).toLowerCase(Locale.US));
+            }
+        }
+        for (Objective objective : gaConfig.getObjectives()) {
+            if (objective.getStatistic() == null || !statistics.contains(
+                    objective.getStatistic().toLowerCase(Locale.US))) {
+                throw new IllegalArgumentException("Objective '" + objective.getStatistic() +
+                        "' must be one of the scorers' statistics: " + statistics);
+            }
+        }
+    }
+
+    static void validateCommandLine(GAPaths gaPaths) {
         if (gaPaths.judgmentsFile != null &&
                 (gaPaths.trainJudgmentsFile != null
                         || gaPaths.testJudgmentsFile != null)) {
@@ -0,0 +1,399 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.tallison.quaerite.core.util.CommandLineUtil.getPath;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentFactory;
+import org.tallison.quaerite.core.GAConfig;
+import org.tallison.quaerite.core.JudgmentList;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.serializers.ScorerListSerializer;
+import org.tallison.quaerite.core.stats.ExperimentNameScorePair;
+import org.tallison.quaerite.core.stats.ExperimentScorePair;
+import org.tallison.quaerite.db.GADB;
+import org.tallison.quaerite.db.TrainTestJudmentListPair;
+
+/**
+ * Tunes experiments with Hyperband (Li et al. 2018), an alternative to
+ * {@link RunGA} that spends most of its budget on the promising experiments.
+ * <p>
+ * Each bracket runs successive halving: many experiments are scored
+ * on a small random subset of the training queries, the best
+ * <code>1/hyperbandEta</code> of them are scored on a subset that is
+ * <code>hyperbandEta</code> times larger, and so on until the survivors
+ * are scored on all of the training queries.  The brackets trade off the
+ * number of experiments against the number of queries at the first rung.
+ * The experiments of a rung run concurrently.
+ * <p>
+ * The first bracket's experiments are generated randomly; later brackets
+ * mix random experiments with mutations of the best experiment so far.
+ * Experiments that were scored on a subset are marked as partial, so the
+ * best experiment of each fold is chosen from those that were scored on
+ * all of the training queries.  This uses the same folds, judgments
+ * options and db as {@link RunGA}.
+ */
+public class RunHyperband extends AbstractExperimentRunner {
+
+    static Logger LOG = LogManager.getLogger(RunHyperband.class);
+
+    static Options OPTIONS = new Options();
+
+    private static String TRAIN_PREFIX = "train_";
+    private static String TEST_PREFIX = "test_";
+    private static String FOLD_PREFIX = "fold_";
+    private static String HYPERBAND_PREFIX = "hb_";
+
+    static {
+        OPTIONS.addOption(
+                Option.builder("db")
+                        .hasArg()
+                        .required()
+                        .desc("database folder").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("f")
+                        .longOpt("factory")
+                        .hasArg()
+                        .desc("experiment factory json file")
+                        .required().build()
+        );
+        OPTIONS.addOption(
+                Option.builder("j")
+                        .longOpt("judgments")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("judgments ('truth') file").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("test")
+                        .longOpt("test_judgments")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("testing judgments ('truth') file").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("train")
+                        .longOpt("train_judgments")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("training judgments ('truth') file").build()
+        );
+    }
+
+    private final GAConfig gaConfig;
+    private final ExperimentFactory experimentFactory;
+    private final Random random;
+    //number of queries that were run, for logging
+    private long queriesRun = 0;
+
+    public RunHyperband(ExperimentFactory experimentFactory) {
+        super(experimentFactory.getGAConfig());
+        this.gaConfig = experimentFactory.getGAConfig();
+        this.experimentFactory = experimentFactory;
+        this.random = new Random(gaConfig.getHyperbandSeed());
+        if (gaConfig.getHyperbandEta() < 2) {
+            throw new IllegalArgumentException("hyperbandEta must be > 1");
+        }
+        if (gaConfig.getHyperbandMinQueries() < 1) {
+            throw new IllegalArgumentException("hyperbandMinQueries must be > 0");
+        }
+        if (gaConfig.getHyperbandConcurrency() < 1) {
+            throw new IllegalArgumentException("hyperbandConcurrency must be > 0");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine commandLine = null;
+
+        try {
+            commandLine = new DefaultParser().parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            HelpFormatter helpFormatter = new HelpFormatter();
+            helpFormatter.printHelp("java -jar org.tallison.quaerite.cli.RunHyperband",
+                    OPTIONS);
+            return;
+        }
+        RunGA.GAPaths gaPaths = new RunGA.GAPaths();
+        gaPaths.dbPath = getPath(commandLine, "db", false);
+        gaPaths.experimentFactory = getPath(commandLine, "f", true);
+        gaPaths.judgmentsFile = getPath(commandLine, "j", true);
+        gaPaths.testJudgmentsFile = getPath(commandLine, "test", true);
+        gaPaths.trainJudgmentsFile = getPath(commandLine, "train", true);
+        RunGA.validateCommandLine(gaPaths);
+        ExperimentFactory experimentFactory = RunGA.loadExperimentFactory(
+                gaPaths.experimentFactory);
+        LOG.debug(experimentFactory.getGAConfig());
+        try (RunHyperband runHyperband = new RunHyperband(experimentFactory)) {
+            runHyperband.execute(gaPaths);
+        }
+    }
+
+    private void execute(RunGA.GAPaths gaPaths) throws IOException, SQLException,
+            SearchClientException {
+        GADB gaDb = GADB.openAndDrop(gaPaths.dbPath);
+        int folds;
+        if (gaPaths.judgmentsFile != null) {
+            QueryLoader.loadJudgments(gaDb, gaPaths.judgmentsFile, true);
+            gaDb.initTrainTest(gaConfig.getNFolds());
+            folds = gaConfig.getNFolds();
+        } else {
+            QueryLoader.loadJudgments(gaDb, gaPaths.testJudgmentsFile, true);
+            JudgmentList testJudgments = gaDb.getJudgments();
+            QueryLoader.loadJudgments(gaDb, gaPaths.trainJudgmentsFile, false);
+            gaDb.initTrainTest(testJudgments, gaDb.getJudgments());
+            folds = 1;
+        }
+        gaDb.addScoreAggregators(experimentFactory.getScorers());
+        gaDb.initScoreTable(experimentFactory.getScorers());
+        for (int fold = 0; fold < folds; fold++) {
+            runFold(fold, gaDb);
+        }
+        reportFinal(gaDb, TEST_PREFIX, experimentFactory.getTestScorer(), folds);
+        LOG.info("ran " + queriesRun + " queries");
+    }
+
+    private void runFold(int fold, GADB gaDb) throws IOException, SQLException,
+            SearchClientException {
+        TrainTestJudmentListPair trainTest = gaDb.getTrainTestJudgmentsByFold(fold);
+        List<Judgments> train = new ArrayList<>(trainTest.getTrain().getJudgmentsList());
+        train.sort((a, b) -> a.getQueryInfo().getQueryId().compareTo(
+                b.getQueryInfo().getQueryId()));
+        int maxBracket = getMaxBracket(train.size(), gaConfig.getHyperbandMinQueries(),
+                gaConfig.getHyperbandEta());
+        LOG.info("starting fold " + fold + " with " + (maxBracket + 1) + " brackets; " +
+                "train set size (" + train.size() + "), test set size (" +
+                trainTest.getTest().getJudgmentsList().size() + ")");
+        String trainPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + HYPERBAND_PREFIX;
+        for (int bracket = maxBracket; bracket >= 0; bracket--) {
+            //each bracket draws its own subsets; a rung's subset contains the last rung's
+            Collections.shuffle(train, random);
+            List<int[]> rungs = getRungs(train.size(), gaConfig.getHyperbandEta(),
+                    bracket, maxBracket);
+            List<Experiment> experiments = generateExperiments(rungs.get(0)[0], gaDb,
+                    trainPrefix);
+            for (int rung = 0; rung < rungs.size(); rung++) {
+                int numQueries = rungs.get(rung)[1];
+                JudgmentList subset = new JudgmentList();
+                Set<String> queryIds = new HashSet<>();
+                for (Judgments judgments : train.subList(0, numQueries)) {
+                    subset.addJudgments(judgments);
+                    queryIds.add(judgments.getQueryInfo().getQueryId());
+                }
+                String subsetId = "hb_fold_" + fold + "_b_" + bracket + "_r_" + rung;
+                for (Experiment experiment : experiments) {
+                    //the fold's training queries are validated once, not once per rung
+                    cacheValidatedSubset(experiment, trainTest.getTrain(), "train_" + fold,
+                            queryIds, subsetId);
+                }
+                String rungPrefix = trainPrefix + "b_" + bracket + "_r_" + rung + "_";
+                List<ExperimentScore> scores = runRung(experiments, rungPrefix, gaDb, subset,
+                        subsetId, numQueries < train.size());
+                LOG.info("fold " + fold + ", bracket " + bracket + ", rung " + rung +
+                        ": scored " + scores.size() + " experiment(s) on " + numQueries +
+                        " queries; best: " + threePlaces.format(scores.get(0).score));
+                if (rung + 1 < rungs.size()) {
+                    experiments = new ArrayList<>();
+                    for (int i = 0; i < rungs.get(rung + 1)[0] && i < scores.size(); i++) {
+                        experiments.add(scores.get(i).experiment);
+                    }
+                }
+            }
+        }
+
+        List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
+                trainPrefix, 10, experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        System.out.println("FOLD " + fold + " TRAINING");
+        for (ExperimentNameScorePair esp : scores) {
+            System.out.println("experiment '" + esp.getExperimentName() + "': "
+                    + threePlaces.format(esp.getScore()));
+        }
+        System.out.println("");
+
+        Experiment best = gaDb.getNBestExperiments(trainPrefix, 1,
+                experimentFactory.getTrainScorer().getPrimaryStatisticName())
+                .get(0).getExperiment();
+        best.setName(TEST_PREFIX + best.getName().substring(TRAIN_PREFIX.length()));
+        gaDb.addExperiment(best);
+        runExperiment(best, experimentFactory.getScorers(), experimentFactory.getMaxRows(),
+                gaDb, trainTest.getTest(), "test_" + fold, false);
+        queriesRun += trainTest.getTest().getJudgmentsList().size();
+        scores = gaDb.getNBestExperimentNames(
+                TEST_PREFIX + FOLD_PREFIX + fold + "_", 10,
+                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        System.out.println("FOLD " + fold + " TESTING");
+        for (ExperimentNameScorePair esp : scores) {
+            System.out.println("experiment '" + esp.getExperimentName() + "': " +
+                    threePlaces.format(esp.getScore()));
+        }
+        System.out.println("");
+    }
+
+    /**
+     * Random experiments, and once there are fully scored experiments,
+     * mutations of the best one for half of the bracket.
+     */
+    private List<Experiment> generateExperiments(int num, GADB gaDb, String trainPrefix)
+            throws SQLException {
+        List<ExperimentScorePair> best = gaDb.getNBestExperiments(trainPrefix, 1,
+                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        List<Experiment> experiments = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            if (best.size() > 0 && i % 2 == 1) {
+                experiments.add(experimentFactory.mutate(best.get(0).getExperiment(),
+                        gaConfig.getMutationProbability(), gaConfig.getMutationAmplitude()));
+            } else {
+                experiments.add(experimentFactory.generateRandomExperiment("hb_" + i));
+            }
+        }
+        return experiments;
+    }
+
+    /**
+     * Scores the experiments concurrently, each under a new name.
+     *
+     * @return the scores in descending order
+     */
+    private List<ExperimentScore> runRung(List<Experiment> experiments, String rungPrefix,
+                                          GADB gaDb, JudgmentList judgmentList,
+                                          String judgmentListId, boolean partial)
+            throws IOException, SQLException, SearchClientException {
+        String scorersJson = ScorerListSerializer.toJson(experimentFactory.getScorers());
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                gaConfig.getHyperbandConcurrency());
+        List<Future<ExperimentScore>> futures = new ArrayList<>();
+        for (int i = 0; i < experiments.size(); i++) {
+            Experiment experiment = experiments.get(i).deepCopy();
+            experiment.setName(rungPrefix + "exp_" + i);
+            gaDb.addExperiment(experiment);
+            futures.add(executorService.submit(() -> {
+                //each experiment needs its own scorers to run concurrently
+                List<Scorer> scorers = ScorerListSerializer.fromJsonList(scorersJson);
+                runExperiment(experiment, scorers, experimentFactory.getMaxRows(),
+                        gaDb, judgmentList, judgmentListId, false, null, partial);
+                return new ExperimentScore(experiment, getTrainScore(scorers));
+            }));
+        }
+        List<ExperimentScore> scores = new ArrayList<>();
+        try {
+            for (Future<ExperimentScore> future : futures) {
+                scores.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SearchClientException) {
+                throw (SearchClientException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        queriesRun += (long) experiments.size() * judgmentList.getJudgmentsList().size();
+        scores.sort((a, b) -> Double.compare(b.score, a.score));
+        return scores;
+    }
+
+    private double getTrainScore(List<Scorer> scorers) {
+        String trainName = experimentFactory.getTrainScorer().getName();
+        for (Scorer scorer : scorers) {
+            if (scorer.getName().equals(trainName)) {
+                //the primary statistic is prefixed with the scorer's name
+                String stat = scorer.getPrimaryStatisticName()
+                        .substring(scorer.getName().length() + 1);
+                return scorer.getSummaryStatistics(QueryInfo.DEFAULT_QUERY_SET).get(stat);
+            }
+        }
+        throw new IllegalArgumentException("couldn't find train scorer: " + trainName);
+    }
+
+    /**
+     * @return the largest bracket, such that its first rung has at least
+     * <code>minQueries</code> queries
+     */
+    static int getMaxBracket(int numQueries, int minQueries, int eta) {
+        int bracket = 0;
+        long rungQueries = minQueries;
+        while (rungQueries * eta <= numQueries) {
+            rungQueries *= eta;
+            bracket++;
+        }
+        return bracket;
+    }
+
+    /**
+     * @return for each rung, the number of experiments and the number of queries
+     */
+    static List<int[]> getRungs(int numQueries, int eta, int bracket, int maxBracket) {
+        long etaToBracket = pow(eta, bracket);
+        int numExperiments = (int) Math.ceil(
+                (double) (maxBracket + 1) / (bracket + 1) * etaToBracket);
+        List<int[]> rungs = new ArrayList<>();
+        for (int rung = 0; rung <= bracket; rung++) {
+            int experiments = (int) Math.max(1, numExperiments / pow(eta, rung));
+            int queries = (int) Math.max(1,
+                    Math.round((double) numQueries / pow(eta, bracket - rung)));
+            rungs.add(new int[]{experiments, queries});
+        }
+        return rungs;
+    }
+
+    private static long pow(int base, int exponent) {
+        long ret = 1;
+        for (int i = 0; i < exponent; i++) {
+            ret *= base;
+        }
+        return ret;
+    }
+
+    private static class ExperimentScore {
+        private final Experiment experiment;
+        private final double score;
+
+        ExperimentScore(Experiment experiment, double score) {
+            this.experiment = experiment;
+            this.score = score;
+        }
+    }
+}
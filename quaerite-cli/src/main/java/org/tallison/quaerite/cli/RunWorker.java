@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.tallison.quaerite.core.util.CommandLineUtil.getInt;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.Query;
+
+/**
+ * Pulls leases from a {@link Coordinator} started by {@link RunExperiments}
+ * or {@link RunGA} with <code>-coordinator</code>, runs the queries against
+ * the search server with its own search clients and sends the results back.
+ * The coordinator doesn't hand out the search server's credentials, so a
+ * worker that needs them has to be given them.
+ * The worker never touches the db; it exits when the coordinator says there's
+ * no more work or when the coordinator can't be reached.
+ */
+public class RunWorker {
+
+    static Logger LOG = LogManager.getLogger(RunWorker.class);
+
+    static final int DEFAULT_NUM_THREADS = 4;
+    //how long to wait before asking again when there's no work yet
+    private static final long WAIT_MILLIS = 1000;
+    //number of consecutive failures to reach the coordinator before giving up
+    private static final int MAX_CONNECT_FAILURES = 10;
+
+    static Options OPTIONS = new Options();
+
+    static {
+        OPTIONS.addOption(
+                Option.builder("c")
+                        .longOpt("coordinator")
+                        .hasArg()
+                        .required()
+                        .desc("coordinator host:port (required)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("token")
+                        .hasArg(true)
+                        .required()
+                        .desc("the coordinator's token (required)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("user")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("user for the search server (optional)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("password")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("password for the search server (optional)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("n")
+                        .longOpt("numThreads")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("number of leases to work on at once; default: " +
+                                DEFAULT_NUM_THREADS).build()
+        );
+        OPTIONS.addOption(
+                Option.builder("id")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("name to report this worker's throughput under " +
+                                "(optional; default: pid@host)").build()
+        );
+    }
+
+    private final String host;
+    private final int port;
+    private final String name;
+    private final String token;
+    private final AtomicLong processed = new AtomicLong();
+    //credentials for the search server; can be null
+    private String user;
+    private String password;
+
+    RunWorker(String host, int port, String name, String token) {
+        this.host = host;
+        this.port = port;
+        this.name = name;
+        this.token = token;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine commandLine = null;
+
+        try {
+            commandLine = new DefaultParser().parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            HelpFormatter helpFormatter = new HelpFormatter();
+            helpFormatter.printHelp("java -jar org.tallison.quaerite.cli.RunWorker", OPTIONS);
+            return;
+        }
+        String coordinator = commandLine.getOptionValue("c");
+        int colon = coordinator.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("coordinator must be host:port");
+        }
+        String name = commandLine.hasOption("id") ? commandLine.getOptionValue("id") :
+                ManagementFactory.getRuntimeMXBean().getName();
+        RunWorker worker = new RunWorker(coordinator.substring(0, colon),
+                Integer.parseInt(coordinator.substring(colon + 1)), name,
+                commandLine.getOptionValue("token"));
+        worker.user = commandLine.getOptionValue("user");
+        worker.password = commandLine.getOptionValue("password");
+        try {
+            worker.run(getInt(commandLine, "n", DEFAULT_NUM_THREADS));
+        } finally {
+            SearchClientFactory.closeAll();
+        }
+    }
+
+    /**
+     * Works on <code>numThreads</code> leases at a time until the
+     * coordinator is done.
+     *
+     * @return the number of queries this worker ran
+     */
+    long run(int numThreads) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            futures.add(executorService.submit(() -> {
+                work();
+                return null;
+            }));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                LOG.warn("worker thread failed", e);
+            }
+        }
+        executorService.shutdownNow();
+        LOG.info("worker " + name + " processed " + processed.get() + " queries");
+        return processed.get();
+    }
+
+    private void work() throws InterruptedException {
+        int failures = 0;
+        while (true) {
+            Coordinator.Request request = new Coordinator.Request();
+            request.token = token;
+            request.worker = name;
+            Coordinator.Response lease;
+            try {
+                lease = Coordinator.exchange(host, port, request);
+                failures = 0;
+            } catch (IOException e) {
+                if (++failures >= MAX_CONNECT_FAILURES) {
+                    LOG.warn("giving up on the coordinator at " + host + ":" + port, e);
+                    return;
+                }
+                Thread.sleep(WAIT_MILLIS);
+                continue;
+            }
+            if (lease.status == Coordinator.Status.DONE) {
+                return;
+            } else if (lease.status == Coordinator.Status.DENIED) {
+                LOG.error("the coordinator at " + host + ":" + port + " rejected the token");
+                return;
+            } else if (lease.status == Coordinator.Status.WAIT) {
+                Thread.sleep(WAIT_MILLIS);
+                continue;
+            }
+            request.leaseId = lease.leaseId;
+            request.results = runLease(lease);
+            try {
+                Coordinator.exchange(host, port, request);
+            } catch (IOException e) {
+                //the coordinator will hand the lease out again
+                LOG.warn("couldn't return " + lease.leaseId, e);
+            }
+        }
+    }
+
+    private Map<String, SearchResultSet> runLease(Coordinator.Response lease) {
+        Experiment experiment = Experiment.fromJson(lease.experiment);
+        if (user != null) {
+            experiment.setServerConnection(new ServerConnection(
+                    experiment.getServerConnection().getURL(), user, password));
+        }
+        Map<String, SearchResultSet> results = new HashMap<>();
+        for (Map.Entry<String, QueryStrings> e : lease.queries.entrySet()) {
+            //experiment.getQuery() returns a deep copy
+            Query query = experiment.getQuery();
+            query.setQueryStrings(e.getValue());
+            QueryRequest queryRequest = AbstractExperimentRunner.buildQueryRequest(query,
+                    experiment, lease.idField, lease.maxRows);
+            try {
+                SearchResultSet searchResultSet = search(experiment, queryRequest);
+                if (searchResultSet != null) {
+                    results.put(e.getKey(), searchResultSet);
+                }
+            } catch (IOException | SearchClientException | RuntimeException ex) {
+                LOG.warn("failed to get results for: " + e.getValue(), ex);
+            }
+            processed.incrementAndGet();
+        }
+        return results;
+    }
+
+    /**
+     * @return the results or <code>null</code> if the search failed after retries
+     */
+    SearchResultSet search(Experiment experiment, QueryRequest queryRequest)
+            throws IOException, SearchClientException {
+        //shared, thread safe client
+        SearchClient searchClient =
+                SearchClientFactory.getClient(experiment.getServerConnection());
+        return AbstractExperimentRunner.searchWithRetries(
+                () -> searchClient.search(queryRequest), null, queryRequest.getQuery());
+    }
+}
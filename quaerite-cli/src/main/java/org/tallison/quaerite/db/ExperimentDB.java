@@ -29,6 +29,7 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -56,6 +57,7 @@ import org.tallison.quaerite.core.scorers.SummingScoreAggregator;
 import org.tallison.quaerite.core.serializers.ScorerListSerializer;
 import org.tallison.quaerite.core.stats.ExperimentNameScorePair;
 import org.tallison.quaerite.core.stats.ExperimentScorePair;
+import org.tallison.quaerite.core.stats.ExperimentScoreVector;
 
 public class ExperimentDB implements Closeable {
 
@@ -166,6 +168,16 @@ public class ExperimentDB implements Closeable {
         initJudgments();
         initScorers();
         initSearchResults();
+        initScoredJudgments();
+        upgradeScoresAggregated();
+    }
+
+    private void upgradeScoresAggregated() throws SQLException {
+        if (tableExists("SCORES_AGGREGATED")) {
+            //upgrade dbs from before partial scores
+            executeSQL(connection, "ALTER TABLE SCORES_AGGREGATED ADD COLUMN IF NOT EXISTS " +
+                    "PARTIAL BOOLEAN DEFAULT FALSE");
+        }
     }
 
     private void dropTables() throws SQLException {
@@ -175,6 +187,7 @@ public class ExperimentDB implements Closeable {
         executeSQL(connection, "drop table if exists scores");
         executeSQL(connection, "drop table if exists scores_aggregated");
         executeSQL(connection, "drop table if exists search_results");
+        executeSQL(connection, "drop table if exists scored_judgments");
     }
 
 
@@ -222,6 +235,10 @@ public class ExperimentDB implements Closeable {
                 " UQ_SEARCH_RESULTS UNIQUE(QUERY_ID, EXPERIMENT_NAME);";
         executeSQL(connection, sql);
 
+        //an experiment's stored results are read back when it is resumed or rescored
+        executeSQL(connection, "CREATE INDEX IF NOT EXISTS SEARCH_RESULTS_EXPERIMENT_IDX " +
+                "on SEARCH_RESULTS(EXPERIMENT_NAME)");
+
         //TODO: add indices to this table
         selectResults = connection.prepareStatement(
                 "select json from search_results where (query_id=? and experiment_name=?)"
@@ -229,6 +246,18 @@ public class ExperimentDB implements Closeable {
 
     }
 
+    private void initScoredJudgments() throws SQLException {
+        //fingerprint of the judgments (and scorers) that each
+        //query's scores were last calculated with; see Rescore
+        String sql = "CREATE TABLE IF NOT EXISTS " +
+                "SCORED_JUDGMENTS( " +
+                "QUERY_ID VARCHAR(256) NOT NULL, " +
+                "EXPERIMENT VARCHAR(256) NOT NULL," +
+                "FINGERPRINT VARCHAR(64), " +
+                "PRIMARY KEY (QUERY_ID, EXPERIMENT));";
+        executeSQL(connection, sql);
+    }
+
     static boolean executeSQL(Connection connection, String sql) throws SQLException {
         try (Statement st = connection.createStatement()) {
             return st.execute(sql);
@@ -404,6 +433,17 @@ public class ExperimentDB implements Closeable {
         initSearchResults();
     }
 
+    /**
+     * Deletes the search results stored for one experiment.
+     */
+    public void clearSearchResults(String experimentName) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "delete from SEARCH_RESULTS where experiment_name=?")) {
+            st.setString(1, experimentName);
+            st.execute();
+        }
+    }
+
     public void addScorer(Scorer scorer) throws SQLException {
         String json = ScorerListSerializer.toJson(scorer);
         insertScorers.clearParameters();
@@ -413,7 +453,7 @@ public class ExperimentDB implements Closeable {
         insertScorers.execute();
     }
 
-    public void initScoreTable(List<Scorer> scorers) throws SQLException {
+    public synchronized void initScoreTable(List<Scorer> scorers) throws SQLException {
         boolean mismatch = false;
         boolean tableProbDoesntExist = false;
         try (Statement st = connection.createStatement()) {
@@ -449,6 +489,7 @@ public class ExperimentDB implements Closeable {
         executeSQL(connection, "drop table if exists scores");
         executeSQL(connection, "drop index if exists scores_query_idx");
         executeSQL(connection, "drop index if exists scores_experiment_idx");
+        executeSQL(connection, "delete from scored_judgments");
 
         StringBuilder sql = new StringBuilder();
         sql.append("CREATE TABLE SCORES (" +
@@ -477,7 +518,7 @@ public class ExperimentDB implements Closeable {
         executeSQL(connection, "drop table if exists scores_aggregated");
         sql.setLength(0);
         sql.append("create table scores_aggregated (query_set varchar(256) not null," +
-                "experiment varchar(256) not null, ");
+                "experiment varchar(256) not null, partial boolean default false, ");
         i = 0;
         for (Scorer scorer : scorers) {
             if (i++ > 0) {
@@ -522,6 +563,18 @@ public class ExperimentDB implements Closeable {
 
     public void insertScoresAggregated(String experimentName,
                                        List<Scorer> scorers) throws SQLException {
+        insertScoresAggregated(experimentName, scorers, false);
+    }
+
+    /**
+     * @param partial whether the scores were calculated on only some of the
+     *                queries, e.g. because the experiment was abandoned
+     *                early; partial scores are ignored when selecting the
+     *                best experiments
+     */
+    public synchronized void insertScoresAggregated(String experimentName,
+                                                    List<Scorer> scorers, boolean partial)
+            throws SQLException {
 
         if (insertScoresAggregated == null) {
             initInsertScoresAggregated(scorers);
@@ -531,7 +584,8 @@ public class ExperimentDB implements Closeable {
             insertScoresAggregated.clearParameters();
             insertScoresAggregated.setString(1, querySet);
             insertScoresAggregated.setString(2, experimentName);
-            int i = 3;
+            insertScoresAggregated.setBoolean(3, partial);
+            int i = 4;
             for (Scorer scorer : scorers) {
                 Map<String, Double> statValues =
                         scorer.getSummaryStatistics(querySet);
@@ -547,7 +601,7 @@ public class ExperimentDB implements Closeable {
 
     private void initInsertScoresAggregated(List<Scorer> scorers) throws SQLException {
         StringBuilder sb = new StringBuilder();
-        sb.append("insert into scores_aggregated (QUERY_SET, EXPERIMENT,");
+        sb.append("insert into scores_aggregated (QUERY_SET, EXPERIMENT, PARTIAL,");
         int i = 0;
         for (Scorer scorer : scorers) {
             for (String statName : scorer.getStatistics()) {
@@ -557,7 +611,7 @@ public class ExperimentDB implements Closeable {
                 sb.append(scorer.getName()).append("_").append(statName);
             }
         }
-        sb.append(" ) values ( ?,?");
+        sb.append(" ) values ( ?,?,?");
         for (Scorer scorer : scorers) {
             for (String statName : scorer.getStatistics()) {
                 sb.append(",?");
@@ -571,6 +625,7 @@ public class ExperimentDB implements Closeable {
     public void clearScores() throws SQLException {
         executeSQL(connection, "DROP TABLE IF EXISTS SCORES");
         executeSQL(connection, "DROP TABLE IF EXISTS SCORES_AGGREGATED");
+        executeSQL(connection, "DELETE FROM SCORED_JUDGMENTS");
     }
 
     public void clearScores(String experimentName) throws SQLException {
@@ -579,9 +634,157 @@ public class ExperimentDB implements Closeable {
                     + "'");
 
         }
+        clearScoresAggregated(experimentName);
+        try (PreparedStatement st = connection.prepareStatement(
+                "delete from SCORED_JUDGMENTS where experiment=?")) {
+            st.setString(1, experimentName);
+            st.execute();
+        }
+    }
+
+    public void clearScoresAggregated(String experimentName) throws SQLException {
         if (tableExists("SCORES_AGGREGATED")) {
-            executeSQL(connection, "delete from SCORES_AGGREGATED where experiment='"
-                    + experimentName + "'");
+            try (PreparedStatement st = connection.prepareStatement(
+                    "delete from SCORES_AGGREGATED where experiment=?")) {
+                st.setString(1, experimentName);
+                st.execute();
+            }
+        }
+    }
+
+    /**
+     * Marks the experiment's aggregated scores as calculated on only some
+     * of the queries, e.g. on a subset of the training queries.
+     */
+    public void setPartial(String experimentName, boolean partial) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "update SCORES_AGGREGATED set partial=? where experiment=?")) {
+            st.setBoolean(1, partial);
+            st.setString(2, experimentName);
+            st.execute();
+        }
+    }
+
+    /**
+     * @return whether the experiment's aggregated scores were calculated
+     * on only some of the queries
+     */
+    public boolean isPartial(String experimentName) throws SQLException {
+        if (!tableExists("SCORES_AGGREGATED")) {
+            return false;
+        }
+        try (PreparedStatement st = connection.prepareStatement(
+                "select partial from SCORES_AGGREGATED where experiment=? and partial=true")) {
+            st.setString(1, experimentName);
+            try (ResultSet rs = st.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * @param experimentName experiment
+     * @return query id -&gt; fingerprint of the judgments that the query's
+     * scores were last calculated with
+     */
+    public Map<String, String> getScoredJudgments(String experimentName) throws SQLException {
+        Map<String, String> fingerprints = new HashMap<>();
+        try (PreparedStatement st = connection.prepareStatement(
+                "select query_id, fingerprint from SCORED_JUDGMENTS where experiment=?")) {
+            st.setString(1, experimentName);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    fingerprints.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Streams the stored search results of an experiment.  The caller
+     * must close the reader.
+     *
+     * @param experimentName experiment
+     * @return reader over the experiment's stored search results
+     */
+    public SearchResultsReader readSearchResults(String experimentName) throws SQLException {
+        PreparedStatement st = connection.prepareStatement(
+                "select query_id, json from search_results where experiment_name=?");
+        st.setString(1, experimentName);
+        return new SearchResultsReader(st, st.executeQuery());
+    }
+
+    /**
+     * @param experimentName experiment
+     * @return query id -&gt; the experiment's stored search results
+     */
+    public Map<String, SearchResultSet> getSearchResults(String experimentName)
+            throws SQLException, IOException {
+        Map<String, SearchResultSet> results = new HashMap<>();
+        try (SearchResultsReader reader = readSearchResults(experimentName)) {
+            while (reader.next()) {
+                results.put(reader.getQueryId(), reader.getSearchResultSet());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Copies the per query scores, the aggregated scores and the search results
+     * of one experiment to another, e.g. when the two experiments are duplicates.
+     * Anything that the target already has in those tables is replaced.
+     *
+     * @param fromExperiment experiment that has already been scored
+     * @param toExperiment experiment to copy the scores to
+     */
+    public void copyScores(String fromExperiment, String toExperiment) throws SQLException {
+        copyRows("SCORES", "EXPERIMENT", fromExperiment, toExperiment);
+        copyRows("SEARCH_RESULTS", "EXPERIMENT_NAME", fromExperiment, toExperiment);
+        copyRows("SCORED_JUDGMENTS", "EXPERIMENT", fromExperiment, toExperiment);
+        //last, so that the copy only counts as scored once everything else is there
+        copyRows("SCORES_AGGREGATED", "EXPERIMENT", fromExperiment, toExperiment);
+    }
+
+    private void copyRows(String table, String experimentColumn,
+                          String fromExperiment, String toExperiment) throws SQLException {
+        if (!tableExists(table)) {
+            return;
+        }
+        List<String> columns = new ArrayList<>();
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("select * from " + table + " limit 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnName(i));
+            }
+        }
+        StringBuilder insert = new StringBuilder();
+        StringBuilder select = new StringBuilder();
+        for (String column : columns) {
+            if (insert.length() > 0) {
+                insert.append(", ");
+                select.append(", ");
+            }
+            insert.append(column);
+            if (column.equalsIgnoreCase(experimentColumn)) {
+                select.append("cast(? as varchar(1024))");
+            } else {
+                select.append(column);
+            }
+        }
+        //replace anything left by a copy that was interrupted
+        try (PreparedStatement st = connection.prepareStatement(
+                "delete from " + table + " where " + experimentColumn + "=?")) {
+            st.setString(1, toExperiment);
+            st.execute();
+        }
+        String sql = "insert into " + table + " (" + insert + ") select " + select +
+                " from " + table + " where " + experimentColumn + "=?";
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            st.setString(1, toExperiment);
+            st.setString(2, fromExperiment);
+            st.execute();
         }
     }
 
@@ -611,6 +814,55 @@ public class ExperimentDB implements Closeable {
         return values;
     }
 
+    /**
+     * Loads the scores for all of the experiments with a single query.
+     *
+     * @return experiments x queries; the rows are in the order of
+     * <code>experimentNames</code> and every row has a given query's score
+     * in the same column.  Missing and negative scores are set to 0.
+     */
+    public double[][] getScoreMatrix(String querySet, List<String> experimentNames,
+                                     String scorerName) throws SQLException {
+        Map<String, Integer> experimentOrdinals = new HashMap<>();
+        for (String experimentName : experimentNames) {
+            experimentOrdinals.put(experimentName, experimentOrdinals.size());
+        }
+        Map<String, Integer> queryOrdinals = new HashMap<>();
+        double[][] matrix = new double[experimentNames.size()][16];
+        String sql = "select experiment, query_id, " + scorerName + " from scores";
+        if (!StringUtils.isBlank(querySet)) {
+            sql += " where query_set=?";
+        }
+        try (PreparedStatement st = connection.prepareStatement(sql)) {
+            if (!StringUtils.isBlank(querySet)) {
+                st.setString(1, querySet);
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    Integer experimentOrdinal = experimentOrdinals.get(rs.getString(1));
+                    if (experimentOrdinal == null) {
+                        continue;
+                    }
+                    Integer queryOrdinal = queryOrdinals.get(rs.getString(2));
+                    if (queryOrdinal == null) {
+                        queryOrdinal = queryOrdinals.size();
+                        queryOrdinals.put(rs.getString(2), queryOrdinal);
+                    }
+                    if (queryOrdinal >= matrix[experimentOrdinal].length) {
+                        for (int i = 0; i < matrix.length; i++) {
+                            matrix[i] = Arrays.copyOf(matrix[i], matrix[i].length * 2);
+                        }
+                    }
+                    matrix[experimentOrdinal][queryOrdinal] = Math.max(0.0d, rs.getDouble(3));
+                }
+            }
+        }
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = Arrays.copyOf(matrix[i], queryOrdinals.size());
+        }
+        return matrix;
+    }
+
     private PreparedStatement getSelectScores(
             Map<String, PreparedStatement> map, String scorerName, boolean hasQuerySet) throws SQLException {
         PreparedStatement selectScores = map.get(scorerName);
@@ -647,6 +899,47 @@ public class ExperimentDB implements Closeable {
         return false;
     }
 
+    /**
+     * An experiment only has aggregated scores once its run has finished;
+     * it can have per query scores (see {@link #hasScores}) from a run that
+     * was interrupted.
+     *
+     * @return whether the experiment has aggregated scores that were
+     * calculated on all of its queries
+     */
+    public boolean hasCompleteScores(String experimentName) throws SQLException {
+        if (!tableExists("SCORES_AGGREGATED")) {
+            return false;
+        }
+        try (PreparedStatement st = connection.prepareStatement(
+                "select experiment from SCORES_AGGREGATED where experiment=? and partial=false")) {
+            st.setString(1, experimentName);
+            try (ResultSet rs = st.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * @return the number of experiments whose names start with
+     * <code>prefix</code> that have aggregated scores, partial or not
+     */
+    public int countScoredExperiments(String prefix) throws SQLException {
+        String escaped = prefix.replace("\\", "\\\\")
+                .replace("%", "\\%").replace("_", "\\_");
+        try (PreparedStatement st = connection.prepareStatement(
+                "select count(distinct experiment) from scores_aggregated " +
+                        "where experiment like ? escape '\\'")) {
+            st.setString(1, escaped + "%");
+            try (ResultSet rs = st.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            //no scores yet
+            return 0;
+        }
+    }
+
     public String getLatestExperiment() throws SQLException {
         String sql = "select name from experiments order by last_edited desc limit 1";
         try (Statement st = connection.createStatement()) {
@@ -682,9 +975,10 @@ public class ExperimentDB implements Closeable {
             throw new IllegalArgumentException("I don't yet support: " + scorer.getClass());
         }
 
-        String sql = "select experiment, " + columnName + " from scores_aggregated";
+        String sql = "select experiment, " + columnName + " from scores_aggregated" +
+                " where partial=false";
         if (!StringUtils.isBlank(querySet)) {
-            sql += " where query_set='" + querySet + "'";
+            sql += " and query_set='" + querySet + "'";
         }
         try (Statement st = connection.createStatement()) {
             try (ResultSet rs = st.executeQuery(sql)) {
@@ -797,12 +1091,13 @@ public class ExperimentDB implements Closeable {
         }
         prefix = prefix + "%";
         String prefixIlike = StringUtils.isBlank(prefix) ? StringUtils.EMPTY :
-                "where sa.experiment ilike '" + prefix + "' ";
+                "and sa.experiment ilike '" + prefix + "' ";
 
         String limit = (num > -1) ? "limit " + num : StringUtils.EMPTY;
         String sql = "select sa.experiment, e.json, sa." + scorerName + " " +
                 "from scores_aggregated sa " +
                 "join experiments e on sa.experiment=e.name " +
+                "where sa.partial=false " +
                 prefixIlike +
                 "order by " + scorerName + " desc " +
                 limit;
@@ -832,12 +1127,13 @@ public class ExperimentDB implements Closeable {
         }
         prefix = prefix + "%";
         String prefixIlike = StringUtils.isBlank(prefix) ? StringUtils.EMPTY :
-                "where sa.experiment ilike '" + prefix + "' ";
+                "and sa.experiment ilike '" + prefix + "' ";
 
         String limit = (num > -1) ? "limit " + num : StringUtils.EMPTY;
         String sql = "select sa.experiment, sa." + scorerName + " " +
                 "from scores_aggregated sa " +
                 "join experiments e on sa.experiment=e.name " +
+                "where sa.partial=false " +
                 prefixIlike +
                 "order by " + scorerName + " desc " +
                 limit;
@@ -855,8 +1151,85 @@ public class ExperimentDB implements Closeable {
         return experiments;
     }
 
+    /**
+     * @param experimentNamePrefix prefix of the experiment names
+     * @param statistics columns of the aggregated scores, e.g. ndcg_10_mean
+     * @return the experiments with complete scores whose names start with the
+     * prefix, each with its value for each of the statistics (NaN if missing)
+     */
+    public List<ExperimentScoreVector> getExperimentScoreVectors(String experimentNamePrefix,
+                                                                 List<String> statistics)
+            throws SQLException {
+        String escaped = experimentNamePrefix.replace("\\", "\\\\")
+                .replace("%", "\\%").replace("_", "\\_");
+        StringBuilder sql = new StringBuilder("select sa.experiment, e.json");
+        for (String statistic : statistics) {
+            sql.append(", sa.").append(statistic);
+        }
+        sql.append(" from scores_aggregated sa " +
+                "join experiments e on sa.experiment=e.name " +
+                "where sa.partial=false and sa.experiment like ? escape '\\' " +
+                "order by sa.experiment");
+        List<ExperimentScoreVector> experiments = new ArrayList<>();
+        try (PreparedStatement st = connection.prepareStatement(sql.toString())) {
+            st.setString(1, escaped + "%");
+            try (ResultSet resultSet = st.executeQuery()) {
+                while (resultSet.next()) {
+                    Experiment ex = Experiment.fromJson(resultSet.getString(2));
+                    double[] scores = new double[statistics.size()];
+                    for (int i = 0; i < scores.length; i++) {
+                        scores[i] = resultSet.getDouble(i + 3);
+                        if (resultSet.wasNull()) {
+                            scores[i] = Double.NaN;
+                        }
+                    }
+                    experiments.add(new ExperimentScoreVector(ex, scores));
+                }
+            }
+        }
+        return experiments;
+    }
+
     public QueryRunnerDBClient getQueryRunnerDBClient(
             List<Scorer> scorers) throws SQLException {
         return new QueryRunnerDBClient(connection, scorers);
     }
+
+    /**
+     * Not thread safe.
+     */
+    public static class SearchResultsReader implements Closeable {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+
+        private SearchResultsReader(PreparedStatement statement, ResultSet resultSet) {
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        /**
+         * @return <code>false</code> if there are no more search results
+         */
+        public boolean next() throws SQLException {
+            return resultSet.next();
+        }
+
+        public String getQueryId() throws SQLException {
+            return resultSet.getString(1);
+        }
+
+        public SearchResultSet getSearchResultSet() throws SQLException {
+            return GSON.fromJson(resultSet.getString(2), SearchResultSet.class);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
@@ -24,6 +24,7 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -59,10 +60,129 @@ public class GADB extends ExperimentDB {
                 "jdbc:h2:" + dbDir.resolve("h2_database").toAbsolutePath()), false);
     }
 
+    /**
+     * Opens the db so that it can be shared by separate processes, such as
+     * RunGA's islands.  The first process to open the file serves it to
+     * the others.
+     */
+    public static GADB openShared(Path dbDir, boolean dropAll) throws SQLException {
+        try {
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        return new GADB(DriverManager.getConnection(
+                "jdbc:h2:" + dbDir.resolve("h2_database").toAbsolutePath() +
+                        ";AUTO_SERVER=TRUE;LOCK_TIMEOUT=10000"), dropAll);
+    }
+
     private PreparedStatement getTestingStatement;
 
     private GADB(Connection connection, boolean dropAll) throws SQLException {
         super(connection, dropAll);
+        if (dropAll) {
+            executeSQL(connection, "drop table if exists train_test");
+            executeSQL(connection, "drop table if exists ga_progress");
+            executeSQL(connection, "drop table if exists ga_failures");
+        }
+        //the generations that have been completed, so that a run can be resumed
+        executeSQL(connection, "CREATE TABLE IF NOT EXISTS GA_PROGRESS (" +
+                "FOLD INTEGER NOT NULL, " +
+                "ISLAND INTEGER NOT NULL, " +
+                "GENERATION INTEGER NOT NULL, " +
+                "COMPLETED TIMESTAMP, " +
+                "PRIMARY KEY (FOLD, ISLAND, GENERATION));");
+        //the last failure of each island, so that the other islands stop waiting for it
+        executeSQL(connection, "CREATE TABLE IF NOT EXISTS GA_FAILURES (" +
+                "FOLD INTEGER NOT NULL, " +
+                "ISLAND INTEGER NOT NULL, " +
+                "FAILED TIMESTAMP, " +
+                "MESSAGE VARCHAR(10000), " +
+                "PRIMARY KEY (FOLD, ISLAND));");
+    }
+
+    /**
+     * Records that a generation, including any migration into it, is complete.
+     *
+     * @param island island number or -1 if not using islands
+     */
+    public void setGenerationComplete(int fold, int island, int generation)
+            throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "merge into ga_progress (fold, island, generation, completed) " +
+                        "KEY(fold, island, generation) values (?,?,?,?)")) {
+            st.setInt(1, fold);
+            st.setInt(2, island);
+            st.setInt(3, generation);
+            st.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            st.execute();
+        }
+    }
+
+    /**
+     * @param island island number or -1 if not using islands
+     * @return the last generation that was completed for the fold and
+     * island, or -1 if none has been completed
+     */
+    public int getLastCompletedGeneration(int fold, int island) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "select max(generation) from ga_progress where fold=? and island=?")) {
+            st.setInt(1, fold);
+            st.setInt(2, island);
+            try (ResultSet rs = st.executeQuery()) {
+                if (rs.next()) {
+                    int generation = rs.getInt(1);
+                    return rs.wasNull() ? -1 : generation;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records that an island stopped because of a failure.
+     */
+    public void setIslandFailed(int fold, int island, String message) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "merge into ga_failures (fold, island, failed, message) " +
+                        "KEY(fold, island) values (?,?,?,?)")) {
+            st.setInt(1, fold);
+            st.setInt(2, island);
+            st.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            st.setString(4, (message == null || message.length() <= 10000) ? message :
+                    message.substring(0, 10000));
+            st.execute();
+        }
+    }
+
+    /**
+     * @param since failures before this time, e.g. those of an earlier run
+     *              that is being resumed, are ignored
+     * @return the message of the island's failure or <code>null</code> if it
+     * hasn't failed since <code>since</code>
+     */
+    public String getIslandFailure(int fold, int island, long since) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "select message from ga_failures where fold=? and island=? and failed >= ?")) {
+            st.setInt(1, fold);
+            st.setInt(2, island);
+            st.setTimestamp(3, new Timestamp(since));
+            try (ResultSet rs = st.executeQuery()) {
+                if (rs.next()) {
+                    String message = rs.getString(1);
+                    return (message == null) ? "" : message;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the queries have already been split into folds,
+     * e.g. by the run that is being resumed
+     */
+    public boolean hasTrainTest() throws SQLException {
+        return tableExists("TRAIN_TEST");
     }
 
     public void initTrainTest(JudgmentList test, JudgmentList all) throws SQLException {
@@ -127,6 +247,11 @@ public class GADB extends ExperimentDB {
 
     public TrainTestJudmentListPair getTrainTestJudgmentsByFold(int fold) throws SQLException {
         Set<String> testNames = new HashSet<>();
+        if (getTestingStatement == null) {
+            //resumed run; the folds were split by an earlier run
+            getTestingStatement = connection.prepareStatement(
+                    "select query from train_test where fold = ?");
+        }
         getTestingStatement.clearParameters();
         getTestingStatement.setInt(1, fold);
         try (ResultSet rs = getTestingStatement.executeQuery()) {
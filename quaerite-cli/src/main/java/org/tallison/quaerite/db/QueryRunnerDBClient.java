@@ -47,6 +47,9 @@ public class QueryRunnerDBClient implements Closeable {
 
     private PreparedStatement insertScores;
     private PreparedStatement insertResults;
+    private PreparedStatement deleteScores;
+    private PreparedStatement deleteScoredJudgments;
+    private PreparedStatement insertScoredJudgments;
 
     protected QueryRunnerDBClient(Connection connection, List<Scorer> scorers) throws SQLException {
         insertResults = connection.prepareStatement(
@@ -66,6 +69,12 @@ public class QueryRunnerDBClient implements Closeable {
         }
         insertSql.append(")");
         insertScores = connection.prepareStatement(insertSql.toString());
+        deleteScores = connection.prepareStatement(
+                "delete from scores where query_id=? and experiment=?");
+        deleteScoredJudgments = connection.prepareStatement(
+                "delete from scored_judgments where query_id=? and experiment=?");
+        insertScoredJudgments = connection.prepareStatement(
+                "insert into scored_judgments (query_id, experiment, fingerprint) values (?,?,?)");
     }
 
     public void insertScores(QueryInfo queryInfo,
@@ -81,16 +90,51 @@ public class QueryRunnerDBClient implements Closeable {
         //TODO: check that score is not null
         for (Scorer scoreAggregator : scorers) {
             insertScores.setDouble(i++,
-                    scoreAggregator.getScores().get(queryInfo));
+                    scoreAggregator.getScore(queryInfo));
         }
         insertScores.addBatch();
     }
 
+    /**
+     * Deletes a query's scores and the fingerprint of the judgments they
+     * were calculated with.  Deletes are run before inserts in
+     * {@link #executeBatch()}.
+     */
+    public void deleteScores(String queryId, String experimentName) throws SQLException {
+        for (PreparedStatement st : new PreparedStatement[]{deleteScores, deleteScoredJudgments}) {
+            st.setString(1, queryId);
+            st.setString(2, experimentName);
+            st.addBatch();
+        }
+    }
+
+    /**
+     * Records the fingerprint of the judgments that a query's scores were
+     * calculated with.
+     */
+    public void insertScoredJudgments(String queryId, String experimentName,
+                                      String fingerprint) throws SQLException {
+        insertScoredJudgments.setString(1, queryId);
+        insertScoredJudgments.setString(2, experimentName);
+        insertScoredJudgments.setString(3, fingerprint);
+        insertScoredJudgments.addBatch();
+    }
+
     public void insertSearchResults(QueryInfo queryInfo, String experimentName,
                                     SearchResultSet results) throws SQLException {
-        //in case more fields were brought back than just id/index
-        //store only the ids and index. This can happen with a template
-        //query in ES
+        String json = GSON.toJson(winnow(results));
+        insertResults.setString(1, queryInfo.getQueryId());
+        insertResults.setString(2, experimentName);
+        insertResults.setString(3, json);
+        insertResults.addBatch();
+    }
+
+    /**
+     * in case more fields were brought back than just id/index
+     * store only the ids and index. This can happen with a template
+     * query in ES
+     */
+    static SearchResultSet winnow(SearchResultSet results) {
         List<StoredDocument> docs = new ArrayList<>();
         for (int i = 0; i < results.size(); i++) {
             StoredDocument sd = results.get(i);
@@ -100,20 +144,21 @@ public class QueryRunnerDBClient implements Closeable {
             }
             docs.add(minimized);
         }
-
         SearchResultSet winnowed = new SearchResultSet(results.getTotalHits(),
                 results.getQueryTime(), results.getElapsedTime(), docs);
-
-        String json = GSON.toJson(winnowed);
-        insertResults.setString(1, queryInfo.getQueryId());
-        insertResults.setString(2, experimentName);
-        insertResults.setString(3, json);
-        insertResults.addBatch();
+        //keep the timing breakdown so that slow experiments can be attributed
+        //to the search engine or to the client
+        winnowed.setTimings(results.getTimings());
+        winnowed.setCached(results.isCached());
+        return winnowed;
     }
 
     public void executeBatch() throws SQLException {
+        deleteScores.executeBatch();
+        deleteScoredJudgments.executeBatch();
         insertScores.executeBatch();
         insertResults.executeBatch();
+        insertScoredJudgments.executeBatch();
     }
 
     @Override
@@ -122,6 +167,9 @@ public class QueryRunnerDBClient implements Closeable {
             executeBatch();
             insertScores.close();
             insertResults.close();
+            deleteScores.close();
+            deleteScoredJudgments.close();
+            insertScoredJudgments.close();
         } catch (SQLException e) {
             throw new IOException(e);
         }
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.util.StringUtil;
+
+/**
+ * Search results on disk keyed by a fingerprint of the canonical request
+ * (see {@link org.tallison.quaerite.connectors.SearchClient#getCanonicalRequest}),
+ * which includes the server's url.  Only the ids, total hits and timings are
+ * stored.
+ * <p>
+ * Unlike the experiment db, this is never dropped, so results are reused across
+ * experiments, folds, generations and runs.  Clear the directory if the index
+ * changes.  When there are more than <code>maxEntries</code> results, the least
+ * recently used are evicted.
+ * <p>
+ * This is thread safe.
+ */
+public class SearchResultCache implements Closeable {
+
+    private static Gson GSON = new GsonBuilder().create();
+
+    static Logger LOG = LogManager.getLogger(SearchResultCache.class);
+
+    //evict this fraction beyond max entries at a time
+    private static final double EVICTION_SLACK = 0.1;
+
+    private final Connection connection;
+    private final int maxEntries;
+    private final PreparedStatement select;
+    private final PreparedStatement touch;
+    private final PreparedStatement merge;
+    private final PreparedStatement evict;
+    //logical clock for least recently used
+    private long clock;
+    private long size;
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    public static SearchResultCache open(Path cacheDir, int maxEntries)
+            throws SQLException, IOException {
+        try {
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        if (!Files.isDirectory(cacheDir)) {
+            Files.createDirectories(cacheDir);
+        }
+        //auto_server so that concurrent runs can share the cache
+        return new SearchResultCache(DriverManager.getConnection(
+                "jdbc:h2:" + cacheDir.resolve("search_cache").toAbsolutePath() +
+                        ";AUTO_SERVER=TRUE"), maxEntries);
+    }
+
+    SearchResultCache(Connection connection, int maxEntries) throws SQLException {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        this.connection = connection;
+        this.maxEntries = maxEntries;
+        ExperimentDB.executeSQL(connection, "CREATE TABLE IF NOT EXISTS " +
+                "SEARCH_CACHE(" +
+                "FINGERPRINT VARCHAR(64) PRIMARY KEY, " +
+                "LAST_USED BIGINT, " +
+                "JSON CLOB);");
+        //caches that were created with a VARCHAR column overflowed with large maxRows
+        ExperimentDB.executeSQL(connection, "ALTER TABLE SEARCH_CACHE ALTER COLUMN JSON CLOB;");
+        ExperimentDB.executeSQL(connection, "CREATE INDEX IF NOT EXISTS " +
+                "SEARCH_CACHE_LAST_USED ON SEARCH_CACHE(LAST_USED);");
+        try (PreparedStatement st = connection.prepareStatement(
+                "select count(1), max(last_used) from search_cache");
+                ResultSet rs = st.executeQuery()) {
+            rs.next();
+            size = rs.getLong(1);
+            clock = rs.getLong(2);
+        }
+        select = connection.prepareStatement(
+                "select json from search_cache where fingerprint=?");
+        touch = connection.prepareStatement(
+                "update search_cache set last_used=? where fingerprint=?");
+        merge = connection.prepareStatement(
+                "merge into search_cache (fingerprint, last_used, json) " +
+                        "KEY(fingerprint) values (?,?,?)");
+        evict = connection.prepareStatement(
+                "delete from search_cache where fingerprint in " +
+                        "(select fingerprint from search_cache order by last_used limit ?)");
+    }
+
+    /**
+     * @param canonicalRequest
+     * @return the cached results, marked as cached and without the timings
+     * of the request that was cached, or <code>null</code> if there are none
+     * @throws SQLException
+     */
+    public synchronized SearchResultSet get(String canonicalRequest) throws SQLException {
+        String fingerprint = fingerprint(canonicalRequest);
+        select.setString(1, fingerprint);
+        String json = null;
+        try (ResultSet rs = select.executeQuery()) {
+            if (rs.next()) {
+                json = rs.getString(1);
+            }
+        }
+        if (json == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        touch.setLong(1, ++clock);
+        touch.setString(2, fingerprint);
+        touch.executeUpdate();
+        hits.incrementAndGet();
+        SearchResultSet results = GSON.fromJson(json, SearchResultSet.class);
+        results.setTimings(null);
+        results.setCached(true);
+        return results;
+    }
+
+    public synchronized void put(String canonicalRequest, SearchResultSet results)
+            throws SQLException {
+        merge.setString(1, fingerprint(canonicalRequest));
+        merge.setLong(2, ++clock);
+        merge.setString(3, GSON.toJson(QueryRunnerDBClient.winnow(results)));
+        //merge reports 1 for both inserts and updates, so size can overcount
+        size += merge.executeUpdate();
+        if (size > maxEntries) {
+            evict.setLong(1, size - maxEntries + (long) (maxEntries * EVICTION_SLACK));
+            evict.executeUpdate();
+            size = count();
+        }
+    }
+
+    private long count() throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement(
+                "select count(1) from search_cache");
+                ResultSet rs = st.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    static String fingerprint(String canonicalRequest) {
+        return StringUtil.sha256Hex(canonicalRequest);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        LOG.info("search cache hits: " + hits.get() + "; misses: " + misses.get());
+        try {
+            select.close();
+            touch.close();
+            merge.close();
+            evict.close();
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -18,12 +18,17 @@
 package org.tallison.quaerite;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterAll;
@@ -42,6 +47,7 @@ import org.tallison.quaerite.core.queries.EDisMaxQuery;
 import org.tallison.quaerite.core.queries.LuceneQuery;
 import org.tallison.quaerite.core.queries.Query;
 import org.tallison.quaerite.core.scorers.AtLeastOneAtN;
+import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.db.ExperimentDB;
 
 public class TestExperimentDB {
@@ -130,4 +136,51 @@ public class TestExperimentDB {
 
     }
 
+    @Test
+    public void testCopyScores() throws Exception {
+        Path dbDir = Files.createTempDirectory("exp-copy-");
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dbDir)) {
+            Scorer scorer = new AtLeastOneAtN(1);
+            db.initScoreTable(Collections.singletonList(scorer));
+            try (Statement st = db.getConnection().createStatement()) {
+                st.execute("insert into scores values ('q1', 'qs', 1, 'a', 1.0)");
+                st.execute("insert into scores values ('q2', 'qs', 1, 'a', 0.0)");
+                st.execute("insert into search_results values ('q1', 'a', '{}')");
+            }
+            assertFalse(db.hasScores("b"));
+            db.copyScores("a", "b");
+            assertTrue(db.hasScores("b"));
+            Map<String, Double> scores = db.getScores("", "b", scorer.getName());
+            assertEquals(2, scores.size());
+            assertEquals(1.0, scores.get("q1"), 0.0001);
+            assertEquals(0.0, scores.get("q2"), 0.0001);
+            //the source is untouched
+            assertEquals(2, db.getScores("", "a", scorer.getName()).size());
+        } finally {
+            FileUtils.deleteDirectory(dbDir.toFile());
+        }
+    }
+
+    @Test
+    public void testUpgradesScoresAggregatedOnOpen() throws Exception {
+        Path dbDir = Files.createTempDirectory("exp-upgrade-");
+        try {
+            try (ExperimentDB db = ExperimentDB.openAndDrop(dbDir);
+                    Statement st = db.getConnection().createStatement()) {
+                //as written before partial scores
+                st.execute("drop table if exists scores_aggregated");
+                st.execute("create table scores_aggregated (query_set varchar(256), " +
+                        "experiment varchar(256) not null, ELAPSED bigint)");
+                st.execute("insert into scores_aggregated values ('', 'a', 10)");
+            }
+            //no initScoreTable, e.g. a report on an existing db
+            try (ExperimentDB db = ExperimentDB.open(dbDir)) {
+                assertFalse(db.isPartial("a"));
+                db.setPartial("a", true);
+                assertTrue(db.isPartial("a"));
+            }
+        } finally {
+            FileUtils.deleteDirectory(dbDir.toFile());
+        }
+    }
 }
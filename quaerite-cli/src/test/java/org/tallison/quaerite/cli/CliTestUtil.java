@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.scorers.JudgedResultList;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.QueryRunnerDBClient;
+
+/**
+ * Fixtures shared by the cli tests that run experiments without a search server.
+ * <p>
+ * The canned experiments are "good", which finds the one relevant doc "a"
+ * first, and "bad" (or any other name), which finds it second.
+ */
+class CliTestUtil {
+
+    static final int NUM_QUERIES = 50;
+
+    static Judgments judgments(String queryId, String id, double relevance) {
+        QueryStrings queryStrings = new QueryStrings();
+        queryStrings.setQuery(queryId);
+        Judgments judgments = new Judgments(new QueryInfo(queryId, QueryInfo.DEFAULT_QUERY_SET,
+                queryStrings, 1));
+        judgments.addJudgment(id, relevance);
+        return judgments;
+    }
+
+    /**
+     * Adds {@link #NUM_QUERIES} queries, each with "a" as its one relevant doc.
+     *
+     * @return the judgments that were added
+     */
+    static List<Judgments> addJudgments(ExperimentDB db) throws SQLException {
+        List<Judgments> judgmentsList = new ArrayList<>();
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            Judgments judgments = judgments("q" + i, "a", 3.0);
+            db.addJudgment(judgments);
+            judgmentsList.add(judgments);
+        }
+        return judgmentsList;
+    }
+
+    static SearchResultSet results(String... ids) {
+        return new SearchResultSet(100, 5, 10, docs(ids));
+    }
+
+    /**
+     * @param elapsed both the query time reported by the server and the
+     *                client's elapsed time
+     */
+    static SearchResultSet results(long elapsed, String... ids) {
+        return new SearchResultSet(100, elapsed, elapsed, docs(ids));
+    }
+
+    private static List<StoredDocument> docs(String... ids) {
+        List<StoredDocument> docs = new ArrayList<>();
+        for (String id : ids) {
+            docs.add(new StoredDocument(id));
+        }
+        return docs;
+    }
+
+    static Experiment experiment(String name) {
+        return new Experiment(name, new ServerConnection("http://localhost:8983/solr/test"),
+                new LuceneQuery("text", ""));
+    }
+
+    static SearchResultSet cannedResults(Experiment experiment) {
+        return experiment.getName().equals("good") ? results("a", "b") : results("b", "a");
+    }
+
+    /**
+     * Checks the per-query and aggregated scores of "good" and "bad" after
+     * both have been run on the {@link #NUM_QUERIES} queries.
+     */
+    static void assertGoodAndBadScores(ExperimentDB db, Scorer scorer) throws SQLException {
+        Map<String, Double> scores = db.getScores("", "bad", "ndcg_10");
+        assertEquals(NUM_QUERIES, scores.size());
+        assertEquals(0.63, scores.get("q7"), 0.01);
+        Map<String, Double> aggregated = db.getKeyExperimentScore(scorer, "");
+        assertEquals(1.0, aggregated.get("good"), 0.0001);
+        assertEquals(0.63, aggregated.get("bad"), 0.01);
+    }
+
+    /**
+     * Scores an experiment that returned <code>ids</code> for the one query
+     * and stores its per-query and aggregated scores.
+     */
+    static void addScoredExperiment(ExperimentDB db, String name, Judgments judgments,
+                                    List<Scorer> scorers, long elapsed, boolean partial,
+                                    String... ids) throws Exception {
+        db.addExperiment(experiment(name));
+        AbstractExperimentRunner.score(judgments, results(elapsed, ids), scorers,
+                new JudgedResultList());
+        try (QueryRunnerDBClient client = db.getQueryRunnerDBClient(scorers)) {
+            client.insertScores(judgments.getQueryInfo(), name, scorers);
+        }
+        db.insertScoresAggregated(name, scorers, partial);
+    }
+}
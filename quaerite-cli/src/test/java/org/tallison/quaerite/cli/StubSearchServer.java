@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal http server for tests that answers every request whose path
+ * starts with a registered prefix with a canned json body, after an
+ * optional delay.  Each connection is handled on its own thread and is
+ * closed after its response.
+ */
+class StubSearchServer implements Closeable {
+
+    private final Map<String, String> responses = new LinkedHashMap<>();
+    private final ServerSocket serverSocket;
+    private final long delayMillis;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    StubSearchServer(long delayMillis) throws IOException {
+        this.delayMillis = delayMillis;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "stub-search-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Canned responses for a Solr 8 server with one collection per entry
+     * in <code>collections</code>, which maps the collection name to the
+     * ids of the documents that it returns for every query.
+     */
+    static StubSearchServer solr(long delayMillis, Map<String, String[]> collections)
+            throws IOException {
+        StubSearchServer server = new StubSearchServer(delayMillis);
+        server.respond("/solr/admin/info/system",
+                "{\"lucene\":{\"solr-spec-version\":\"8.8.2\"}}");
+        for (Map.Entry<String, String[]> e : collections.entrySet()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"responseHeader\":{\"status\":0,\"QTime\":1},");
+            sb.append("\"response\":{\"numFound\":").append(e.getValue().length);
+            sb.append(",\"start\":0,\"docs\":[");
+            for (int i = 0; i < e.getValue().length; i++) {
+                if (i > 0) {
+                    sb.append(",");
+                }
+                sb.append("{\"id\":\"").append(e.getValue()[i]).append("\"}");
+            }
+            sb.append("]}}");
+            server.respond("/solr/" + e.getKey() + "/", sb.toString());
+        }
+        return server;
+    }
+
+    synchronized void respond(String pathPrefix, String json) {
+        responses.put(pathPrefix, json);
+    }
+
+    String getUrl() {
+        return "http://localhost:" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the number of requests that have been answered with a canned response
+     */
+    int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the most canned requests that were being answered at the
+     * same time since the last reset
+     */
+    int getMaxConcurrent() {
+        return maxConcurrent.get();
+    }
+
+    void resetMaxConcurrent() {
+        maxConcurrent.set(0);
+    }
+
+    /**
+     * Answers the next <code>n</code> requests that have a canned response
+     * with a server error instead.
+     */
+    void failNext(int n) {
+        failures.set(n);
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> {
+                    try (Socket s = socket) {
+                        handle(s);
+                    } catch (IOException | InterruptedException e) {
+                        //the client went away
+                    }
+                });
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                //closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String requestLine = reader.readLine();
+        if (requestLine == null) {
+            return;
+        }
+        int contentLength = 0;
+        String line = reader.readLine();
+        while (line != null && !line.isEmpty()) {
+            if (line.toLowerCase(Locale.US).startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+            line = reader.readLine();
+        }
+        //the bodies are ascii json, so chars == bytes
+        for (int i = 0; i < contentLength; i++) {
+            reader.read();
+        }
+        String path = requestLine.split(" ")[1];
+        String body = null;
+        synchronized (this) {
+            for (Map.Entry<String, String> e : responses.entrySet()) {
+                if (path.startsWith(e.getKey())) {
+                    body = e.getValue();
+                    break;
+                }
+            }
+        }
+        if (body != null) {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            requests.incrementAndGet();
+        }
+        String status = body == null ? "404 Not Found" : "200 OK";
+        if (body != null && failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            status = "500 Server Error";
+        }
+        byte[] bytes = (body == null ? "{}" : body).getBytes(StandardCharsets.UTF_8);
+        String headers = "HTTP/1.1 " + status + "\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: " + bytes.length + "\r\n" +
+                "Connection: close\r\n\r\n";
+        OutputStream os = socket.getOutputStream();
+        os.write(headers.getBytes(StandardCharsets.US_ASCII));
+        os.write(bytes);
+        os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tallison.quaerite.cli.CliTestUtil.addJudgments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.db.ExperimentDB;
+
+public class TestAsyncQueryRunner {
+
+    @Test
+    public void testKeepsRequestsInFlight() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-async");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                StubSearchServer solr = StubSearchServer.solr(200,
+                        Collections.singletonMap("test", new String[]{"b", "a"}))) {
+            List<Judgments> judgmentsList = init(db, scorers);
+            //the runner allows 8, but it shares 4 with other runners
+            AbstractExperimentRunner.AsyncQueryRunner runner =
+                    new AbstractExperimentRunner.AsyncQueryRunner("id", 0, 10, 8,
+                            new Semaphore(4), experiment(solr), db, null, scorers);
+            //the client probed the server's version
+            int requests = solr.getRequests();
+            long start = System.currentTimeMillis();
+            runner.run(judgmentsList);
+            long elapsed = System.currentTimeMillis() - start;
+
+            assertEquals(requests + CliTestUtil.NUM_QUERIES, solr.getRequests());
+            assertTrue(solr.getMaxConcurrent() > 1, "max concurrent: " + solr.getMaxConcurrent());
+            assertTrue(solr.getMaxConcurrent() <= 4, "max concurrent: " + solr.getMaxConcurrent());
+            //one at a time would take 50 * 200 ms
+            assertTrue(elapsed < 8000, "elapsed: " + elapsed);
+            assertEquals(0, runner.getFailed());
+            Map<String, Double> scores = db.getScores("", "bad", "ndcg_10");
+            assertEquals(CliTestUtil.NUM_QUERIES, scores.size());
+            assertEquals(0.63, scores.get("q0"), 0.01);
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testRetriesAfterABackoff() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-async");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                StubSearchServer solr = StubSearchServer.solr(0,
+                        Collections.singletonMap("test", new String[]{"b", "a"}))) {
+            List<Judgments> judgmentsList = init(db, scorers);
+            AbstractExperimentRunner.AsyncQueryRunner runner =
+                    new AbstractExperimentRunner.AsyncQueryRunner("id", 0, 10, 1,
+                            new Semaphore(1), experiment(solr), db, null, scorers);
+            int requests = solr.getRequests();
+            solr.failNext(1);
+            long start = System.currentTimeMillis();
+            runner.run(judgmentsList.subList(0, 2));
+            assertTrue(System.currentTimeMillis() - start >=
+                    AbstractExperimentRunner.RETRY_BACKOFF_MS);
+            assertEquals(requests + 3, solr.getRequests());
+            assertEquals(0, runner.getFailed());
+            assertEquals(2, db.getScores("", "bad", "ndcg_10").size());
+
+            //gives up after MAX_RETRIES tries
+            runner = new AbstractExperimentRunner.AsyncQueryRunner("id", 0, 10, 1,
+                    new Semaphore(1), experiment(solr), db, null, scorers);
+            solr.failNext(AbstractExperimentRunner.MAX_RETRIES);
+            runner.run(judgmentsList.subList(2, 4));
+            assertEquals(1, runner.getFailed());
+            assertEquals(3, db.getScores("", "bad", "ndcg_10").size());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static List<Judgments> init(ExperimentDB db, List<Scorer> scorers)
+            throws Exception {
+        db.addScorer(scorers.get(0));
+        db.initScoreTable(scorers);
+        return addJudgments(db);
+    }
+
+    private static Experiment experiment(StubSearchServer solr) {
+        return new Experiment("bad", new ServerConnection(solr.getUrl() + "/solr/test"),
+                new LuceneQuery("text", ""));
+    }
+}
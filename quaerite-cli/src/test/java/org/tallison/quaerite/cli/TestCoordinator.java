@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tallison.quaerite.cli.CliTestUtil.addJudgments;
+import static org.tallison.quaerite.cli.CliTestUtil.assertGoodAndBadScores;
+import static org.tallison.quaerite.cli.CliTestUtil.cannedResults;
+import static org.tallison.quaerite.cli.CliTestUtil.experiment;
+import static org.tallison.quaerite.cli.CliTestUtil.judgments;
+import static org.tallison.quaerite.cli.CliTestUtil.results;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.db.ExperimentDB;
+
+public class TestCoordinator {
+
+    private static final String TOKEN = "secret";
+
+    @Test
+    public void testWorkers() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-coordinator");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir)) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            List<Judgments> judgmentsList = addJudgments(db);
+            List<Future<Long>> workers = new ArrayList<>();
+            try (Coordinator coordinator = new Coordinator(0, null, TOKEN, 5, 1000)) {
+                List<CompletableFuture<List<Scorer>>> futures = new ArrayList<>();
+                for (String name : new String[]{"good", "bad"}) {
+                    futures.add(coordinator.submit(experiment(name), scorers, "id", 10,
+                            judgmentsList, db, false));
+                }
+                //a worker that takes a lease and dies
+                Coordinator.Request request = new Coordinator.Request();
+                request.token = TOKEN;
+                request.worker = "dead";
+                Coordinator.Response deadLease = Coordinator.exchange("localhost",
+                        coordinator.getPort(), request);
+                assertEquals(Coordinator.Status.LEASE, deadLease.status);
+
+                for (int i = 0; i < 3; i++) {
+                    CannedResultsWorker worker = new CannedResultsWorker(
+                            coordinator.getPort(), "worker" + i);
+                    workers.add(executorService.submit(() -> worker.run(2)));
+                }
+                for (CompletableFuture<List<Scorer>> future : futures) {
+                    assertEquals(50, future.get(60, TimeUnit.SECONDS)
+                            .get(0).getScores().size());
+                }
+                assertEquals(1, coordinator.getReissued());
+
+                //the dead worker's results arrive after all and are ignored
+                request.leaseId = deadLease.leaseId;
+                request.results = new HashMap<>();
+                for (String queryId : deadLease.queries.keySet()) {
+                    request.results.put(queryId, results("x"));
+                }
+                assertEquals(Coordinator.Status.OK, Coordinator.exchange("localhost",
+                        coordinator.getPort(), request).status);
+            }
+            long processed = 0;
+            for (Future<Long> worker : workers) {
+                processed += worker.get(60, TimeUnit.SECONDS);
+            }
+            assertTrue(processed >= 100);
+
+            assertGoodAndBadScores(db, scorers.get(0));
+        } finally {
+            executorService.shutdownNow();
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    /**
+     * Runs the leases on worker processes that search a stub Solr server,
+     * and kills one of the workers while it's working on a lease.
+     */
+    @Test
+    public void testForkedWorkers() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-coordinator");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        Map<String, String[]> collections = new LinkedHashMap<>();
+        collections.put("good", new String[]{"a", "b"});
+        collections.put("bad", new String[]{"b", "a"});
+        List<Process> workers = new ArrayList<>();
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                StubSearchServer solr = StubSearchServer.solr(50, collections)) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            List<Judgments> judgmentsList = addJudgments(db);
+            try (Coordinator coordinator = new Coordinator(0, null, TOKEN, 5, 2000)) {
+                List<CompletableFuture<List<Scorer>>> futures = new ArrayList<>();
+                for (String name : collections.keySet()) {
+                    Experiment experiment = new Experiment(name,
+                            new ServerConnection(solr.getUrl() + "/solr/" + name),
+                            new LuceneQuery("text", ""));
+                    futures.add(coordinator.submit(experiment, scorers, "id", 10,
+                            judgmentsList, db, false));
+                }
+                Process doomed = startWorker(coordinator.getPort(), "doomed", dir);
+                workers.add(doomed);
+                long deadline = System.currentTimeMillis() + 60000;
+                //the version check plus a couple of the lease's queries
+                while (solr.getRequests() < 3 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                doomed.destroyForcibly().waitFor(60, TimeUnit.SECONDS);
+
+                for (int i = 0; i < 2; i++) {
+                    workers.add(startWorker(coordinator.getPort(), "worker" + i, dir));
+                }
+                for (CompletableFuture<List<Scorer>> future : futures) {
+                    assertEquals(50, future.get(120, TimeUnit.SECONDS)
+                            .get(0).getScores().size());
+                }
+                assertEquals(1, coordinator.getReissued());
+            }
+            for (Process worker : workers.subList(1, workers.size())) {
+                assertTrue(worker.waitFor(60, TimeUnit.SECONDS));
+                assertEquals(0, worker.exitValue());
+            }
+            assertGoodAndBadScores(db, scorers.get(0));
+        } finally {
+            for (Process worker : workers) {
+                worker.destroyForcibly();
+            }
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static Process startWorker(int port, String name, Path dir) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder pb = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                RunWorker.class.getName(),
+                "-c", "localhost:" + port, "-token", TOKEN, "-n", "1", "-id", name);
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(dir.resolve(name + ".log").toFile());
+        return pb.start();
+    }
+
+    @Test
+    public void testTokenAndCredentials() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-coordinator");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                Coordinator coordinator = new Coordinator(0, null, TOKEN, 5, 1000)) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            Experiment experiment = new Experiment("bad",
+                    new ServerConnection("http://localhost:8983/solr/test", "user", "pw"),
+                    new LuceneQuery("text", ""));
+            coordinator.submit(experiment, scorers, "id", 10,
+                    Collections.singletonList(judgments("q0", "a", 3.0)), db, false);
+
+            Coordinator.Request request = new Coordinator.Request();
+            request.worker = "intruder";
+            assertEquals(Coordinator.Status.DENIED, Coordinator.exchange("localhost",
+                    coordinator.getPort(), request).status);
+            request.token = "guess";
+            assertEquals(Coordinator.Status.DENIED, Coordinator.exchange("localhost",
+                    coordinator.getPort(), request).status);
+
+            request.token = TOKEN;
+            Coordinator.Response lease = Coordinator.exchange("localhost",
+                    coordinator.getPort(), request);
+            assertEquals(Coordinator.Status.LEASE, lease.status);
+            ServerConnection leased = Experiment.fromJson(lease.experiment)
+                    .getServerConnection();
+            assertEquals("http://localhost:8983/solr/test", leased.getURL());
+            assertNull(leased.getUser());
+            assertNull(leased.getPassword());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    /**
+     * Returns {@link CliTestUtil#cannedResults} instead of searching
+     */
+    private static class CannedResultsWorker extends RunWorker {
+        CannedResultsWorker(int port, String name) {
+            super("localhost", port, name, TOKEN);
+        }
+
+        @Override
+        SearchResultSet search(Experiment experiment, QueryRequest queryRequest) {
+            return cannedResults(experiment);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tallison.quaerite.cli.CliTestUtil.addJudgments;
+import static org.tallison.quaerite.cli.CliTestUtil.assertGoodAndBadScores;
+import static org.tallison.quaerite.cli.CliTestUtil.cannedResults;
+import static org.tallison.quaerite.cli.CliTestUtil.experiment;
+import static org.tallison.quaerite.cli.CliTestUtil.judgments;
+import static org.tallison.quaerite.cli.CliTestUtil.results;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentConfig;
+import org.tallison.quaerite.core.JudgmentList;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.scorers.JudgedResultList;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.QueryRunnerDBClient;
+
+public class TestExperimentScheduler {
+
+    @Test
+    public void testAggregatesEachExperiment() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-scheduler");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                ExperimentScheduler scheduler = new CannedResultsScheduler()) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            List<Judgments> judgmentsList = addJudgments(db);
+            List<CompletableFuture<List<Scorer>>> futures = new ArrayList<>();
+            for (String name : new String[]{"good", "bad"}) {
+                futures.add(scheduler.submit(experiment(name), scorers, "id", 10,
+                        judgmentsList, db, false));
+            }
+            for (CompletableFuture<List<Scorer>> future : futures) {
+                assertEquals(50, future.get().get(0).getScores().size());
+            }
+            //the caller's scorers are copied, not shared
+            assertEquals(0, scorers.get(0).getScores().size());
+            assertGoodAndBadScores(db, scorers.get(0));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testResumesFromStoredResults() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-scheduler");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                CannedResultsScheduler scheduler = new CannedResultsScheduler()) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            List<Judgments> judgmentsList = addJudgments(db);
+            //an interrupted run stored the results of 20 queries, and the scores
+            //of one more that it didn't get to store the results for
+            List<Scorer> interrupted = ExperimentScheduler.copy(scorers);
+            try (QueryRunnerDBClient dbClient = db.getQueryRunnerDBClient(interrupted)) {
+                for (int i = 0; i < 21; i++) {
+                    Judgments judgments = judgmentsList.get(i);
+                    if (i < 20) {
+                        dbClient.insertSearchResults(judgments.getQueryInfo(), "bad",
+                                results("b", "a"));
+                    }
+                    AbstractExperimentRunner.score(judgments, results("b", "a"),
+                            interrupted, new JudgedResultList());
+                    dbClient.insertScores(judgments.getQueryInfo(), "bad", interrupted);
+                }
+            }
+            List<Scorer> experimentScorers = scheduler.submit(experiment("bad"), scorers, "id", 10,
+                    judgmentsList, db, true).get();
+            assertEquals(30, scheduler.searches.get());
+            assertEquals(50, experimentScorers.get(0).getScores().size());
+            Map<String, Double> scores = db.getScores("", "bad", "ndcg_10");
+            assertEquals(50, scores.size());
+            assertEquals(0.63, db.getKeyExperimentScore(scorers.get(0), "").get("bad"), 0.01);
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testRejectedRunFails() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-scheduler");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir)) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            List<Judgments> judgmentsList = addJudgments(db);
+            CannedResultsScheduler scheduler = new CannedResultsScheduler();
+            scheduler.close();
+            CompletableFuture<List<Scorer>> future = scheduler.submit(experiment("bad"),
+                    scorers, "id", 10, judgmentsList, db, false);
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            assertEquals(0, scheduler.searches.get());
+            assertFalse(db.getKeyExperimentScore(scorers.get(0), "").containsKey("bad"));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testRerunAfterClearScoresSearchesAgain() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-scheduler");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                CannedResultsScheduler scheduler = new CannedResultsScheduler()) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            List<Judgments> judgmentsList = addJudgments(db);
+            Experiment experiment = experiment("bad");
+            scheduler.submit(experiment, scorers, "id", 10, judgmentsList, db, false).get();
+            assertEquals(50, scheduler.searches.get());
+
+            //e.g. RunExperiments -experiment; the stored results are stale
+            db.clearScores("bad");
+            scheduler.submit(experiment, scorers, "id", 10, judgmentsList, db, false).get();
+            assertEquals(100, scheduler.searches.get());
+            assertEquals(50, db.getScores("", "bad", "ndcg_10").size());
+            assertEquals(0.63, db.getKeyExperimentScore(scorers.get(0), "").get("bad"), 0.01);
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    /**
+     * An interrupted run has already flushed the per query scores of more
+     * queries than fit in one batch, but it has no aggregated scores; it's
+     * picked up from its stored results rather than skipped as scored.
+     */
+    @Test
+    public void testRunExperimentsResumesAnInterruptedRun() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-scheduler");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        ExperimentConfig experimentConfig = new ExperimentConfig();
+        experimentConfig.setIdField("id");
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                StubSearchServer solr = StubSearchServer.solr(0,
+                        Collections.singletonMap("test", new String[]{"b", "a"}));
+                AbstractExperimentRunner runner =
+                        new AbstractExperimentRunner(experimentConfig) { }) {
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            JudgmentList judgmentList = new JudgmentList();
+            Set<String> queryIds = new HashSet<>();
+            for (int i = 0; i < 150; i++) {
+                Judgments judgments = judgments("q" + i, "a", 3.0);
+                //the stub returns both ids for the validation query too
+                judgments.addJudgment("b", 0.0);
+                judgmentList.addJudgments(judgments);
+                queryIds.add("q" + i);
+            }
+            Experiment experiment = new Experiment("bad",
+                    new ServerConnection(solr.getUrl() + "/solr/test"),
+                    new LuceneQuery("text", ""));
+            runner.cacheValidatedSubset(experiment, judgmentList, "all", queryIds, "train");
+            List<Scorer> interrupted = ExperimentScheduler.copy(scorers);
+            try (QueryRunnerDBClient dbClient = db.getQueryRunnerDBClient(interrupted)) {
+                for (int i = 0; i < 120; i++) {
+                    Judgments judgments = judgmentList.getJudgmentsList().get(i);
+                    dbClient.insertSearchResults(judgments.getQueryInfo(), "bad",
+                            results("b", "a"));
+                    AbstractExperimentRunner.score(judgments, results("b", "a"),
+                            interrupted, new JudgedResultList());
+                    dbClient.insertScores(judgments.getQueryInfo(), "bad", interrupted);
+                }
+            }
+            assertTrue(db.hasScores("bad"));
+            assertFalse(db.hasCompleteScores("bad"));
+            int requests = solr.getRequests();
+
+            assertEquals(0, runner.runExperiments(Collections.singletonList(experiment),
+                    scorers, 10, db, judgmentList, "train", false).size());
+            assertEquals(requests + 30, solr.getRequests());
+            assertTrue(db.hasCompleteScores("bad"));
+            assertEquals(150, db.getScores("", "bad", "ndcg_10").size());
+            assertEquals(0.63, db.getKeyExperimentScore(scorers.get(0), "").get("bad"), 0.01);
+
+            //now it is done
+            runner.runExperiments(Collections.singletonList(experiment),
+                    scorers, 10, db, judgmentList, "train", false);
+            assertEquals(requests + 30, solr.getRequests());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    /**
+     * Returns {@link CliTestUtil#cannedResults} and counts the searches
+     */
+    private static class CannedResultsScheduler extends ExperimentScheduler {
+        private final AtomicInteger searches = new AtomicInteger();
+
+        CannedResultsScheduler() {
+            super(4, 0, null);
+        }
+
+        @Override
+        SearchResultSet search(Experiment experiment, QueryRequest queryRequest,
+                               Judgments judgments) {
+            searches.incrementAndGet();
+            return cannedResults(experiment);
+        }
+    }
+}
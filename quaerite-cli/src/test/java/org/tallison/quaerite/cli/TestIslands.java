@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tallison.quaerite.cli.CliTestUtil.judgments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentConfig;
+import org.tallison.quaerite.core.JudgmentList;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.stats.ExperimentNameScorePair;
+import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.GADB;
+
+public class TestIslands {
+
+    @Test
+    public void testGenerationPrefix() {
+        assertEquals("train_fold_1_gen_3_", RunGA.getGenerationPrefix(1, -1, 3));
+        assertEquals("train_fold_1_island_2_gen_3_", RunGA.getGenerationPrefix(1, 2, 3));
+    }
+
+    @Test
+    public void testGenerationProgress() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-islands");
+        try {
+            try (GADB db = GADB.openAndDrop(dir)) {
+                assertEquals(-1, db.getLastCompletedGeneration(0, -1));
+                db.setGenerationComplete(0, -1, 0);
+                db.setGenerationComplete(0, -1, 1);
+                db.setGenerationComplete(1, 2, 0);
+                //idempotent
+                db.setGenerationComplete(0, -1, 1);
+            }
+            try (GADB db = GADB.open(dir)) {
+                assertEquals(1, db.getLastCompletedGeneration(0, -1));
+                assertEquals(0, db.getLastCompletedGeneration(1, 2));
+                assertEquals(-1, db.getLastCompletedGeneration(1, -1));
+            }
+            try (GADB db = GADB.openAndDrop(dir)) {
+                assertEquals(-1, db.getLastCompletedGeneration(0, -1));
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testIslandsShareTheSearchThreads() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-islands");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        ExperimentConfig experimentConfig = new ExperimentConfig();
+        experimentConfig.setIdField("id");
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                StubSearchServer solr = StubSearchServer.solr(20,
+                        Collections.singletonMap("test", new String[]{"a", "b"}));
+                AbstractExperimentRunner runner =
+                        new AbstractExperimentRunner(experimentConfig) { };
+                AbstractExperimentRunner island =
+                        new AbstractExperimentRunner(experimentConfig, runner) { }) {
+            db.addScorer(scorers.get(0));
+            JudgmentList judgmentList = new JudgmentList();
+            for (int i = 0; i < 50; i++) {
+                Judgments judgments = judgments("q" + i, "a", 3.0);
+                //the stub returns both ids for the validation query too
+                judgments.addJudgment("b", 0.0);
+                judgmentList.addJudgments(judgments);
+            }
+            //validates the judgments once for both runners
+            runner.runExperiment(experiment(solr, "seed"), scorers, 10, db, judgmentList,
+                    "train", false);
+            solr.resetMaxConcurrent();
+
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (AbstractExperimentRunner r : Arrays.asList(runner, island)) {
+                String name = (r == runner) ? "a" : "b";
+                futures.add(executorService.submit(() -> r.runExperiment(experiment(solr, name),
+                        scorers, 10, db, judgmentList, "train", false, null)));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            assertTrue(solr.getMaxConcurrent() <= experimentConfig.getNumThreads(),
+                    "max concurrent: " + solr.getMaxConcurrent());
+            assertEquals(50, db.getScores("", "b", "ndcg_10").size());
+        } finally {
+            executorService.shutdownNow();
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static Experiment experiment(StubSearchServer solr, String name) {
+        return new Experiment(name, new ServerConnection(solr.getUrl() + "/solr/test"),
+                new LuceneQuery("text", ""));
+    }
+
+    @Test
+    public void testMigrate() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-islands");
+        try (GADB db = GADB.openShared(dir, true)) {
+            Scorer scorer = new NDCG(10);
+            db.addScorer(scorer);
+            db.initScoreTable(Collections.singletonList(scorer));
+            Judgments judgments = judgments("q1", "a", 3.0);
+            db.addJudgment(judgments);
+
+            String from = RunGA.getGenerationPrefix(0, 0, 4);
+            String to = RunGA.getGenerationPrefix(0, 1, 4);
+            //exp_0 finds the relevant doc first, exp_1 second, exp_2 third
+            for (int i = 0; i < 3; i++) {
+                List<String> ids = new ArrayList<>(Arrays.asList("b", "c"));
+                ids.add(i, "a");
+                addScoredExperiment(db, from + "exp_" + i, judgments, ids);
+            }
+            addScoredExperiment(db, to + "exp_0", judgments, Arrays.asList("b", "c", "a"));
+            assertEquals(3, db.countScoredExperiments(from + "exp_"));
+            assertEquals(1, db.countScoredExperiments(to + "exp_"));
+            //already complete
+            RunGA.waitForGeneration(db, 0, 0, 4, 3, System.currentTimeMillis(), 0);
+
+            String statName = scorer.getPrimaryStatisticName();
+            assertEquals(Arrays.asList(to + "migrant_0", to + "migrant_1"),
+                    RunGA.migrate(db, from, to, 2, statName));
+            List<ExperimentNameScorePair> scores = db.getNBestExperimentNames(to, -1, statName);
+            assertEquals(3, scores.size());
+            assertEquals(to + "migrant_0", scores.get(0).getExperimentName());
+            assertEquals(1.0, scores.get(0).getScore(), 0.0001);
+            assertEquals(to + "exp_0", scores.get(2).getExperimentName());
+            //the migrants aren't counted as bred in the receiving generation
+            assertEquals(1, db.countScoredExperiments(to + "exp_"));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testWaitForFailedOrStalledIsland() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-islands");
+        try (GADB db = GADB.openShared(dir, true)) {
+            Scorer scorer = new NDCG(10);
+            db.addScorer(scorer);
+            db.initScoreTable(Collections.singletonList(scorer));
+            Judgments judgments = judgments("q1", "a", 3.0);
+            db.addJudgment(judgments);
+            //island 1 has scored one of the three experiments of its generation
+            addScoredExperiment(db, RunGA.getGenerationPrefix(0, 1, 4) + "exp_0",
+                    judgments, Arrays.asList("a", "b"));
+
+            long start = System.currentTimeMillis();
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> RunGA.waitForGeneration(db, 0, 1, 4, 3, start, 100));
+            assertTrue(e.getMessage().startsWith("gave up waiting for island 1"),
+                    e.getMessage());
+
+            db.setIslandFailed(0, 1, "java.io.IOException: connection refused");
+            e = assertThrows(RuntimeException.class,
+                    () -> RunGA.waitForGeneration(db, 0, 1, 4, 3, start, 60000));
+            assertTrue(e.getMessage().contains("connection refused"), e.getMessage());
+
+            //a failure of an earlier run doesn't count
+            Thread.sleep(10);
+            long resumed = System.currentTimeMillis();
+            e = assertThrows(RuntimeException.class,
+                    () -> RunGA.waitForGeneration(db, 0, 1, 4, 3, resumed, 100));
+            assertTrue(e.getMessage().startsWith("gave up waiting for island 1"),
+                    e.getMessage());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static void addScoredExperiment(GADB db, String name, Judgments judgments,
+                                            List<String> ids) throws Exception {
+        CliTestUtil.addScoredExperiment(db, name, judgments,
+                Collections.singletonList(new NDCG(10)), 5, false, ids.toArray(new String[0]));
+    }
+}
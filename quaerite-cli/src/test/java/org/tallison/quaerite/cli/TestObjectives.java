@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tallison.quaerite.cli.CliTestUtil.addScoredExperiment;
+import static org.tallison.quaerite.cli.CliTestUtil.judgments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.scorers.LatencyPercentiles;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.stats.ExperimentScoreVector;
+import org.tallison.quaerite.db.GADB;
+
+public class TestObjectives {
+
+    @Test
+    public void testScoreVectors() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-objectives");
+        try (GADB db = GADB.openAndDrop(dir)) {
+            List<Scorer> scorers = scorers();
+            for (Scorer scorer : scorers) {
+                db.addScorer(scorer);
+            }
+            db.initScoreTable(scorers);
+            Judgments judgments = judgments("q1", "a", 3.0);
+            db.addJudgment(judgments);
+
+            String prefix = RunGA.getLineagePrefix(1, -1);
+            addScoredExperiment(db, prefix + "0_exp_0", judgments, scorers(), 100, false,
+                    "a", "b");
+            addScoredExperiment(db, prefix + "0_exp_1", judgments, scorers(), 20, false,
+                    "b", "a");
+            //abandoned in a race
+            addScoredExperiment(db, prefix + "1_exp_0", judgments, scorers(), 10, true,
+                    "a", "b");
+            //a different fold that shares the prefix up to the underscore
+            addScoredExperiment(db, RunGA.getLineagePrefix(10, -1) + "0_exp_0", judgments,
+                    scorers(), 10, false, "a", "b");
+
+            List<ExperimentScoreVector> vectors = db.getExperimentScoreVectors(
+                    "train_fold_1_", Arrays.asList("ndcg_10_mean",
+                            "LatencyPercentiles_client_p95"));
+            assertEquals(2, vectors.size());
+            assertEquals(prefix + "0_exp_0", vectors.get(0).getExperiment().getName());
+            assertEquals(1.0, vectors.get(0).getScores()[0], 0.0001);
+            assertEquals(100.0, vectors.get(0).getScores()[1], 1.0);
+            assertEquals(prefix + "0_exp_1", vectors.get(1).getExperiment().getName());
+            assertTrue(vectors.get(1).getScores()[0] < 1.0);
+            assertEquals(20.0, vectors.get(1).getScores()[1], 1.0);
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static List<Scorer> scorers() {
+        return Arrays.asList(new NDCG(10), new LatencyPercentiles());
+    }
+}
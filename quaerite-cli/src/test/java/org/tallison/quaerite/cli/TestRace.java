@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.scorers.JudgedResultList;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+public class TestRace {
+
+    @Test
+    public void testBlocks() {
+        List<Judgments> judgments = judgments(53);
+        Race race = race(judgments, 10);
+        List<List<Judgments>> blocks = race.getBlocks(judgments);
+        assertEquals(10, blocks.size());
+        Set<String> ids = new HashSet<>();
+        for (List<Judgments> block : blocks) {
+            for (Judgments j : block) {
+                ids.add(j.getQueryInfo().getQueryId());
+            }
+        }
+        assertEquals(53, ids.size());
+
+        //the same order regardless of the input order
+        List<Judgments> reversed = new ArrayList<>(judgments);
+        Collections.reverse(reversed);
+        assertEquals(blocks, race.getBlocks(reversed));
+    }
+
+    @Test
+    public void testCannotWin() {
+        List<Judgments> judgments = judgments(50);
+        Race race = race(judgments, 10);
+        List<List<Judgments>> blocks = race.getBlocks(judgments);
+
+        //as good as the incumbent
+        List<Scorer> scorers = scorers();
+        List<Judgments> evaluated = new ArrayList<>();
+        for (List<Judgments> block : blocks) {
+            score(block, scorers, "a", "b");
+            evaluated.addAll(block);
+            assertFalse(race.cannotWin(scorers, evaluated, judgments.size()));
+        }
+
+        //much worse than the incumbent
+        scorers = scorers();
+        evaluated.clear();
+        score(blocks.get(0), scorers, "b", "c", "a");
+        evaluated.addAll(blocks.get(0));
+        //too few queries
+        assertFalse(race.cannotWin(scorers, evaluated, judgments.size()));
+        score(blocks.get(1), scorers, "b", "c", "a");
+        evaluated.addAll(blocks.get(1));
+        assertTrue(race.cannotWin(scorers, evaluated, judgments.size()));
+    }
+
+    private static Race race(List<Judgments> judgments, int blocks) {
+        Map<String, Double> incumbentScores = new HashMap<>();
+        for (Judgments j : judgments) {
+            incumbentScores.put(j.getQueryInfo().getQueryId(), 1.0);
+        }
+        return new Race("incumbent", incumbentScores, "ndcg_10", blocks,
+                0.2f, 0.05f, 42L);
+    }
+
+    private static List<Scorer> scorers() {
+        List<Scorer> scorers = new ArrayList<>();
+        scorers.add(new NDCG(10));
+        return scorers;
+    }
+
+    private static void score(List<Judgments> judgments, List<Scorer> scorers,
+                              String... ids) {
+        List<StoredDocument> docs = new ArrayList<>();
+        for (String id : ids) {
+            docs.add(new StoredDocument(id));
+        }
+        for (Judgments j : judgments) {
+            AbstractExperimentRunner.score(j, new SearchResultSet(100, 5, 10, docs),
+                    scorers, new JudgedResultList());
+        }
+    }
+
+    private static List<Judgments> judgments(int n) {
+        List<Judgments> judgments = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            QueryStrings queryStrings = new QueryStrings();
+            queryStrings.setQuery("q" + i);
+            Judgments j = new Judgments(new QueryInfo("q" + i, QueryInfo.DEFAULT_QUERY_SET,
+                    queryStrings, 1));
+            j.addJudgment("a", 3.0);
+            judgments.add(j);
+        }
+        return judgments;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.QueryRunnerDBClient;
+
+public class TestRescore {
+
+    @Test
+    public void testIncremental() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-rescore");
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir)) {
+            List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+            db.addScorer(scorers.get(0));
+            db.initScoreTable(scorers);
+            db.addJudgment(judgments("q1", "a", 3.0));
+            db.addJudgment(judgments("q2", "b", 3.0));
+            List<String> experiments = Arrays.asList("e1", "e2");
+            try (QueryRunnerDBClient client = db.getQueryRunnerDBClient(scorers)) {
+                for (String experiment : experiments) {
+                    client.insertSearchResults(queryInfo("q1"), experiment,
+                            results("a", "b"));
+                    client.insertSearchResults(queryInfo("q2"), experiment,
+                            results("a", "b"));
+                }
+            }
+            Rescore rescore = new Rescore();
+            rescore.setNumThreads(2);
+            assertEquals(2, rescore.rescore(db, experiments, scorers));
+            Map<String, Double> scores = db.getScores("", "e1", "ndcg_10");
+            assertEquals(1.0, scores.get("q1"), 0.0001);
+            assertEquals(0.63, scores.get("q2"), 0.01);
+
+            //nothing changed
+            assertEquals(0, rescore.rescore(db, experiments, scorers));
+
+            //fix the judgments for one query
+            db.clearJudgments();
+            db.addJudgment(judgments("q1", "a", 3.0));
+            db.addJudgment(judgments("q2", "a", 3.0));
+            assertEquals(2, rescore.rescore(db, experiments, scorers));
+            scores = db.getScores("", "e2", "ndcg_10");
+            assertEquals(1.0, scores.get("q1"), 0.0001);
+            assertEquals(1.0, scores.get("q2"), 0.0001);
+            assertEquals(1.0, db.getKeyExperimentScore(scorers.get(0), "")
+                    .get("e2"), 0.0001);
+
+            //drop a query from the judgments
+            db.clearJudgments();
+            db.addJudgment(judgments("q1", "a", 3.0));
+            assertEquals(2, rescore.rescore(db, experiments, scorers));
+            scores = db.getScores("", "e1", "ndcg_10");
+            assertEquals(1, scores.size());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static QueryInfo queryInfo(String queryId) {
+        QueryStrings queryStrings = new QueryStrings();
+        queryStrings.setQuery(queryId);
+        return new QueryInfo(queryId, QueryInfo.DEFAULT_QUERY_SET, queryStrings, 1);
+    }
+
+    private static Judgments judgments(String queryId, String id, double relevance) {
+        Judgments judgments = new Judgments(queryInfo(queryId));
+        judgments.addJudgment(id, relevance);
+        return judgments;
+    }
+
+    private static SearchResultSet results(String... ids) {
+        List<StoredDocument> docs = new ArrayList<>();
+        for (String id : ids) {
+            docs.add(new StoredDocument(id));
+        }
+        return new SearchResultSet(100, 5, 10, docs);
+    }
+}
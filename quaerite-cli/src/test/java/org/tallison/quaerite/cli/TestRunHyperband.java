@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tallison.quaerite.cli.CliTestUtil.judgments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentConfig;
+import org.tallison.quaerite.core.JudgmentList;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.scorers.NDCG;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.db.ExperimentDB;
+
+public class TestRunHyperband {
+
+    @Test
+    public void testSchedule() {
+        //the example from Li et al.
+        int maxBracket = RunHyperband.getMaxBracket(81, 1, 3);
+        assertEquals(4, maxBracket);
+
+        List<int[]> rungs = RunHyperband.getRungs(81, 3, 4, maxBracket);
+        assertEquals(5, rungs.size());
+        assertArrayEquals(new int[]{81, 1}, rungs.get(0));
+        assertArrayEquals(new int[]{27, 3}, rungs.get(1));
+        assertArrayEquals(new int[]{9, 9}, rungs.get(2));
+        assertArrayEquals(new int[]{3, 27}, rungs.get(3));
+        assertArrayEquals(new int[]{1, 81}, rungs.get(4));
+
+        rungs = RunHyperband.getRungs(81, 3, 2, maxBracket);
+        assertArrayEquals(new int[]{15, 9}, rungs.get(0));
+        assertArrayEquals(new int[]{5, 27}, rungs.get(1));
+        assertArrayEquals(new int[]{1, 81}, rungs.get(2));
+
+        rungs = RunHyperband.getRungs(81, 3, 0, maxBracket);
+        assertEquals(1, rungs.size());
+        assertArrayEquals(new int[]{5, 81}, rungs.get(0));
+    }
+
+    @Test
+    public void testSmallTrainingSet() {
+        assertEquals(0, RunHyperband.getMaxBracket(25, 10, 3));
+        assertEquals(1, RunHyperband.getMaxBracket(30, 10, 3));
+        List<int[]> rungs = RunHyperband.getRungs(35, 3, 1, 1);
+        assertArrayEquals(new int[]{3, 12}, rungs.get(0));
+        assertArrayEquals(new int[]{1, 35}, rungs.get(1));
+    }
+
+    @Test
+    public void testRungsReuseTheValidatedTrainingQueries() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-hyperband");
+        List<Scorer> scorers = Collections.singletonList(new NDCG(10));
+        ExperimentConfig experimentConfig = new ExperimentConfig();
+        experimentConfig.setIdField("id");
+        try (ExperimentDB db = ExperimentDB.openAndDrop(dir);
+                StubSearchServer solr = StubSearchServer.solr(0,
+                        Collections.singletonMap("test", new String[]{"a", "b"}));
+                AbstractExperimentRunner runner =
+                        new AbstractExperimentRunner(experimentConfig) { }) {
+            db.addScorer(scorers.get(0));
+            JudgmentList train = new JudgmentList();
+            for (int i = 0; i < 30; i++) {
+                Judgments judgments = judgments("q" + i, "a", 3.0);
+                judgments.addJudgment("b", 0.0);
+                train.addJudgments(judgments);
+            }
+            Experiment experiment = new Experiment("exp",
+                    new ServerConnection(solr.getUrl() + "/solr/test"),
+                    new LuceneQuery("text", ""));
+            Set<String> queryIds = new HashSet<>();
+            JudgmentList subset = new JudgmentList();
+            for (int i = 0; i < 10; i++) {
+                queryIds.add("q" + i);
+                subset.addJudgments(train.getJudgmentsList().get(i));
+            }
+            runner.cacheValidatedSubset(experiment, train, "train_0", queryIds, "r_0");
+            int validationRequests = solr.getRequests();
+            assertTrue(validationRequests > 0);
+            queryIds.add("q10");
+            runner.cacheValidatedSubset(experiment, train, "train_0", queryIds, "r_1");
+            assertEquals(validationRequests, solr.getRequests());
+
+            runner.runExperiment(experiment, scorers, 10, db, subset, "r_0", false, null,
+                    true);
+            assertEquals(validationRequests + 10, solr.getRequests());
+            assertEquals(10, db.getScores("", "exp", "ndcg_10").size());
+            assertTrue(db.isPartial("exp"));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.SearchTimings;
+import org.tallison.quaerite.core.StoredDocument;
+
+public class TestSearchResultCache {
+
+    @Test
+    public void testGetPutAndEvict() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-search-cache");
+        try {
+            try (SearchResultCache cache = SearchResultCache.open(dir, 10)) {
+                assertNull(cache.get("http://localhost:8983/solr/tmdb/select?q=a"));
+                cache.put("http://localhost:8983/solr/tmdb/select?q=a", results("1", "2"));
+                for (int i = 0; i < 10; i++) {
+                    //keep a recently used
+                    assertNotNull(cache.get("http://localhost:8983/solr/tmdb/select?q=a"));
+                    cache.put("http://localhost:8983/solr/tmdb/select?q=b" + i, results("3"));
+                }
+                assertNull(cache.get("http://localhost:8983/solr/tmdb/select?q=b0"));
+                assertNotNull(cache.get("http://localhost:8983/solr/tmdb/select?q=b9"));
+            }
+            //persists across opens
+            try (SearchResultCache cache = SearchResultCache.open(dir, 10)) {
+                SearchResultSet rs = cache.get("http://localhost:8983/solr/tmdb/select?q=a");
+                assertEquals(2, rs.size());
+                assertEquals("2", rs.getId(1));
+                assertEquals(100, rs.getTotalHits());
+                assertEquals(1, cache.getHits());
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testHitsAreMarkedCachedWithoutTimings() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-search-cache");
+        try (SearchResultCache cache = SearchResultCache.open(dir, 10)) {
+            SearchResultSet results = results("1", "2");
+            results.setTimings(new SearchTimings(2, 3, 4, 5));
+            cache.put("http://localhost:8983/solr/tmdb/select?q=a", results);
+            SearchResultSet rs = cache.get("http://localhost:8983/solr/tmdb/select?q=a");
+            assertTrue(rs.isCached());
+            assertNull(rs.getTimings());
+            assertEquals(2, rs.size());
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testLargeResults() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-search-cache");
+        try (SearchResultCache cache = SearchResultCache.open(dir, 10)) {
+            String[] ids = new String[20000];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = "doc-" + i;
+            }
+            cache.put("http://localhost:8983/solr/tmdb/select?q=a", results(ids));
+            SearchResultSet rs = cache.get("http://localhost:8983/solr/tmdb/select?q=a");
+            assertEquals(ids.length, rs.size());
+            assertEquals("doc-19999", rs.getId(19999));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static SearchResultSet results(String... ids) {
+        List<StoredDocument> docs = new ArrayList<>();
+        for (String id : ids) {
+            docs.add(new StoredDocument(id));
+        }
+        return new SearchResultSet(100, 5, 10, docs);
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.RawDocument;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * Streams documents into an index with bulk requests.
+ * <p>
+ * Documents are serialized as they are added and gathered into batches
+ * that are measured in bytes, not in documents.  The target batch size
+ * adapts to the observed latency of the bulk requests: it grows while
+ * requests come back quickly and shrinks when they are slow or when
+ * the server pushes back.  Up to <code>maxInFlight</code> requests are
+ * sent concurrently, and adding blocks while that many are outstanding,
+ * so memory stays bounded by roughly <code>maxInFlight + 1</code> batches
+ * regardless of how many documents are added.
+ * <p>
+ * Batches are written through a chunked entity, gzip compressed if the
+ * server accepts compressed requests.  Items that the server rejects
+ * as overloaded are resent in a later batch; other failures are thrown
+ * from the next call to {@link #add(StoredDocument)}, {@link #flush()}
+ * or {@link #close()}, after which the indexer should be discarded.
+ * <p>
+ * This is thread safe.
+ */
+public abstract class BulkIndexer implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(BulkIndexer.class);
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    static final long MIN_BATCH_BYTES = 256 * 1024;
+    static final long MAX_BATCH_BYTES = 32 * 1024 * 1024;
+    static final long INITIAL_BATCH_BYTES = 4 * 1024 * 1024;
+    static final long TARGET_LATENCY_MS = 2000;
+    static final int MAX_RETRIES = 5;
+    static final long RETRY_BACKOFF_MS = 500;
+
+    private static final int STATUS_TOO_LARGE = 413;
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_UNAVAILABLE = 503;
+
+    private final SearchClient client;
+    private final String url;
+    private final boolean gzip;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ExecutorService executorService;
+
+    //items that the server rejected and that should be resent
+    private final ConcurrentLinkedQueue<Item> retries = new ConcurrentLinkedQueue<>();
+    private final AtomicLong failedItems = new AtomicLong(0);
+    //first failure, if any
+    private volatile String failure = null;
+    private volatile long batchBytes = INITIAL_BATCH_BYTES;
+
+    private List<Item> pending = new ArrayList<>();
+    private long pendingBytes = 0;
+
+    /**
+     * @param client client to send the requests with
+     * @param url bulk endpoint
+     * @param gzip whether the server accepts gzip compressed requests
+     * @param maxInFlight maximum number of concurrent requests
+     */
+    protected BulkIndexer(SearchClient client, String url, boolean gzip, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be > 0");
+        }
+        this.client = client;
+        this.url = url;
+        this.gzip = gzip;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executorService = Executors.newFixedThreadPool(maxInFlight, r -> {
+            Thread t = new Thread(r, "quaerite-bulk-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return the serialized item including any per-item metadata
+     */
+    abstract byte[] serialize(StoredDocument document) throws IOException, SearchClientException;
+
+    abstract byte[] serialize(RawDocument document) throws IOException, SearchClientException;
+
+    abstract String getContentType();
+
+    /**
+     * writes the items as a single request body
+     */
+    abstract void writeBatch(List<Item> items, OutputStream os) throws IOException;
+
+    /**
+     * @param reader response to a request that returned a 200
+     * @param numItems number of items in the request
+     * @return per-item failures, or an empty list if the server doesn't
+     * report them
+     */
+    abstract List<ItemFailure> parseResponse(Reader reader, int numItems)
+            throws IOException, SearchClientException;
+
+    public synchronized void add(StoredDocument document)
+            throws IOException, SearchClientException {
+        add(new Item(serialize(document)));
+    }
+
+    public synchronized void addRaw(RawDocument document)
+            throws IOException, SearchClientException {
+        add(new Item(serialize(document)));
+    }
+
+    private void add(Item item) throws SearchClientException {
+        checkFailure();
+        drainRetries();
+        pending.add(item);
+        pendingBytes += item.bytes.length;
+        if (pendingBytes >= batchBytes) {
+            send();
+        }
+    }
+
+    /**
+     * Sends everything that has been added and waits for the responses,
+     * including resent items.
+     *
+     * @throws SearchClientException if any request or item failed
+     */
+    public synchronized void flush() throws SearchClientException {
+        do {
+            drainRetries();
+            send();
+            awaitInFlight();
+        } while (! retries.isEmpty());
+        checkFailure();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (SearchClientException e) {
+            throw new IOException(e);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * @return the current target size of a batch in bytes, before compression
+     */
+    public long getBatchBytes() {
+        return batchBytes;
+    }
+
+    private void drainRetries() {
+        Item item = retries.poll();
+        while (item != null) {
+            pending.add(item);
+            pendingBytes += item.bytes.length;
+            item = retries.poll();
+        }
+    }
+
+    private void send() throws SearchClientException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Item> batch = pending;
+        pending = new ArrayList<>();
+        pendingBytes = 0;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchClientException(e);
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    sendBatch(batch);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw new SearchClientException("bulk indexer has been closed");
+        }
+    }
+
+    private void awaitInFlight() throws SearchClientException {
+        try {
+            inFlight.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchClientException(e);
+        }
+        inFlight.release(maxInFlight);
+    }
+
+    private void sendBatch(List<Item> batch) {
+        long start = System.currentTimeMillis();
+        List<Item> toRetry = new ArrayList<>();
+        try {
+            List<ItemFailure> failures = client.post(url, new BatchEntity(batch),
+                    reader -> parseResponse(reader, batch.size()));
+            for (ItemFailure itemFailure : failures) {
+                if (itemFailure.retriable) {
+                    toRetry.add(batch.get(itemFailure.index));
+                } else {
+                    fail(itemFailure.message);
+                }
+            }
+            adapt(System.currentTimeMillis() - start, toRetry.size() > 0);
+        } catch (SearchClientException e) {
+            int status = e.getStatus();
+            if (status == STATUS_TOO_MANY_REQUESTS || status == STATUS_UNAVAILABLE ||
+                    (status == STATUS_TOO_LARGE && batch.size() > 1)) {
+                toRetry.addAll(batch);
+                adapt(System.currentTimeMillis() - start, true);
+            } else {
+                fail(e.getMessage());
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("bulk request failed", e);
+            fail(e.getMessage());
+        }
+        retry(toRetry);
+    }
+
+    private void retry(List<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        int maxAttempts = 0;
+        for (Item item : items) {
+            if (++item.attempts > MAX_RETRIES) {
+                fail("gave up after " + MAX_RETRIES + " retries");
+            } else {
+                maxAttempts = Math.max(maxAttempts, item.attempts);
+            }
+        }
+        if (maxAttempts == 0) {
+            return;
+        }
+        //back off while holding the permit to slow down the senders
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS * maxAttempts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Item item : items) {
+            if (item.attempts <= MAX_RETRIES) {
+                retries.add(item);
+            }
+        }
+        LOG.debug("resending " + items.size() + " items");
+    }
+
+    /**
+     * multiplicative decrease when the server is slow or pushes back,
+     * slower increase while it keeps up
+     */
+    void adapt(long latencyMs, boolean pushedBack) {
+        long current = batchBytes;
+        long next = current;
+        if (pushedBack) {
+            next = current / 2;
+        } else if (latencyMs > TARGET_LATENCY_MS) {
+            next = current * 3 / 4;
+        } else if (latencyMs < TARGET_LATENCY_MS / 2) {
+            next = current * 5 / 4;
+        }
+        batchBytes = Math.max(MIN_BATCH_BYTES, Math.min(MAX_BATCH_BYTES, next));
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("bulk request took " + latencyMs + " ms; batch bytes: " + batchBytes);
+        }
+    }
+
+    private void fail(String msg) {
+        failedItems.incrementAndGet();
+        if (failure == null) {
+            failure = msg;
+        }
+    }
+
+    private void checkFailure() throws SearchClientException {
+        if (failure != null) {
+            throw new SearchClientException(failedItems.get() +
+                    " bulk failure(s); first failure: " + failure);
+        }
+    }
+
+    static class Item {
+        private final byte[] bytes;
+        private int attempts = 0;
+
+        Item(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    static class ItemFailure {
+        private final int index;
+        private final boolean retriable;
+        private final String message;
+
+        ItemFailure(int index, boolean retriable, String message) {
+            this.index = index;
+            this.retriable = retriable;
+            this.message = message;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        boolean isRetriable() {
+            return retriable;
+        }
+
+        String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Writes the batch straight to the connection; the items are kept
+     * until the response is read so that the request can be resent.
+     */
+    private class BatchEntity extends AbstractHttpEntity {
+        private final List<Item> items;
+
+        BatchEntity(List<Item> items) {
+            this.items = items;
+            setChunked(true);
+            setContentType(getContentType());
+            if (gzip) {
+                setContentEncoding("gzip");
+            }
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            writeTo(bos);
+            return new ByteArrayInputStream(bos.toByteArray());
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outStream, 8192);
+                writeBatch(items, gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                writeBatch(items, outStream);
+            }
+            outStream.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+}
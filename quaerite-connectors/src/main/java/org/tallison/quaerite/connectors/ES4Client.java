@@ -27,6 +27,12 @@ public class ES4Client extends ES6Client {
         super(url, httpClient);
     }
 
+    @Override
+    boolean supportsSlicing() {
+        //sliced scroll was added in 5.0
+        return false;
+    }
+
     @Override
     BooleanClause.OCCUR getFilterOccur() {
         return BooleanClause.OCCUR.MUST;
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.tallison.quaerite.core.RawDocument;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * Writes newline delimited <code>_bulk</code> requests and resends the items
+ * that es rejected because its write queue was full.
+ */
+class ESBulkIndexer extends BulkIndexer {
+
+    private static final Gson GSON = new Gson();
+
+    ESBulkIndexer(ESClient client, String url, int maxInFlight) {
+        super(client, url, true, maxInFlight);
+    }
+
+    @Override
+    byte[] serialize(StoredDocument document) {
+        return toItem(document.getId(), GSON.toJson(document.getFields()));
+    }
+
+    @Override
+    byte[] serialize(RawDocument document) {
+        return toItem(document.getId(), document.getJson());
+    }
+
+    private static byte[] toItem(String id, String json) {
+        return (ESClient.getBulkIndexJson(id) + "\n" + json + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    String getContentType() {
+        return "application/x-ndjson; charset=utf-8";
+    }
+
+    @Override
+    void writeBatch(List<Item> items, OutputStream os) throws IOException {
+        for (Item item : items) {
+            os.write(item.getBytes());
+        }
+    }
+
+    @Override
+    List<ItemFailure> parseResponse(Reader r, int numItems) throws IOException {
+        JsonReader reader = new JsonReader(r);
+        List<ItemFailure> failures = new ArrayList<>();
+        //es writes "errors" before "items"; if not, check every item
+        boolean errors = true;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("errors".equals(name)) {
+                errors = reader.nextBoolean();
+            } else if ("items".equals(name) && errors) {
+                int i = 0;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ItemFailure failure = readItem(reader, i++);
+                    if (failure != null) {
+                        failures.add(failure);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return failures;
+    }
+
+    /**
+     * reads, e.g. {"index":{"_id":"1","status":429,"error":{...}}}
+     *
+     * @return the failure or <code>null</code> if the item succeeded
+     */
+    private static ItemFailure readItem(JsonReader reader, int index) throws IOException {
+        int status = -1;
+        String error = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            //action, e.g. "index"
+            reader.nextName();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("status".equals(name)) {
+                    status = reader.nextInt();
+                } else if ("error".equals(name)) {
+                    error = JsonParser.parseReader(reader).toString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        if (error == null && status >= 200 && status < 300) {
+            return null;
+        }
+        return new ItemFailure(index, status == 429 || status == 503,
+                "status " + status + ": " + error);
+    }
+}
@@ -30,6 +30,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,12 +44,15 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.core.FacetResult;
+import org.tallison.quaerite.core.RawDocument;
 import org.tallison.quaerite.core.SearchResultSet;
 import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.features.QueryOperator;
@@ -67,6 +77,10 @@ public class ESClient extends SearchClient {
     private static final String _DOC = "_doc";
     private static final Gson GSON = new Gson();
 
+    //sliced point in time with the _shard_doc tiebreaker
+    private static final int PIT_MIN_MAJOR = 7;
+    private static final int PIT_MIN_MINOR = 15;
+
     private static final Pattern ES_URL_PATTERN =
             Pattern.compile("(https?://[^/]+/)(?:([^/]*)/?)?\\Z");
     private static Set<String> SYS_INTERNAL_FIELDS;
@@ -83,6 +97,7 @@ public class ESClient extends SearchClient {
     private final String url;//must include esbase and es collection; must end in /
     private final String esBase;//must end in /
     private final String esCollection;//has no /
+    private volatile Set<String> copyFields;
 
 
     public ESClient(String url, HttpClient httpClient) {
@@ -106,7 +121,9 @@ public class ESClient extends SearchClient {
     @Override
     public SearchResultSet search(QueryRequest query) throws SearchClientException, IOException {
         long start = System.currentTimeMillis();
+        RequestTimer timer = new RequestTimer();
         String jsonQuery = buildJsonQuery(query, query.getFieldsToRetrieve());
+        timer.built();
         if (LOG.isTraceEnabled()) {
             LOG.trace(jsonQuery);
         }
@@ -115,12 +132,184 @@ public class ESClient extends SearchClient {
         if (query.getQuery() instanceof TemplateQuery) {
             endpoint += "/template";
         }
-        JsonResponse json = postJson(endpoint, jsonQuery);
+        if (isIdOnly(query)) {
+            SearchResultSet resultSet = postJson(endpoint, jsonQuery,
+                    IdOnlyResponseParser.es(start), timer);
+            resultSet.setTimings(timer.getTimings());
+            return resultSet;
+        }
+        JsonResponse json = postJson(endpoint, jsonQuery, timer);
         if (json.getStatus() != 200) {
             throw new SearchClientException(json.getMsg() + "\nfor " + jsonQuery);
         }
         JsonElement root = json.getJson();
-        return getResultSet(root, start);
+        SearchResultSet resultSet = getResultSet(root, start);
+        timer.parsed();
+        resultSet.setTimings(timer.getTimings());
+        return resultSet;
+    }
+
+    /**
+     * Packs the queries into <code>_msearch</code> requests (and
+     * <code>_msearch/template</code> for template queries).  The
+     * elapsed time and the timings of each phase of each result set are
+     * the request's amortized over the queries in that request.
+     *
+     * @param queries
+     * @return
+     * @throws SearchClientException
+     * @throws IOException
+     */
+    @Override
+    public MultiSearchResult searchBatch(List<QueryRequest> queries)
+            throws SearchClientException, IOException {
+        MultiSearchResult results = new MultiSearchResult(queries.size());
+        List<Integer> standard = new ArrayList<>();
+        List<Integer> templates = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            if (queries.get(i).getQuery() instanceof TemplateQuery) {
+                templates.add(i);
+            } else {
+                standard.add(i);
+            }
+        }
+        multiSearch(url + "_msearch", queries, standard, results);
+        multiSearch(url + "_msearch/template", queries, templates, results);
+        return results;
+    }
+
+    private void multiSearch(String endpoint, List<QueryRequest> queries,
+                             List<Integer> indices, MultiSearchResult results)
+            throws SearchClientException, IOException {
+        if (indices.size() == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        RequestTimer timer = new RequestTimer();
+        StringBuilder sb = new StringBuilder();
+        for (int i : indices) {
+            QueryRequest query = queries.get(i);
+            //the index is in the url
+            sb.append("{}\n");
+            sb.append(buildJsonQuery(query, query.getFieldsToRetrieve())).append("\n");
+        }
+        if (LOG.isTraceEnabled()) {
+            LOG.trace(sb.toString());
+        }
+        timer.built();
+        boolean idOnly = true;
+        for (int i : indices) {
+            if (!isIdOnly(queries.get(i))) {
+                idOnly = false;
+                break;
+            }
+        }
+        if (idOnly) {
+            MultiSearchResult parsed = postNDJson(endpoint, sb.toString(),
+                    IdOnlyResponseParser.esMulti(indices.size(), start), timer);
+            for (int j = 0; j < indices.size(); j++) {
+                int i = indices.get(j);
+                if (parsed.hasError(j)) {
+                    results.setError(i, parsed.getError(j));
+                } else {
+                    SearchResultSet resultSet = parsed.getResultSet(j);
+                    resultSet.setTimings(timer.getTimings(indices.size()));
+                    results.setResultSet(i, resultSet);
+                }
+            }
+            return;
+        }
+        JsonResponse json = postNDJson(endpoint, sb.toString(), timer);
+        if (json.getStatus() != 200) {
+            throw new SearchClientException(json.getMsg());
+        }
+        long elapsed = (System.currentTimeMillis() - start) / indices.size();
+        JsonArray responses = json.getJson().getAsJsonObject().getAsJsonArray("responses");
+        if (responses == null || responses.size() != indices.size()) {
+            throw new SearchClientException("expected " + indices.size() +
+                    " responses, but got: " + (responses == null ? 0 : responses.size()));
+        }
+        SearchResultSet[] resultSets = new SearchResultSet[indices.size()];
+        for (int j = 0; j < indices.size(); j++) {
+            int i = indices.get(j);
+            JsonObject item = responses.get(j).getAsJsonObject();
+            if (item.has("error")) {
+                results.setError(i, item.get("error").toString());
+                continue;
+            }
+            try {
+                resultSets[j] = getResultSet(item, -1, elapsed);
+            } catch (RuntimeException e) {
+                results.setError(i, "couldn't parse response: " + e.getMessage());
+            }
+        }
+        timer.parsed();
+        for (int j = 0; j < indices.size(); j++) {
+            if (resultSets[j] != null) {
+                resultSets[j].setTimings(timer.getTimings(indices.size()));
+                results.setResultSet(indices.get(j), resultSets[j]);
+            }
+        }
+    }
+
+    /**
+     * The endpoint followed by the json body with its keys sorted.
+     */
+    @Override
+    public String getCanonicalRequest(QueryRequest query)
+            throws SearchClientException, IOException {
+        String endpoint = url + "_search";
+        if (query.getQuery() instanceof TemplateQuery) {
+            endpoint += "/template";
+        }
+        JsonElement body = JsonParser.parseString(
+                buildJsonQuery(query, query.getFieldsToRetrieve()));
+        return endpoint + " " + JsonUtil.sortKeys(body);
+    }
+
+    @Override
+    public CompletableFuture<SearchResultSet> searchAsync(QueryRequest query) {
+        long start = System.currentTimeMillis();
+        RequestTimer timer = new RequestTimer();
+        CompletableFuture<JsonResponse> responseFuture;
+        String jsonQuery;
+        try {
+            if (getAsyncHttpClient() == null) {
+                return super.searchAsync(query);
+            }
+            jsonQuery = buildJsonQuery(query, query.getFieldsToRetrieve());
+            String endpoint = url + "_search";
+            if (query.getQuery() instanceof TemplateQuery) {
+                endpoint += "/template";
+            }
+            timer.built();
+            if (isIdOnly(query)) {
+                return postJsonAsync(endpoint, jsonQuery, IdOnlyResponseParser.es(start), timer)
+                        .thenApply(resultSet -> {
+                            resultSet.setTimings(timer.getTimings());
+                            return resultSet;
+                        });
+            }
+            responseFuture = postJsonAsync(endpoint, jsonQuery, timer);
+        } catch (IOException | SearchClientException e) {
+            CompletableFuture<SearchResultSet> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return responseFuture.thenApply(json -> {
+            if (json.getStatus() != 200) {
+                throw new CompletionException(
+                        new SearchClientException(json.getMsg() + "\nfor " + jsonQuery));
+            }
+            try {
+                SearchResultSet resultSet = getResultSet(json.getJson(), start);
+                timer.parsed();
+                resultSet.setTimings(timer.getTimings());
+                return resultSet;
+            } catch (IOException | SearchClientException e) {
+                throw new CompletionException(e);
+            }
+        });
     }
 
     public long getDF(String field, String term)
@@ -295,12 +484,43 @@ public class ESClient extends SearchClient {
 
     private SearchResultSet getResultSet(JsonElement root, long start)
             throws IOException, SearchClientException {
+        return getResultSet(root, start, -1);
+    }
+
+    /**
+     * The ids of hits are always the "_id"; if that's all that
+     * was asked for, the rest of the response can be skipped.
+     */
+    boolean isIdOnly(QueryRequest query) {
+        if (query.getFacetField() != null) {
+            return false;
+        }
+        return isIdOnly(query.getFieldsToRetrieve(), query.getIdField());
+    }
+
+    private boolean isIdOnly(List<String> fieldsToRetrieve, String idField) {
+        if (fieldsToRetrieve.size() != 1) {
+            return false;
+        }
+        String field = fieldsToRetrieve.get(0);
+        return field.equals(_ID) || field.equals(idField);
+    }
+
+    /**
+     * @param root
+     * @param start start time; ignored if elapsed is >= 0
+     * @param elapsed elapsed time; if < 0 it is calculated from start
+     */
+    private SearchResultSet getResultSet(JsonElement root, long start, long elapsed)
+            throws IOException, SearchClientException {
         long queryTime = JsonUtil.getPrimitive(root, "took", -1l);
         JsonObject hits = (JsonObject) ((JsonObject) root).get("hits");
         long totalHits = getTotalHits(hits);
         JsonArray hitArray = (JsonArray) hits.get("hits");
         List<StoredDocument> documents = jsonArrayToDocs(hitArray, Collections.EMPTY_SET);
-        long elapsed = System.currentTimeMillis() - start;
+        if (elapsed < 0) {
+            elapsed = System.currentTimeMillis() - start;
+        }
         return new SearchResultSet(totalHits, queryTime, elapsed, documents);
 
     }
@@ -359,7 +579,10 @@ public class ESClient extends SearchClient {
             overallMap.put("size", queryRequest.getNumResults());
             overallMap.put("from", queryRequest.getStart());
             trackTotalHits(overallMap, true);
-            if (fieldsToRetrieve.size() > 0) {
+            if (isIdOnly(fieldsToRetrieve, queryRequest.getIdField())) {
+                //the _id is always returned
+                overallMap.put("_source", false);
+            } else if (fieldsToRetrieve.size() > 0) {
                 //stored_fields?!
                 overallMap.put("_source", fieldsToRetrieve);
             }
@@ -391,7 +614,7 @@ public class ESClient extends SearchClient {
             tQ.put(termQuery.getField(), termQuery.getTerm());
             queryMap = wrapAMap("term", tQ);
         } else if (query instanceof MatchAllDocsQuery) {
-            queryMap = wrapAMap("match_all", Collections.EMPTY_MAP);
+            queryMap = wrapAMap("match_all", new HashMap<>());
         } else if (query instanceof LuceneQuery) {
             //TODO -- replace this with a true query_string query
             //that allows multiple fields, etc.
@@ -605,7 +828,27 @@ public class ESClient extends SearchClient {
             sb.append(GSON.toJson(fields)).append("\n");
         }
         //System.out.println(sb.toString());
-        JsonResponse response = postJson(url + "/_bulk", sb.toString());
+        bulk(sb.toString());
+    }
+
+    @Override
+    public void addRawDocuments(List<RawDocument> documents) throws IOException,
+            SearchClientException {
+        StringBuilder sb = new StringBuilder();
+        for (RawDocument rd : documents) {
+            sb.append(getBulkIndexJson(rd.getId())).append("\n");
+            sb.append(rd.getJson()).append("\n");
+        }
+        bulk(sb.toString());
+    }
+
+    @Override
+    public boolean requiresIdInDocument() {
+        return false;
+    }
+
+    private void bulk(String ndjson) throws IOException, SearchClientException {
+        JsonResponse response = postJson(url + "/_bulk", ndjson);
         if (response.getStatus() != 200) {
             throw new SearchClientException(response.getMsg());
         } else {
@@ -618,7 +861,12 @@ public class ESClient extends SearchClient {
         }
     }
 
-    private String getBulkIndexJson(String id) {
+    @Override
+    public BulkIndexer getBulkIndexer(int maxInFlight) {
+        return new ESBulkIndexer(this, url + "_bulk", maxInFlight);
+    }
+
+    static String getBulkIndexJson(String id) {
         JsonObject innerObject = new JsonObject();
         innerObject.add("_type", new JsonPrimitive(_DOC));
         innerObject.add(_ID, new JsonPrimitive(id));
@@ -649,6 +897,57 @@ public class ESClient extends SearchClient {
         return jsonArrayToDocs(docs, excludeFields);
     }
 
+    @Override
+    public List<RawDocument> getRawDocs(String idField, Set<String> ids,
+                                        Set<String> includeFields,
+                                        RawDocumentFilter filter)
+            throws IOException, SearchClientException {
+        Map<String, Object> map = wrapAMap("ids", ids);
+        String storedFields = "";
+
+        if (includeFields.size() > 0) {
+            storedFields = "?_source=" +
+                    encode(StringUtils.join(includeFields, ','));
+        }
+        return postJson(url + "/_doc/_mget" + storedFields, GSON.toJson(map),
+                r -> readRawDocs(new JsonReader(r), filter));
+    }
+
+    private List<RawDocument> readRawDocs(JsonReader reader, RawDocumentFilter filter)
+            throws IOException, SearchClientException {
+        List<RawDocument> documents = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (! "docs".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String id = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (_ID.equals(name)) {
+                        id = reader.nextString();
+                    } else if ("_source".equals(name)) {
+                        //es writes the metadata fields before the _source
+                        if (id == null) {
+                            throw new SearchClientException("_source before _id in mget response");
+                        }
+                        documents.add(filter.filter(reader, id));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return documents;
+    }
+
     private List<StoredDocument> jsonArrayToDocs(JsonArray docs,
                                                  Set<String> excludeFields)
             throws IOException, SearchClientException {
@@ -678,6 +977,10 @@ public class ESClient extends SearchClient {
 
     @Override
     public Collection<? extends String> getCopyFields() throws IOException, SearchClientException {
+        Set<String> cached = copyFields;
+        if (cached != null) {
+            return cached;
+        }
 
         //what do we need to do to make this more robust and/or handle wildcarding of templates?
         JsonResponse response = getJson(esBase + "_template/" + esCollection);
@@ -695,7 +998,8 @@ public class ESClient extends SearchClient {
         JsonObject mappings = (JsonObject) collectionRoot.getAsJsonObject().get("mappings");
         Set<String> destFields = new HashSet<>();
         addValuesForKey(mappings, "copy_to", destFields);
-        return destFields;
+        copyFields = Collections.unmodifiableSet(destFields);
+        return copyFields;
     }
 
     @Override
@@ -728,7 +1032,7 @@ public class ESClient extends SearchClient {
     @Override
     public void deleteAll() throws SearchClientException, IOException {
         Map<String, Object> q = wrapAMap("query",
-                wrapAMap("match_all", Collections.EMPTY_MAP));
+                wrapAMap("match_all", new HashMap<>()));
         JsonResponse response = postJson(url + "_delete_by_query", GSON.toJson(q));
         if (response.getStatus() != 200) {
             throw new SearchClientException(response.getMsg());
@@ -741,8 +1045,113 @@ public class ESClient extends SearchClient {
                                   int copierThreads,
                                   Collection<Query> filterQueries)
             throws IOException, SearchClientException {
+        return getIdGrabber(ids, batchSize, copierThreads, filterQueries, -1);
+    }
+
+    /**
+     *
+     * @param ids
+     * @param batchSize
+     * @param copierThreads
+     * @param filterQueries
+     * @param numSlices number of slices to grab in parallel; if < 1, this
+     *                  is set to the number of shards of the index
+     * @return
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public IdGrabber getIdGrabber(ArrayBlockingQueue<Set<String>> ids,
+                                  int batchSize,
+                                  int copierThreads,
+                                  Collection<Query> filterQueries,
+                                  int numSlices)
+            throws IOException, SearchClientException {
         return new ESIdGrabber(getDefaultIdField(), ids, batchSize,
-                copierThreads, filterQueries);
+                copierThreads, filterQueries, numSlices);
+    }
+
+    /**
+     *
+     * @return total number of primary shards for the indices behind this
+     * client's collection (which may be an alias)
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public int getShardCount() throws IOException, SearchClientException {
+        JsonResponse response = getJson(url + "_settings");
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        int shards = 0;
+        JsonObject root = response.getJson().getAsJsonObject();
+        for (String index : root.keySet()) {
+            JsonObject settings = root.getAsJsonObject(index).getAsJsonObject("settings");
+            if (settings != null && settings.has("index")) {
+                shards += JsonUtil.getPrimitive(settings.get("index"),
+                        "number_of_shards", 0);
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * @return whether sliced scrolling is available
+     */
+    boolean supportsSlicing() {
+        return true;
+    }
+
+    /**
+     * Point in time with search_after on slices needs the _shard_doc tiebreaker
+     * and slicing of pits.
+     *
+     * @return
+     */
+    boolean supportsSlicedPointInTime() {
+        String version = getServerVersion();
+        if (version == null) {
+            return false;
+        }
+        String[] parts = version.split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return major > PIT_MIN_MAJOR ||
+                    (major == PIT_MIN_MAJOR && minor >= PIT_MIN_MINOR);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String openPointInTime(int minutesAlive) throws IOException, SearchClientException {
+        JsonResponse response = postJson(url + "_pit?keep_alive=" + minutesAlive + "m", "");
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        return response.getJson().getAsJsonObject().get("id").getAsString();
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            JsonResponse response = deleteJson(esBase + "_pit", GSON.toJson(wrapAMap("id", pitId)));
+            if (response.getStatus() != 200) {
+                LOG.warn("couldn't close pit: " + response.getMsg());
+            }
+        } catch (IOException e) {
+            LOG.warn("couldn't close pit", e);
+        }
+    }
+
+    private void clearScroll(String scrollId) {
+        try {
+            JsonResponse response = deleteJson(esBase + "_search/scroll",
+                    GSON.toJson(wrapAMap("scroll_id", scrollId)));
+            if (response.getStatus() != 200) {
+                LOG.debug("couldn't clear scroll: " + response.getMsg());
+            }
+        } catch (IOException e) {
+            LOG.debug("couldn't clear scroll", e);
+        }
     }
 
     @Override
@@ -807,39 +1216,162 @@ public class ESClient extends SearchClient {
 
     private class ESIdGrabber extends IdGrabber {
 
+        private static final int MINUTES_ALIVE = 5;
+        private final int numSlices;
+
         public ESIdGrabber(String idField, ArrayBlockingQueue<Set<String>> ids,
                            int batchSize,
-                           int copierThreads, Collection<Query> filterQueries) {
+                           int copierThreads, Collection<Query> filterQueries,
+                           int numSlices) {
             super(idField, ids, batchSize, copierThreads, filterQueries);
+            this.numSlices = numSlices;
         }
 
         @Override
         public Integer call() throws Exception {
+            ExecutorService executorService = null;
+            String pitId = null;
             try {
-                Map<String, Object> q = wrapAMap("query",
-                        wrapAMap("match_all", Collections.EMPTY_MAP));
-                q.put("size", Integer.toString(batchSize));
-                q.put("stored_fields", Collections.EMPTY_LIST);
-
-                Query query = new MatchAllDocsQuery();
-                QueryRequest queryRequest = new QueryRequest(query);
-                queryRequest.addFieldsToRetrieve(Collections.EMPTY_LIST);
-
-                SearchResultSet searchResultSet = startScroll(queryRequest, batchSize, 5);
-                String scrollId = searchResultSet.getScrollId();
-                while (searchResultSet.size() > 0) {
-                    Set<String> set = new HashSet<>();
-                    set.addAll(searchResultSet.getIds());
-                    LOG.debug("adding " + set.size());
-                    addSet(ids, set);
-                    searchResultSet = scrollNext(scrollId, 5);
+                int slices = 1;
+                if (supportsSlicing()) {
+                    slices = (numSlices > 0) ? numSlices : Math.max(1, getShardCount());
+                }
+                boolean usePit = supportsSlicedPointInTime();
+                if (usePit) {
+                    pitId = openPointInTime(MINUTES_ALIVE);
+                }
+                LOG.info("grabbing ids with " + slices + " slice(s) using " +
+                        (usePit ? "point in time" : "scroll"));
+                AtomicLong[] progress = new AtomicLong[slices];
+                executorService = Executors.newFixedThreadPool(slices);
+                ExecutorCompletionService<Long> completionService =
+                        new ExecutorCompletionService<>(executorService);
+                for (int i = 0; i < slices; i++) {
+                    progress[i] = new AtomicLong();
+                    completionService.submit(new SliceGrabber(i, slices, pitId, progress));
                 }
+                long total = 0;
+                for (int i = 0; i < slices; i++) {
+                    //throws the first exception from a slice
+                    total += completionService.take().get();
+                }
+                LOG.info("finished grabbing " + total + " ids");
             } finally {
+                if (executorService != null) {
+                    executorService.shutdownNow();
+                }
+                if (pitId != null) {
+                    closePointInTime(pitId);
+                }
                 LOG.debug("id grabber adding poison");
                 addPoison();
             }
             return -1;
         }
 
+        private class SliceGrabber implements Callable<Long> {
+            private final int slice;
+            private final int maxSlices;
+            private final String pitId;
+            private final AtomicLong[] progress;
+
+            SliceGrabber(int slice, int maxSlices, String pitId, AtomicLong[] progress) {
+                this.slice = slice;
+                this.maxSlices = maxSlices;
+                this.pitId = pitId;
+                this.progress = progress;
+            }
+
+            @Override
+            public Long call() throws Exception {
+                if (pitId != null) {
+                    grabWithPointInTime();
+                } else {
+                    grabWithScroll();
+                }
+                LOG.debug("slice " + slice + " finished with " + progress[slice].get());
+                return progress[slice].get();
+            }
+
+            private QueryRequest getQueryRequest() {
+                QueryRequest queryRequest = new QueryRequest(new MatchAllDocsQuery());
+                queryRequest.addFilterQueries(filterQueries);
+                queryRequest.addFieldsToRetrieve(_ID);
+                return queryRequest;
+            }
+
+            private void grabWithScroll() throws Exception {
+                QueryRequest queryRequest = getQueryRequest();
+                SearchResultSet searchResultSet = (maxSlices > 1) ?
+                        startSlicedScroll(queryRequest, batchSize, MINUTES_ALIVE, slice, maxSlices) :
+                        startScroll(queryRequest, batchSize, MINUTES_ALIVE);
+                String scrollId = searchResultSet.getScrollId();
+                try {
+                    while (searchResultSet.size() > 0) {
+                        add(searchResultSet.getIds());
+                        searchResultSet = scrollNext(scrollId, MINUTES_ALIVE);
+                    }
+                } finally {
+                    clearScroll(scrollId);
+                }
+            }
+
+            private void grabWithPointInTime() throws Exception {
+                Map<String, Object> queryMap = getQueryMap(getQueryRequest(),
+                        Collections.singletonList(_ID));
+                queryMap.remove("from");
+                queryMap.put("size", batchSize);
+                trackTotalHits(queryMap, false);
+                queryMap.put("sort", Collections.singletonList(
+                        wrapAMap("_shard_doc", "asc")));
+                if (maxSlices > 1) {
+                    queryMap.put("slice", wrapAMap("id", slice, "max", maxSlices));
+                }
+                String currentPit = pitId;
+                while (true) {
+                    queryMap.put("pit", wrapAMap("id", currentPit,
+                            "keep_alive", MINUTES_ALIVE + "m"));
+                    String json = GSON.toJson(queryMap);
+                    //pit searches must not include the index in the url
+                    JsonResponse response = postJson(esBase + "_search", json);
+                    if (response.getStatus() != 200) {
+                        throw new SearchClientException(response.getMsg() + "\nfor " + json);
+                    }
+                    JsonObject root = response.getJson().getAsJsonObject();
+                    if (root.has("pit_id")) {
+                        currentPit = root.get("pit_id").getAsString();
+                    }
+                    JsonArray hits = root.getAsJsonObject("hits").getAsJsonArray("hits");
+                    if (hits.size() == 0) {
+                        return;
+                    }
+                    List<String> idList = new ArrayList<>();
+                    for (JsonElement hit : hits) {
+                        idList.add(JsonUtil.getPrimitive(hit, _ID, ""));
+                    }
+                    add(idList);
+                    JsonArray lastSort = hits.get(hits.size() - 1)
+                            .getAsJsonObject().getAsJsonArray("sort");
+                    queryMap.put("search_after", lastSort);
+                }
+            }
+
+            private void add(List<String> idList) throws InterruptedException {
+                Set<String> set = new HashSet<>(idList);
+                addSet(ids, set);
+                long sliceTotal = progress[slice].addAndGet(set.size());
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("slice " + slice + " added " + set.size() + "; slice total: " +
+                            sliceTotal);
+                }
+                if (slice == 0) {
+                    long total = 0;
+                    for (AtomicLong p : progress) {
+                        total += p.get();
+                    }
+                    LOG.info("ids added across " + maxSlices + " slice(s): " + total);
+                }
+            }
+        }
     }
 }
@@ -23,6 +23,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLContext;
 
 import org.apache.commons.lang3.StringUtils;
@@ -45,9 +46,14 @@ import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.message.BasicHeaderElementIterator;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
@@ -142,6 +148,115 @@ public class HttpUtils {
     }
 
 
+    /**
+     * Builds a thread safe client backed by a pooling connection manager.
+     * This is intended to be shared by all threads that talk to a single host.
+     *
+     * @param url url of the host
+     * @param username can be null
+     * @param password can be null
+     * @param maxConnections maximum number of pooled connections to the host
+     * @param keepAliveSeconds how long to keep an idle connection alive if the
+     *                         server doesn't specify a keep-alive timeout
+     * @return pooled client
+     * @throws SearchClientException
+     */
+    public static CloseableHttpClient getPooledClient(String url, String username,
+                                                      String password, int maxConnections,
+                                                      int keepAliveSeconds)
+            throws SearchClientException {
+        String scheme = null;
+        try {
+            scheme = new URI(url).getScheme();
+        } catch (URISyntaxException e) {
+            throw new SearchClientException(e);
+        }
+        HttpClientBuilder builder = HttpClients.custom();
+        PoolingHttpClientConnectionManager connectionManager;
+        if (scheme.endsWith("s")) {
+            SSLConnectionSocketFactory sslsf;
+            try {
+                sslsf = getTrustAllSocketFactory();
+            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
+                throw new SearchClientException(e);
+            }
+            Registry<ConnectionSocketFactory> socketFactoryRegistry =
+                    RegistryBuilder.<ConnectionSocketFactory>create()
+                            .register("https", sslsf)
+                            .register("http", new PlainConnectionSocketFactory())
+                            .build();
+            connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+            builder.setSSLSocketFactory(sslsf)
+                    .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+        } else {
+            connectionManager = new PoolingHttpClientConnectionManager();
+        }
+        //everything in a pool goes to the same host, so the per route
+        //max is the effective max
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        //re-check stale connections that have been idle for more than a second
+        connectionManager.setValidateAfterInactivity(1000);
+        builder.setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(getKeepAliveStrategy(keepAliveSeconds))
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveSeconds, TimeUnit.SECONDS);
+        CredentialsProvider provider = getProvider(username, password);
+        if (provider != null) {
+            builder.setDefaultCredentialsProvider(provider);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds and starts a non-blocking client with a connection pool
+     * for a single host.
+     *
+     * @param url url of the host
+     * @param username can be null
+     * @param password can be null
+     * @param maxConnections maximum number of pooled connections to the host
+     * @param keepAliveSeconds how long to keep an idle connection alive if the
+     *                         server doesn't specify a keep-alive timeout
+     * @return started async client
+     * @throws SearchClientException
+     */
+    public static CloseableHttpAsyncClient getPooledAsyncClient(String url, String username,
+                                                                String password,
+                                                                int maxConnections,
+                                                                int keepAliveSeconds)
+            throws SearchClientException {
+        String scheme = null;
+        try {
+            scheme = new URI(url).getScheme();
+        } catch (URISyntaxException e) {
+            throw new SearchClientException(e);
+        }
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setKeepAliveStrategy(getKeepAliveStrategy(keepAliveSeconds));
+        if (scheme.endsWith("s")) {
+            LOG.warn("quaerite currently uses a non-secure 'trustall' client for https." +
+                    " If you require actual security, please open a ticket " +
+                    "or initialize the search client with a secure httpclient.");
+            try {
+                builder.setSSLContext(SSLContexts.custom().loadTrustMaterial(null,
+                        (TrustStrategy) (cert, authType) -> true).build())
+                        .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
+                throw new SearchClientException(e);
+            }
+        }
+        CredentialsProvider provider = getProvider(username, password);
+        if (provider != null) {
+            builder.setDefaultCredentialsProvider(provider);
+        }
+        CloseableHttpAsyncClient client = builder.build();
+        client.start();
+        return client;
+    }
+
     public static HttpClient getClient(String authority) throws SearchClientException {
         return getClient(authority, null, null);
     }
@@ -150,15 +265,8 @@ public class HttpUtils {
                                                              String password,
                                                              ConnectionKeepAliveStrategy keepAliveStrategy)
             throws NoSuchAlgorithmException, KeyManagementException, KeyStoreException {
-        LOG.warn("quaerite currently uses a non-secure 'trustall' client for https." +
-                " If you require actual security, please open a ticket " +
-                "or initialize the search client with a secure httpclient.");
         CredentialsProvider provider = getProvider(username, password);
-        TrustStrategy acceptingTrustStrategy = (cert, authType) -> true;
-        SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(null,
-                acceptingTrustStrategy).build();
-        SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslContext,
-                NoopHostnameVerifier.INSTANCE);
+        SSLConnectionSocketFactory sslsf = getTrustAllSocketFactory();
 
         Registry<ConnectionSocketFactory> socketFactoryRegistry =
                 RegistryBuilder.<ConnectionSocketFactory>create()
@@ -185,6 +293,18 @@ public class HttpUtils {
         }
     }
 
+    private static SSLConnectionSocketFactory getTrustAllSocketFactory()
+            throws NoSuchAlgorithmException, KeyManagementException, KeyStoreException {
+        LOG.warn("quaerite currently uses a non-secure 'trustall' client for https." +
+                " If you require actual security, please open a ticket " +
+                "or initialize the search client with a secure httpclient.");
+        TrustStrategy acceptingTrustStrategy = (cert, authType) -> true;
+        SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(null,
+                acceptingTrustStrategy).build();
+        return new SSLConnectionSocketFactory(sslContext,
+                NoopHostnameVerifier.INSTANCE);
+    }
+
     /**
      * can return null if username and password are both null
      *
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * Streaming parsers that pull only the total hits, the server's query time
+ * and the id (and index) of each hit out of a search response.  Everything
+ * else is skipped without building a json tree.
+ */
+public class IdOnlyResponseParser {
+
+    /**
+     * Parses a Solr select response.
+     *
+     * @param idField field that holds the document id
+     * @param start start time of the request in millis, used to calculate elapsed time
+     */
+    public static ResponseParser<SearchResultSet> solr(String idField, long start) {
+        return reader -> parseSolr(reader, idField, start);
+    }
+
+    /**
+     * Parses an Elasticsearch search response or an item of the responses
+     * array in an _msearch response.
+     *
+     * @param start start time of the request in millis, used to calculate elapsed time
+     */
+    public static ResponseParser<SearchResultSet> es(long start) {
+        return reader -> parseES(new JsonReader(reader), start);
+    }
+
+    static SearchResultSet parseSolr(Reader r, String idField, long start) throws IOException {
+        JsonReader reader = new JsonReader(r);
+        long totalHits = -1;
+        long queryTime = -1;
+        String nextCursorMark = null;
+        List<StoredDocument> docs = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("responseHeader".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("QTime".equals(reader.nextName())) {
+                        queryTime = reader.nextLong();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if ("response".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if ("numFound".equals(key)) {
+                        totalHits = reader.nextLong();
+                    } else if ("docs".equals(key)) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            docs.add(readSolrDoc(reader, idField));
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if ("nextCursorMark".equals(name)) {
+                nextCursorMark = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        SearchResultSet resultSet = new SearchResultSet(totalHits, queryTime,
+                System.currentTimeMillis() - start, docs);
+        if (nextCursorMark != null) {
+            resultSet.setScrollId(nextCursorMark);
+        }
+        return resultSet;
+    }
+
+    private static StoredDocument readSolrDoc(JsonReader reader, String idField)
+            throws IOException {
+        String id = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (idField.equals(reader.nextName())) {
+                id = readScalar(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new StoredDocument(id);
+    }
+
+    /**
+     * Parses an _msearch response.  As with the tree based parser, the
+     * elapsed time of each result set is the overall elapsed time
+     * amortized over the items.
+     *
+     * @param size number of queries in the request
+     * @param start start time of the request in millis
+     */
+    static ResponseParser<MultiSearchResult> esMulti(int size, long start) {
+        return r -> {
+            JsonReader reader = new JsonReader(r);
+            List<ESHits> items = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("responses".equals(reader.nextName())) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        items.add(readES(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (items.size() != size) {
+                throw new SearchClientException("expected " + size +
+                        " responses, but got: " + items.size());
+            }
+            long elapsed = (System.currentTimeMillis() - start) / Math.max(1, size);
+            MultiSearchResult results = new MultiSearchResult(size);
+            for (int i = 0; i < size; i++) {
+                ESHits hits = items.get(i);
+                if (hits.error != null) {
+                    results.setError(i, hits.error);
+                } else {
+                    results.setResultSet(i, hits.toResultSet(elapsed));
+                }
+            }
+            return results;
+        };
+    }
+
+    static SearchResultSet parseES(JsonReader reader, long start) throws IOException {
+        ESHits hits = readES(reader);
+        return hits.toResultSet(System.currentTimeMillis() - start);
+    }
+
+    private static ESHits readES(JsonReader reader) throws IOException {
+        long totalHits = -1;
+        long queryTime = -1;
+        String scrollId = null;
+        String error = null;
+        List<StoredDocument> docs = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("took".equals(name)) {
+                queryTime = reader.nextLong();
+            } else if ("_scroll_id".equals(name)) {
+                scrollId = reader.nextString();
+            } else if ("error".equals(name)) {
+                //keep the error as json, which is what the tree parser reports
+                error = JsonParser.parseReader(reader).toString();
+            } else if ("hits".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if ("total".equals(key)) {
+                        totalHits = readESTotal(reader);
+                    } else if ("hits".equals(key)) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            docs.add(readESHit(reader));
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (totalHits < 0) {
+            //same as the tree based parser
+            totalHits = docs.size();
+        }
+        return new ESHits(totalHits, queryTime, scrollId, error, docs);
+    }
+
+    private static long readESTotal(JsonReader reader) throws IOException {
+        //es 7 has an object, earlier versions had a number
+        if (reader.peek() == JsonToken.NUMBER) {
+            return reader.nextLong();
+        }
+        long total = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("value".equals(reader.nextName())) {
+                total = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return total;
+    }
+
+    private static StoredDocument readESHit(JsonReader reader) throws IOException {
+        String id = "";
+        String index = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("_id".equals(name)) {
+                id = readScalar(reader);
+            } else if ("_index".equals(name)) {
+                index = readScalar(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        StoredDocument document = new StoredDocument(id);
+        document.setIndex(index);
+        return document;
+    }
+
+    private static class ESHits {
+        private final long totalHits;
+        private final long queryTime;
+        private final String scrollId;
+        private final String error;
+        private final List<StoredDocument> docs;
+
+        ESHits(long totalHits, long queryTime, String scrollId, String error,
+                List<StoredDocument> docs) {
+            this.totalHits = totalHits;
+            this.queryTime = queryTime;
+            this.scrollId = scrollId;
+            this.error = error;
+            this.docs = docs;
+        }
+
+        SearchResultSet toResultSet(long elapsed) {
+            SearchResultSet resultSet = new SearchResultSet(totalHits, queryTime,
+                    elapsed, docs);
+            if (scrollId != null) {
+                resultSet.setScrollId(scrollId);
+            }
+            return resultSet;
+        }
+    }
+
+    /**
+     * reads a string/number/boolean or the first value of an array
+     */
+    static String readScalar(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            String value = "";
+            reader.beginArray();
+            if (reader.hasNext()) {
+                value = readScalar(reader);
+            }
+            while (reader.hasNext()) {
+                reader.skipValue();
+            }
+            reader.endArray();
+            return value;
+        } else if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        } else if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(reader.nextBoolean());
+        }
+        reader.skipValue();
+        return "";
+    }
+}
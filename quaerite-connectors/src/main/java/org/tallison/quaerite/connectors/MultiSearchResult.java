@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.tallison.quaerite.core.SearchResultSet;
+
+/**
+ * Results of a batch of queries, in the order of the requests.
+ * Each item either has a {@link SearchResultSet} or an error message.
+ */
+public class MultiSearchResult {
+
+    private final List<SearchResultSet> resultSets;
+    private final List<String> errors;
+
+    public MultiSearchResult(int size) {
+        resultSets = new ArrayList<>(Collections.nCopies(size, null));
+        errors = new ArrayList<>(Collections.nCopies(size, null));
+    }
+
+    void setResultSet(int i, SearchResultSet resultSet) {
+        resultSets.set(i, resultSet);
+    }
+
+    void setError(int i, String error) {
+        errors.set(i, error);
+    }
+
+    public int size() {
+        return resultSets.size();
+    }
+
+    /**
+     *
+     * @param i
+     * @return the result set or <code>null</code> if there was an error
+     */
+    public SearchResultSet getResultSet(int i) {
+        return resultSets.get(i);
+    }
+
+    public boolean hasError(int i) {
+        return errors.get(i) != null;
+    }
+
+    /**
+     *
+     * @param i
+     * @return error message or <code>null</code> if there was no error
+     */
+    public String getError(int i) {
+        return errors.get(i);
+    }
+
+    public int getErrorCount() {
+        int cnt = 0;
+        for (String error : errors) {
+            if (error != null) {
+                cnt++;
+            }
+        }
+        return cnt;
+    }
+}
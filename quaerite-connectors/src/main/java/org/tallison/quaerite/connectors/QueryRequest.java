@@ -41,6 +41,8 @@ public class QueryRequest {
     private int numResults = 10;
     private String sortField;
     private SORT_ORDER sortOrder;
+    //for deep paging with Solr's cursorMark
+    private String cursorMark;
 
     public QueryRequest(Query query) {
         this(query, null, null);
@@ -159,4 +161,18 @@ public class QueryRequest {
         return filterQueries;
     }
 
+    /**
+     * Solr's cursorMark for deep paging; use "*" for the first page.
+     * The sort must include the unique key.
+     *
+     * @param cursorMark
+     */
+    public void setCursorMark(String cursorMark) {
+        this.cursorMark = cursorMark;
+    }
+
+    public String getCursorMark() {
+        return cursorMark;
+    }
+
 }
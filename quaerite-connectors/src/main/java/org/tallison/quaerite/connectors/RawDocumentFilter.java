@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Set;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.tallison.quaerite.core.RawDocument;
+
+/**
+ * Copies a document's json object token by token from a response to
+ * a {@link RawDocument} without decoding it into a field map.
+ * <p>
+ * Fields are dropped according to the include and exclude lists, and the
+ * source id field is renamed to the destination id field,
+ * as with {@link org.tallison.quaerite.core.StoredDocument#rename(String, String)}.
+ * Whether the destination id is written into the json object depends on the
+ * destination client; see {@link SearchClient#requiresIdInDocument()}.
+ * <p>
+ * This is thread safe.
+ */
+public class RawDocumentFilter {
+
+    private final Set<String> includeFields;
+    private final Set<String> excludeFields;
+    private final String srcIdField;
+    private final String destIdField;
+    private final boolean writeId;
+
+    /**
+     * @param includeFields if not empty, copy only these fields
+     * @param excludeFields do not copy these fields
+     * @param srcIdField id field in the source documents
+     * @param destIdField id field in the destination documents
+     * @param writeId whether or not to write the id into the json object
+     */
+    public RawDocumentFilter(Set<String> includeFields, Set<String> excludeFields,
+                             String srcIdField, String destIdField, boolean writeId) {
+        this.includeFields = includeFields;
+        this.excludeFields = excludeFields;
+        this.srcIdField = srcIdField;
+        this.destIdField = destIdField;
+        this.writeId = writeId;
+    }
+
+    /**
+     * Reads the next json object from the reader.
+     *
+     * @param reader reader positioned at the start of the document's object
+     * @param id the document's id if it is stored outside of the object (e.g. _id),
+     *           or <code>null</code> to read the id from the source id field
+     * @return the filtered document
+     * @throws IOException
+     */
+    public RawDocument filter(JsonReader reader, String id) throws IOException {
+        StringWriter buffer = new StringWriter();
+        JsonWriter writer = new JsonWriter(buffer);
+        writer.setSerializeNulls(true);
+        writer.beginObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals(srcIdField) || name.equals(destIdField)) {
+                //the id is written once at the end
+                if (id == null && name.equals(srcIdField)) {
+                    id = IdOnlyResponseParser.readScalar(reader);
+                } else {
+                    reader.skipValue();
+                }
+            } else if (excludeFields.contains(name) ||
+                    (includeFields.size() > 0 && ! includeFields.contains(name))) {
+                reader.skipValue();
+            } else {
+                writer.name(name);
+                copy(reader, writer);
+            }
+        }
+        reader.endObject();
+        if (writeId && id != null) {
+            writer.name(destIdField).value(id);
+        }
+        writer.endObject();
+        writer.flush();
+        return new RawDocument(id, buffer.toString());
+    }
+
+    private static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copy(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copy(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                //keep the number's literal text
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new IllegalStateException("unexpected token: " + token);
+        }
+    }
+}
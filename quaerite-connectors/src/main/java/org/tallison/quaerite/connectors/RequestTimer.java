@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import org.tallison.quaerite.core.SearchTimings;
+
+/**
+ * Marks the end of each phase of a request so that the client's own
+ * overhead can be told apart from the time spent waiting on the server.
+ * A phase that isn't marked is reported as {@link SearchTimings#UNKNOWN}.
+ * <p>
+ * This is not thread safe; use one per request.
+ */
+class RequestTimer {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    //System.nanoTime() may be negative
+    private static final long UNSET = Long.MIN_VALUE;
+
+    private final long start = System.nanoTime();
+    private long built = UNSET;
+    private long responseReceived = UNSET;
+    private long bodyRead = UNSET;
+    private long parsed = UNSET;
+
+    void built() {
+        built = System.nanoTime();
+    }
+
+    void responseReceived() {
+        responseReceived = System.nanoTime();
+    }
+
+    void bodyRead() {
+        bodyRead = System.nanoTime();
+    }
+
+    void parsed() {
+        parsed = System.nanoTime();
+    }
+
+    SearchTimings getTimings() {
+        return getTimings(1);
+    }
+
+    /**
+     * @param requests number of searches that were sent in this one request,
+     *                 e.g. in an _msearch; each is charged an equal share of
+     *                 every phase
+     */
+    SearchTimings getTimings(int requests) {
+        return new SearchTimings(
+                diff(start, built, requests),
+                diff(built, responseReceived, requests),
+                diff(responseReceived, bodyRead, requests),
+                //if the body wasn't read separately, parsing includes reading
+                diff(bodyRead != UNSET ? bodyRead : responseReceived, parsed, requests));
+    }
+
+    private static double diff(long from, long to, int requests) {
+        if (from == UNSET || to == UNSET) {
+            return SearchTimings.UNKNOWN;
+        }
+        return (to - from) / NANOS_PER_MILLI / requests;
+    }
+}
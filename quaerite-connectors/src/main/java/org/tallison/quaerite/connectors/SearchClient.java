@@ -23,28 +23,40 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.FacetResult;
+import org.tallison.quaerite.core.RawDocument;
 import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
 import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.queries.Query;
 import org.tallison.quaerite.core.stats.TokenDF;
@@ -52,9 +64,14 @@ import org.tallison.quaerite.core.stats.TokenDF;
 /**
  * SearchClient represents the basic functionality of a search client.
  * <p>
- * For simplicity with the underlying httpclient, concrete classes
- * of SearchClient should not be considered thread safe and must
- * be created for each thread.
+ * Clients handed out by {@link SearchClientFactory#getClient(ServerConnection)}
+ * are shared across threads; they are backed by a pooling connection
+ * manager and are thread safe.  Calling {@link #close()} on a shared client
+ * is a no-op; use {@link SearchClientFactory#closeAll()} to release the pools.
+ * </p>
+ * <p>
+ * Clients built around a caller supplied httpclient are only as thread safe
+ * as that httpclient, and they are owned (and closed) by the caller.
  * </p>
  */
 public abstract class SearchClient implements Closeable {
@@ -62,6 +79,62 @@ public abstract class SearchClient implements Closeable {
     public abstract SearchResultSet search(QueryRequest query)
             throws SearchClientException, IOException;
 
+    /**
+     * Non-blocking search.  Concrete clients that have a non-blocking
+     * transport override this; the default runs {@link #search(QueryRequest)}
+     * on the common pool.
+     *
+     * @param query
+     * @return future that completes with the results or with the
+     * {@link SearchClientException} or {@link IOException} that was thrown
+     */
+    public CompletableFuture<SearchResultSet> searchAsync(QueryRequest query) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return search(query);
+            } catch (SearchClientException | IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Runs a batch of queries.  The default runs them one at a time;
+     * clients that can pack several queries into a single request
+     * override this.
+     *
+     * @param queries
+     * @return results in the order of the queries with per-item errors
+     * @throws SearchClientException if the batch as a whole failed
+     * @throws IOException
+     */
+    public MultiSearchResult searchBatch(List<QueryRequest> queries)
+            throws SearchClientException, IOException {
+        MultiSearchResult results = new MultiSearchResult(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            try {
+                results.setResultSet(i, search(queries.get(i)));
+            } catch (SearchClientException | IOException e) {
+                results.setError(i, e.getMessage());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Canonical form of the request that {@link #search(QueryRequest)} sends,
+     * including the server's url.  Query requests with equal canonical forms
+     * return the same results from the same index, so this can be used
+     * as a cache key.
+     *
+     * @param query
+     * @return
+     * @throws SearchClientException
+     * @throws IOException
+     */
+    public abstract String getCanonicalRequest(QueryRequest query)
+            throws SearchClientException, IOException;
+
     public abstract FacetResult facet(QueryRequest query)
             throws SearchClientException, IOException;
 
@@ -69,21 +142,111 @@ public abstract class SearchClient implements Closeable {
 
     private final HttpClient httpClient;
 
+    //set by the factory when this client is shared across threads
+    private volatile boolean shared = false;
+    //version as reported by the server during client detection, can be null
+    private volatile String serverVersion;
+    //set by the factory for shared clients; used to find the async pool
+    private volatile ServerConnection serverConnection;
+
     public SearchClient(HttpClient httpClient) {
         this.httpClient = httpClient;
     }
 
+    void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    void setServerConnection(ServerConnection serverConnection) {
+        this.serverConnection = serverConnection;
+    }
+
+    void setServerVersion(String serverVersion) {
+        this.serverVersion = serverVersion;
+    }
+
+    /**
+     *
+     * @return the version reported by the server when the client was created
+     * or <code>null</code> if unknown
+     */
+    public String getServerVersion() {
+        return serverVersion;
+    }
+
 
     protected byte[] getUrl(String url) throws SearchClientException {
         return HttpUtils.get(httpClient, url);
     }
 
     protected JsonResponse postJson(String url, String json) throws IOException {
-        HttpPost httpRequest = new HttpPost(url);
-        ByteArrayEntity entity = new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8));
-        httpRequest.setEntity(entity);
+        return post(url, json, "application/json; charset=utf-8");
+    }
+
+    /**
+     * Posts newline delimited json, e.g. for bulk or multi-search requests.
+     * The body must end with a newline.
+     */
+    protected JsonResponse postNDJson(String url, String ndjson) throws IOException {
+        return post(url, ndjson, "application/x-ndjson; charset=utf-8");
+    }
+
+    /**
+     * Sends a delete with a json body, e.g. to clear a scroll or close
+     * a point in time.
+     */
+    protected JsonResponse deleteJson(String url, String json) throws IOException {
+        HttpEntityEnclosingRequestBase httpRequest = new HttpEntityEnclosingRequestBase() {
+            @Override
+            public String getMethod() {
+                return "DELETE";
+            }
+        };
+        httpRequest.setURI(URI.create(url));
+        httpRequest.setEntity(new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8)));
         httpRequest.setHeader("Accept", "application/json");
         httpRequest.setHeader("Content-type", "application/json; charset=utf-8");
+        return execute(httpRequest);
+    }
+
+    private JsonResponse post(String url, String body, String contentType) throws IOException {
+        return execute(buildPost(url, body, contentType));
+    }
+
+    /**
+     * Get that marks the network and body read phases on the timer
+     */
+    JsonResponse getJson(String url, RequestTimer timer) throws IOException {
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setHeader("Accept", "application/json");
+        return execute(httpGet, timer);
+    }
+
+    /**
+     * Post that marks the network and body read phases on the timer
+     */
+    JsonResponse postJson(String url, String json, RequestTimer timer) throws IOException {
+        return execute(buildPost(url, json, "application/json; charset=utf-8"), timer);
+    }
+
+    /**
+     * Newline delimited json post that marks the network and body read
+     * phases on the timer
+     */
+    JsonResponse postNDJson(String url, String ndjson, RequestTimer timer) throws IOException {
+        return execute(buildPost(url, ndjson, "application/x-ndjson; charset=utf-8"), timer);
+    }
+
+    private JsonResponse execute(HttpRequestBase httpRequest) throws IOException {
+        return execute(httpRequest, (RequestTimer) null);
+    }
+
+    private JsonResponse execute(HttpRequestBase httpRequest, RequestTimer timer)
+            throws IOException {
         //At one point, this was required because of connection already
         // bound exceptions on windows :(
         //httpPost.setHeader("Connection", "close");
@@ -94,7 +257,16 @@ public abstract class SearchClient implements Closeable {
         try {
             response = httpClient.execute(httpRequest);
             int status = response.getStatusLine().getStatusCode();
-            if (status == 200) {
+            if (status == 200 && timer != null) {
+                timer.responseReceived();
+                byte[] bytes = EntityUtils.toByteArray(response.getEntity());
+                timer.bodyRead();
+                try (Reader reader = new BufferedReader(
+                        new InputStreamReader(new ByteArrayInputStream(bytes),
+                                StandardCharsets.UTF_8))) {
+                    return new JsonResponse(200, JsonParser.parseReader(reader));
+                }
+            } else if (status == 200) {
                 try (Reader reader = new BufferedReader(
                         new InputStreamReader(response.getEntity().getContent(),
                                 StandardCharsets.UTF_8))) {
@@ -118,6 +290,235 @@ public abstract class SearchClient implements Closeable {
     }
 
 
+    /**
+     * @return the shared non-blocking client or <code>null</code> if this
+     * client wasn't created via the factory's registry
+     * @throws SearchClientException
+     */
+    protected CloseableHttpAsyncClient getAsyncHttpClient() throws SearchClientException {
+        ServerConnection connection = serverConnection;
+        if (connection == null) {
+            return null;
+        }
+        return SearchClientFactory.getPooledAsyncHttpClient(connection);
+    }
+
+    protected CompletableFuture<JsonResponse> getJsonAsync(String url)
+            throws SearchClientException {
+        return getJsonAsync(url, null);
+    }
+
+    CompletableFuture<JsonResponse> getJsonAsync(String url, RequestTimer timer)
+            throws SearchClientException {
+        return getAsync(url, reader -> new JsonResponse(200, JsonParser.parseReader(reader)),
+                timer);
+    }
+
+    protected CompletableFuture<JsonResponse> postJsonAsync(String url, String json)
+            throws SearchClientException {
+        return postJsonAsync(url, json, (RequestTimer) null);
+    }
+
+    CompletableFuture<JsonResponse> postJsonAsync(String url, String json, RequestTimer timer)
+            throws SearchClientException {
+        return postJsonAsync(url, json,
+                reader -> new JsonResponse(200, JsonParser.parseReader(reader)), timer);
+    }
+
+    /**
+     * Non-blocking get.  The future completes exceptionally with a
+     * {@link SearchClientException} if the status is not 200.
+     */
+    protected <T> CompletableFuture<T> getAsync(String url, ResponseParser<T> parser)
+            throws SearchClientException {
+        return getAsync(url, parser, null);
+    }
+
+    /**
+     * Non-blocking get that marks the network and parse phases on the
+     * timer, which can be <code>null</code>
+     */
+    <T> CompletableFuture<T> getAsync(String url, ResponseParser<T> parser, RequestTimer timer)
+            throws SearchClientException {
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setHeader("Accept", "application/json");
+        return executeAsync(httpGet, parser, timer);
+    }
+
+    /**
+     * Non-blocking post.  The future completes exceptionally with a
+     * {@link SearchClientException} if the status is not 200.
+     */
+    protected <T> CompletableFuture<T> postJsonAsync(String url, String json,
+                                                     ResponseParser<T> parser)
+            throws SearchClientException {
+        return postJsonAsync(url, json, parser, null);
+    }
+
+    /**
+     * Non-blocking post that marks the network and parse phases on the
+     * timer, which can be <code>null</code>
+     */
+    <T> CompletableFuture<T> postJsonAsync(String url, String json, ResponseParser<T> parser,
+                                           RequestTimer timer)
+            throws SearchClientException {
+        HttpPost httpRequest = new HttpPost(url);
+        httpRequest.setEntity(new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8)));
+        httpRequest.setHeader("Accept", "application/json");
+        httpRequest.setHeader("Content-type", "application/json; charset=utf-8");
+        return executeAsync(httpRequest, parser, timer);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(HttpUriRequest request,
+                                                  ResponseParser<T> parser,
+                                                  RequestTimer timer)
+            throws SearchClientException {
+        CloseableHttpAsyncClient asyncClient = getAsyncHttpClient();
+        if (asyncClient == null) {
+            throw new SearchClientException("no async client available for this client");
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        asyncClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(parse(request, response, parser, timer));
+                } catch (IOException | SearchClientException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get whose response is parsed directly from the stream.
+     *
+     * @throws SearchClientException if the status is not 200
+     */
+    protected <T> T get(String url, ResponseParser<T> parser)
+            throws IOException, SearchClientException {
+        return get(url, parser, null);
+    }
+
+    /**
+     * Get whose response is parsed directly from the stream, marking the
+     * network and parse phases on the timer, which can be <code>null</code>
+     */
+    <T> T get(String url, ResponseParser<T> parser, RequestTimer timer)
+            throws IOException, SearchClientException {
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setHeader("Accept", "application/json");
+        return execute(httpGet, parser, timer);
+    }
+
+    /**
+     * Post whose response is parsed directly from the stream.
+     *
+     * @throws SearchClientException if the status is not 200
+     */
+    protected <T> T postJson(String url, String json, ResponseParser<T> parser)
+            throws IOException, SearchClientException {
+        return postJson(url, json, parser, null);
+    }
+
+    /**
+     * Post whose response is parsed directly from the stream, marking the
+     * network and parse phases on the timer, which can be <code>null</code>
+     */
+    <T> T postJson(String url, String json, ResponseParser<T> parser, RequestTimer timer)
+            throws IOException, SearchClientException {
+        return execute(buildPost(url, json, "application/json; charset=utf-8"), parser, timer);
+    }
+
+    protected <T> T postNDJson(String url, String ndjson, ResponseParser<T> parser)
+            throws IOException, SearchClientException {
+        return postNDJson(url, ndjson, parser, null);
+    }
+
+    <T> T postNDJson(String url, String ndjson, ResponseParser<T> parser, RequestTimer timer)
+            throws IOException, SearchClientException {
+        return execute(buildPost(url, ndjson, "application/x-ndjson; charset=utf-8"),
+                parser, timer);
+    }
+
+    /**
+     * Post of a caller supplied entity, e.g. a streamed bulk request.
+     * The entity's content type and encoding are sent as is.
+     *
+     * @throws SearchClientException if the status is not 200; see
+     * {@link SearchClientException#getStatus()}
+     */
+    protected <T> T post(String url, HttpEntity entity, ResponseParser<T> parser)
+            throws IOException, SearchClientException {
+        HttpPost httpRequest = new HttpPost(url);
+        httpRequest.setEntity(entity);
+        httpRequest.setHeader("Accept", "application/json");
+        return execute(httpRequest, parser, null);
+    }
+
+    private HttpPost buildPost(String url, String body, String contentType) {
+        HttpPost httpRequest = new HttpPost(url);
+        httpRequest.setEntity(new ByteArrayEntity(body.getBytes(StandardCharsets.UTF_8)));
+        httpRequest.setHeader("Accept", "application/json");
+        httpRequest.setHeader("Content-type", contentType);
+        return httpRequest;
+    }
+
+    private <T> T execute(HttpRequestBase request, ResponseParser<T> parser,
+                          RequestTimer timer)
+            throws IOException, SearchClientException {
+        HttpResponse response = null;
+        try {
+            response = httpClient.execute(request);
+            return parse(request, response, parser, timer);
+        } finally {
+            if (response != null && response instanceof CloseableHttpResponse) {
+                ((CloseableHttpResponse) response).close();
+            }
+            request.releaseConnection();
+        }
+    }
+
+    /**
+     * @param timer if not <code>null</code>, the response is marked as received
+     *              (the headers have arrived) and then as parsed; the body is read
+     *              while it is parsed
+     */
+    private static <T> T parse(HttpUriRequest request, HttpResponse response,
+                               ResponseParser<T> parser, RequestTimer timer)
+            throws IOException, SearchClientException {
+        if (timer != null) {
+            timer.responseReceived();
+        }
+        int status = response.getStatusLine().getStatusCode();
+        if (status != 200) {
+            String msg = new String(EntityUtils.toByteArray(response.getEntity()),
+                    StandardCharsets.UTF_8);
+            throw new SearchClientException("Bad status code: " + status +
+                    " for url: " + request.getURI() + "; msg: " + msg, status);
+        }
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(response.getEntity().getContent(),
+                        StandardCharsets.UTF_8))) {
+            T parsed = parser.parse(reader);
+            if (timer != null) {
+                timer.parsed();
+            }
+            return parsed;
+        }
+    }
+
     protected static String encode(String s) throws IllegalArgumentException {
         try {
             return URLEncoder.encode(s, StandardCharsets.UTF_8.name());
@@ -127,6 +528,9 @@ public abstract class SearchClient implements Closeable {
     }
 
     public void close() throws IOException {
+        if (shared) {
+            return;
+        }
         if (httpClient instanceof  CloseableHttpClient) {
             ((CloseableHttpClient)httpClient).close();
         }
@@ -140,6 +544,58 @@ public abstract class SearchClient implements Closeable {
                                                  Set<String> excludeFields)
             throws IOException, SearchClientException;
 
+    /**
+     * Adds documents whose fields are already serialized as json objects.
+     * If {@link #requiresIdInDocument()} is <code>true</code>, the json
+     * objects must contain the id field.
+     *
+     * @param documents
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public abstract void addRawDocuments(List<RawDocument> documents)
+            throws IOException, SearchClientException;
+
+    /**
+     * Retrieves documents without decoding them into field maps; the
+     * filter is applied to each document's json while the response is read.
+     *
+     * @param idField
+     * @param ids
+     * @param includeFields fields to request from the server;
+     *                      if empty, all stored fields are requested
+     * @param filter
+     * @return
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public abstract List<RawDocument> getRawDocs(String idField, Set<String> ids,
+                                                 Set<String> includeFields,
+                                                 RawDocumentFilter filter)
+            throws IOException, SearchClientException;
+
+    /**
+     * @return whether the id has to be part of a document's json object
+     * when adding raw documents
+     */
+    public abstract boolean requiresIdInDocument();
+
+    /**
+     * Bulk indexer that streams documents to this client's index.  The caller
+     * must close it to send the last batch and to release its threads.
+     *
+     * @param maxInFlight maximum number of bulk requests to send concurrently
+     * @return
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public abstract BulkIndexer getBulkIndexer(int maxInFlight)
+            throws IOException, SearchClientException;
+
+    public BulkIndexer getBulkIndexer() throws IOException, SearchClientException {
+        return getBulkIndexer(BulkIndexer.DEFAULT_MAX_IN_FLIGHT);
+    }
+
     /**
      * if not supported, this should return an empty collection
      *
@@ -20,16 +20,37 @@ import java.io.IOException;
 
 public class SearchClientException extends Exception {
 
+    private final int status;
+
     public SearchClientException(String msg) {
+        this(msg, -1);
+    }
+
+    /**
+     * @param msg
+     * @param status http status code returned by the server
+     */
+    public SearchClientException(String msg, int status) {
         super(msg);
+        this.status = status;
     }
 
     public SearchClientException(Exception e) {
         super(e);
+        this.status = -1;
     }
 
     public SearchClientException(String url, IOException e) {
         super(url, e);
+        this.status = -1;
+    }
+
+    /**
+     * @return the http status code returned by the server or -1 if the
+     * failure did not come from a response
+     */
+    public int getStatus() {
+        return status;
     }
 
 }
@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,27 +30,181 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.util.StringUtil;
 
+/**
+ * Process-wide registry of search clients.
+ * <p>
+ * Clients requested by {@link ServerConnection} are detected once, cached
+ * and shared by all threads.  All connections to a given host (and user)
+ * share a single pooled httpclient, so that thousands of queries
+ * reuse warm connections instead of reconnecting.
+ * </p>
+ */
 public class SearchClientFactory {
 
+    static Logger LOG = LogManager.getLogger(SearchClientFactory.class);
+
+    private static final Pattern HOST_PATTERN = Pattern.compile("(https?://[^/]+)");
+
+    private static final Map<ServerConnection, SearchClient> CLIENTS =
+            new ConcurrentHashMap<>();
+    //key: see getPoolKey
+    private static final Map<String, CloseableHttpClient> HTTP_CLIENTS =
+            new ConcurrentHashMap<>();
+
+    //key: see getPoolKey
+    private static final Map<String, CloseableHttpAsyncClient> HTTP_ASYNC_CLIENTS =
+            new ConcurrentHashMap<>();
+
+    private static volatile int maxConnectionsPerHost =
+            ExperimentConfig.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private static volatile int keepAliveSeconds = ExperimentConfig.DEFAULT_KEEP_ALIVE_SECONDS;
+
+    /**
+     * Sets the pool parameters for connection pools that have not
+     * yet been created.
+     *
+     * @param maxConnections max connections per host
+     * @param keepAlive keep alive in seconds if the server doesn't specify one
+     */
+    public static void configurePools(int maxConnections, int keepAlive) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be > 0");
+        }
+        if (keepAlive < 0) {
+            throw new IllegalArgumentException("keepAlive must be >= 0");
+        }
+        maxConnectionsPerHost = maxConnections;
+        keepAliveSeconds = keepAlive;
+    }
+
     public static SearchClient getClient(String url) throws IOException,
             SearchClientException {
         return getClient(new ServerConnection(url));
     }
 
+    /**
+     * Returns the shared, thread safe client for this connection,
+     * detecting the type and version of the search server on first use.
+     *
+     * @param connection
+     * @return
+     * @throws IOException
+     * @throws SearchClientException
+     */
     public static SearchClient getClient(ServerConnection connection)
             throws IOException, SearchClientException {
-        return getClient(connection.getURL(),
-                HttpUtils.getClient(
-                        connection.getURL(),
-                        connection.getUser(),
-                        connection.getPassword()));
+        SearchClient client = CLIENTS.get(connection);
+        if (client != null) {
+            return client;
+        }
+        synchronized (CLIENTS) {
+            client = CLIENTS.get(connection);
+            if (client != null) {
+                return client;
+            }
+            client = getClient(connection.getURL(), getPooledHttpClient(connection));
+            client.setShared(true);
+            client.setServerConnection(connection);
+            CLIENTS.put(connection, client);
+            LOG.debug("created shared client for " + connection.getURL() +
+                    "; server version: " + client.getServerVersion());
+            return client;
+        }
+    }
+
+    /**
+     * Closes all shared clients and their connection pools.
+     */
+    public static void closeAll() {
+        synchronized (CLIENTS) {
+            CLIENTS.clear();
+            for (CloseableHttpClient httpClient : HTTP_CLIENTS.values()) {
+                try {
+                    httpClient.close();
+                } catch (IOException e) {
+                    LOG.warn("problem closing httpclient", e);
+                }
+            }
+            HTTP_CLIENTS.clear();
+            for (CloseableHttpAsyncClient httpClient : HTTP_ASYNC_CLIENTS.values()) {
+                try {
+                    httpClient.close();
+                } catch (IOException e) {
+                    LOG.warn("problem closing async httpclient", e);
+                }
+            }
+            HTTP_ASYNC_CLIENTS.clear();
+        }
+    }
+
+    /**
+     * The non-blocking pools are only started when a client first
+     * needs one.
+     *
+     * @param connection
+     * @return the shared async client for the connection's host
+     * @throws SearchClientException
+     */
+    static CloseableHttpAsyncClient getPooledAsyncHttpClient(ServerConnection connection)
+            throws SearchClientException {
+        String key = getPoolKey(connection);
+        CloseableHttpAsyncClient httpClient = HTTP_ASYNC_CLIENTS.get(key);
+        if (httpClient != null) {
+            return httpClient;
+        }
+        synchronized (CLIENTS) {
+            httpClient = HTTP_ASYNC_CLIENTS.get(key);
+            if (httpClient == null) {
+                httpClient = HttpUtils.getPooledAsyncClient(connection.getURL(),
+                        connection.getUser(), connection.getPassword(),
+                        maxConnectionsPerHost, keepAliveSeconds);
+                HTTP_ASYNC_CLIENTS.put(key, httpClient);
+            }
+            return httpClient;
+        }
+    }
+
+    /**
+     * @return scheme://host:port followed by a hash of the credentials, so
+     * that the password isn't kept in plain text
+     */
+    static String getPoolKey(ServerConnection connection) throws SearchClientException {
+        Matcher m = HOST_PATTERN.matcher(connection.getURL());
+        if (!m.find()) {
+            throw new SearchClientException(
+                    "Couldn't find domain in this url:" + connection.getURL());
+        }
+        String user = connection.getUser();
+        //the length keeps e.g. a:b + c apart from a + b:c
+        String credentials = (user == null ? -1 : user.length()) + ":" + user + ":" +
+                connection.getPassword();
+        return m.group(1) + "|" + StringUtil.sha256Hex(credentials);
+    }
+
+    private static CloseableHttpClient getPooledHttpClient(ServerConnection connection)
+            throws SearchClientException {
+        String key = getPoolKey(connection);
+        CloseableHttpClient httpClient = HTTP_CLIENTS.get(key);
+        if (httpClient == null) {
+            httpClient = HttpUtils.getPooledClient(connection.getURL(),
+                    connection.getUser(), connection.getPassword(),
+                    maxConnectionsPerHost, keepAliveSeconds);
+            HTTP_CLIENTS.put(key, httpClient);
+        }
+        return httpClient;
     }
 
     public static SearchClient getClient(String url, HttpClient httpClient)
             throws IOException, SearchClientException {
-        Matcher m = Pattern.compile("(https?://[^/]+)").matcher(url);
+        Matcher m = HOST_PATTERN.matcher(url);
         if (!m.find()) {
             throw new SearchClientException(
                     "Couldn't find domain in this url:" + url);
@@ -72,11 +228,14 @@ public class SearchClientFactory {
                 int major = Integer.parseInt(version.substring(0, firstPeriod));
                 int minor = Integer.parseInt(version.substring(firstPeriod + 1,
                         secondPeriod));
+                SearchClient client;
                 if (major < 7) {
-                    return new Solr4Client(url, httpClient, minor);
+                    client = new Solr4Client(url, httpClient, major, minor);
                 } else {
-                    return new SolrClient(url, httpClient);
+                    client = new SolrClient(url, httpClient);
                 }
+                client.setServerVersion(version);
+                return client;
             }
         } catch (SearchClientException e) {
             //swallow and try es
@@ -89,16 +248,19 @@ public class SearchClientFactory {
             JsonObject version = root.getAsJsonObject("version");
             String number = version.get("number").getAsString();
             String major = number.substring(0, 1);
+            SearchClient client;
             if (major.equals("2") || major.equals("3") || major.equals("4")) {
-                return new ES4Client(url, httpClient);
+                client = new ES4Client(url, httpClient);
             } else if (major.equals("6")) {
-                return new ES6Client(url, httpClient);
+                client = new ES6Client(url, httpClient);
             } else if (major.equals("7")) {
-                return new ESClient(url, httpClient);
+                client = new ESClient(url, httpClient);
             } else {
                 throw new IllegalArgumentException(
                         "I regret that I don't yet support: " + number);
             }
+            client.setServerVersion(number);
+            return client;
         } catch (IOException e) {
             throw new SearchClientException(
                     "Couldn't find right client for: " + url);
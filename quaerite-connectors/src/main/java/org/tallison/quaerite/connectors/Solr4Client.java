@@ -25,9 +25,11 @@ import java.util.Set;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.apache.http.client.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.RawDocument;
 import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.queries.LuceneQuery;
 import org.tallison.quaerite.core.queries.TermsQuery;
@@ -39,13 +41,17 @@ public class Solr4Client extends SolrClient {
 
     static Logger LOG = LogManager.getLogger(Solr4Client.class);
 
+    private final int majorVersion;
     private final int minorVersion;
     /**
      * @param url url to Solr including /collection
+     * @param majorVersion major version of Solr; this client is used for
+     *                     everything before 7
      */
-    protected Solr4Client(String url, HttpClient httpClient,
+    protected Solr4Client(String url, HttpClient httpClient, int majorVersion,
                           int minorVersion) throws IOException, SearchClientException {
         super(url, httpClient);
+        this.majorVersion = majorVersion;
         this.minorVersion = minorVersion;
     }
 
@@ -93,6 +99,46 @@ public class Solr4Client extends SolrClient {
         return documents;
     }
 
+    @Override
+    public List<RawDocument> getRawDocs(String idField, Set<String> ids,
+                                        Set<String> includeFields,
+                                        RawDocumentFilter filter)
+            throws IOException, SearchClientException {
+        //see getDocs for why this uses url requests
+        Set<String> fields = withIdField(includeFields);
+        StringBuilder sb = new StringBuilder();
+        List<RawDocument> documents = new ArrayList<>();
+        int i = 0;
+        sb.append(idField + ":(");
+        for (String id : ids) {
+            if (i++ > 0) {
+                sb.append(" OR ");
+            }
+            sb.append("\"" + id + "\"");
+            if (sb.length() > 1000) {
+                sb.append(")");
+                documents.addAll(_getRawDocs(idField, sb.toString(), i, fields, filter));
+                i = 0;
+                sb.setLength(0);
+                sb.append(idField + ":(");
+            }
+        }
+        if (i > 0) {
+            sb.append(")");
+            documents.addAll(_getRawDocs(idField, sb.toString(), i, fields, filter));
+        }
+        return documents;
+    }
+
+    private List<RawDocument> _getRawDocs(String idField, String query, int numResults,
+                                          Set<String> fields, RawDocumentFilter filter)
+            throws IOException, SearchClientException {
+        QueryRequest q = new QueryRequest(new LuceneQuery(idField, query));
+        q.setNumResults(numResults);
+        q.addFieldsToRetrieve(fields);
+        return get(generateRequestURL(q), r -> readRawDocs(new JsonReader(r), filter));
+    }
+
     private List<StoredDocument> _getDocs(String requestUrl, Set<String> excludeFields)
             throws IOException, SearchClientException {
         List<StoredDocument> documents = new ArrayList<>();
@@ -175,6 +221,12 @@ public class Solr4Client extends SolrClient {
         sb.append("&q.op=OR");
     }
 
+    @Override
+    boolean supportsCursorMark() {
+        //cursorMark was added in 4.7
+        return majorVersion > 4 || minorVersion >= 7;
+    }
+
     @Override
     public Set<String> getCopyFields() throws IOException, SearchClientException {
         //is this when the schema api was introduced?
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tallison.quaerite.core.RawDocument;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * Writes json arrays of documents to the update handler.  Solr does not
+ * report failures per document, and it only accepts compressed requests
+ * if it has been configured to, so requests are not compressed.
+ */
+class SolrBulkIndexer extends BulkIndexer {
+
+    private static final byte[] START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SEPARATOR = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "]".getBytes(StandardCharsets.UTF_8);
+
+    private final String idField;
+
+    SolrBulkIndexer(SolrClient client, String url, String idField, int maxInFlight) {
+        super(client, url, false, maxInFlight);
+        this.idField = idField;
+    }
+
+    @Override
+    byte[] serialize(StoredDocument document) {
+        //copy so that the id isn't added to the caller's document
+        Map<String, Object> doc = new LinkedHashMap<>(document.getFields());
+        doc.put(idField, document.getId());
+        return SolrClient.GSON.toJson(doc).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    byte[] serialize(RawDocument document) {
+        return document.getJson().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    String getContentType() {
+        return "application/json; charset=utf-8";
+    }
+
+    @Override
+    void writeBatch(List<Item> items, OutputStream os) throws IOException {
+        os.write(START);
+        int i = 0;
+        for (Item item : items) {
+            if (i++ > 0) {
+                os.write(SEPARATOR);
+            }
+            os.write(item.getBytes());
+        }
+        os.write(END);
+    }
+
+    @Override
+    List<ItemFailure> parseResponse(Reader reader, int numItems) throws IOException {
+        //a failure in a batch fails the whole request
+        return Collections.emptyList();
+    }
+}
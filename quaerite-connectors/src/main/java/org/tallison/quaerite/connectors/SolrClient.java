@@ -34,6 +34,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 import com.google.gson.Gson;
@@ -41,11 +43,13 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.core.FacetResult;
+import org.tallison.quaerite.core.RawDocument;
 import org.tallison.quaerite.core.SearchResultSet;
 import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.features.CustomHandler;
@@ -84,6 +88,7 @@ public class SolrClient extends SearchClient {
 
     final String url;
     String idField;
+    private volatile Set<String> copyFields;
 
     /**
      * @param url url to Solr including /collection
@@ -95,13 +100,21 @@ public class SolrClient extends SearchClient {
 
     @Override
     public SearchResultSet search(QueryRequest query) throws SearchClientException, IOException {
-
+        RequestTimer timer = new RequestTimer();
         String url = generateRequestURL(query);
+        timer.built();
         if (LOG.isTraceEnabled()) {
             LOG.trace(url);
         }
         long start = System.currentTimeMillis();
-        JsonResponse response = getJson(url);
+        String idOnlyField = getIdOnlyField(query);
+        if (idOnlyField != null) {
+            SearchResultSet resultSet = get(url,
+                    IdOnlyResponseParser.solr(idOnlyField, start), timer);
+            resultSet.setTimings(timer.getTimings());
+            return resultSet;
+        }
+        JsonResponse response = getJson(url, timer);
         if (LOG.isTraceEnabled()) {
             LOG.trace(response);
         }
@@ -109,13 +122,89 @@ public class SolrClient extends SearchClient {
             throw new SearchClientException(response.getMsg());
         }
         long elapsed = System.currentTimeMillis() - start;
-        return translateResponse(elapsed, response.getJson());
+        SearchResultSet resultSet = translateResponse(elapsed, response.getJson());
+        timer.parsed();
+        resultSet.setTimings(timer.getTimings());
+        return resultSet;
+    }
+
+    /**
+     * The request url with its parameters sorted.
+     */
+    @Override
+    public String getCanonicalRequest(QueryRequest query) {
+        String requestUrl = generateRequestURL(query);
+        int i = requestUrl.indexOf('?');
+        if (i < 0) {
+            return requestUrl;
+        }
+        List<String> params = new ArrayList<>();
+        for (String param : requestUrl.substring(i + 1).split("&")) {
+            if (! param.isEmpty()) {
+                params.add(param);
+            }
+        }
+        Collections.sort(params);
+        return requestUrl.substring(0, i + 1) + StringUtils.join(params, '&');
+    }
+
+    @Override
+    public CompletableFuture<SearchResultSet> searchAsync(QueryRequest query) {
+        CompletableFuture<JsonResponse> responseFuture;
+        RequestTimer timer = new RequestTimer();
+        String url = generateRequestURL(query);
+        timer.built();
+        long start = System.currentTimeMillis();
+        try {
+            if (getAsyncHttpClient() == null) {
+                return super.searchAsync(query);
+            }
+            String idOnlyField = getIdOnlyField(query);
+            if (idOnlyField != null) {
+                return getAsync(url, IdOnlyResponseParser.solr(idOnlyField, start), timer)
+                        .thenApply(resultSet -> {
+                            resultSet.setTimings(timer.getTimings());
+                            return resultSet;
+                        });
+            }
+            responseFuture = getJsonAsync(url, timer);
+        } catch (SearchClientException e) {
+            CompletableFuture<SearchResultSet> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return responseFuture.thenApply(response -> {
+            if (response.getStatus() != 200) {
+                throw new CompletionException(new SearchClientException(response.getMsg()));
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            try {
+                SearchResultSet resultSet = translateResponse(elapsed, response.getJson());
+                timer.parsed();
+                resultSet.setTimings(timer.getTimings());
+                return resultSet;
+            } catch (IOException | SearchClientException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * @return the id field if the only field requested is the id field,
+     * <code>null</code> otherwise
+     */
+    private String getIdOnlyField(QueryRequest query) {
+        if (query.getFieldsToRetrieve().size() != 1 || query.getFacetField() != null) {
+            return null;
+        }
+        String field = query.getFieldsToRetrieve().get(0);
+        String idFieldName = query.getIdField() != null ? query.getIdField() : idField;
+        return field.equals(idFieldName) ? field : null;
     }
 
     private SearchResultSet translateResponse(long totalTime, JsonElement root)
             throws IOException, SearchClientException {
-        //TODO: figure out what queryTime means/is as diff from total
-        long queryTime = 0;
+        long queryTime = getQTime(root);
         List<String> ids = new ArrayList();
         JsonObject response = (JsonObject) ((JsonObject) root).get("response");
         long totalHits = response.get("numFound").getAsLong();
@@ -125,7 +214,27 @@ public class SolrClient extends SearchClient {
         } else {
             documents = Collections.EMPTY_LIST;
         }
-        return new SearchResultSet(totalHits, queryTime, totalTime, documents);
+        SearchResultSet resultSet = new SearchResultSet(totalHits, queryTime, totalTime, documents);
+        if (((JsonObject) root).has("nextCursorMark")) {
+            resultSet.setScrollId(((JsonObject) root).get("nextCursorMark").getAsString());
+        }
+        return resultSet;
+    }
+
+    /**
+     * @return the server's QTime from the response header or -1 if it
+     * isn't there
+     */
+    private static long getQTime(JsonElement root) {
+        JsonElement header = ((JsonObject) root).get("responseHeader");
+        if (header == null || ! header.isJsonObject()) {
+            return -1;
+        }
+        JsonElement qTime = ((JsonObject) header).get("QTime");
+        if (qTime == null || ! qTime.isJsonPrimitive()) {
+            return -1;
+        }
+        return qTime.getAsLong();
     }
 
     String generateRequestURL(QueryRequest queryRequest) {
@@ -175,6 +284,9 @@ public class SolrClient extends SearchClient {
             sb.append("&sort=").append(encode(queryRequest.getSortField())).append(encode(" "))
                     .append(queryRequest.getSortOrder().toString().toLowerCase(Locale.US));
         }
+        if (queryRequest.getCursorMark() != null) {
+            sb.append("&cursorMark=").append(encode(queryRequest.getCursorMark()));
+        }
         if (queryRequest.getFilterQueries().size() > 0) {
             for (Query q : queryRequest.getFilterQueries()) {
                 appendFilterQuery(q, sb);
@@ -357,6 +469,37 @@ public class SolrClient extends SearchClient {
             data.add(doc);
         }
         String json = GSON.toJson(data);
+        update(json);
+    }
+
+    @Override
+    public void addRawDocuments(List<RawDocument> documents) throws IOException,
+            SearchClientException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        int i = 0;
+        for (RawDocument d : documents) {
+            if (i++ > 0) {
+                sb.append(",");
+            }
+            sb.append(d.getJson());
+        }
+        sb.append("]");
+        update(sb.toString());
+    }
+
+    @Override
+    public boolean requiresIdInDocument() {
+        return true;
+    }
+
+    @Override
+    public BulkIndexer getBulkIndexer(int maxInFlight) throws IOException, SearchClientException {
+        return new SolrBulkIndexer(this, url + "/update/json?commitWithin=10000",
+                getDefaultIdField(), maxInFlight);
+    }
+
+    private void update(String json) throws IOException, SearchClientException {
         JsonResponse response = postJson(url +
                 "/update/json?commitWithin=10000", json);
         if (response.getStatus() != 200) {
@@ -369,6 +512,25 @@ public class SolrClient extends SearchClient {
                                         Set<String> includeFields,
                                         Set<String> excludeFields)
             throws IOException, SearchClientException {
+        String json = getDocsRequest(idField, ids, includeFields);
+        JsonResponse fullResponse = postJson(url + "/select", json);
+        if (fullResponse.getStatus() != 200) {
+            LOG.warn("problem with " + url + " and " + json);
+            return Collections.EMPTY_LIST;
+        }
+        List<StoredDocument> documents = null;
+        JsonElement root = fullResponse.getJson();
+        JsonObject response = (JsonObject) ((JsonObject) root).get("response");
+        long totalHits = response.get("numFound").getAsLong();
+        if (response.has("docs")) {
+            documents = jsonArrayToDocs((JsonArray) response.get("docs"), excludeFields);
+        } else {
+            documents = Collections.emptyList();
+        }
+        return documents;
+    }
+
+    private String getDocsRequest(String idField, Set<String> ids, Set<String> includeFields) {
         StringBuilder sb = new StringBuilder();
         int i = 0;
         sb.append(idField + ":(");
@@ -387,21 +549,54 @@ public class SolrClient extends SearchClient {
             String fields = StringUtils.join(includeFields, ",");
             qRequest.put("fields", fields);
         }
-        String json = GSON.toJson(qRequest);
-        JsonResponse fullResponse = postJson(url + "/select", json);
-        if (fullResponse.getStatus() != 200) {
-            LOG.warn("problem with " + url + " and " + json);
-            return Collections.EMPTY_LIST;
+        return GSON.toJson(qRequest);
+    }
+
+    @Override
+    public List<RawDocument> getRawDocs(String idField, Set<String> ids,
+                                        Set<String> includeFields,
+                                        RawDocumentFilter filter)
+            throws IOException, SearchClientException {
+        String json = getDocsRequest(idField, ids, withIdField(includeFields));
+        return postJson(url + "/select", json, r -> readRawDocs(new JsonReader(r), filter));
+    }
+
+    /**
+     * the id is read from the documents, so make sure it is retrieved
+     */
+    Set<String> withIdField(Set<String> includeFields) throws IOException, SearchClientException {
+        if (includeFields.size() == 0) {
+            return includeFields;
         }
-        List<StoredDocument> documents = null;
-        JsonElement root = fullResponse.getJson();
-        JsonObject response = (JsonObject) ((JsonObject) root).get("response");
-        long totalHits = response.get("numFound").getAsLong();
-        if (response.has("docs")) {
-            documents = jsonArrayToDocs((JsonArray) response.get("docs"), excludeFields);
-        } else {
-            documents = Collections.emptyList();
+        Set<String> fields = new HashSet<>(includeFields);
+        fields.add(getDefaultIdField());
+        return fields;
+    }
+
+    List<RawDocument> readRawDocs(JsonReader reader, RawDocumentFilter filter)
+            throws IOException {
+        List<RawDocument> documents = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (! "response".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("docs".equals(reader.nextName())) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        documents.add(filter.filter(reader, null));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
         }
+        reader.endObject();
         return documents;
     }
 
@@ -435,6 +630,11 @@ public class SolrClient extends SearchClient {
 
     @Override
     public Set<String> getCopyFields() throws IOException, SearchClientException {
+        //the schema isn't going to change while the client is in use
+        Set<String> cached = copyFields;
+        if (cached != null) {
+            return cached;
+        }
         StringBuilder sb = new StringBuilder();
         sb.append(url);
         if (!url.endsWith("/")) {
@@ -453,7 +653,8 @@ public class SolrClient extends SearchClient {
             String dest = entry.get("dest").getAsString();
             dests.add(dest);
         }
-        return dests;
+        this.copyFields = Collections.unmodifiableSet(dests);
+        return this.copyFields;
     }
 
 
@@ -482,9 +683,35 @@ public class SolrClient extends SearchClient {
                                   int copierThreads, Collection<Query> filterQueries)
             throws IOException, SearchClientException {
         return new SolrIdGrabber(getDefaultIdField(), ids,
+                batchSize, copierThreads, filterQueries, supportsCursorMark());
+    }
+
+    /**
+     * Streams ids with the /export handler.  This requires docValues on the
+     * id field.  Ids are added to the queue as the response is read.
+     *
+     * @param ids
+     * @param batchSize
+     * @param copierThreads
+     * @param filterQueries
+     * @return
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public IdGrabber getExportIdGrabber(ArrayBlockingQueue<Set<String>> ids, int batchSize,
+                                        int copierThreads, Collection<Query> filterQueries)
+            throws IOException, SearchClientException {
+        return new SolrExportIdGrabber(getDefaultIdField(), ids,
                 batchSize, copierThreads, filterQueries);
     }
 
+    /**
+     * @return whether this version of Solr supports cursorMark
+     */
+    boolean supportsCursorMark() {
+        return true;
+    }
+
     @Override
     public Set<String> getSystemInternalFields() {
         return SYS_INTERNAL_FIELDS;
@@ -568,20 +795,26 @@ public class SolrClient extends SearchClient {
 
     class SolrIdGrabber extends IdGrabber {
 
+        private static final int PAGE_SIZE = 10000;
+        private final boolean useCursorMark;
+
         public SolrIdGrabber(String idField, ArrayBlockingQueue<Set<String>> ids,
                              int batchSize, int copierThreads,
-                             Collection<Query> filterQueries) {
+                             Collection<Query> filterQueries, boolean useCursorMark) {
             super(idField, ids, batchSize, copierThreads, filterQueries);
+            this.useCursorMark = useCursorMark;
         }
 
         @Override
         public Integer call() throws Exception {
             int start = 0;
             int totalAdded = 0;
-            int idSize = 10000;
+            //cursorMark keeps the cost of each page constant;
+            //start+rows gets slower with every page
+            String cursorMark = useCursorMark ? "*" : null;
             try {
                 QueryRequest queryRequest =
-                        buildQueryRequest(idField, start, idSize, filterQueries);
+                        buildQueryRequest(idField, start, PAGE_SIZE, filterQueries, cursorMark);
                 SearchResultSet rs = search(queryRequest);
 
                 while (rs.size() > 0) {
@@ -598,12 +831,20 @@ public class SolrClient extends SearchClient {
                         totalAdded += addSet(set);
                     }
                     LOG.info("ids added: " + totalAdded);
-                    start += idSize;
-                    queryRequest = buildQueryRequest(idField, start, idSize,
-                            filterQueries);
+                    if (useCursorMark) {
+                        String nextCursorMark = rs.getScrollId();
+                        if (nextCursorMark == null || nextCursorMark.equals(cursorMark)) {
+                            break;
+                        }
+                        cursorMark = nextCursorMark;
+                    } else {
+                        start += PAGE_SIZE;
+                    }
+                    queryRequest = buildQueryRequest(idField, start, PAGE_SIZE,
+                            filterQueries, cursorMark);
                     rs = search(queryRequest);
                 }
-                LOG.debug("id grabber is finishing" + start);
+                LOG.debug("id grabber is finishing: " + totalAdded);
             } finally {
                 addPoison();
             }
@@ -612,14 +853,17 @@ public class SolrClient extends SearchClient {
 
         private QueryRequest buildQueryRequest(String idField, int start,
                                                int numResults,
-                                               Collection<Query> filterQueries) {
-            QueryRequest queryRequest = new QueryRequest(new MatchAllDocsQuery());
+                                               Collection<Query> filterQueries,
+                                               String cursorMark) {
+            QueryRequest queryRequest = new QueryRequest(new MatchAllDocsQuery(),
+                    null, idField);
             queryRequest.setNumResults(numResults);
 
             queryRequest.setStart(start);
             queryRequest.addFilterQueries(filterQueries);
             queryRequest.setSort(idField, QueryRequest.SORT_ORDER.ASC);
             queryRequest.addFieldsToRetrieve(idField);
+            queryRequest.setCursorMark(cursorMark);
             return queryRequest;
         }
 
@@ -635,4 +879,89 @@ public class SolrClient extends SearchClient {
             return sz;
         }
     }
+
+    class SolrExportIdGrabber extends IdGrabber {
+
+        private int totalAdded = 0;
+
+        public SolrExportIdGrabber(String idField, ArrayBlockingQueue<Set<String>> ids,
+                                   int batchSize, int copierThreads,
+                                   Collection<Query> filterQueries) {
+            super(idField, ids, batchSize, copierThreads, filterQueries);
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            StringBuilder sb = new StringBuilder();
+            sb.append(url);
+            if (!url.endsWith("/")) {
+                sb.append("/");
+            }
+            sb.append("export?q=").append(encode("*:*"));
+            sb.append("&fl=").append(encode(idField));
+            sb.append("&sort=").append(encode(idField + " asc"));
+            for (Query q : filterQueries) {
+                appendFilterQuery(q, sb);
+            }
+            sb.append(JSON_RESPONSE);
+            try {
+                get(sb.toString(), this::streamIds);
+                LOG.debug("export id grabber is finishing: " + totalAdded);
+            } finally {
+                addPoison();
+            }
+            return -1;
+        }
+
+        private Integer streamIds(Reader r) throws IOException {
+            JsonReader reader = new JsonReader(r);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("docs".equals(reader.nextName())) {
+                            reader.beginArray();
+                            streamDocs(reader);
+                            reader.endArray();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return totalAdded;
+        }
+
+        private void streamDocs(JsonReader reader) throws IOException {
+            Set<String> set = new HashSet<>();
+            try {
+                while (reader.hasNext()) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (idField.equals(reader.nextName())) {
+                            set.add(reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    if (set.size() >= batchSize) {
+                        totalAdded += addSet(ids, set);
+                        set = new HashSet<>();
+                        if (totalAdded % 100000 < batchSize) {
+                            LOG.info("ids added: " + totalAdded);
+                        }
+                    }
+                }
+                totalAdded += addSet(ids, set);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
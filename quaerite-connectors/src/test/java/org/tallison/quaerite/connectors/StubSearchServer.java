@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal http server for tests that answers every request whose path
+ * starts with a registered prefix with a canned json body or with the
+ * body that a {@link Responder} builds for the request.  Requests are
+ * answered one at a time, and each connection is closed after its response.
+ */
+public class StubSearchServer implements Closeable {
+
+    /**
+     * Builds the json response for a request, e.g. for the next page of a
+     * cursor, or returns <code>null</code> for a 404.
+     */
+    public interface Responder {
+        String respond(String path, String body);
+    }
+
+    private final Map<String, Responder> responses = new LinkedHashMap<>();
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+
+    public StubSearchServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::accept, "stub-search-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Longer prefixes should be registered before shorter ones that they start with.
+     */
+    public synchronized void respond(String pathPrefix, String json) {
+        respond(pathPrefix, (path, body) -> json);
+    }
+
+    /**
+     * Longer prefixes should be registered before shorter ones that they start with.
+     */
+    public synchronized void respond(String pathPrefix, Responder responder) {
+        responses.put(pathPrefix, responder);
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                handle(socket);
+            } catch (IOException e) {
+                //closed or the client went away
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String requestLine = reader.readLine();
+        if (requestLine == null) {
+            return;
+        }
+        int contentLength = 0;
+        String line = reader.readLine();
+        while (line != null && !line.isEmpty()) {
+            if (line.toLowerCase(Locale.US).startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+            line = reader.readLine();
+        }
+        //the bodies are ascii json, so chars == bytes
+        StringBuilder requestBody = new StringBuilder();
+        for (int i = 0; i < contentLength; i++) {
+            requestBody.append((char) reader.read());
+        }
+        String path = requestLine.split(" ")[1];
+        String body = null;
+        synchronized (this) {
+            for (Map.Entry<String, Responder> e : responses.entrySet()) {
+                if (path.startsWith(e.getKey())) {
+                    body = e.getValue().respond(path, requestBody.toString());
+                    break;
+                }
+            }
+        }
+        String status = body == null ? "404 Not Found" : "200 OK";
+        byte[] bytes = (body == null ? "{}" : body).getBytes(StandardCharsets.UTF_8);
+        String headers = "HTTP/1.1 " + status + "\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: " + bytes.length + "\r\n" +
+                "Connection: close\r\n\r\n";
+        OutputStream os = socket.getOutputStream();
+        os.write(headers.getBytes(StandardCharsets.US_ASCII));
+        os.write(bytes);
+        os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.StoredDocument;
+
+public class TestBulkIndexer {
+
+    @Test
+    public void testESItemFailures() throws Exception {
+        String json = "{\"took\":30,\"errors\":true,\"items\":[" +
+                "{\"index\":{\"_index\":\"tmdb\",\"_id\":\"1\",\"status\":201}}," +
+                "{\"index\":{\"_index\":\"tmdb\",\"_id\":\"2\",\"status\":429," +
+                "\"error\":{\"type\":\"es_rejected_execution_exception\"}}}," +
+                "{\"index\":{\"_index\":\"tmdb\",\"_id\":\"3\",\"status\":400," +
+                "\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}";
+        ESClient client = new ESClient("http://localhost:9200/tmdb",
+                HttpClients.createDefault());
+        try (BulkIndexer bulkIndexer = client.getBulkIndexer(1)) {
+            List<BulkIndexer.ItemFailure> failures =
+                    bulkIndexer.parseResponse(new StringReader(json), 3);
+            assertEquals(2, failures.size());
+            assertEquals(1, failures.get(0).getIndex());
+            assertTrue(failures.get(0).isRetriable());
+            assertEquals(2, failures.get(1).getIndex());
+            assertFalse(failures.get(1).isRetriable());
+            assertTrue(failures.get(1).getMessage().contains("mapper_parsing_exception"));
+
+            //no errors, skip the items
+            failures = bulkIndexer.parseResponse(new StringReader(
+                    json.replace("\"errors\":true", "\"errors\":false")), 3);
+            assertEquals(0, failures.size());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testSolrSerializeLeavesDocumentAlone() throws Exception {
+        SolrClient client = new SolrClient("http://localhost:8983/solr/tmdb",
+                HttpClients.createDefault());
+        try (BulkIndexer bulkIndexer = new SolrBulkIndexer(client,
+                "http://localhost:8983/solr/tmdb/update", "id", 1)) {
+            StoredDocument document = new StoredDocument("1");
+            document.addNonBlankField("title", "red");
+            String json = new String(bulkIndexer.serialize(document), StandardCharsets.UTF_8);
+            assertEquals("{\"title\":\"red\",\"id\":\"1\"}", json);
+            assertEquals(1, document.getFields().size());
+            assertFalse(document.getFields().containsKey("id"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testAdapt() throws Exception {
+        ESClient client = new ESClient("http://localhost:9200/tmdb",
+                HttpClients.createDefault());
+        try (BulkIndexer bulkIndexer = client.getBulkIndexer(1)) {
+            long initial = bulkIndexer.getBatchBytes();
+            bulkIndexer.adapt(10, false);
+            assertTrue(bulkIndexer.getBatchBytes() > initial);
+            bulkIndexer.adapt(10, true);
+            assertTrue(bulkIndexer.getBatchBytes() < initial);
+            for (int i = 0; i < 100; i++) {
+                bulkIndexer.adapt(BulkIndexer.TARGET_LATENCY_MS * 10, false);
+            }
+            assertEquals(BulkIndexer.MIN_BATCH_BYTES, bulkIndexer.getBatchBytes());
+            for (int i = 0; i < 100; i++) {
+                bulkIndexer.adapt(1, false);
+            }
+            assertEquals(BulkIndexer.MAX_BATCH_BYTES, bulkIndexer.getBatchBytes());
+        } finally {
+            client.close();
+        }
+    }
+}
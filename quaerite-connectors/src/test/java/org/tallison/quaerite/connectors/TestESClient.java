@@ -372,6 +372,25 @@ public class TestESClient {
         assertEquals("312221", resultSet.getId(2));
     }
 
+    @Test
+    public void testSearchBatch() throws Exception {
+        SearchClient searchClient = SearchClientFactory.getClient(TMDB_URL);
+        List<QueryRequest> requests = new ArrayList<>();
+        for (String title : new String[]{"red", "blue", "green"}) {
+            QueryRequest request = new QueryRequest(new TermQuery("title", title));
+            request.addFieldsToRetrieve("_id");
+            requests.add(request);
+        }
+        MultiSearchResult batch = searchClient.searchBatch(requests);
+        assertEquals(3, batch.size());
+        assertEquals(0, batch.getErrorCount());
+        for (int i = 0; i < requests.size(); i++) {
+            SearchResultSet single = searchClient.search(requests.get(i));
+            assertEquals(single.getTotalHits(), batch.getResultSet(i).getTotalHits());
+            assertEquals(single.getIds(), batch.getResultSet(i).getIds());
+        }
+    }
+
     @Disabled
     public void testDeleteAll() throws Exception {
         SearchClient searchClient = SearchClientFactory.getClient(TMDB_URL);
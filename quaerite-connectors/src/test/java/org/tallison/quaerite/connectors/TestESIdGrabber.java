@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Grabs the ids of a stub index with two shards; slice 0 holds a and b,
+ * and slice 1 holds c.
+ */
+public class TestESIdGrabber {
+
+    private StubSearchServer server;
+    private final Set<String> slices = Collections.synchronizedSet(new HashSet<>());
+    private final Set<String> closed = Collections.synchronizedSet(new HashSet<>());
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new StubSearchServer();
+        server.respond("/tmdb/_settings",
+                "{\"tmdb\":{\"settings\":{\"index\":{\"number_of_shards\":\"2\"}}}}");
+        server.respond("/tmdb/_pit", "{\"id\":\"pit\"}");
+        server.respond("/_pit", (path, body) -> {
+            closed.add(JsonParser.parseString(body).getAsJsonObject().get("id").getAsString());
+            return "{}";
+        });
+        //point in time pages with search_after
+        server.respond("/_search/scroll", (path, body) -> {
+            JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+            if (!request.has("scroll")) {
+                closed.add(request.get("scroll_id").getAsString());
+            }
+            return hits(null);
+        });
+        server.respond("/_search", (path, body) -> {
+            JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+            if (request.has("search_after")) {
+                return hits(null);
+            }
+            return hits(null, ids(request));
+        });
+        //sliced scroll
+        server.respond("/tmdb/_search", (path, body) -> {
+            JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+            return hits("scroll-" + slice(request), ids(request));
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testSlicedPointInTime() throws Exception {
+        assertIds("7.17.0");
+        assertEquals(Collections.singleton("pit"), closed);
+    }
+
+    @Test
+    public void testSlicedScroll() throws Exception {
+        assertIds("7.9.3");
+        assertEquals(new HashSet<>(Arrays.asList("scroll-0", "scroll-1")), closed);
+    }
+
+    private void assertIds(String version) throws Exception {
+        ESClient client = new ESClient(server.getUrl() + "/tmdb", HttpClients.createDefault());
+        try {
+            client.setServerVersion(version);
+            ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+            //the number of slices defaults to the number of shards
+            client.getIdGrabber(ids, 100, 2, Collections.emptyList()).call();
+            Set<String> all = new HashSet<>();
+            int poison = 0;
+            while (poison < 2) {
+                Set<String> set = ids.take();
+                if (set.isEmpty()) {
+                    poison++;
+                } else {
+                    all.addAll(set);
+                }
+            }
+            assertTrue(ids.isEmpty());
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), all);
+            assertEquals(new HashSet<>(Arrays.asList("0", "1")), slices);
+        } finally {
+            client.close();
+        }
+    }
+
+    private String[] ids(JsonObject request) {
+        String slice = slice(request);
+        slices.add(slice);
+        return "0".equals(slice) ? new String[]{"a", "b"} : new String[]{"c"};
+    }
+
+    private static String slice(JsonObject request) {
+        return request.getAsJsonObject("slice").get("id").getAsString();
+    }
+
+    private static String hits(String scrollId, String... ids) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"took\":1,");
+        if (scrollId != null) {
+            sb.append("\"_scroll_id\":\"").append(scrollId).append("\",");
+        }
+        sb.append("\"hits\":{\"total\":{\"value\":").append(ids.length)
+                .append(",\"relation\":\"eq\"},\"hits\":[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append("{\"_index\":\"tmdb\",\"_id\":\"").append(ids[i])
+                    .append("\",\"_source\":{},\"sort\":[").append(i).append("]}");
+        }
+        sb.append("]}}");
+        return sb.toString();
+    }
+}
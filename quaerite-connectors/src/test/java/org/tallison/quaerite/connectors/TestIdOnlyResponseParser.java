@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.SearchResultSet;
+
+public class TestIdOnlyResponseParser {
+
+    @Test
+    public void testSolr() throws Exception {
+        String json = "{\"responseHeader\":{\"status\":0,\"QTime\":12," +
+                "\"params\":{\"q\":\"red\",\"fl\":\"id\"}}," +
+                "\"response\":{\"numFound\":1234,\"start\":0,\"docs\":[" +
+                "{\"id\":\"a\",\"title\":[\"red\",\"october\"]}," +
+                "{\"title\":{\"nested\":[1,2]},\"id\":[\"b\",\"c\"]}," +
+                "{\"id\":42}]}," +
+                "\"nextCursorMark\":\"AoE=\"}";
+        SearchResultSet rs = IdOnlyResponseParser.parseSolr(
+                new StringReader(json), "id", System.currentTimeMillis());
+        assertEquals(1234, rs.getTotalHits());
+        assertEquals(12, rs.getQueryTime());
+        assertEquals(3, rs.size());
+        assertEquals("a", rs.getId(0));
+        assertEquals("b", rs.getId(1));
+        assertEquals("42", rs.getId(2));
+        assertEquals("AoE=", rs.getScrollId());
+    }
+
+    @Test
+    public void testES7() throws Exception {
+        String json = "{\"took\":5,\"timed_out\":false,\"_shards\":{\"total\":1}," +
+                "\"hits\":{\"total\":{\"value\":10000,\"relation\":\"gte\"}," +
+                "\"max_score\":1.2,\"hits\":[" +
+                "{\"_index\":\"tmdb\",\"_type\":\"_doc\",\"_id\":\"1366\",\"_score\":1.2," +
+                "\"_source\":{\"title\":\"Rocky\",\"cast\":[{\"name\":\"x\"}]}}," +
+                "{\"_score\":1.1,\"_id\":\"1367\",\"_index\":\"tmdb2\"}]}}";
+        SearchResultSet rs = IdOnlyResponseParser.parseES(
+                new JsonReader(new StringReader(json)), System.currentTimeMillis());
+        assertEquals(10000, rs.getTotalHits());
+        assertEquals(5, rs.getQueryTime());
+        assertEquals(2, rs.size());
+        assertEquals("1366", rs.getId(0));
+        assertEquals("tmdb", rs.get(0).getIndex());
+        assertEquals("1367", rs.getId(1));
+        assertEquals("tmdb2", rs.get(1).getIndex());
+    }
+
+    @Test
+    public void testES6() throws Exception {
+        String json = "{\"took\":3,\"hits\":{\"total\":17,\"hits\":[" +
+                "{\"_index\":\"tmdb\",\"_id\":\"1\"}]}}";
+        SearchResultSet rs = IdOnlyResponseParser.parseES(
+                new JsonReader(new StringReader(json)), System.currentTimeMillis());
+        assertEquals(17, rs.getTotalHits());
+        assertEquals(1, rs.size());
+    }
+
+    @Test
+    public void testMultiSearch() throws Exception {
+        String json = "{\"took\":9,\"responses\":[" +
+                "{\"took\":3,\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"}," +
+                "\"hits\":[{\"_index\":\"tmdb\",\"_id\":\"1\"},{\"_index\":\"tmdb\",\"_id\":\"2\"}]}," +
+                "\"status\":200}," +
+                "{\"error\":{\"type\":\"parsing_exception\",\"reason\":\"bad\"},\"status\":400}" +
+                "]}";
+        MultiSearchResult results = IdOnlyResponseParser.esMulti(2,
+                System.currentTimeMillis()).parse(new StringReader(json));
+        assertEquals(2, results.size());
+        assertFalse(results.hasError(0));
+        assertEquals(2, results.getResultSet(0).size());
+        assertTrue(results.hasError(1));
+        assertTrue(results.getError(1).contains("parsing_exception"));
+        assertEquals(1, results.getErrorCount());
+    }
+}
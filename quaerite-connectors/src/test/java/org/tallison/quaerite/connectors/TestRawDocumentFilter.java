@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.RawDocument;
+
+public class TestRawDocumentFilter {
+
+    @Test
+    public void testRenameAndExclude() throws Exception {
+        Set<String> exclude = new HashSet<>();
+        exclude.add("_version_");
+        RawDocumentFilter filter = new RawDocumentFilter(Collections.EMPTY_SET,
+                exclude, "id", "_id", false);
+        RawDocument doc = filter.filter(new JsonReader(new StringReader(
+                "{\"id\":\"a\",\"title\":[\"red\",\"\"],\"_version_\":123," +
+                        "\"cast\":{\"name\":\"x\",\"order\":1.50},\"empty\":null}")), null);
+        assertEquals("a", doc.getId());
+        assertEquals("{\"title\":[\"red\",\"\"],\"cast\":{\"name\":\"x\",\"order\":1.50}," +
+                "\"empty\":null}", doc.getJson());
+    }
+
+    @Test
+    public void testIncludeAndWriteId() throws Exception {
+        Set<String> include = new HashSet<>();
+        include.add("title");
+        RawDocumentFilter filter = new RawDocumentFilter(include,
+                Collections.EMPTY_SET, "_id", "id", true);
+        RawDocument doc = filter.filter(new JsonReader(new StringReader(
+                "{\"id\":\"stale\",\"title\":\"red \\\"october\\\"\",\"year\":1990}")), "1366");
+        assertEquals("1366", doc.getId());
+        assertEquals("{\"title\":\"red \\\"october\\\"\",\"id\":\"1366\"}", doc.getJson());
+    }
+}
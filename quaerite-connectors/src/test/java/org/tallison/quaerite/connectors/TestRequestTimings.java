@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.SearchTimings;
+import org.tallison.quaerite.core.queries.TermQuery;
+
+/**
+ * Runs id-only searches against a stub server that returns canned responses
+ * and checks that the client phases were timed.
+ */
+public class TestRequestTimings {
+
+    private static final String SOLR_RESPONSE = "{\"responseHeader\":{\"status\":0,\"QTime\":3}," +
+            "\"response\":{\"numFound\":2,\"start\":0,\"docs\":[{\"id\":\"a\"},{\"id\":\"b\"}]}}";
+
+    private static final String ES_RESPONSE = "{\"took\":2,\"hits\":{\"total\":2,\"hits\":[" +
+            "{\"_index\":\"tmdb\",\"_id\":\"a\"},{\"_index\":\"tmdb\",\"_id\":\"b\"}]}}";
+
+    private StubSearchServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new StubSearchServer();
+        server.respond("/solr/tmdb/select", SOLR_RESPONSE);
+        server.respond("/tmdb/_search", ES_RESPONSE);
+        server.respond("/tmdb/_msearch",
+                "{\"responses\":[" + ES_RESPONSE + "," + ES_RESPONSE + "]}");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testSolrIdOnly() throws Exception {
+        SolrClient client = new SolrClient(server.getUrl() + "/solr/tmdb", HttpClients.createDefault());
+        try {
+            SearchResultSet rs = client.search(idOnly("id"));
+            assertEquals(2, rs.size());
+            assertTimed(rs);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testESIdOnly() throws Exception {
+        ESClient client = new ESClient(server.getUrl() + "/tmdb", HttpClients.createDefault());
+        try {
+            SearchResultSet rs = client.search(idOnly("_id"));
+            assertEquals(2, rs.size());
+            assertTimed(rs);
+
+            MultiSearchResult results = client.searchBatch(
+                    Arrays.asList(idOnly("_id"), idOnly("_id")));
+            for (int i = 0; i < 2; i++) {
+                assertEquals(2, results.getResultSet(i).size());
+                assertTimed(results.getResultSet(i));
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testBatchTimingsAreShared() throws Exception {
+        RequestTimer timer = new RequestTimer();
+        timer.built();
+        Thread.sleep(20);
+        timer.responseReceived();
+        timer.parsed();
+        SearchTimings request = timer.getTimings();
+        SearchTimings item = timer.getTimings(4);
+        assertTrue(request.getNetworkMillis() >= 20);
+        assertEquals(request.getNetworkMillis() / 4, item.getNetworkMillis(), 0.0001);
+        assertEquals(request.getParseMillis() / 4, item.getParseMillis(), 0.0001);
+        assertEquals(SearchTimings.UNKNOWN, item.getReadMillis(), 0.0001);
+    }
+
+    private static QueryRequest idOnly(String idField) {
+        QueryRequest request = new QueryRequest(new TermQuery("title", "red"), null, idField);
+        request.addFieldsToRetrieve(idField);
+        return request;
+    }
+
+    private static void assertTimed(SearchResultSet rs) {
+        SearchTimings timings = rs.getTimings();
+        assertNotNull(timings);
+        assertTrue(timings.getBuildMillis() >= 0);
+        assertTrue(timings.getNetworkMillis() >= 0);
+        assertTrue(timings.getParseMillis() >= 0);
+    }
+}
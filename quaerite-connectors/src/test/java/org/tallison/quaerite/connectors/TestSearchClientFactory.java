@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.TermQuery;
+
+public class TestSearchClientFactory {
+
+    private StubSearchServer server;
+    private final AtomicInteger probes = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new StubSearchServer();
+        server.respond("/solr/admin/info/system", (path, body) -> {
+            probes.incrementAndGet();
+            return "{\"lucene\":{\"solr-spec-version\":\"8.8.2\"}}";
+        });
+        server.respond("/solr/", "{\"responseHeader\":{\"status\":0,\"QTime\":1}," +
+                "\"response\":{\"numFound\":1,\"start\":0,\"docs\":[{\"id\":\"a\"}]}}");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        SearchClientFactory.closeAll();
+        server.close();
+    }
+
+    @Test
+    public void testReusesClientPerConnection() throws Exception {
+        ServerConnection tmdb = new ServerConnection(server.getUrl() + "/solr/tmdb");
+        SearchClient client = SearchClientFactory.getClient(tmdb);
+        assertSame(client, SearchClientFactory.getClient(
+                new ServerConnection(server.getUrl() + "/solr/tmdb")));
+        assertEquals(1, probes.get());
+
+        //another collection on the same host gets its own client
+        SearchClient other = SearchClientFactory.getClient(
+                new ServerConnection(server.getUrl() + "/solr/other"));
+        assertNotSame(client, other);
+        assertEquals(2, probes.get());
+
+        //closing a shared client leaves it open for the other users
+        client.close();
+        assertEquals(1, client.search(request()).size());
+    }
+
+    @Test
+    public void testPoolKeys() throws Exception {
+        String url = server.getUrl();
+        //one pool per host and credentials
+        assertEquals(SearchClientFactory.getPoolKey(new ServerConnection(url + "/solr/a")),
+                SearchClientFactory.getPoolKey(new ServerConnection(url + "/solr/b")));
+        String key = SearchClientFactory.getPoolKey(
+                new ServerConnection(url + "/solr/a", "user", "secret"));
+        assertFalse(key.contains("secret"), key);
+        assertNotEquals(key, SearchClientFactory.getPoolKey(
+                new ServerConnection(url + "/solr/a", "user", "other")));
+        assertNotEquals(SearchClientFactory.getPoolKey(
+                        new ServerConnection(url + "/solr/a", "a:b", "c")),
+                SearchClientFactory.getPoolKey(
+                        new ServerConnection(url + "/solr/a", "a", "b:c")));
+    }
+
+    @Test
+    public void testCloseAll() throws Exception {
+        ServerConnection tmdb = new ServerConnection(server.getUrl() + "/solr/tmdb");
+        SearchClient client = SearchClientFactory.getClient(tmdb);
+        SearchClientFactory.closeAll();
+        //the pool is closed
+        assertThrows(Exception.class, () -> client.search(request()));
+
+        //and the next request for the connection gets a new client
+        SearchClient reopened = SearchClientFactory.getClient(tmdb);
+        assertNotSame(client, reopened);
+        assertEquals(2, probes.get());
+        assertEquals(1, reopened.search(request()).size());
+    }
+
+    private static QueryRequest request() {
+        QueryRequest request = new QueryRequest(new TermQuery("title", "red"), null, "id");
+        request.addFieldsToRetrieve("id");
+        return request;
+    }
+}
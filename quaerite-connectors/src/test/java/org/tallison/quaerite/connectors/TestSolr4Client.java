@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+
+public class TestSolr4Client {
+
+    @Test
+    public void testCursorMarkVersions() throws Exception {
+        assertFalse(getClient("4.6.1").supportsCursorMark());
+        assertTrue(getClient("4.7.0").supportsCursorMark());
+        assertTrue(getClient("4.10.4").supportsCursorMark());
+        assertTrue(getClient("5.0.0").supportsCursorMark());
+        assertTrue(getClient("6.6.6").supportsCursorMark());
+    }
+
+    private static SolrClient getClient(String version) throws Exception {
+        try (StubSearchServer server = new StubSearchServer()) {
+            server.respond("/solr/admin/info/system",
+                    "{\"lucene\": {\"solr-spec-version\": \"" + version + "\"}}");
+            SearchClient client = SearchClientFactory.getClient(
+                    server.getUrl() + "/solr/tmdb", HttpClients.createDefault());
+            assertEquals(Solr4Client.class, client.getClass());
+            return (SolrClient) client;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pages through a stub Solr collection with ids a, b and c, two per page.
+ */
+public class TestSolrIdGrabber {
+
+    private static final Pattern CURSOR_MARK = Pattern.compile("[?&]cursorMark=([^&]*)");
+    private static final Pattern START = Pattern.compile("[?&]start=(\\d+)");
+
+    private StubSearchServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new StubSearchServer();
+        server.respond("/solr/tmdb/schema/uniquekey", "{\"uniqueKey\":\"id\"}");
+        server.respond("/solr/tmdb/select", (path, body) -> {
+            requests.add(path);
+            Matcher m = CURSOR_MARK.matcher(path);
+            if (m.find()) {
+                String cursorMark = decode(m.group(1));
+                if ("*".equals(cursorMark)) {
+                    return page("c1", "a", "b");
+                } else if ("c1".equals(cursorMark)) {
+                    return page("c2", "c");
+                }
+                //solr returns the same cursorMark once there are no more results
+                return page(cursorMark);
+            }
+            m = START.matcher(path);
+            int start = m.find() ? Integer.parseInt(m.group(1)) : 0;
+            if (start == 0) {
+                return page(null, "a", "b");
+            } else if (start == 10000) {
+                return page(null, "c");
+            }
+            return page(null);
+        });
+        server.respond("/solr/tmdb/export", (path, body) -> {
+            requests.add(path);
+            return page(null, "a", "b", "c");
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testCursorMark() throws Exception {
+        SolrClient client = new SolrClient(server.getUrl() + "/solr/tmdb",
+                HttpClients.createDefault());
+        try {
+            ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+            client.getIdGrabber(ids, 100, 2, Collections.emptyList()).call();
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), drain(ids, 2));
+            assertEquals(3, requests.size());
+            for (String request : requests) {
+                assertTrue(request.contains("cursorMark="), request);
+                //no deep paging
+                assertFalse(request.contains("start=10000"), request);
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testStartBeforeSolr47() throws Exception {
+        SolrClient client = new Solr4Client(server.getUrl() + "/solr/tmdb",
+                HttpClients.createDefault(), 4, 6);
+        try {
+            ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+            client.getIdGrabber(ids, 100, 1, Collections.emptyList()).call();
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), drain(ids, 1));
+            assertEquals(3, requests.size());
+            for (String request : requests) {
+                assertFalse(request.contains("cursorMark="), request);
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        SolrClient client = new SolrClient(server.getUrl() + "/solr/tmdb",
+                HttpClients.createDefault());
+        try {
+            ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+            client.getExportIdGrabber(ids, 2, 1, Collections.emptyList()).call();
+            //batches of 2
+            assertEquals(new HashSet<>(Arrays.asList("a", "b")), ids.take());
+            assertEquals(Collections.singleton("c"), ids.take());
+            assertTrue(ids.take().isEmpty());
+            assertEquals(1, requests.size());
+            assertTrue(requests.get(0).contains("sort=id"), requests.get(0));
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * @return the ids on the queue before the <code>copierThreads</code> poison sets
+     */
+    private static Set<String> drain(ArrayBlockingQueue<Set<String>> ids, int copierThreads)
+            throws InterruptedException {
+        Set<String> all = new HashSet<>();
+        int poison = 0;
+        while (poison < copierThreads) {
+            Set<String> set = ids.take();
+            if (set.isEmpty()) {
+                poison++;
+            } else {
+                all.addAll(set);
+            }
+        }
+        assertTrue(ids.isEmpty());
+        return all;
+    }
+
+    private static String page(String nextCursorMark, String... ids) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"responseHeader\":{\"status\":0,\"QTime\":1},");
+        sb.append("\"response\":{\"numFound\":3,\"start\":0,\"docs\":[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append("{\"id\":\"").append(ids[i]).append("\"}");
+        }
+        sb.append("]}");
+        if (nextCursorMark != null) {
+            sb.append(",\"nextCursorMark\":\"").append(nextCursorMark).append("\"");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -17,15 +17,29 @@
 package org.tallison.quaerite.core;
 
 import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 import org.tallison.quaerite.core.features.CustomHandler;
 import org.tallison.quaerite.core.queries.Query;
 import org.tallison.quaerite.core.serializers.QuerySerializer;
+import org.tallison.quaerite.core.util.JsonUtil;
+import org.tallison.quaerite.core.util.StringUtil;
 
 
 public class Experiment {
@@ -33,6 +47,18 @@ public class Experiment {
     private static Gson GSON = new GsonBuilder().setPrettyPrinting()
             .registerTypeAdapter(Query.class, new QuerySerializer())
             .create();
+
+    //keys whose values are lists of "field^weight"
+    private static final Set<String> WEIGHTED_FIELD_KEYS = new HashSet<>(
+            Arrays.asList("qf", "pf", "pf2", "pf3"));
+    //lists whose order doesn't change the results: fields, additive boosts,
+    //filter queries, boolean clauses and the terms of a terms query
+    private static final Set<String> UNORDERED_KEYS = new HashSet<>(
+            Arrays.asList("qf", "pf", "pf2", "pf3", "bq", "bf", "filterQueries",
+                    "should", "must", "must_not", "filter", "terms"));
+    private static final Pattern WEIGHTED_FIELD =
+            Pattern.compile("(.*?)\\^((?:\\d+)(?:\\.\\d+)?)");
+
     private String name;
     private ServerConnection serverConnection;
     private CustomHandler customHandler;
@@ -105,6 +131,84 @@ public class Experiment {
     }
 
 
+    /**
+     * Two experiments with the same fingerprint send the same requests to
+     * the same server and so will have the same scores.  The name is ignored,
+     * object keys and the lists whose order doesn't matter (fields, filter
+     * queries, boolean clauses, etc.) are sorted, and the weights of qf and pf
+     * fields are rounded to <code>decimalPlaces</code>.  Other numbers, e.g.
+     * tie, are kept as they are.
+     *
+     * @param decimalPlaces number of decimal places to round field weights to
+     * @return hex SHA-256 of the normalized experiment
+     */
+    public String getFingerprint(int decimalPlaces) {
+        JsonObject genome = GSON.toJsonTree(this).getAsJsonObject();
+        genome.remove("name");
+        return StringUtil.sha256Hex(
+                normalize(JsonUtil.sortKeys(genome), "", decimalPlaces).toString());
+    }
+
+    /**
+     * @param key the key of the element or, for elements of a list, of the list
+     */
+    private static JsonElement normalize(JsonElement element, String key, int decimalPlaces) {
+        if (element.isJsonObject()) {
+            JsonObject normalized = new JsonObject();
+            for (String childKey : element.getAsJsonObject().keySet()) {
+                normalized.add(childKey, normalize(element.getAsJsonObject().get(childKey),
+                        childKey, decimalPlaces));
+            }
+            return normalized;
+        } else if (element.isJsonArray()) {
+            List<JsonElement> children = new ArrayList<>();
+            for (JsonElement child : element.getAsJsonArray()) {
+                children.add(normalize(child, key, decimalPlaces));
+            }
+            if (UNORDERED_KEYS.contains(key)) {
+                children.sort(Comparator.comparing(JsonElement::toString));
+            }
+            JsonArray normalized = new JsonArray();
+            for (JsonElement child : children) {
+                normalized.add(child);
+            }
+            return normalized;
+        } else if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isNumber()) {
+                //so that 1 and 1.0 are the same
+                return new JsonPrimitive(stripZeros(primitive.getAsBigDecimal()));
+            } else if (WEIGHTED_FIELD_KEYS.contains(key) && primitive.isString()) {
+                return new JsonPrimitive(normalizeWeightedField(primitive.getAsString(),
+                        decimalPlaces));
+            }
+        }
+        return element;
+    }
+
+    private static String normalizeWeightedField(String s, int decimalPlaces) {
+        Matcher m = WEIGHTED_FIELD.matcher(s);
+        if (! m.matches()) {
+            return s;
+        }
+        BigDecimal weight = round(new BigDecimal(m.group(2)), decimalPlaces);
+        if (weight.compareTo(BigDecimal.ONE) == 0) {
+            return m.group(1);
+        }
+        return m.group(1) + "^" + weight.toPlainString();
+    }
+
+    private static BigDecimal round(BigDecimal d, int decimalPlaces) {
+        return stripZeros(d.setScale(decimalPlaces, RoundingMode.HALF_UP));
+    }
+
+    private static BigDecimal stripZeros(BigDecimal d) {
+        if (d.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return d.stripTrailingZeros();
+    }
+
     @Override
     public String toString() {
         return "Experiment{" +
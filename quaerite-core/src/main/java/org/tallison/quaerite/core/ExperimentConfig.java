@@ -22,10 +22,28 @@ import org.apache.commons.lang3.StringUtils;
 public class ExperimentConfig {
 
     public static final int DEFAULT_NUM_THREADS = 6;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 64;
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 30;
+    public static final int DEFAULT_SEARCH_CACHE_MAX_ENTRIES = 1000000;
 
     private int numThreads = DEFAULT_NUM_THREADS;
     private String idField = StringUtils.EMPTY;
     private long sleep = -1;
+    //size of the shared connection pool per search server host
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    //how long to keep idle connections alive if the server doesn't say
+    private int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+    //if > 0, queries are sent with the non-blocking client, and
+    //this is the maximum number of requests in flight per experiment
+    private int maxInFlight = -1;
+    //number of queries to pack into a single request
+    //for clients that support it (e.g. _msearch)
+    private int searchBatchSize = 1;
+    //if not blank, search results are cached on disk in this directory
+    //and reused across experiments and runs
+    private String searchCacheDir = StringUtils.EMPTY;
+    //least recently used results are evicted beyond this many entries
+    private int searchCacheMaxEntries = DEFAULT_SEARCH_CACHE_MAX_ENTRIES;
 
     public int getNumThreads() {
         return numThreads;
@@ -45,7 +63,46 @@ public class ExperimentConfig {
     public void setSleep(long sleep) {
         this.sleep = sleep;
     }
-    
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public int getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getSearchBatchSize() {
+        return searchBatchSize;
+    }
+
+    public void setSearchBatchSize(int searchBatchSize) {
+        this.searchBatchSize = searchBatchSize;
+    }
+
+    public String getSearchCacheDir() {
+        return searchCacheDir;
+    }
+
+    public void setSearchCacheDir(String searchCacheDir) {
+        this.searchCacheDir = searchCacheDir;
+    }
+
+    public int getSearchCacheMaxEntries() {
+        return searchCacheMaxEntries;
+    }
+
+    public void setSearchCacheMaxEntries(int searchCacheMaxEntries) {
+        this.searchCacheMaxEntries = searchCacheMaxEntries;
+    }
 
 
     @Override
@@ -57,6 +114,13 @@ public class ExperimentConfig {
 
         if (numThreads != that.numThreads) return false;
         if (sleep != that.sleep) return false;
+        if (maxConnectionsPerHost != that.maxConnectionsPerHost) return false;
+        if (keepAliveSeconds != that.keepAliveSeconds) return false;
+        if (maxInFlight != that.maxInFlight) return false;
+        if (searchBatchSize != that.searchBatchSize) return false;
+        if (searchCacheMaxEntries != that.searchCacheMaxEntries) return false;
+        if (searchCacheDir != null ? !searchCacheDir.equals(that.searchCacheDir) :
+                that.searchCacheDir != null) return false;
         return idField != null ? idField.equals(that.idField) : that.idField == null;
     }
 
@@ -65,6 +129,12 @@ public class ExperimentConfig {
         int result = numThreads;
         result = 31 * result + (idField != null ? idField.hashCode() : 0);
         result = 31 * result + (int) (sleep ^ (sleep >>> 32));
+        result = 31 * result + maxConnectionsPerHost;
+        result = 31 * result + keepAliveSeconds;
+        result = 31 * result + maxInFlight;
+        result = 31 * result + searchBatchSize;
+        result = 31 * result + (searchCacheDir != null ? searchCacheDir.hashCode() : 0);
+        result = 31 * result + searchCacheMaxEntries;
         return result;
     }
 }
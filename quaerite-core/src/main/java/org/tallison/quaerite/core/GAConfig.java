@@ -16,6 +16,10 @@
  */
 package org.tallison.quaerite.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class GAConfig extends ExperimentConfig {
 
     public static final int DEFAULT_POPULATION = 20;
@@ -25,6 +29,20 @@ public class GAConfig extends ExperimentConfig {
     public static final float DEFAULT_MUTATION_AMPLITUDE = 0.2f;
     public static final float DEFAULT_CROSSOVER_PROBABILITY = 0.8f;
     public static final float DEFAULT_REPRODUCTION_PROBABILITY = 0.1f;
+    //WeightableField weights are written with one decimal place
+    public static final int DEFAULT_FINGERPRINT_PRECISION = 1;
+    public static final int DEFAULT_MAX_DUPLICATE_RESAMPLES = 0;
+    public static final int DEFAULT_RACING_BLOCKS = 10;
+    public static final float DEFAULT_RACING_MIN_FRACTION = 0.2f;
+    public static final float DEFAULT_RACING_ALPHA = 0.05f;
+    public static final long DEFAULT_RACING_SEED = 20200126L;
+    public static final int DEFAULT_HYPERBAND_ETA = 3;
+    public static final int DEFAULT_HYPERBAND_MIN_QUERIES = 10;
+    public static final int DEFAULT_HYPERBAND_CONCURRENCY = 4;
+    public static final long DEFAULT_HYPERBAND_SEED = 20200126L;
+    public static final int DEFAULT_MIGRATION_INTERVAL = 5;
+    public static final int DEFAULT_MIGRANTS = 2;
+    public static final int DEFAULT_ISLAND_WAIT_MINUTES = 120;
 
     int population = DEFAULT_POPULATION;
     int generations = DEFAULT_GENERATIONS;
@@ -33,6 +51,46 @@ public class GAConfig extends ExperimentConfig {
     float mutationAmplitude = DEFAULT_MUTATION_AMPLITUDE;
     float crossoverProbability = DEFAULT_CROSSOVER_PROBABILITY;
     float reproductionProbability = DEFAULT_REPRODUCTION_PROBABILITY;
+    //number of decimal places that weights are rounded to when
+    //deciding whether two experiments are duplicates
+    int fingerprintPrecision = DEFAULT_FINGERPRINT_PRECISION;
+    //maximum number of times to regenerate a mutated or crossed over
+    //experiment that duplicates one that has already been scored;
+    //duplicates that are kept reuse the earlier scores
+    int maxDuplicateResamples = DEFAULT_MAX_DUPLICATE_RESAMPLES;
+    //stop evaluating a generation's experiment on the training queries
+    //as soon as it clearly can't beat the previous generation's median
+    boolean racing = false;
+    //number of blocks of queries to evaluate between checks
+    int racingBlocks = DEFAULT_RACING_BLOCKS;
+    //fraction of the queries to evaluate before an experiment can be abandoned
+    float racingMinFraction = DEFAULT_RACING_MIN_FRACTION;
+    //one-sided significance level across all of the checks for one experiment
+    float racingAlpha = DEFAULT_RACING_ALPHA;
+    //seed for the order in which queries are evaluated
+    long racingSeed = DEFAULT_RACING_SEED;
+    //RunHyperband: keep the best 1/eta of the experiments at each rung
+    int hyperbandEta = DEFAULT_HYPERBAND_ETA;
+    //RunHyperband: number of training queries at the smallest rung
+    int hyperbandMinQueries = DEFAULT_HYPERBAND_MIN_QUERIES;
+    //RunHyperband: number of experiments to run at the same time
+    int hyperbandConcurrency = DEFAULT_HYPERBAND_CONCURRENCY;
+    //RunHyperband: seed for the query subsets
+    long hyperbandSeed = DEFAULT_HYPERBAND_SEED;
+    //number of sub-populations that evolve at the same time; 1 turns off the island model
+    int islands = 1;
+    //every this many generations, the best experiments of each island
+    //migrate to the next island
+    int migrationInterval = DEFAULT_MIGRATION_INTERVAL;
+    //number of experiments that migrate
+    int migrants = DEFAULT_MIGRANTS;
+    //how long an island waits for another island's generation before giving up
+    int islandWaitMinutes = DEFAULT_ISLAND_WAIT_MINUTES;
+    //optional settings for the genetic operators, by island
+    List<IslandConfig> islandConfigs = new ArrayList<>();
+    //if specified, parents are selected by Pareto rank and crowding distance
+    //over these objectives (NSGA-II) instead of in proportion to the train scorer
+    List<Objective> objectives = new ArrayList<>();
 
     public int getPopulation() {
         return population;
@@ -66,6 +124,100 @@ public class GAConfig extends ExperimentConfig {
         return reproductionProbability;
     }
 
+    public int getFingerprintPrecision() {
+        return fingerprintPrecision;
+    }
+
+    public int getMaxDuplicateResamples() {
+        return maxDuplicateResamples;
+    }
+
+    public boolean getRacing() {
+        return racing;
+    }
+
+    public int getRacingBlocks() {
+        return racingBlocks;
+    }
+
+    public float getRacingMinFraction() {
+        return racingMinFraction;
+    }
+
+    public float getRacingAlpha() {
+        return racingAlpha;
+    }
+
+    public long getRacingSeed() {
+        return racingSeed;
+    }
+
+    public int getHyperbandEta() {
+        return hyperbandEta;
+    }
+
+    public int getHyperbandMinQueries() {
+        return hyperbandMinQueries;
+    }
+
+    public int getHyperbandConcurrency() {
+        return hyperbandConcurrency;
+    }
+
+    public long getHyperbandSeed() {
+        return hyperbandSeed;
+    }
+
+    public int getIslands() {
+        return islands;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    public int getMigrants() {
+        return migrants;
+    }
+
+    public int getIslandWaitMinutes() {
+        return islandWaitMinutes;
+    }
+
+    public List<IslandConfig> getIslandConfigs() {
+        return islandConfigs;
+    }
+
+    public List<Objective> getObjectives() {
+        return (objectives == null) ? Collections.emptyList() : objectives;
+    }
+
+    /**
+     * Overwrites the genetic operator settings with those that are set in
+     * the island's {@link IslandConfig}, if there is one.  Call this on
+     * the island's own copy of the config.
+     *
+     * @param island island number
+     */
+    public void applyIslandConfig(int island) {
+        if (islandConfigs == null || island >= islandConfigs.size()) {
+            return;
+        }
+        IslandConfig islandConfig = islandConfigs.get(island);
+        if (islandConfig.mutationProbability != null) {
+            mutationProbability = islandConfig.mutationProbability;
+        }
+        if (islandConfig.mutationAmplitude != null) {
+            mutationAmplitude = islandConfig.mutationAmplitude;
+        }
+        if (islandConfig.crossoverProbability != null) {
+            crossoverProbability = islandConfig.crossoverProbability;
+        }
+        if (islandConfig.reproductionProbability != null) {
+            reproductionProbability = islandConfig.reproductionProbability;
+        }
+    }
+
     @Override
     public String toString() {
         return "GAConfig{" +
@@ -76,6 +228,23 @@ public class GAConfig extends ExperimentConfig {
                 ", mutationAmplitude=" + mutationAmplitude +
                 ", crossoverProbability=" + crossoverProbability +
                 ", reproductionProbability=" + reproductionProbability +
+                ", fingerprintPrecision=" + fingerprintPrecision +
+                ", maxDuplicateResamples=" + maxDuplicateResamples +
+                ", racing=" + racing +
+                ", racingBlocks=" + racingBlocks +
+                ", racingMinFraction=" + racingMinFraction +
+                ", racingAlpha=" + racingAlpha +
+                ", racingSeed=" + racingSeed +
+                ", hyperbandEta=" + hyperbandEta +
+                ", hyperbandMinQueries=" + hyperbandMinQueries +
+                ", hyperbandConcurrency=" + hyperbandConcurrency +
+                ", hyperbandSeed=" + hyperbandSeed +
+                ", islands=" + islands +
+                ", migrationInterval=" + migrationInterval +
+                ", migrants=" + migrants +
+                ", islandWaitMinutes=" + islandWaitMinutes +
+                ", islandConfigs=" + islandConfigs +
+                ", objectives=" + objectives +
                 '}';
     }
 }
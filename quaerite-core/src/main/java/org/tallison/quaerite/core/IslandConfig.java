@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core;
+
+/**
+ * Genetic operator settings for one island in the island model.  Settings
+ * that aren't specified fall back to those in the {@link GAConfig}.
+ */
+public class IslandConfig {
+
+    Float mutationProbability;
+    Float mutationAmplitude;
+    Float crossoverProbability;
+    Float reproductionProbability;
+
+    public IslandConfig() {
+
+    }
+
+    public IslandConfig(Float mutationProbability, Float mutationAmplitude,
+                        Float crossoverProbability, Float reproductionProbability) {
+        this.mutationProbability = mutationProbability;
+        this.mutationAmplitude = mutationAmplitude;
+        this.crossoverProbability = crossoverProbability;
+        this.reproductionProbability = reproductionProbability;
+    }
+
+    @Override
+    public String toString() {
+        return "IslandConfig{" +
+                "mutationProbability=" + mutationProbability +
+                ", mutationAmplitude=" + mutationAmplitude +
+                ", crossoverProbability=" + crossoverProbability +
+                ", reproductionProbability=" + reproductionProbability +
+                '}';
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Immutable index of the judgments for a single query.
+ * <p>
+ * Document ids are mapped to int ordinals in descending order of
+ * their grades, so that ordinal 0 is the most relevant document.
+ * Lookups are lock free and do not allocate.
+ * <p>
+ * This is thread safe.
+ */
+public class JudgmentIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private final String[] ids;
+    private final double[] grades;
+    //open addressing hash table of id -> ordinal
+    private final String[] keys;
+    private final int[] ordinals;
+    private final int mask;
+    private volatile Map<String, Double> sorted;
+    //DCG (2002) of the ideal ranking over the top k is at index k
+    private volatile double[] idealDCG;
+
+    JudgmentIndex(Map<String, Double> judgments) {
+        String[] tmpIds = judgments.keySet().toArray(new String[0]);
+        //sort by grade descending, break ties by id so that the order is stable
+        Arrays.sort(tmpIds, Comparator.comparingDouble((String id) -> judgments.get(id))
+                .reversed().thenComparing(Comparator.naturalOrder()));
+        ids = tmpIds;
+        grades = new double[ids.length];
+        int capacity = Integer.highestOneBit(Math.max(2, ids.length * 2 - 1)) << 1;
+        keys = new String[capacity];
+        ordinals = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < ids.length; i++) {
+            grades[i] = judgments.get(ids[i]);
+            int slot = slot(ids[i]);
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = ids[i];
+            ordinals[slot] = i;
+        }
+    }
+
+    /**
+     * @param id document id
+     * @return the ordinal of the document or {@link #NOT_FOUND}
+     */
+    public int getOrdinal(String id) {
+        int slot = slot(id);
+        String key = keys[slot];
+        while (key != null) {
+            if (key.equals(id)) {
+                return ordinals[slot];
+            }
+            slot = (slot + 1) & mask;
+            key = keys[slot];
+        }
+        return NOT_FOUND;
+    }
+
+    public boolean contains(String id) {
+        return getOrdinal(id) != NOT_FOUND;
+    }
+
+    /**
+     * @param id document id
+     * @return the grade or {@link Judgments#NO_JUDGMENT} if the document
+     * was not judged
+     */
+    public double getJudgment(String id) {
+        int ordinal = getOrdinal(id);
+        return ordinal == NOT_FOUND ? Judgments.NO_JUDGMENT : grades[ordinal];
+    }
+
+    /**
+     * @param ordinal ordinal, i.e. rank in descending order of grade
+     * @return the document id
+     */
+    public String getId(int ordinal) {
+        return ids[ordinal];
+    }
+
+    /**
+     * @param ordinal ordinal, i.e. rank in descending order of grade
+     * @return the grade
+     */
+    public double getGrade(int ordinal) {
+        return grades[ordinal];
+    }
+
+    /**
+     * @return the highest grade or {@link Judgments#NO_JUDGMENT} if
+     * there are no judgments
+     */
+    public double getMaxGrade() {
+        return ids.length == 0 ? Judgments.NO_JUDGMENT : grades[0];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param atN cutoff
+     * @return DCG (2002) of the ideal ranking of the top <code>atN</code>
+     * judged documents; this is calculated once for all cutoffs
+     */
+    public double getIdealDCG(int atN) {
+        double[] dcg = idealDCG;
+        if (dcg == null) {
+            dcg = new double[ids.length + 1];
+            for (int i = 0; i < ids.length; i++) {
+                dcg[i + 1] = dcg[i] + grades[i] / FastMath.log(2, i + 2);
+            }
+            idealDCG = dcg;
+        }
+        return dcg[Math.max(0, Math.min(atN, ids.length))];
+    }
+
+    /**
+     * @return unmodifiable map of id -> grade in descending order of grade
+     */
+    Map<String, Double> getSortedJudgments() {
+        Map<String, Double> map = sorted;
+        if (map == null) {
+            LinkedHashMap<String, Double> tmp = new LinkedHashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                tmp.put(ids[i], grades[i]);
+            }
+            map = Collections.unmodifiableMap(tmp);
+            sorted = map;
+        }
+        return map;
+    }
+
+    private int slot(String id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -16,12 +16,7 @@
  */
 package org.tallison.quaerite.core;
 
-import static java.util.stream.Collectors.toMap;
-
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.google.gson.Gson;
@@ -29,6 +24,11 @@ import com.google.gson.Gson;
 /**
  * This class captures the judgments about a single specific query
  * The id is the document id in Solr/Elastic
+ * <p>
+ * Lookups go through a {@link JudgmentIndex} that is built on first use
+ * and rebuilt only if judgments are added afterwards.  Call {@link #freeze()}
+ * once all judgments have been added, e.g. after validation, to build the
+ * index up front and make these judgments immutable.
  */
 public class Judgments {
     private static Gson GSON = new Gson();
@@ -36,10 +36,8 @@ public class Judgments {
     public static final double NO_JUDGMENT = -1.0;
     private final QueryInfo queryInfo;
     private final Map<String, Double> judgments = new HashMap<>();
-    private Map<String, Double> sorted;
-    private volatile boolean updated = true;
-
-    private final Object[] lock = new Object[0];
+    private transient volatile JudgmentIndex index;
+    private transient volatile boolean frozen = false;
 
     /**
      *
@@ -48,35 +46,60 @@ public class Judgments {
         this.queryInfo = queryInfo;
     }
 
-    public void addJudgment(String documentId, double relevance) {
+    public synchronized void addJudgment(String documentId, double relevance) {
+        if (frozen) {
+            throw new IllegalStateException("Can't add judgments after freeze()");
+        }
         judgments.put(documentId, relevance);
-        synchronized (lock) {
-            updated = true;
+        index = null;
+    }
+
+    /**
+     * Builds the index, after which no more judgments may be added.
+     *
+     * @return this
+     */
+    public Judgments freeze() {
+        getIndex();
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return the index of these judgments
+     */
+    public JudgmentIndex getIndex() {
+        JudgmentIndex tmp = index;
+        if (tmp == null) {
+            synchronized (this) {
+                tmp = index;
+                if (tmp == null) {
+                    tmp = new JudgmentIndex(judgments);
+                    index = tmp;
+                }
+            }
         }
+        return tmp;
     }
 
     public double getJudgment(String documentId) {
-        return judgments.containsKey(documentId) ?
-                judgments.get(documentId) : NO_JUDGMENT;
+        return getIndex().getJudgment(documentId);
     }
 
     public boolean containsJudgment(String id) {
-        return judgments.containsKey(id);
+        return getIndex().contains(id);
     }
 
+    /**
+     * @return unmodifiable map of document id -> judgment in descending
+     * order of judgment
+     */
     public Map<String, Double> getSortedJudgments() {
-        synchronized (lock) {
-            if (sorted == null || updated == true) {
-                sorted = judgments.entrySet()
-                        .stream()
-                        .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                        .collect(
-                                toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2,
-                                        LinkedHashMap::new));
-            }
-            updated = false;
-        }
-        return sorted;
+        return getIndex().getSortedJudgments();
     }
 
     public int size() {
@@ -112,9 +135,7 @@ public class Judgments {
         return "Judgments{" +
                 "queryInfo=" + queryInfo +
                 ", judgments=" + judgments +
-                ", sorted=" + sorted +
-                ", updated=" + updated +
-                ", lock=" + Arrays.toString(lock) +
+                ", frozen=" + frozen +
                 '}';
     }
 }
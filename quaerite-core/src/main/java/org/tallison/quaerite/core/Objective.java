@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core;
+
+/**
+ * One of the objectives that RunGA optimizes at the same time in its
+ * multi-objective (NSGA-II) mode, e.g. relevance and latency.
+ */
+public class Objective {
+
+    //column of the aggregated scores, e.g. ndcg_10_mean or LatencyPercentiles_client_p95
+    String statistic;
+    //false for statistics where lower is better, such as latencies
+    boolean maximize = true;
+
+    public Objective() {
+
+    }
+
+    public Objective(String statistic, boolean maximize) {
+        this.statistic = statistic;
+        this.maximize = maximize;
+    }
+
+    public String getStatistic() {
+        return statistic;
+    }
+
+    public boolean getMaximize() {
+        return maximize;
+    }
+
+    @Override
+    public String toString() {
+        return "Objective{" +
+                "statistic='" + statistic + '\'' +
+                ", maximize=" + maximize +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core;
+
+/**
+ * A document whose fields are kept as the serialized json object
+ * that was read from the source index.  Unlike {@link StoredDocument},
+ * values are not decoded, so nested objects, numbers and blank values
+ * pass through unchanged.
+ */
+public class RawDocument {
+
+    private final String id;
+    private final String json;
+
+    public RawDocument(String id, String json) {
+        this.id = id;
+        this.json = json;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the document's fields as a single-line json object
+     */
+    public String getJson() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return "RawDocument{" +
+                "id='" + id + '\'' +
+                ", json=" + json +
+                '}';
+    }
+}
@@ -28,6 +28,11 @@ public class SearchResultSet {
     private final List<String> ids = new ArrayList<>();
     //only used in scrolling
     private String scrollId;
+    //null if the client didn't measure the phases of the request
+    private SearchTimings timings;
+    //true if these came from a search result cache, in which case the
+    //times are those of the request that was cached, not of this one
+    private boolean cached = false;
 
     public SearchResultSet(long totalHits, long queryTime, long elapsedTime,
                            List<StoredDocument> docs) {
@@ -85,4 +90,28 @@ public class SearchResultSet {
     public String getScrollId() {
         return scrollId;
     }
+
+    public void setTimings(SearchTimings timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * @return the breakdown of the client side time or <code>null</code>
+     * if it wasn't measured
+     */
+    public SearchTimings getTimings() {
+        return timings;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    /**
+     * @return whether these results came from a cache rather than from the
+     * search server; if so, latency scorers skip them
+     */
+    public boolean isCached() {
+        return cached;
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core;
+
+/**
+ * Breakdown of the client side time of a search in milliseconds:
+ * building the request, waiting for the response headers (network and
+ * server time), reading the body and parsing it into a {@link SearchResultSet}.
+ * <p>
+ * A value of {@link #UNKNOWN} means that the phase wasn't measured, e.g.
+ * when the body is parsed as it is read.
+ */
+public class SearchTimings {
+
+    public static final double UNKNOWN = -1;
+
+    private final double buildMillis;
+    private final double networkMillis;
+    private final double readMillis;
+    private final double parseMillis;
+
+    public SearchTimings(double buildMillis, double networkMillis,
+                         double readMillis, double parseMillis) {
+        this.buildMillis = buildMillis;
+        this.networkMillis = networkMillis;
+        this.readMillis = readMillis;
+        this.parseMillis = parseMillis;
+    }
+
+    public double getBuildMillis() {
+        return buildMillis;
+    }
+
+    /**
+     * @return time from sending the request until the response headers
+     * were received
+     */
+    public double getNetworkMillis() {
+        return networkMillis;
+    }
+
+    public double getReadMillis() {
+        return readMillis;
+    }
+
+    public double getParseMillis() {
+        return parseMillis;
+    }
+
+    /**
+     * @return time spent in quaerite rather than waiting on the search
+     * engine: building, reading and parsing, ignoring unknown phases
+     */
+    public double getClientOverheadMillis() {
+        double sum = 0;
+        for (double millis : new double[]{buildMillis, readMillis, parseMillis}) {
+            if (millis != UNKNOWN) {
+                sum += millis;
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchTimings{" +
+                "buildMillis=" + buildMillis +
+                ", networkMillis=" + networkMillis +
+                ", readMillis=" + readMillis +
+                ", parseMillis=" + parseMillis +
+                '}';
+    }
+}
@@ -16,8 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
 import org.tallison.quaerite.core.Judgments;
 import org.tallison.quaerite.core.SearchResultSet;
 
@@ -32,15 +30,13 @@ public class AtLeastOneAtN extends SummingScoreAggregator implements JudgmentSco
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
-        int val = 0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            if (judgments.containsJudgment(ids.get(i))) {
-                val = 1;
-                break;
-            }
-        }
-        addScore(judgments.getQueryInfo(), val);
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        int val = results.getJudgedCount(getAtN()) > 0 ? 1 : 0;
+        addScore(results.getJudgments().getQueryInfo(), val);
         return val;
     }
 
@@ -18,6 +18,8 @@
 
 package org.tallison.quaerite.core.scorers;
 
+import static org.tallison.quaerite.core.scorers.AbstractJudgmentScorer.ERROR_VALUE;
+
 import org.tallison.quaerite.core.QueryInfo;
 import org.tallison.quaerite.core.SearchResultSet;
 
@@ -30,7 +32,8 @@ public class AverageElapsedTime extends DistributionalScoreAggregator
 
     @Override
     public double score(QueryInfo queryInfo, SearchResultSet searchResultSet) {
-        double elapsed = searchResultSet.getElapsedTime();
+        double elapsed = searchResultSet.isCached() ? ERROR_VALUE :
+                searchResultSet.getElapsedTime();
         addScore(queryInfo, elapsed);
         return elapsed;
     }
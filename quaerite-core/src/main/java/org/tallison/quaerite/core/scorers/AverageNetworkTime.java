@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.tallison.quaerite.core.scorers;
+
+import static org.tallison.quaerite.core.scorers.AbstractJudgmentScorer.ERROR_VALUE;
+
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.SearchTimings;
+
+/**
+ * Time in milliseconds from sending the request until the response headers
+ * were received, which includes the server time.  Queries whose timings
+ * weren't measured are skipped.
+ */
+public class AverageNetworkTime extends DistributionalScoreAggregator
+        implements SearchResultSetScorer {
+
+    public AverageNetworkTime(int atN) {
+        super("AverageNetworkTime", atN);
+    }
+
+    @Override
+    public double score(QueryInfo queryInfo, SearchResultSet searchResultSet) {
+        SearchTimings timings = searchResultSet.getTimings();
+        double network = (timings == null || searchResultSet.isCached() ||
+                timings.getNetworkMillis() == SearchTimings.UNKNOWN) ?
+                ERROR_VALUE : timings.getNetworkMillis();
+        addScore(queryInfo, network);
+        return network;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AverageNetworkTime)) return false;
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
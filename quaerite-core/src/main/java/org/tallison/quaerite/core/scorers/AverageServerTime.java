@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.tallison.quaerite.core.scorers;
+
+import static org.tallison.quaerite.core.scorers.AbstractJudgmentScorer.ERROR_VALUE;
+
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.SearchResultSet;
+
+/**
+ * Query time in milliseconds as reported by the search engine, e.g. Solr's
+ * QTime or Elasticsearch's took.  Queries without a reported time are skipped.
+ */
+public class AverageServerTime extends DistributionalScoreAggregator
+        implements SearchResultSetScorer {
+
+    public AverageServerTime(int atN) {
+        super("AverageServerTime", atN);
+    }
+
+    @Override
+    public double score(QueryInfo queryInfo, SearchResultSet searchResultSet) {
+        double queryTime = searchResultSet.getQueryTime();
+        if (queryTime < 0 || searchResultSet.isCached()) {
+            queryTime = ERROR_VALUE;
+        }
+        addScore(queryInfo, queryTime);
+        return queryTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AverageServerTime)) return false;
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
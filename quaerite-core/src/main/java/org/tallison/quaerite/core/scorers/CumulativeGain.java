@@ -16,8 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
 import org.tallison.quaerite.core.Judgments;
 import org.tallison.quaerite.core.SearchResultSet;
 
@@ -29,16 +27,13 @@ public class CumulativeGain extends AbstractJudgmentScorer {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
 
-        double sum = 0.0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < searchResultSet.size(); i++) {
-            String id = ids.get(i);
-            if (judgments.containsJudgment(id)) {
-                sum += judgments.getJudgment(id);
-            }
-        }
-        addScore(judgments.getQueryInfo(), sum);
+    @Override
+    public double score(JudgedResultList results) {
+        double sum = results.getCumulativeGain(getAtN());
+        addScore(results.getJudgments().getQueryInfo(), sum);
         return sum;
     }
 
@@ -16,13 +16,9 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
-import org.apache.commons.math3.util.FastMath;
 import org.tallison.quaerite.core.Judgments;
 import org.tallison.quaerite.core.SearchResultSet;
 
-
 /**
  * Kalervo Järvelin, Jaana Kekäläinen: Cumulated gain-based evaluation of IR techniques.
  * ACM Transactions on Information Systems 20(4), 422–446 (2002)
@@ -39,24 +35,18 @@ public class DiscountedCumulativeGain2002 extends AbstractJudgmentScorer {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
-        double score = _score(judgments, searchResultSet);
-        addScore(judgments.getQueryInfo(), score);
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        double score = _score(results);
+        addScore(results.getJudgments().getQueryInfo(), score);
         return score;
     }
 
-    protected double _score(Judgments judgments, SearchResultSet searchResultSet) {
-        int rank = 1;
-        double sum = 0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            String id = ids.get(i);
-            if (judgments.containsJudgment(id)) {
-                double rel = judgments.getJudgment(id);
-                sum += rel / FastMath.log(2, rank + 1);
-            }
-            rank++;
-        }
-        return sum;
+    protected double _score(JudgedResultList results) {
+        return results.getDCG2002(getAtN());
     }
 
     @Override
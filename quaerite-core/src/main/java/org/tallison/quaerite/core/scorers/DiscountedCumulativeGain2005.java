@@ -16,12 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
-import org.apache.commons.math3.util.FastMath;
-import org.tallison.quaerite.core.Judgments;
-import org.tallison.quaerite.core.SearchResultSet;
-
 /**
  * Chris Burges, Tal Shaked, Erin Renshaw, Ari Lazier,
  * Matt Deeds, Nicole Hamilton, and Greg Hullender. 2005.
@@ -38,20 +32,8 @@ public class DiscountedCumulativeGain2005 extends DiscountedCumulativeGain2002 {
     }
 
     @Override
-    protected double _score(Judgments judgments, SearchResultSet searchResultSet) {
-        int rank = 1;
-        double sum = 0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            String id = ids.get(i);
-            if (judgments.containsJudgment(id)) {
-                double rel = judgments.getJudgment(id);
-                sum += (FastMath.pow(2,rel) - 1) /
-                        FastMath.log(2,rank + 1);
-            }
-            rank++;
-        }
-        return sum;
+    protected double _score(JudgedResultList results) {
+        return results.getDCG2005(getAtN());
     }
 
     @Override
@@ -21,29 +21,51 @@ import static org.tallison.quaerite.core.scorers.AbstractJudgmentScorer.ERROR_VA
 
 import java.math.RoundingMode;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.apache.commons.math3.util.DoubleArray;
 import org.apache.commons.math3.util.ResizableDoubleArray;
-import org.tallison.quaerite.core.QueryInfo;
-
+import org.tallison.quaerite.core.stats.QuantileSketch;
+
+/**
+ * Reports the mean, median and standard deviation of the scores and,
+ * optionally, percentiles such as p90 or p99.
+ * <p>
+ * By default, the median and percentiles are exact, which requires copying
+ * and sorting every score in a query set each time the statistics are
+ * computed.  If a sketch size is set, they are estimated with a
+ * {@link QuantileSketch} of that size instead.  The scorer itself still
+ * keeps every per-query score.  The mean and standard deviation are
+ * always exact.
+ */
 public abstract class DistributionalScoreAggregator extends Scorer {
 
     public static String MEAN = "mean";
     public static String MEDIAN = "median";
     public static String STDEV = "stdev";
 
+    //scorer params
+    public static final String PERCENTILES = "percentiles";
+    public static final String SKETCH_SIZE = "sketchSize";
+
     private static final List<String> STATISTICS =
             Collections.unmodifiableList(Arrays.asList(new String[]{MEAN, MEDIAN, STDEV}));
 
     private NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
+    private List<Double> percentiles = Collections.EMPTY_LIST;
+    private List<String> statistics = STATISTICS;
+    //if > 0, estimate the median and percentiles with a sketch of this size
+    private int sketchSize = 0;
 
 
     public DistributionalScoreAggregator(String name, int atN) {
@@ -55,37 +77,95 @@ public abstract class DistributionalScoreAggregator extends Scorer {
 
     @Override
     public Map<String, Double> getSummaryStatistics(String querySet) {
-        StatSummarizer statSummarizer = new StatSummarizer();
-        for (Map.Entry<QueryInfo, Double> scoreEntry : scores.entrySet()) {
-            if (scoreEntry.getKey().getQuerySet().equals(querySet)) {
-                statSummarizer.addValue(scoreEntry.getValue());
-            }
-        }
+        StatSummarizer statSummarizer = (sketchSize > 0) ?
+                new SketchStatSummarizer(sketchSize) : new StatSummarizer();
+        forEachScore(querySet, statSummarizer::addValue);
 
         Map<String, Double> stats = new LinkedHashMap<>();
         stats.put(MEAN, statSummarizer.getMean());
         stats.put(MEDIAN, statSummarizer.getMedian());
         stats.put(STDEV, statSummarizer.getStandardDeviation());
+        for (double percentile : percentiles) {
+            stats.put(getPercentileName(percentile), statSummarizer.getPercentile(percentile));
+        }
 
         return Collections.unmodifiableMap(stats);
     }
 
     @Override
     public List<String> getStatistics() {
-        return STATISTICS;
+        return statistics;
+    }
+
+    /**
+     * @param percentiles percentiles to report in addition to the
+     *                    median, each &gt; 0 and &lt;= 100
+     */
+    public void setPercentiles(List<Double> percentiles) {
+        List<Double> tmp = new ArrayList<>();
+        List<String> tmpStatistics = new ArrayList<>(STATISTICS);
+        for (Double percentile : percentiles) {
+            if (percentile <= 0 || percentile > 100) {
+                throw new IllegalArgumentException(
+                        "percentile must be > 0 and <= 100: " + percentile);
+            }
+            String name = getPercentileName(percentile);
+            if (! tmpStatistics.contains(name)) {
+                tmp.add(percentile);
+                tmpStatistics.add(name);
+            }
+        }
+        this.percentiles = Collections.unmodifiableList(tmp);
+        this.statistics = Collections.unmodifiableList(tmpStatistics);
+    }
+
+    public List<Double> getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * @param sketchSize if &gt; 0, the median and percentiles are estimated
+     *                   with a {@link QuantileSketch} with this <code>k</code>;
+     *                   if 0, they are exact
+     */
+    public void setSketchSize(int sketchSize) {
+        if (sketchSize < 0) {
+            throw new IllegalArgumentException("sketchSize must be >= 0");
+        }
+        this.sketchSize = sketchSize;
+    }
+
+    public int getSketchSize() {
+        return sketchSize;
+    }
+
+    /**
+     * @param percentile percentile
+     * @return statistic name, e.g. p90 or p99_9; this is used in column
+     * names, so it may not contain a period
+     */
+    static String getPercentileName(double percentile) {
+        if (percentile == Math.rint(percentile)) {
+            return "p" + (long) percentile;
+        }
+        return "p" + Double.toString(percentile).replace('.', '_');
     }
 
     private class StatSummarizer {
         SummaryStatistics summaryStatistics = new SummaryStatistics();
         DoubleArray doubleArray = new ResizableDoubleArray();
 
-        private void addValue(double d) {
+        void addValue(double d) {
             if (d == ERROR_VALUE) {
                 //LOG?
                 //skipping value
                 return;
             }
             summaryStatistics.addValue(d);
+            addQuantileValue(d);
+        }
+
+        void addQuantileValue(double d) {
             doubleArray.addElement(d);
         }
 
@@ -98,11 +178,40 @@ public abstract class DistributionalScoreAggregator extends Scorer {
             return median.evaluate(doubleArray.getElements());
         }
 
+        public double getPercentile(double p) {
+            Percentile percentile = new Percentile();
+            return percentile.evaluate(doubleArray.getElements(), p);
+        }
+
         public double getStandardDeviation() {
             return summaryStatistics.getStandardDeviation();
         }
     }
 
+    private class SketchStatSummarizer extends StatSummarizer {
+        private final QuantileSketch sketch;
+
+        SketchStatSummarizer(int k) {
+            sketch = new QuantileSketch(k);
+            doubleArray = null;
+        }
+
+        @Override
+        void addQuantileValue(double d) {
+            sketch.add(d);
+        }
+
+        @Override
+        public double getMedian() {
+            return sketch.getQuantile(0.5);
+        }
+
+        @Override
+        public double getPercentile(double p) {
+            return sketch.getQuantile(p / 100.0);
+        }
+    }
+
     @Override
     public String getPrimaryStatisticName() {
         return getName() + "_" + MEAN;
@@ -122,11 +231,14 @@ public abstract class DistributionalScoreAggregator extends Scorer {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof DistributionalScoreAggregator)) return false;
-        return super.equals(o);
+        DistributionalScoreAggregator that = (DistributionalScoreAggregator) o;
+        return super.equals(o) &&
+                sketchSize == that.sketchSize &&
+                Objects.equals(percentiles, that.percentiles);
     }
 
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return Objects.hash(super.hashCode(), sketchSize, percentiles);
     }
 }
@@ -16,7 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -77,6 +76,12 @@ public class ExpectedReciprocalRank extends AbstractJudgmentScorer {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        Judgments judgments = results.getJudgments();
         double maxInTheseJudgments = getMax(judgments);
         if (maxScore != null && maxInTheseJudgments > maxScore) {
             throw new IllegalArgumentException(
@@ -93,10 +98,8 @@ public class ExpectedReciprocalRank extends AbstractJudgmentScorer {
         double twoToTheMax = FastMath.pow(2, max);
         double p = 1.0;
         double err = 0.0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            String id = ids.get(i);
-            double grade = getGrade(judgments, id, max);
+        for (int i = 0; i < getAtN() && i < results.size(); i++) {
+            double grade = results.isJudged(i) ? results.getGrade(i) : noJudgment;
             if (grade < 0.0) {
                 continue;
             }
@@ -112,23 +115,13 @@ public class ExpectedReciprocalRank extends AbstractJudgmentScorer {
         return err;
     }
 
-    double getGrade(Judgments judgments, String id, double max) {
-        if (!judgments.containsJudgment(id)) {
-            return noJudgment;
-        }
-        return judgments.getJudgment(id);
-    }
-
     private double mapRelevanceScore(double relevanceScore, double twoToTheMax) {
         return (FastMath.pow(2, relevanceScore) - 1.0) / twoToTheMax;
 
     }
 
     private double getMax(Judgments judgments) {
-        for (Double d : judgments.getSortedJudgments().values()) {
-            return d;
-        }
-        return -1.0;
+        return judgments.getIndex().getMaxGrade();
     }
 
     public Double getMaxScore() {
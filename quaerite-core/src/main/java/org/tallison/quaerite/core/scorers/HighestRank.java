@@ -16,8 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.core.Judgments;
@@ -41,7 +39,13 @@ public class HighestRank extends AbstractJudgmentScorer {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
-        int highest = _score(judgments, searchResultSet);
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        Judgments judgments = results.getJudgments();
+        int highest = _score(results);
         if (highest == NOT_FOUND) {
             LOG.warn("No judgments found (" + getName() + "): " + judgments.getQueryStrings());
             addScore(judgments.getQueryInfo(), ERROR_VALUE);
@@ -51,15 +55,8 @@ public class HighestRank extends AbstractJudgmentScorer {
         return NOT_FOUND;
     }
 
-    protected int _score(Judgments judgments, SearchResultSet searchResultSet) {
-        List<String> ids = searchResultSet.getIds();
-
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            if (judgments.containsJudgment(ids.get(i))) {
-                return i + 1;
-            }
-        }
-        return NOT_FOUND;
+    protected int _score(JudgedResultList results) {
+        return results.getFirstJudgedRank(getAtN());
     }
 
     @Override
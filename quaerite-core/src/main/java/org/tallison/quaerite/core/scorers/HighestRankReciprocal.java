@@ -34,7 +34,13 @@ public class HighestRankReciprocal extends HighestRank {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
-        int rank = super._score(judgments, searchResultSet);
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        Judgments judgments = results.getJudgments();
+        int rank = super._score(results);
         if (rank == NOT_FOUND) {
             LOG.warn("No judgments found (" + getName() +
                     "): " + judgments.getQueryStrings());
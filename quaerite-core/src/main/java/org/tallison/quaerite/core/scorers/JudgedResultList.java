@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.scorers;
+
+import java.util.List;
+
+import org.apache.commons.math3.util.FastMath;
+import org.tallison.quaerite.core.JudgmentIndex;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+
+/**
+ * A result list with the judgment of each result resolved in a single
+ * pass, along with running totals of the number of judged results and of
+ * the gains.  Every {@link AbstractJudgmentScorer} at every cutoff can
+ * read what it needs from here without looking ids up again, e.g. for
+ * NDCG@5, NDCG@10 and P@10 on the same query.
+ * <p>
+ * The buffers are reused by {@link #reset(Judgments, SearchResultSet)}
+ * and only grow, so one instance per scoring thread avoids allocating
+ * per query.  This is not thread safe.
+ */
+public class JudgedResultList {
+
+    private Judgments judgments;
+    private SearchResultSet searchResultSet;
+    private int size;
+    private int[] ordinals = new int[0];
+    private double[] grades = new double[0];
+    //running totals over the top k results are at index k
+    private int[] judged = new int[1];
+    private double[] cumulativeGain = new double[1];
+    private double[] dcg2002 = new double[1];
+    private double[] dcg2005 = new double[1];
+
+    public JudgedResultList() {
+    }
+
+    public JudgedResultList(Judgments judgments, SearchResultSet searchResultSet) {
+        reset(judgments, searchResultSet);
+    }
+
+    /**
+     * Resolves the judgments for a new result list, reusing the buffers.
+     *
+     * @return this
+     */
+    public JudgedResultList reset(Judgments judgments, SearchResultSet searchResultSet) {
+        this.judgments = judgments;
+        this.searchResultSet = searchResultSet;
+        JudgmentIndex index = judgments.getIndex();
+        List<String> ids = searchResultSet.getIds();
+        size = ids.size();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            int ordinal = index.getOrdinal(ids.get(i));
+            ordinals[i] = ordinal;
+            int rank = i + 1;
+            if (ordinal == JudgmentIndex.NOT_FOUND) {
+                grades[i] = Judgments.NO_JUDGMENT;
+                judged[rank] = judged[i];
+                cumulativeGain[rank] = cumulativeGain[i];
+                dcg2002[rank] = dcg2002[i];
+                dcg2005[rank] = dcg2005[i];
+            } else {
+                double rel = index.getGrade(ordinal);
+                grades[i] = rel;
+                judged[rank] = judged[i] + 1;
+                cumulativeGain[rank] = cumulativeGain[i] + rel;
+                dcg2002[rank] = dcg2002[i] + rel / FastMath.log(2, rank + 1);
+                dcg2005[rank] = dcg2005[i] +
+                        (FastMath.pow(2, rel) - 1) / FastMath.log(2, rank + 1);
+            }
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int n) {
+        if (ordinals.length >= n) {
+            return;
+        }
+        ordinals = new int[n];
+        grades = new double[n];
+        judged = new int[n + 1];
+        cumulativeGain = new double[n + 1];
+        dcg2002 = new double[n + 1];
+        dcg2005 = new double[n + 1];
+    }
+
+    public Judgments getJudgments() {
+        return judgments;
+    }
+
+    public SearchResultSet getSearchResultSet() {
+        return searchResultSet;
+    }
+
+    /**
+     * @return number of results
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i zero-based position in the results
+     */
+    public boolean isJudged(int i) {
+        return ordinals[i] != JudgmentIndex.NOT_FOUND;
+    }
+
+    /**
+     * @param i zero-based position in the results
+     * @return the judgment or {@link Judgments#NO_JUDGMENT}
+     */
+    public double getGrade(int i) {
+        return grades[i];
+    }
+
+    /**
+     * @return number of judged results in the top <code>atN</code>
+     */
+    public int getJudgedCount(int atN) {
+        return judged[cutoff(atN)];
+    }
+
+    /**
+     * @return one-based rank of the first judged result in the top
+     * <code>atN</code> or {@link HighestRank#NOT_FOUND}
+     */
+    public int getFirstJudgedRank(int atN) {
+        int k = cutoff(atN);
+        if (judged[k] == 0) {
+            return HighestRank.NOT_FOUND;
+        }
+        for (int i = 0; i < k; i++) {
+            if (isJudged(i)) {
+                return i + 1;
+            }
+        }
+        return HighestRank.NOT_FOUND;
+    }
+
+    public double getCumulativeGain(int atN) {
+        return cumulativeGain[cutoff(atN)];
+    }
+
+    public double getDCG2002(int atN) {
+        return dcg2002[cutoff(atN)];
+    }
+
+    public double getDCG2005(int atN) {
+        return dcg2005[cutoff(atN)];
+    }
+
+    private int cutoff(int atN) {
+        return Math.max(0, Math.min(atN, size));
+    }
+}
@@ -24,4 +24,16 @@ public interface JudgmentScorer {
     String getName();
     double score(Judgments judgments, SearchResultSet searchResultSet);
 
+    /**
+     * Scores results whose judgments have already been resolved, so that
+     * several scorers can share a single pass over the results.  Override
+     * this if the score can be read from the {@link JudgedResultList}.
+     *
+     * @param results judged results
+     * @return the score
+     */
+    default double score(JudgedResultList results) {
+        return score(results.getJudgments(), results.getSearchResultSet());
+    }
+
 }
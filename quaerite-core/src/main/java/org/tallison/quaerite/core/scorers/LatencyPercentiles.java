@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.core.scorers;
+
+import static org.tallison.quaerite.core.QueryInfo.DEFAULT_QUERY_SET;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.stats.LatencyHistogram;
+
+/**
+ * Tail latencies (p50, p90, p95, p99, p999 and max) in milliseconds of the
+ * client elapsed time and of the query time reported by the server.
+ * <p>
+ * The per query score is the client elapsed time.
+ */
+public class LatencyPercentiles extends Scorer implements SearchResultSetScorer {
+
+    public static final String CLIENT = "client";
+    public static final String SERVER = "server";
+    public static final String MAX = "max";
+
+    private static final double[] PERCENTILES = new double[]{50, 90, 95, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = new String[]{"p50", "p90", "p95", "p99", "p999"};
+
+    private static final List<String> STATISTICS;
+
+    static {
+        List<String> statistics = new ArrayList<>();
+        for (String source : new String[]{CLIENT, SERVER}) {
+            for (String percentile : PERCENTILE_NAMES) {
+                statistics.add(source + "_" + percentile);
+            }
+            statistics.add(source + "_" + MAX);
+        }
+        STATISTICS = Collections.unmodifiableList(statistics);
+    }
+
+    private final NumberFormat numberFormat = NumberFormat.getIntegerInstance(Locale.US);
+
+    //query set -> histogram; the default query set has all queries
+    private final Map<String, LatencyHistogram> clientHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> serverHistograms = new ConcurrentHashMap<>();
+
+    public LatencyPercentiles() {
+        super("LatencyPercentiles", -1);
+    }
+
+    @Override
+    public double score(QueryInfo queryInfo, SearchResultSet searchResultSet) {
+        if (searchResultSet.isCached()) {
+            //the times are those of the request that was cached
+            addScore(queryInfo, AbstractJudgmentScorer.ERROR_VALUE);
+            return AbstractJudgmentScorer.ERROR_VALUE;
+        }
+        long elapsed = searchResultSet.getElapsedTime();
+        long queryTime = searchResultSet.getQueryTime();
+        record(clientHistograms, queryInfo.getQuerySet(), elapsed);
+        record(serverHistograms, queryInfo.getQuerySet(), queryTime);
+        addScore(queryInfo, elapsed);
+        return elapsed;
+    }
+
+    private static void record(Map<String, LatencyHistogram> histograms,
+                               String querySet, long value) {
+        histograms.computeIfAbsent(querySet, k -> new LatencyHistogram()).record(value);
+        if (! DEFAULT_QUERY_SET.equals(querySet)) {
+            histograms.computeIfAbsent(DEFAULT_QUERY_SET,
+                    k -> new LatencyHistogram()).record(value);
+        }
+    }
+
+    @Override
+    public Map<String, Double> getSummaryStatistics(String querySet) {
+        Map<String, Double> stats = new LinkedHashMap<>();
+        addStatistics(CLIENT, clientHistograms.get(querySet), stats);
+        addStatistics(SERVER, serverHistograms.get(querySet), stats);
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private static void addStatistics(String source, LatencyHistogram histogram,
+                                      Map<String, Double> stats) {
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            stats.put(source + "_" + PERCENTILE_NAMES[i], (histogram == null) ?
+                    Double.NaN : histogram.getValueAtPercentile(PERCENTILES[i]));
+        }
+        stats.put(source + "_" + MAX, (histogram == null) ? Double.NaN : histogram.getMax());
+    }
+
+    @Override
+    public List<String> getStatistics() {
+        return STATISTICS;
+    }
+
+    @Override
+    public String format(String statName, Map<String, Double> values) {
+        if (! values.containsKey(statName)) {
+            throw new IllegalArgumentException("can't find stat name: "
+                    + statName + "in " + values);
+        }
+        return numberFormat.format(values.get(statName));
+    }
+
+    @Override
+    public String getPrimaryStatisticName() {
+        return getName() + "_" + CLIENT + "_p99";
+    }
+
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        clientHistograms.clear();
+        serverHistograms.clear();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LatencyPercentiles)) return false;
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
@@ -16,14 +16,9 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.core.Judgments;
-import org.tallison.quaerite.core.SearchResultSet;
-import org.tallison.quaerite.core.StoredDocument;
 
 
 public class NDCG extends DiscountedCumulativeGain2002 {
@@ -35,37 +30,21 @@ public class NDCG extends DiscountedCumulativeGain2002 {
     }
 
     @Override
-    public double score(Judgments judgments, SearchResultSet searchResultSet) {
-
-        final double idealDCG = calculateIdeal(judgments,
-                Math.min(getAtN(), searchResultSet.size()), searchResultSet.getTotalHits(),
-                searchResultSet.getQueryTime(),
-                searchResultSet.getElapsedTime());
+    public double score(JudgedResultList results) {
+        Judgments judgments = results.getJudgments();
+        //the ideal DCG is cached per query in the judgment index
+        final double idealDCG = judgments.getIndex().getIdealDCG(
+                Math.min(getAtN(), results.size()));
         if (idealDCG == 0) {
             LOG.warn("IdealDCG == 0: (NDCG@" + getAtN() + "): " + judgments.getQueryStrings());
             addScore(judgments.getQueryInfo(), ERROR_VALUE);
             return ERROR_VALUE;
         }
-        double score = _score(judgments, searchResultSet) / idealDCG;
+        double score = _score(results) / idealDCG;
         addScore(judgments.getQueryInfo(), score);
         return score;
     }
 
-
-    private double calculateIdeal(Judgments judgments, int size, long totalHits,
-                                  long queryTime, long elapsedTime) {
-        List<StoredDocument> bestResults = new ArrayList<>();
-        for (String id : judgments.getSortedJudgments().keySet()) {
-            StoredDocument sd = new StoredDocument(id);
-            bestResults.add(sd);
-            if (bestResults.size() >= size) {
-                break;
-            }
-        }
-        return _score(judgments, new SearchResultSet(totalHits, queryTime,
-                elapsedTime, bestResults));
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
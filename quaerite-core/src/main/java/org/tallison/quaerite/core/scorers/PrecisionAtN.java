@@ -16,8 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
 import org.tallison.quaerite.core.Judgments;
 import org.tallison.quaerite.core.SearchResultSet;
 
@@ -34,18 +32,18 @@ public class PrecisionAtN extends AbstractJudgmentScorer {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
-        if (searchResultSet.size() == 0) {
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        Judgments judgments = results.getJudgments();
+        if (results.getSearchResultSet().size() == 0) {
             addScore(judgments.getQueryInfo(), ERROR_VALUE);
             return ERROR_VALUE;
         }
-        int hits = 0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            if (judgments.containsJudgment(ids.get(i))) {
-                hits++;
-            }
-        }
-        double val = (double)hits / (double) searchResultSet.size();
+        int hits = results.getJudgedCount(getAtN());
+        double val = (double)hits / (double) results.getSearchResultSet().size();
         addScore(judgments.getQueryInfo(), val);
         return val;
     }
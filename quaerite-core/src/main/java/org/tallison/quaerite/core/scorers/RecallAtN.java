@@ -16,8 +16,6 @@
  */
 package org.tallison.quaerite.core.scorers;
 
-import java.util.List;
-
 import org.tallison.quaerite.core.Judgments;
 import org.tallison.quaerite.core.SearchResultSet;
 
@@ -35,15 +33,14 @@ public class RecallAtN extends AbstractJudgmentScorer {
 
     @Override
     public double score(Judgments judgments, SearchResultSet searchResultSet) {
-        int hits = 0;
-        List<String> ids = searchResultSet.getIds();
-        for (int i = 0; i < getAtN() && i < ids.size(); i++) {
-            if (judgments.containsJudgment(ids.get(i))) {
-                hits++;
-            }
-        }
+        return score(new JudgedResultList(judgments, searchResultSet));
+    }
+
+    @Override
+    public double score(JudgedResultList results) {
+        int hits = results.getJudgedCount(getAtN());
         double v = (double)hits / (double)getAtN();
-        addScore(judgments.getQueryInfo(), v);
+        addScore(results.getJudgments().getQueryInfo(), v);
         return v;
     }
 
@@ -19,15 +19,19 @@ package org.tallison.quaerite.core.scorers;
 
 import static org.tallison.quaerite.core.QueryInfo.DEFAULT_QUERY_SET;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleConsumer;
 
 import org.tallison.quaerite.core.QueryInfo;
 
@@ -48,29 +52,86 @@ public abstract class Scorer {
         return name;
     }
 
-    private final Object[] lock = new Object[0];
+    //Scores are stored by column: each query gets an ordinal the first time
+    //it is scored, its score goes in values[ordinal], and query set
+    //membership is a bitset of ordinals.  The default query set is all queries.
+    private final Map<QueryInfo, Integer> ordinals = new HashMap<>();
+    private final List<QueryInfo> queryInfos = new ArrayList<>();
+    private final Map<String, BitSet> querySets = new LinkedHashMap<>();
+    private double[] values = new double[64];
 
-    ConcurrentHashMap<QueryInfo, Double> scores = new ConcurrentHashMap<>();
-    //really just a concurrent hash set, the integer is a dummy value
-    ConcurrentHashMap<String, Integer> querySets = new ConcurrentHashMap<>();
     /**
      * This needs to be thread safe
      * @param queryInfo
      * @param score
      */
-    void addScore(QueryInfo queryInfo, double score) {
-        scores.put(queryInfo, score);
-        QueryInfo defaultQueryInfo = null;
-        //also keep track of all results together
-        if (!queryInfo.getQuerySet().equals(DEFAULT_QUERY_SET)) {
-            defaultQueryInfo = new QueryInfo(
-                    queryInfo.getQueryId(),
-                    DEFAULT_QUERY_SET, queryInfo.getQueryStrings(),
-                    queryInfo.getQueryCount());
-            scores.put(defaultQueryInfo, score);
-            querySets.put(DEFAULT_QUERY_SET, 1);
+    synchronized void addScore(QueryInfo queryInfo, double score) {
+        Integer ordinal = ordinals.get(queryInfo);
+        if (ordinal == null) {
+            ordinal = queryInfos.size();
+            ordinals.put(queryInfo, ordinal);
+            queryInfos.add(queryInfo);
+            if (ordinal >= values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            querySets.computeIfAbsent(queryInfo.getQuerySet(), k -> new BitSet()).set(ordinal);
+        }
+        values[ordinal] = score;
+    }
+
+    /**
+     * @param queryInfo query
+     * @return the score for the query or <code>null</code> if it hasn't been scored
+     */
+    public synchronized Double getScore(QueryInfo queryInfo) {
+        Integer ordinal = ordinals.get(queryInfo);
+        return ordinal == null ? null : values[ordinal];
+    }
+
+    /**
+     * @param querySet query set
+     * @return the scores of the queries in the query set, in the order in
+     * which they were first scored
+     */
+    synchronized double[] getScores(String querySet) {
+        if (DEFAULT_QUERY_SET.equals(querySet)) {
+            return Arrays.copyOf(values, queryInfos.size());
+        }
+        BitSet members = querySets.get(querySet);
+        if (members == null) {
+            return new double[0];
+        }
+        double[] ret = new double[members.cardinality()];
+        int i = 0;
+        for (int ordinal = members.nextSetBit(0); ordinal > -1;
+                ordinal = members.nextSetBit(ordinal + 1)) {
+            ret[i++] = values[ordinal];
+        }
+        return ret;
+    }
+
+    /**
+     * Passes the scores of the queries in the query set to the consumer
+     * without copying them.
+     *
+     * @param querySet query set
+     * @param consumer consumer of the scores
+     */
+    synchronized void forEachScore(String querySet, DoubleConsumer consumer) {
+        if (DEFAULT_QUERY_SET.equals(querySet)) {
+            for (int i = 0; i < queryInfos.size(); i++) {
+                consumer.accept(values[i]);
+            }
+            return;
+        }
+        BitSet members = querySets.get(querySet);
+        if (members == null) {
+            return;
+        }
+        for (int ordinal = members.nextSetBit(0); ordinal > -1;
+                ordinal = members.nextSetBit(ordinal + 1)) {
+            consumer.accept(values[ordinal]);
         }
-        querySets.put(queryInfo.getQuerySet(), 1);
     }
 
     /**
@@ -100,16 +161,18 @@ public abstract class Scorer {
      */
     public abstract String getPrimaryStatisticName();
 
-    public Map<QueryInfo, Double> getScores() {
+    public synchronized Map<QueryInfo, Double> getScores() {
         Map<QueryInfo, Double> ret = new HashMap<>();
-        ret.putAll(scores);
+        for (int i = 0; i < queryInfos.size(); i++) {
+            ret.put(queryInfos.get(i), values[i]);
+        }
         return Collections.unmodifiableMap(ret);
     }
 
-    public Set<QueryInfo> getQueryInfos(String querySet) {
+    public synchronized Set<QueryInfo> getQueryInfos(String querySet) {
         Set<QueryInfo> ret = new HashSet<>();
-        for (QueryInfo q : scores.keySet()) {
-            if (q.getQuerySet().equals(querySet)) {
+        for (QueryInfo q : queryInfos) {
+            if (DEFAULT_QUERY_SET.equals(querySet) || q.getQuerySet().equals(querySet)) {
                 ret.add(q);
             }
         }
@@ -117,17 +180,23 @@ public abstract class Scorer {
     }
 
 
-    public int getSize() {
-        return scores.size();
+    public synchronized int getSize() {
+        return queryInfos.size();
     }
 
 
-    public Collection<? extends String> getQuerySets() {
-        return querySets.keySet();
+    public synchronized Collection<? extends String> getQuerySets() {
+        Set<String> ret = new HashSet<>(querySets.keySet());
+        if (ret.size() > 0) {
+            //all queries are also in the default query set
+            ret.add(DEFAULT_QUERY_SET);
+        }
+        return ret;
     }
 
-    public void reset() {
-        scores.clear();
+    public synchronized void reset() {
+        ordinals.clear();
+        queryInfos.clear();
         querySets.clear();
     }
 
@@ -136,11 +205,11 @@ public abstract class Scorer {
         if (this == o) return true;
         if (!(o instanceof Scorer)) return false;
         Scorer that = (Scorer) o;
-        return Objects.equals(scores, that.scores);
+        return Objects.equals(getScores(), that.getScores());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(scores, querySets);
+        return Objects.hash(getScores());
     }
 }
@@ -24,9 +24,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-
-import org.tallison.quaerite.core.QueryInfo;
 
 public abstract class SummingScoreAggregator extends Scorer {
     public static String SUM = "sum";
@@ -43,18 +40,16 @@ public abstract class SummingScoreAggregator extends Scorer {
 
     @Override
     public Map<String, Double> getSummaryStatistics(String querySet) {
-        Set<QueryInfo> queryInfos = getQueryInfos(querySet);
-        Map<String, Double> stats = new HashMap<>();
-        for (QueryInfo q : queryInfos) {
-            Double val = scores.get(q);
-            Double sum = stats.get(SUM);
-            if (sum == null) {
-                sum = val;
-            } else {
-                sum += val;
-            }
-            stats.put(SUM, sum);
+        double[] scores = getScores(querySet);
+        if (scores.length == 0) {
+            return Collections.emptyMap();
         }
+        double sum = 0;
+        for (double score : scores) {
+            sum += score;
+        }
+        Map<String, Double> stats = new HashMap<>();
+        stats.put(SUM, sum);
         return Collections.unmodifiableMap(stats);
     }
 
@@ -30,7 +30,8 @@ public class TotalElapsedTime extends SummingScoreAggregator
 
     @Override
     public double score(QueryInfo queryInfo, SearchResultSet searchResultSet) {
-        double elapsed = searchResultSet.getElapsedTime();
+        //no time was spent on a search that was answered from the cache
+        double elapsed = searchResultSet.isCached() ? 0 : searchResultSet.getElapsedTime();
         addScore(queryInfo, elapsed);
         return elapsed;
     }
@@ -38,7 +38,7 @@ public class TotalQueryTime extends SummingScoreAggregator
 
     @Override
     public double score(QueryInfo queryInfo, SearchResultSet searchResultSet) {
-        double qTime = searchResultSet.getQueryTime();
+        double qTime = searchResultSet.isCached() ? 0 : searchResultSet.getQueryTime();
         addScore(queryInfo, qTime);
         return qTime;
     }
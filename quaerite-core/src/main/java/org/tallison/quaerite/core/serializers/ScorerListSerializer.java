@@ -36,6 +36,7 @@ import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import com.google.gson.reflect.TypeToken;
 import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
+import org.tallison.quaerite.core.scorers.DistributionalScoreAggregator;
 import org.tallison.quaerite.core.scorers.Scorer;
 
 public class ScorerListSerializer {
@@ -114,10 +115,21 @@ public class ScorerListSerializer {
                 if (jScorer.getUseForTrain()) {
                     params.add("useForTrain", new JsonPrimitive(true));
                 }
-                if (params.size() > 0) {
-                    jsonObject.add("params", params);
+            }
+            if (scorer instanceof DistributionalScoreAggregator) {
+                DistributionalScoreAggregator dScorer = (DistributionalScoreAggregator) scorer;
+                if (dScorer.getPercentiles().size() > 0) {
+                    params.add(DistributionalScoreAggregator.PERCENTILES,
+                            new JsonPrimitive(joinPercentiles(dScorer.getPercentiles())));
+                }
+                if (dScorer.getSketchSize() > 0) {
+                    params.add(DistributionalScoreAggregator.SKETCH_SIZE,
+                            new JsonPrimitive(Integer.toString(dScorer.getSketchSize())));
                 }
             }
+            if (params.size() > 0) {
+                jsonObject.add("params", params);
+            }
             return jsonObject;
         }
 
@@ -171,6 +183,16 @@ public class ScorerListSerializer {
                             ((AbstractJudgmentScorer)scorer).setExportPMatrix();
                         }
                     }
+                    if (params.containsKey(DistributionalScoreAggregator.PERCENTILES)) {
+                        ((DistributionalScoreAggregator)scorer).setPercentiles(
+                                splitPercentiles(
+                                        params.get(DistributionalScoreAggregator.PERCENTILES)));
+                    }
+                    if (params.containsKey(DistributionalScoreAggregator.SKETCH_SIZE)) {
+                        ((DistributionalScoreAggregator)scorer).setSketchSize(
+                                Integer.parseInt(
+                                        params.get(DistributionalScoreAggregator.SKETCH_SIZE)));
+                    }
                 }
                 return (T) scorer;
             } catch (Exception e) {
@@ -180,6 +202,31 @@ public class ScorerListSerializer {
         }
     }
 
+    private static String joinPercentiles(List<Double> percentiles) {
+        StringBuilder sb = new StringBuilder();
+        for (Double percentile : percentiles) {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            if (percentile == Math.rint(percentile)) {
+                sb.append(percentile.longValue());
+            } else {
+                sb.append(percentile);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<Double> splitPercentiles(String s) {
+        List<Double> percentiles = new ArrayList<>();
+        for (String p : s.split(",")) {
+            if (p.trim().length() > 0) {
+                percentiles.add(Double.parseDouble(p.trim()));
+            }
+        }
+        return percentiles;
+    }
+
     public static String toJson(List<Scorer> scorers) {
         return GSON.toJson(scorers);
     }
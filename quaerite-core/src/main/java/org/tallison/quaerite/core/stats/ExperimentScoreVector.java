@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import java.util.Arrays;
+
+import org.tallison.quaerite.core.Experiment;
+
+/**
+ * An experiment with its values for each of several objectives, and its
+ * Pareto rank and crowding distance once those have been calculated.
+ */
+public class ExperimentScoreVector {
+    private final Experiment experiment;
+    private final double[] scores;
+    private int rank = -1;
+    private double crowdingDistance = 0.0;
+
+    public ExperimentScoreVector(Experiment experiment, double[] scores) {
+        this.experiment = experiment;
+        this.scores = scores;
+    }
+
+    public Experiment getExperiment() {
+        return experiment;
+    }
+
+    public double[] getScores() {
+        return scores;
+    }
+
+    /**
+     * @return 0 for the Pareto front, 1 for the front that remains when
+     * the Pareto front is removed, and so on; -1 if not ranked yet
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public double getCrowdingDistance() {
+        return crowdingDistance;
+    }
+
+    public void setCrowdingDistance(double crowdingDistance) {
+        this.crowdingDistance = crowdingDistance;
+    }
+
+    @Override
+    public String toString() {
+        return "ExperimentScoreVector{" +
+                "experimentName='" + experiment.getName() + '\'' +
+                ", scores=" + Arrays.toString(scores) +
+                ", rank=" + rank +
+                ", crowdingDistance=" + crowdingDistance +
+                '}';
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent histogram of non-negative long values, e.g. latencies in
+ * milliseconds, in the spirit of HdrHistogram.
+ * <p>
+ * Values below {@link #SUB_BUCKETS} are counted exactly.  Larger values are
+ * counted in log-linear buckets: each power of two is split into
+ * {@link #SUB_BUCKETS}/2 buckets, so a value is reported with a relative
+ * error of less than 2%.  The memory used is fixed (~30KB) regardless of how
+ * many values are recorded or how large they are.
+ * <p>
+ * Recording is lock-free, and histograms can be combined with
+ * {@link #add(LatencyHistogram)}.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    //highest power of two of a positive long
+    private static final int MAX_MAGNITUDE = 62;
+    private static final int NUM_BUCKETS =
+            SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(-1);
+
+    /**
+     * @param value value to record; negative values are ignored
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        counts.incrementAndGet(getIndex(value));
+        totalCount.incrementAndGet();
+        long currMax = max.get();
+        while (value > currMax && ! max.compareAndSet(currMax, value)) {
+            currMax = max.get();
+        }
+    }
+
+    /**
+     * Adds the counts of the other histogram to this one.
+     *
+     * @param other histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+                totalCount.addAndGet(count);
+            }
+        }
+        long otherMax = other.max.get();
+        long currMax = max.get();
+        while (otherMax > currMax && ! max.compareAndSet(currMax, otherMax)) {
+            currMax = max.get();
+        }
+    }
+
+    /**
+     * @param percentile percentile &gt; 0 and &lt;= 100
+     * @return the highest value that is equivalent, within the histogram's
+     * precision, to the value at the percentile, or {@link Double#NaN} if
+     * nothing has been recorded
+     */
+    public double getValueAtPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be > 0 and <= 100");
+        }
+        long total = totalCount.get();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(getHighestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @return the largest value recorded or {@link Double#NaN} if nothing
+     * has been recorded
+     */
+    public double getMax() {
+        long currMax = max.get();
+        return currMax < 0 ? Double.NaN : currMax;
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    static int getIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS + 1;
+        //in [HALF_SUB_BUCKETS, SUB_BUCKETS)
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKETS + (magnitude - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS +
+                (subBucket - HALF_SUB_BUCKETS);
+    }
+
+    static long getHighestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int offset = index - SUB_BUCKETS;
+        int magnitude = offset / HALF_SUB_BUCKETS + SUB_BUCKET_BITS;
+        int subBucket = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        int shift = magnitude - SUB_BUCKET_BITS + 1;
+        if (magnitude == MAX_MAGNITUDE && subBucket == SUB_BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return (((long) subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Quantile sketch with bounded memory after
+ * Karnin, Lang and Liberty's KLL sketch.
+ * <p>
+ * Values are buffered in levels; a value at level <code>h</code> stands for
+ * <code>2^h</code> of the values that were added.  When the sketch is full,
+ * the lowest full level is sorted and every other value is promoted to the
+ * next level, so the sketch retains roughly <code>3k</code> values no matter
+ * how many are added.  The rank error is on the order of <code>1.7/k</code>.
+ * <p>
+ * This is not thread safe.
+ */
+public class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_K = 8;
+    private static final double DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private long n = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    //alternates which half of a compacted level is promoted
+    private boolean promoteOdd = false;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k accuracy parameter; larger values keep more values and
+     *          are more accurate
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException("k must be >= " + MIN_K);
+        }
+        this.k = k;
+        addLevel();
+    }
+
+    public void add(double value) {
+        if (n == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        n++;
+        append(0, value);
+        compress();
+    }
+
+    /**
+     * @param quantile quantile between 0 and 1, e.g. 0.5 for the median
+     * @return the estimated value at the quantile or {@link Double#NaN}
+     * if no values have been added
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be >= 0 and <= 1");
+        }
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (quantile == 0) {
+            return min;
+        } else if (quantile == 1) {
+            return max;
+        }
+        int retained = getRetained();
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int j = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            double[] levelValues = levels.get(level);
+            int size = sizes.get(level);
+            for (int i = 0; i < size; i++) {
+                values[j] = levelValues[i];
+                weights[j++] = 1L << level;
+            }
+        }
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        long totalWeight = 0;
+        for (long weight : weights) {
+            totalWeight += weight;
+        }
+        double target = quantile * totalWeight;
+        long cumulative = 0;
+        for (Integer i : order) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return number of values that have been added, including merged values
+     */
+    public long getN() {
+        return n;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return number of values currently held by the sketch
+     */
+    public int getRetained() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        return retained;
+    }
+
+    private int getCapacity(int level) {
+        int depth = levels.size() - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private int getTotalCapacity() {
+        int capacity = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            capacity += getCapacity(level);
+        }
+        return capacity;
+    }
+
+    private void addLevel() {
+        levels.add(new double[MIN_K]);
+        sizes.add(0);
+    }
+
+    private void append(int level, double value) {
+        while (level >= levels.size()) {
+            addLevel();
+        }
+        double[] values = levels.get(level);
+        int size = sizes.get(level);
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+            levels.set(level, values);
+        }
+        values[size] = value;
+        sizes.set(level, size + 1);
+    }
+
+    private void compress() {
+        while (getRetained() > getTotalCapacity()) {
+            for (int level = 0; level < levels.size(); level++) {
+                if (sizes.get(level) >= getCapacity(level)) {
+                    compact(level);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * sorts the level and promotes every other value to the next level;
+     * if the level has an odd number of values, the largest stays behind
+     */
+    private void compact(int level) {
+        double[] values = levels.get(level);
+        int size = sizes.get(level);
+        Arrays.sort(values, 0, size);
+        int pairs = size / 2;
+        int offset = promoteOdd ? 1 : 0;
+        promoteOdd = ! promoteOdd;
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, values[2 * i + offset]);
+        }
+        //levels may have been replaced if a new level was added
+        values = levels.get(level);
+        if (size % 2 == 1) {
+            values[0] = values[size - 1];
+            sizes.set(level, 1);
+        } else {
+            sizes.set(level, 0);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.math3.stat.inference.TTest;
+
+/**
+ * Calculates the p-values for every pair of experiments from
+ * a matrix of per-query scores.
+ * <p>
+ * The rows of the score matrix are experiments and the columns are
+ * queries; every row must have a score for the same query in the same
+ * column.  Every pair is calculated in parallel on the common fork/join
+ * pool.  For the resampling tests, the resamples for a pair are also
+ * split into chunks that run in parallel.
+ * <p>
+ * The resampling tests are paired and two-sided on the mean of the
+ * per-query differences.  The p-value is (count + 1) / (resamples + 1),
+ * which counts the observed difference as a resample, so that a p-value
+ * is never 0.  Each chunk of each pair draws from its own
+ * generator seeded from the seed, the pair's scores and the chunk, so the results
+ * are reproducible regardless of the number of threads and a pair's
+ * p-value doesn't depend on which other experiments are in the matrix.
+ */
+public class SignificanceMatrix {
+
+    public enum TEST {
+        /**
+         * Student's t-test; for backwards compatibility, this is
+         * the unpaired test
+         */
+        TTEST,
+        /**
+         * paired bootstrap test on the mean difference
+         */
+        BOOTSTRAP,
+        /**
+         * paired randomization (permutation) test; the sign of each
+         * query's difference is flipped at random
+         */
+        RANDOMIZATION
+    }
+
+    public static final int DEFAULT_RESAMPLES = 10000;
+    public static final long DEFAULT_SEED = 20200126L;
+
+    //resamples per fork/join leaf
+    private static final int CHUNK_SIZE = 1000;
+
+    private final TEST test;
+    private final int resamples;
+    private final long seed;
+
+    /**
+     * t-test
+     */
+    public SignificanceMatrix() {
+        this(TEST.TTEST, DEFAULT_RESAMPLES, DEFAULT_SEED);
+    }
+
+    public SignificanceMatrix(TEST test, int resamples, long seed) {
+        if (resamples < 1) {
+            throw new IllegalArgumentException("resamples must be > 0");
+        }
+        this.test = test;
+        this.resamples = resamples;
+        this.seed = seed;
+    }
+
+    public static TEST parseTest(String s) {
+        return TEST.valueOf(s.trim().toUpperCase(Locale.US));
+    }
+
+    public TEST getTest() {
+        return test;
+    }
+
+    public int getResamples() {
+        return resamples;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param scores experiments x queries
+     * @return symmetric matrix of p-values with 1.0 on the diagonal;
+     * -1 if there are fewer than two queries
+     */
+    public double[][] calculate(double[][] scores) {
+        int numExperiments = scores.length;
+        int numQueries = (numExperiments == 0) ? 0 : scores[0].length;
+        for (double[] row : scores) {
+            if (row.length != numQueries) {
+                throw new IllegalArgumentException("every experiment must have " +
+                        "the same number of queries");
+            }
+        }
+        double[][] pValues = new double[numExperiments][numExperiments];
+        for (int i = 0; i < numExperiments; i++) {
+            pValues[i][i] = 1.0d;
+        }
+        if (numExperiments < 2) {
+            return pValues;
+        }
+        int numPairs = numExperiments * (numExperiments - 1) / 2;
+        int[] as = new int[numPairs];
+        int[] bs = new int[numPairs];
+        int pair = 0;
+        for (int i = 0; i < numExperiments; i++) {
+            for (int j = i + 1; j < numExperiments; j++) {
+                as[pair] = i;
+                bs[pair] = j;
+                pair++;
+            }
+        }
+        if (numQueries < 2) {
+            fill(pValues, as, bs, -1.0d);
+            return pValues;
+        }
+        int chunks = (test == TEST.TTEST) ? 1 : (resamples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        //for the t-test, this holds the p-value; otherwise, the count of resamples
+        //that are at least as extreme as the observed difference
+        double[] results = new double[numPairs * chunks];
+        ForkJoinPool.commonPool().invoke(
+                new PairTask(scores, as, bs, chunks, results, 0, results.length));
+        for (int p = 0; p < numPairs; p++) {
+            double value = 0.0d;
+            for (int c = 0; c < chunks; c++) {
+                value += results[p * chunks + c];
+            }
+            if (test != TEST.TTEST) {
+                //count the observed difference as one of the resamples
+                value = (value + 1) / (resamples + 1);
+            }
+            pValues[as[p]][bs[p]] = value;
+            pValues[bs[p]][as[p]] = value;
+        }
+        return pValues;
+    }
+
+    private static void fill(double[][] pValues, int[] as, int[] bs, double value) {
+        for (int p = 0; p < as.length; p++) {
+            pValues[as[p]][bs[p]] = value;
+            pValues[bs[p]][as[p]] = value;
+        }
+    }
+
+    private double calculate(double[] a, double[] b, int chunk) {
+        if (test == TEST.TTEST) {
+            return new TTest().tTest(a, b);
+        }
+        int start = chunk * CHUNK_SIZE;
+        int end = Math.min(resamples, start + CHUNK_SIZE);
+        double[] diffs = new double[a.length];
+        double observed = 0.0d;
+        for (int i = 0; i < a.length; i++) {
+            diffs[i] = a[i] - b[i];
+            observed += diffs[i];
+        }
+        observed /= diffs.length;
+        SplittableRandom random = new SplittableRandom(seed(a, b, chunk));
+        long extreme = 0;
+        if (test == TEST.BOOTSTRAP) {
+            //shift the differences so that the null hypothesis holds
+            for (int i = 0; i < diffs.length; i++) {
+                diffs[i] -= observed;
+            }
+            for (int r = start; r < end; r++) {
+                double sum = 0.0d;
+                for (int i = 0; i < diffs.length; i++) {
+                    sum += diffs[random.nextInt(diffs.length)];
+                }
+                if (isExtreme(sum / diffs.length, observed)) {
+                    extreme++;
+                }
+            }
+        } else {
+            for (int r = start; r < end; r++) {
+                double sum = 0.0d;
+                for (int i = 0; i < diffs.length; i++) {
+                    sum += random.nextBoolean() ? diffs[i] : -diffs[i];
+                }
+                if (isExtreme(sum / diffs.length, observed)) {
+                    extreme++;
+                }
+            }
+        }
+        return extreme;
+    }
+
+    private static boolean isExtreme(double resampled, double observed) {
+        //tolerate rounding in the sums
+        return Math.abs(resampled) >= Math.abs(observed) - 1e-12;
+    }
+
+    /**
+     * the seed depends on the scores rather than on the experiments' positions
+     * so that a pair's p-value is the same in any matrix
+     */
+    private long seed(double[] a, double[] b, int chunk) {
+        long h = seed;
+        h = 31 * h + Arrays.hashCode(a);
+        h = 31 * h + Arrays.hashCode(b);
+        h = 31 * h + chunk;
+        return h;
+    }
+
+    private class PairTask extends RecursiveAction {
+        private final double[][] scores;
+        private final int[] as;
+        private final int[] bs;
+        private final int chunks;
+        private final double[] results;
+        private final int start;
+        private final int end;
+
+        PairTask(double[][] scores, int[] as, int[] bs, int chunks, double[] results,
+                 int start, int end) {
+            this.scores = scores;
+            this.as = as;
+            this.bs = bs;
+            this.chunks = chunks;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                int pair = start / chunks;
+                results[start] = calculate(scores[as[pair]], scores[bs[pair]],
+                        start % chunks);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new PairTask(scores, as, bs, chunks, results, start, mid),
+                    new PairTask(scores, as, bs, chunks, results, mid, end));
+        }
+    }
+}
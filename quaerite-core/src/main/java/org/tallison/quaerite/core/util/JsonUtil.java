@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -90,4 +91,26 @@ public class JsonUtil {
         }
         return null;
     }
+
+    /**
+     * @return a copy of the element with the keys of all objects in
+     * sorted order, so that equal content serializes to equal strings
+     */
+    public static JsonElement sortKeys(JsonElement element) {
+        if (element.isJsonObject()) {
+            JsonObject object = (JsonObject) element;
+            JsonObject sorted = new JsonObject();
+            for (String key : new TreeSet<>(object.keySet())) {
+                sorted.add(key, sortKeys(object.get(key)));
+            }
+            return sorted;
+        } else if (element.isJsonArray()) {
+            JsonArray sorted = new JsonArray();
+            for (JsonElement child : (JsonArray) element) {
+                sorted.add(sortKeys(child));
+            }
+            return sorted;
+        }
+        return element;
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.stats.ExperimentScoreVector;
+
+/**
+ * Non-dominated sorting, crowding distance and selection as in NSGA-II
+ * (Deb et al., 2002), for experiments that are scored on several objectives.
+ * <p>
+ * A missing (NaN) score is worse than any other score.
+ */
+public class ParetoUtil {
+
+    /**
+     * Sorts the experiments into successive Pareto fronts and sets each
+     * experiment's rank and its crowding distance within its front.
+     *
+     * @param maximize for each objective, whether higher scores are better
+     * @return the fronts, starting with the Pareto front
+     */
+    public static List<List<ExperimentScoreVector>> rank(List<ExperimentScoreVector> vectors,
+                                                         boolean[] maximize) {
+        int n = vectors.size();
+        List<List<Integer>> dominated = new ArrayList<>();
+        int[] dominatedBy = new int[n];
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            dominated.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double[] a = vectors.get(i).getScores();
+                double[] b = vectors.get(j).getScores();
+                if (dominates(a, b, maximize)) {
+                    dominated.get(i).add(j);
+                    dominatedBy[j]++;
+                } else if (dominates(b, a, maximize)) {
+                    dominated.get(j).add(i);
+                    dominatedBy[i]++;
+                }
+            }
+            //all of i's pairs have been compared by now
+            if (dominatedBy[i] == 0) {
+                current.add(i);
+            }
+        }
+        List<List<ExperimentScoreVector>> fronts = new ArrayList<>();
+        while (current.size() > 0) {
+            List<ExperimentScoreVector> front = new ArrayList<>();
+            List<Integer> next = new ArrayList<>();
+            for (int i : current) {
+                vectors.get(i).setRank(fronts.size());
+                front.add(vectors.get(i));
+                for (int j : dominated.get(i)) {
+                    if (--dominatedBy[j] == 0) {
+                        next.add(j);
+                    }
+                }
+            }
+            setCrowdingDistances(front, maximize);
+            fronts.add(front);
+            current = next;
+        }
+        return fronts;
+    }
+
+    /**
+     * Keeps the best <code>n</code> experiments: whole fronts in order of
+     * rank, and then the least crowded experiments of the first front that
+     * doesn't fit.
+     */
+    public static List<ExperimentScoreVector> selectSurvivors(
+            List<ExperimentScoreVector> candidates, int n, boolean[] maximize) {
+        List<ExperimentScoreVector> survivors = new ArrayList<>();
+        for (List<ExperimentScoreVector> front : rank(candidates, maximize)) {
+            if (survivors.size() + front.size() <= n) {
+                survivors.addAll(front);
+                continue;
+            }
+            List<ExperimentScoreVector> sorted = new ArrayList<>(front);
+            sorted.sort(Comparator.comparingDouble(
+                    ExperimentScoreVector::getCrowdingDistance).reversed());
+            survivors.addAll(sorted.subList(0, n - survivors.size()));
+            break;
+        }
+        return survivors;
+    }
+
+    /**
+     * Binary tournament: the better ranked of two random experiments wins,
+     * and the less crowded one breaks a tie.  The experiments must have been
+     * ranked.
+     */
+    public static Experiment tournament(List<ExperimentScoreVector> ranked) {
+        return tournament(ranked, MathUtil.RANDOM);
+    }
+
+    static Experiment tournament(List<ExperimentScoreVector> ranked, Random random) {
+        ExperimentScoreVector a = ranked.get(random.nextInt(ranked.size()));
+        ExperimentScoreVector b = ranked.get(random.nextInt(ranked.size()));
+        if (a.getRank() != b.getRank()) {
+            return (a.getRank() < b.getRank()) ? a.getExperiment() : b.getExperiment();
+        }
+        return (a.getCrowdingDistance() >= b.getCrowdingDistance()) ?
+                a.getExperiment() : b.getExperiment();
+    }
+
+    /**
+     * @return whether <code>a</code> is at least as good as <code>b</code>
+     * on every objective and better on at least one
+     */
+    static boolean dominates(double[] a, double[] b, boolean[] maximize) {
+        boolean better = false;
+        for (int i = 0; i < maximize.length; i++) {
+            double va = orient(a[i], maximize[i]);
+            double vb = orient(b[i], maximize[i]);
+            if (va < vb) {
+                return false;
+            } else if (va > vb) {
+                better = true;
+            }
+        }
+        return better;
+    }
+
+    private static void setCrowdingDistances(List<ExperimentScoreVector> front,
+                                             boolean[] maximize) {
+        for (ExperimentScoreVector v : front) {
+            v.setCrowdingDistance(0.0);
+        }
+        if (front.size() < 3) {
+            for (ExperimentScoreVector v : front) {
+                v.setCrowdingDistance(Double.POSITIVE_INFINITY);
+            }
+            return;
+        }
+        List<ExperimentScoreVector> sorted = new ArrayList<>(front);
+        for (int m = 0; m < maximize.length; m++) {
+            int objective = m;
+            sorted.sort(Comparator.comparingDouble(
+                    v -> orient(v.getScores()[objective], maximize[objective])));
+            int last = sorted.size() - 1;
+            sorted.get(0).setCrowdingDistance(Double.POSITIVE_INFINITY);
+            sorted.get(last).setCrowdingDistance(Double.POSITIVE_INFINITY);
+            double min = orient(sorted.get(0).getScores()[m], maximize[m]);
+            double range = orient(sorted.get(last).getScores()[m], maximize[m]) - min;
+            if (range <= 0.0 || Double.isInfinite(range) || Double.isNaN(range)) {
+                continue;
+            }
+            for (int i = 1; i < last; i++) {
+                ExperimentScoreVector v = sorted.get(i);
+                double gap = orient(sorted.get(i + 1).getScores()[m], maximize[m]) -
+                        orient(sorted.get(i - 1).getScores()[m], maximize[m]);
+                v.setCrowdingDistance(v.getCrowdingDistance() + gap / range);
+            }
+        }
+    }
+
+    //higher is better after orienting
+    private static double orient(double score, boolean maximize) {
+        if (Double.isNaN(score)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return maximize ? score : -score;
+    }
+}
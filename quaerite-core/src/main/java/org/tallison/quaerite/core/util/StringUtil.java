@@ -16,6 +16,9 @@
  */
 package org.tallison.quaerite.core.util;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 
 public class StringUtil {
@@ -31,4 +34,23 @@ public class StringUtil {
         }
         return sb.toString();
     }
+
+    /**
+     * @return lower case hex of the SHA-256 digest of the utf-8 bytes of s
+     */
+    public static String sha256Hex(String s) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        byte[] bytes = digest.digest(s.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class TestExperiment {
+
+    @Test
+    public void testFingerprint() throws Exception {
+        Experiment a = Experiment.fromJson(experiment("a",
+                "\"qf\": [\"title^2\", \"overview\"], \"tie\": 0.3, \"q.op\": {\"mm\": \"50%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        //different name, field order, "^1", weight noise below the precision
+        Experiment b = Experiment.fromJson(experiment("b",
+                "\"qf\": [\"overview^1\", \"title^2.04\"], \"tie\": 0.3, " +
+                        "\"q.op\": {\"mm\": \"50%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        assertEquals(a.getFingerprint(1), b.getFingerprint(1));
+        assertEquals(a.getFingerprint(1), a.deepCopy().getFingerprint(1));
+
+        Experiment weight = Experiment.fromJson(experiment("c",
+                "\"qf\": [\"title^2.4\", \"overview\"], \"tie\": 0.3, \"q.op\": {\"mm\": \"50%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        assertNotEquals(a.getFingerprint(1), weight.getFingerprint(1));
+        assertEquals(a.getFingerprint(0), weight.getFingerprint(0));
+
+        Experiment tie = Experiment.fromJson(experiment("d",
+                "\"qf\": [\"title^2\", \"overview\"], \"tie\": 0.5, \"q.op\": {\"mm\": \"50%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        assertNotEquals(a.getFingerprint(1), tie.getFingerprint(1));
+        //only field weights are rounded to the precision
+        Experiment smallTie = Experiment.fromJson(experiment("d",
+                "\"qf\": [\"title^2\", \"overview\"], \"tie\": 0.06, \"q.op\": {\"mm\": \"50%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        Experiment otherTie = Experiment.fromJson(experiment("d",
+                "\"qf\": [\"title^2\", \"overview\"], \"tie\": 0.137, \"q.op\": {\"mm\": \"50%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        assertNotEquals(smallTie.getFingerprint(1), otherTie.getFingerprint(1));
+        assertNotEquals(smallTie.getFingerprint(0), otherTie.getFingerprint(0));
+
+        Experiment mm = Experiment.fromJson(experiment("e",
+                "\"qf\": [\"title^2\", \"overview\"], \"tie\": 0.3, \"q.op\": {\"mm\": \"75%\"}",
+                "[{\"lucene\": {\"queryString\": \"year:2000\"}}]"));
+        assertNotEquals(a.getFingerprint(1), mm.getFingerprint(1));
+
+        Experiment fq = Experiment.fromJson(experiment("f",
+                "\"qf\": [\"title^2\", \"overview\"], \"tie\": 0.3, \"q.op\": {\"mm\": \"50%\"}",
+                "[]"));
+        assertNotEquals(a.getFingerprint(1), fq.getFingerprint(1));
+    }
+
+    private static String experiment(String name, String edismax, String filterQueries) {
+        return "{\"name\": \"" + name + "\", " +
+                "\"serverConnection\": {\"url\": \"http://localhost:8983/solr/tmdb\"}, " +
+                "\"query\": {\"edismax\": {" + edismax + "}}, " +
+                "\"filterQueries\": " + filterQueries + "}";
+    }
+}
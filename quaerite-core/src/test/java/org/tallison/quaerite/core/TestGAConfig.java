@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+public class TestGAConfig {
+
+    @Test
+    public void testIslandConfigs() {
+        String json = "{\"islands\":3, \"mutationAmplitude\":0.3, " +
+                "\"islandConfigs\":[{}, {\"mutationAmplitude\":0.6, " +
+                "\"crossoverProbability\":0.5, \"mutationProbability\":0.4}]}";
+        Gson gson = new Gson();
+
+        GAConfig island0 = gson.fromJson(json, GAConfig.class);
+        island0.applyIslandConfig(0);
+        assertEquals(3, island0.getIslands());
+        assertEquals(0.3f, island0.getMutationAmplitude(), 0.0001f);
+        assertEquals(GAConfig.DEFAULT_CROSSOVER_PROBABILITY,
+                island0.getCrossoverProbability(), 0.0001f);
+
+        GAConfig island1 = gson.fromJson(json, GAConfig.class);
+        island1.applyIslandConfig(1);
+        assertEquals(0.6f, island1.getMutationAmplitude(), 0.0001f);
+        assertEquals(0.5f, island1.getCrossoverProbability(), 0.0001f);
+        assertEquals(0.4f, island1.getMutationProbability(), 0.0001f);
+        assertEquals(GAConfig.DEFAULT_REPRODUCTION_PROBABILITY,
+                island1.getReproductionProbability(), 0.0001f);
+
+        //no settings for this island
+        GAConfig island2 = gson.fromJson(json, GAConfig.class);
+        island2.applyIslandConfig(2);
+        assertEquals(0.3f, island2.getMutationAmplitude(), 0.0001f);
+        assertEquals(GAConfig.DEFAULT_MIGRATION_INTERVAL, island2.getMigrationInterval());
+    }
+
+    @Test
+    public void testObjectives() {
+        Gson gson = new Gson();
+        assertEquals(0, gson.fromJson("{}", GAConfig.class).getObjectives().size());
+
+        String json = "{\"objectives\":[{\"statistic\":\"ndcg_10_mean\"}, " +
+                "{\"statistic\":\"LatencyPercentiles_client_p95\", \"maximize\":false}]}";
+        List<Objective> objectives = gson.fromJson(json, GAConfig.class).getObjectives();
+        assertEquals(2, objectives.size());
+        assertEquals("ndcg_10_mean", objectives.get(0).getStatistic());
+        assertTrue(objectives.get(0).getMaximize());
+        assertEquals("LatencyPercentiles_client_p95", objectives.get(1).getStatistic());
+        assertFalse(objectives.get(1).getMaximize());
+    }
+}
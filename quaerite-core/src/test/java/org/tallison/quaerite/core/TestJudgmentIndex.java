@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TestJudgmentIndex {
+
+    @Test
+    public void testIndex() {
+        Judgments judgments = new Judgments(new QueryInfo("0", "",
+                new QueryStrings(), 1));
+        for (int i = 0; i < 1000; i++) {
+            judgments.addJudgment("id" + i, i % 4);
+        }
+        JudgmentIndex index = judgments.freeze().getIndex();
+        assertEquals(1000, index.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 4, index.getJudgment("id" + i), 0.0001);
+            int ordinal = index.getOrdinal("id" + i);
+            assertEquals("id" + i, index.getId(ordinal));
+        }
+        assertEquals(JudgmentIndex.NOT_FOUND, index.getOrdinal("id1000"));
+        assertEquals(Judgments.NO_JUDGMENT, judgments.getJudgment("id1000"), 0.0001);
+        assertFalse(judgments.containsJudgment("id1000"));
+        assertTrue(judgments.containsJudgment("id999"));
+        assertEquals(3.0, index.getMaxGrade(), 0.0001);
+
+        //descending order of grade
+        for (int i = 1; i < index.size(); i++) {
+            assertTrue(index.getGrade(i - 1) >= index.getGrade(i));
+        }
+        List<String> sortedIds = new ArrayList<>();
+        for (Map.Entry<String, Double> e : judgments.getSortedJudgments().entrySet()) {
+            sortedIds.add(e.getKey());
+        }
+        assertEquals(index.getId(0), sortedIds.get(0));
+        assertEquals(index.getId(999), sortedIds.get(999));
+
+        assertThrows(IllegalStateException.class, () -> judgments.addJudgment("id1000", 1));
+    }
+
+    @Test
+    public void testEmpty() {
+        Judgments judgments = new Judgments(new QueryInfo("0", "",
+                new QueryStrings(), 1));
+        JudgmentIndex index = judgments.getIndex();
+        assertEquals(0, index.size());
+        assertEquals(Judgments.NO_JUDGMENT, index.getMaxGrade(), 0.0001);
+        assertFalse(index.contains("id"));
+
+        //not frozen; adding rebuilds the index
+        judgments.addJudgment("id", 2);
+        assertEquals(2.0, judgments.getJudgment("id"), 0.0001);
+    }
+}
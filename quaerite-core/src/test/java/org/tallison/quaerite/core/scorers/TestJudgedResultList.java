@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.core.scorers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+
+public class TestJudgedResultList {
+
+    @Test
+    public void testSinglePass() {
+        Judgments judgments = new Judgments(new QueryInfo("0", "",
+                new QueryStrings(), 1));
+        judgments.addJudgment("1", 3);
+        judgments.addJudgment("2", 2);
+        judgments.addJudgment("3", 3);
+        judgments.addJudgment("5", 1);
+        judgments.addJudgment("6", 2);
+        judgments.addJudgment("7", 3);
+        judgments.addJudgment("8", 2);
+
+        JudgedResultList results = new JudgedResultList(judgments.freeze(), results(1, 6));
+        assertEquals(6, results.size());
+        assertTrue(results.isJudged(0));
+        assertFalse(results.isJudged(3));
+        assertEquals(Judgments.NO_JUDGMENT, results.getGrade(3), 0.0001);
+        assertEquals(5, results.getJudgedCount(10));
+        assertEquals(3, results.getJudgedCount(3));
+        assertEquals(11.0, results.getCumulativeGain(10), 0.001);
+        assertEquals(6.861, results.getDCG2002(10), 0.001);
+        assertEquals(1, results.getFirstJudgedRank(10));
+
+        //all of these read from the same pass and match the per-scorer values
+        List<JudgmentScorer> scorers = new ArrayList<>();
+        scorers.add(new NDCG(10));
+        scorers.add(new NDCG(5));
+        scorers.add(new DiscountedCumulativeGain2005(10));
+        scorers.add(new PrecisionAtN(10));
+        scorers.add(new RecallAtN(10));
+        scorers.add(new CumulativeGain(3));
+        for (JudgmentScorer scorer : scorers) {
+            assertEquals(scorer.score(judgments, results(1, 6)),
+                    scorer.score(results), 0.000001, scorer.getName());
+        }
+        assertEquals(0.785, new NDCG(10).score(results), 0.001);
+
+        //reusing the buffers for a shorter list must not leak the earlier results
+        results.reset(judgments, results(4, 5));
+        assertEquals(2, results.size());
+        assertEquals(1, results.getJudgedCount(10));
+        assertEquals(1.0 / Math.log(3) * Math.log(2), results.getDCG2002(10), 0.0001);
+        assertEquals(2, results.getFirstJudgedRank(10));
+        assertEquals(HighestRank.NOT_FOUND, results.getFirstJudgedRank(1));
+    }
+
+    private static SearchResultSet results(int from, int to) {
+        List<StoredDocument> docs = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            docs.add(new StoredDocument(Integer.toString(i)));
+        }
+        return new SearchResultSet(1000, 10, 100, docs);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.scorers;
+
+import static org.tallison.quaerite.core.QueryInfo.DEFAULT_QUERY_SET;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.SearchTimings;
+import org.tallison.quaerite.core.serializers.ScorerListSerializer;
+import org.tallison.quaerite.core.stats.QuantileSketch;
+
+public class TestScorer {
+
+    @Test
+    public void testQuerySets() {
+        AverageDocsReturned scorer = new AverageDocsReturned(10);
+        QueryInfo a1 = queryInfo("1", "a");
+        QueryInfo a2 = queryInfo("2", "a");
+        QueryInfo b3 = queryInfo("3", "b");
+        scorer.addScore(a1, 1.0);
+        scorer.addScore(a2, 3.0);
+        scorer.addScore(b3, 8.0);
+        //rescoring a query replaces its score
+        scorer.addScore(a1, 2.0);
+
+        Assertions.assertEquals(3, scorer.getSize());
+        Assertions.assertEquals(2.0, scorer.getScore(a1), 0.0001);
+        Assertions.assertNull(scorer.getScore(queryInfo("4", "a")));
+
+        Set<String> querySets = new HashSet<>(scorer.getQuerySets());
+        Assertions.assertEquals(3, querySets.size());
+        Assertions.assertTrue(querySets.contains(DEFAULT_QUERY_SET));
+
+        Map<String, Double> stats = scorer.getSummaryStatistics("a");
+        Assertions.assertEquals(2.5, stats.get(DistributionalScoreAggregator.MEAN), 0.0001);
+        stats = scorer.getSummaryStatistics(DEFAULT_QUERY_SET);
+        Assertions.assertEquals(13.0 / 3.0,
+                stats.get(DistributionalScoreAggregator.MEAN), 0.0001);
+        Assertions.assertEquals(3.0, stats.get(DistributionalScoreAggregator.MEDIAN), 0.0001);
+        Assertions.assertEquals(2, scorer.getQueryInfos("a").size());
+        Assertions.assertEquals(3, scorer.getQueryInfos(DEFAULT_QUERY_SET).size());
+
+        scorer.reset();
+        Assertions.assertEquals(0, scorer.getSize());
+        Assertions.assertEquals(0, scorer.getQuerySets().size());
+    }
+
+    @Test
+    public void testSum() {
+        ZeroResults scorer = new ZeroResults();
+        Assertions.assertEquals(0, scorer.getSummaryStatistics(DEFAULT_QUERY_SET).size());
+        //enough queries to grow the score array
+        for (int i = 0; i < 100; i++) {
+            scorer.addScore(queryInfo(Integer.toString(i), (i % 2 == 0) ? "even" : "odd"), 1.0);
+        }
+        Assertions.assertEquals(50.0,
+                scorer.getSummaryStatistics("even").get(SummingScoreAggregator.SUM), 0.0001);
+        Assertions.assertEquals(100.0,
+                scorer.getSummaryStatistics(DEFAULT_QUERY_SET).get(SummingScoreAggregator.SUM),
+                0.0001);
+    }
+
+    @Test
+    public void testPercentiles() {
+        AverageDocsReturned exact = new AverageDocsReturned(10);
+        exact.setPercentiles(Arrays.asList(90.0, 99.5));
+        Assertions.assertEquals(Arrays.asList(DistributionalScoreAggregator.MEAN,
+                DistributionalScoreAggregator.MEDIAN, DistributionalScoreAggregator.STDEV,
+                "p90", "p99_5"), exact.getStatistics());
+
+        AverageDocsReturned sketched = new AverageDocsReturned(10);
+        sketched.setPercentiles(Arrays.asList(90.0, 99.5));
+        sketched.setSketchSize(QuantileSketch.DEFAULT_K);
+        for (int i = 0; i < 10000; i++) {
+            exact.addScore(queryInfo(Integer.toString(i), DEFAULT_QUERY_SET), i);
+            sketched.addScore(queryInfo(Integer.toString(i), DEFAULT_QUERY_SET), i);
+        }
+        Map<String, Double> exactStats = exact.getSummaryStatistics(DEFAULT_QUERY_SET);
+        Map<String, Double> sketchedStats = sketched.getSummaryStatistics(DEFAULT_QUERY_SET);
+        Assertions.assertEquals(9000.0, exactStats.get("p90"), 1.0);
+        //mean and stdev are always exact
+        Assertions.assertEquals(exactStats.get(DistributionalScoreAggregator.MEAN),
+                sketchedStats.get(DistributionalScoreAggregator.MEAN), 0.0001);
+        Assertions.assertEquals(exactStats.get(DistributionalScoreAggregator.STDEV),
+                sketchedStats.get(DistributionalScoreAggregator.STDEV), 0.0001);
+        for (String stat : new String[]{DistributionalScoreAggregator.MEDIAN, "p90", "p99_5"}) {
+            Assertions.assertEquals(exactStats.get(stat), sketchedStats.get(stat), 200.0);
+        }
+    }
+
+    @Test
+    public void testPercentileSerialization() {
+        AverageDocsReturned scorer = new AverageDocsReturned(10);
+        scorer.setPercentiles(Arrays.asList(95.0, 99.9));
+        scorer.setSketchSize(100);
+        Scorer revivified = ScorerListSerializer.fromJson(ScorerListSerializer.toJson(scorer));
+        Assertions.assertEquals(scorer, revivified);
+        Assertions.assertEquals(scorer.getStatistics(), revivified.getStatistics());
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        LatencyPercentiles scorer = new LatencyPercentiles();
+        for (int i = 1; i <= 100; i++) {
+            SearchResultSet srs = new SearchResultSet(10, i, 10 * i, Collections.EMPTY_LIST);
+            scorer.score(queryInfo(Integer.toString(i), (i <= 50) ? "a" : "b"), srs);
+        }
+        Assertions.assertEquals(20.0, scorer.getScore(queryInfo("2", "a")), 0.0001);
+        Map<String, Double> stats = scorer.getSummaryStatistics(DEFAULT_QUERY_SET);
+        Assertions.assertEquals(scorer.getStatistics(), new ArrayList<>(stats.keySet()));
+        Assertions.assertEquals(50.0, stats.get("server_p50"), 0.0001);
+        Assertions.assertEquals(99.0, stats.get("server_p99"), 0.0001);
+        Assertions.assertEquals(100.0, stats.get("server_max"), 0.0001);
+        Assertions.assertEquals(1000.0, stats.get("client_max"), 0.0001);
+        Assertions.assertEquals(990.0, stats.get("client_p99"), 10.0);
+        Assertions.assertEquals(50.0,
+                scorer.getSummaryStatistics("a").get("server_max"), 0.0001);
+
+        Scorer revivified = ScorerListSerializer.fromJson(ScorerListSerializer.toJson(scorer));
+        Assertions.assertTrue(revivified instanceof LatencyPercentiles);
+
+        scorer.reset();
+        Assertions.assertTrue(Double.isNaN(
+                scorer.getSummaryStatistics(DEFAULT_QUERY_SET).get("client_p99")));
+    }
+
+    @Test
+    public void testTimings() {
+        AverageServerTime serverTime = new AverageServerTime(-1);
+        AverageNetworkTime networkTime = new AverageNetworkTime(-1);
+        AverageClientOverhead overhead = new AverageClientOverhead(-1);
+        SearchResultSet timed = new SearchResultSet(10, 5, 20, Collections.EMPTY_LIST);
+        timed.setTimings(new SearchTimings(1.0, 12.0, 2.0, 3.0));
+        //no server time, no timings
+        SearchResultSet untimed = new SearchResultSet(10, -1, 20, Collections.EMPTY_LIST);
+        for (SearchResultSetScorer scorer : new SearchResultSetScorer[]{
+                serverTime, networkTime, overhead}) {
+            scorer.score(queryInfo("1", DEFAULT_QUERY_SET), timed);
+            scorer.score(queryInfo("2", DEFAULT_QUERY_SET), untimed);
+        }
+        Assertions.assertEquals(5.0, serverTime.getSummaryStatistics(DEFAULT_QUERY_SET)
+                .get(DistributionalScoreAggregator.MEAN), 0.0001);
+        Assertions.assertEquals(12.0, networkTime.getSummaryStatistics(DEFAULT_QUERY_SET)
+                .get(DistributionalScoreAggregator.MEAN), 0.0001);
+        Assertions.assertEquals(6.0, overhead.getSummaryStatistics(DEFAULT_QUERY_SET)
+                .get(DistributionalScoreAggregator.MEAN), 0.0001);
+        Assertions.assertEquals(2.0, new SearchTimings(SearchTimings.UNKNOWN, 10.0,
+                SearchTimings.UNKNOWN, 2.0).getClientOverheadMillis(), 0.0001);
+    }
+
+    @Test
+    public void testCachedResultsAreSkipped() {
+        AverageElapsedTime elapsedTime = new AverageElapsedTime(-1);
+        TotalElapsedTime totalElapsedTime = new TotalElapsedTime(-1);
+        LatencyPercentiles percentiles = new LatencyPercentiles();
+        SearchResultSet searched = new SearchResultSet(10, 5, 20, Collections.EMPTY_LIST);
+        SearchResultSet cached = new SearchResultSet(10, 500, 2000, Collections.EMPTY_LIST);
+        cached.setCached(true);
+        for (SearchResultSetScorer scorer : new SearchResultSetScorer[]{
+                elapsedTime, totalElapsedTime, percentiles}) {
+            scorer.score(queryInfo("1", DEFAULT_QUERY_SET), searched);
+            scorer.score(queryInfo("2", DEFAULT_QUERY_SET), cached);
+        }
+        Assertions.assertEquals(20.0, elapsedTime.getSummaryStatistics(DEFAULT_QUERY_SET)
+                .get(DistributionalScoreAggregator.MEAN), 0.0001);
+        Assertions.assertEquals(20.0, totalElapsedTime.getSummaryStatistics(DEFAULT_QUERY_SET)
+                .get(SummingScoreAggregator.SUM), 0.0001);
+        Assertions.assertEquals(20.0, percentiles.getSummaryStatistics(DEFAULT_QUERY_SET)
+                .get("client_max"), 0.0001);
+    }
+
+    private static QueryInfo queryInfo(String id, String querySet) {
+        return new QueryInfo(id, querySet, new QueryStrings(), 1);
+    }
+}
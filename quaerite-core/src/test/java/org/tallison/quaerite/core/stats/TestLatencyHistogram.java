@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestLatencyHistogram {
+
+    @Test
+    public void testBuckets() {
+        for (long v : new long[]{0, 1, 127, 128, 129, 255, 256, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.getIndex(v);
+            long highest = LatencyHistogram.getHighestEquivalentValue(index);
+            Assertions.assertTrue(highest >= v, v + " : " + highest);
+            //relative error < 2%
+            Assertions.assertTrue((highest - v) <= v / 50, v + " : " + highest);
+            if (index > 0) {
+                Assertions.assertTrue(LatencyHistogram.getHighestEquivalentValue(index - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertTrue(Double.isNaN(histogram.getValueAtPercentile(99)));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-1);
+        Assertions.assertEquals(1000, histogram.getTotalCount());
+        Assertions.assertEquals(100, histogram.getValueAtPercentile(10), 0.0);
+        Assertions.assertEquals(500, histogram.getValueAtPercentile(50), 10.0);
+        Assertions.assertEquals(990, histogram.getValueAtPercentile(99), 20.0);
+        Assertions.assertEquals(1000, histogram.getValueAtPercentile(100), 0.0);
+        Assertions.assertEquals(1000, histogram.getMax(), 0.0);
+    }
+
+    @Test
+    public void testConcurrentAndAdd() throws Exception {
+        LatencyHistogram shared = new LatencyHistogram();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<LatencyHistogram>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executorService.submit(() -> {
+                LatencyHistogram partial = new LatencyHistogram();
+                for (int i = 0; i < 10000; i++) {
+                    shared.record(i);
+                    partial.record(i);
+                }
+                return partial;
+            }));
+        }
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Future<LatencyHistogram> future : futures) {
+            merged.add(future.get());
+        }
+        executorService.shutdown();
+        Assertions.assertEquals(40000, shared.getTotalCount());
+        Assertions.assertEquals(shared.getTotalCount(), merged.getTotalCount());
+        Assertions.assertEquals(shared.getMax(), merged.getMax(), 0.0);
+        Assertions.assertEquals(shared.getValueAtPercentile(95),
+                merged.getValueAtPercentile(95), 0.0);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestQuantileSketch {
+
+    @Test
+    public void testEmpty() {
+        QuantileSketch sketch = new QuantileSketch();
+        Assertions.assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        Assertions.assertEquals(0, sketch.getN());
+    }
+
+    @Test
+    public void testSmall() {
+        //below capacity, the sketch is exact
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i);
+        }
+        Assertions.assertEquals(100, sketch.getRetained());
+        Assertions.assertEquals(50, sketch.getQuantile(0.5), 0.0001);
+        Assertions.assertEquals(90, sketch.getQuantile(0.9), 0.0001);
+        Assertions.assertEquals(1, sketch.getQuantile(0.0), 0.0001);
+        Assertions.assertEquals(100, sketch.getQuantile(1.0), 0.0001);
+    }
+
+    @Test
+    public void testBoundedAndAccurate() {
+        Random random = new Random(42);
+        int n = 200000;
+        double[] values = new double[n];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble();
+            sketch.add(values[i]);
+        }
+        Assertions.assertEquals(n, sketch.getN());
+        Assertions.assertTrue(sketch.getRetained() < 4 * QuantileSketch.DEFAULT_K,
+                "retained: " + sketch.getRetained());
+        Arrays.sort(values);
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.95, 0.99}) {
+            Assertions.assertEquals(values[(int) (q * n) - 1], sketch.getQuantile(q), 0.02);
+        }
+    }
+}
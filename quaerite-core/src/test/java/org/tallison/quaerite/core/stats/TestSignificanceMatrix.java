@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.stats;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.inference.TTest;
+import org.junit.jupiter.api.Test;
+
+public class TestSignificanceMatrix {
+
+    @Test
+    public void testTTest() {
+        double[][] scores = scores();
+        double[][] pValues = new SignificanceMatrix().calculate(scores);
+        TTest tTest = new TTest();
+        for (int i = 0; i < scores.length; i++) {
+            assertEquals(1.0, pValues[i][i], 0.0);
+            for (int j = i + 1; j < scores.length; j++) {
+                double expected = tTest.tTest(scores[i], scores[j]);
+                assertEquals(expected, pValues[i][j], 0.000001);
+                assertEquals(expected, pValues[j][i], 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void testResampling() {
+        double[][] scores = scores();
+        for (SignificanceMatrix.TEST test : new SignificanceMatrix.TEST[]{
+                SignificanceMatrix.TEST.BOOTSTRAP, SignificanceMatrix.TEST.RANDOMIZATION}) {
+            SignificanceMatrix significanceMatrix = new SignificanceMatrix(test, 5000, 7);
+            double[][] pValues = significanceMatrix.calculate(scores);
+            //a and b have the same mean; c is much better
+            assertTrue(pValues[0][1] > 0.1, test + " " + pValues[0][1]);
+            assertTrue(pValues[0][2] < 0.01, test + " " + pValues[0][2]);
+            //no resample is as extreme, but the p-value is never 0
+            assertEquals(1.0 / 5001, pValues[0][2], 0.0);
+            assertEquals(pValues[0][2], pValues[2][0], 0.0);
+
+            //reproducible
+            double[][] again = significanceMatrix.calculate(scores);
+            for (int i = 0; i < scores.length; i++) {
+                assertArrayEquals(pValues[i], again[i], 0.0);
+            }
+            //a pair's p-value doesn't depend on the rest of the matrix
+            double[][] pair = significanceMatrix.calculate(new double[][]{scores[0], scores[2]});
+            assertEquals(pValues[0][2], pair[0][1], 0.0);
+        }
+    }
+
+    @Test
+    public void testTooFewQueries() {
+        double[][] pValues = new SignificanceMatrix().calculate(
+                new double[][]{{0.5}, {0.2}});
+        assertEquals(1.0, pValues[0][0], 0.0);
+        assertEquals(-1.0, pValues[0][1], 0.0);
+    }
+
+    private static double[][] scores() {
+        Random random = new Random(42);
+        int numQueries = 50;
+        double[][] scores = new double[3][numQueries];
+        for (int q = 0; q < numQueries; q++) {
+            double base = random.nextDouble() * 0.5;
+            scores[0][q] = base + random.nextDouble() * 0.05;
+            scores[1][q] = scores[0][q] + ((q % 2 == 0) ? 0.05 : -0.05);
+            scores[2][q] = base + 0.2 + random.nextDouble() * 0.05;
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.tallison.quaerite.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.queries.MatchAllDocsQuery;
+import org.tallison.quaerite.core.stats.ExperimentScoreVector;
+
+public class TestParetoUtil {
+
+    //relevance (higher is better) and latency (lower is better)
+    private static final boolean[] MAXIMIZE = new boolean[]{true, false};
+
+    @Test
+    public void testDominates() {
+        assertTrue(ParetoUtil.dominates(new double[]{0.8, 50}, new double[]{0.7, 60}, MAXIMIZE));
+        assertTrue(ParetoUtil.dominates(new double[]{0.8, 50}, new double[]{0.8, 60}, MAXIMIZE));
+        assertFalse(ParetoUtil.dominates(new double[]{0.8, 50}, new double[]{0.8, 50}, MAXIMIZE));
+        assertFalse(ParetoUtil.dominates(new double[]{0.9, 100}, new double[]{0.8, 50}, MAXIMIZE));
+        //missing scores are the worst
+        assertTrue(ParetoUtil.dominates(new double[]{0.8, 500},
+                new double[]{0.8, Double.NaN}, MAXIMIZE));
+    }
+
+    @Test
+    public void testRank() {
+        List<ExperimentScoreVector> vectors = getVectors();
+        List<List<ExperimentScoreVector>> fronts = ParetoUtil.rank(vectors, MAXIMIZE);
+        assertEquals(3, fronts.size());
+        assertEquals(names("a", "b", "c"), names(fronts.get(0)));
+        assertEquals(names("d"), names(fronts.get(1)));
+        assertEquals(names("e", "f"), names(fronts.get(2)));
+        assertEquals(2, vectors.get(4).getRank());
+
+        //the ends of a front are infinitely uncrowded
+        assertEquals(Double.POSITIVE_INFINITY, vectors.get(0).getCrowdingDistance(), 0.0001);
+        assertEquals(2.0, vectors.get(1).getCrowdingDistance(), 0.0001);
+        assertEquals(Double.POSITIVE_INFINITY, vectors.get(2).getCrowdingDistance(), 0.0001);
+    }
+
+    @Test
+    public void testSelectSurvivors() {
+        List<ExperimentScoreVector> survivors =
+                ParetoUtil.selectSurvivors(getVectors(), 2, MAXIMIZE);
+        //the least crowded of the Pareto front
+        assertEquals(names("a", "c"), names(survivors));
+
+        survivors = ParetoUtil.selectSurvivors(getVectors(), 4, MAXIMIZE);
+        assertEquals(names("a", "b", "c", "d"), names(survivors));
+
+        survivors = ParetoUtil.selectSurvivors(getVectors(), 10, MAXIMIZE);
+        assertEquals(6, survivors.size());
+    }
+
+    @Test
+    public void testTournament() {
+        List<ExperimentScoreVector> vectors = getVectors();
+        ParetoUtil.rank(vectors, MAXIMIZE);
+        //lower rank wins
+        assertEquals("d", ParetoUtil.tournament(vectors, new FixedRandom(4, 3)).getName());
+        //less crowded wins a tie
+        assertEquals("a", ParetoUtil.tournament(vectors, new FixedRandom(1, 0)).getName());
+        assertEquals("e", ParetoUtil.tournament(vectors, new FixedRandom(4, 4)).getName());
+    }
+
+    private static List<ExperimentScoreVector> getVectors() {
+        List<ExperimentScoreVector> vectors = new ArrayList<>();
+        vectors.add(vector("a", 0.9, 100));
+        vectors.add(vector("b", 0.8, 50));
+        vectors.add(vector("c", 0.7, 20));
+        //dominated by b and c
+        vectors.add(vector("d", 0.7, 60));
+        //dominated by everything but f
+        vectors.add(vector("e", 0.5, 200));
+        //no latency, dominated by everything but e
+        vectors.add(vector("f", 0.6, Double.NaN));
+        return vectors;
+    }
+
+    private static ExperimentScoreVector vector(String name, double relevance, double latency) {
+        Experiment experiment = new Experiment(name, new ServerConnection("http://localhost"),
+                new MatchAllDocsQuery());
+        return new ExperimentScoreVector(experiment, new double[]{relevance, latency});
+    }
+
+    private static Set<String> names(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static Set<String> names(List<ExperimentScoreVector> vectors) {
+        Set<String> names = new HashSet<>();
+        for (ExperimentScoreVector v : vectors) {
+            names.add(v.getExperiment().getName());
+        }
+        return names;
+    }
+
+    private static class FixedRandom extends Random {
+        private final int[] ints;
+        private int i = 0;
+
+        private FixedRandom(int... ints) {
+            this.ints = ints;
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            return ints[i++];
+        }
+    }
+}
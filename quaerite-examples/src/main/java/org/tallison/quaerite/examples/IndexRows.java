@@ -23,8 +23,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -33,6 +31,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.tallison.quaerite.connectors.BulkIndexer;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientFactory;
 import org.tallison.quaerite.core.StoredDocument;
@@ -44,8 +43,6 @@ import org.tallison.quaerite.core.StoredDocument;
  */
 public class IndexRows {
 
-    private final int DOCS_PER_BATCH = 1000;
-
     static Options OPTIONS = new Options();
 
     static {
@@ -86,24 +83,17 @@ public class IndexRows {
     }
 
     private void execute(Path file, String field, SearchClient client) throws Exception {
-        List<StoredDocument> docs = new ArrayList<>();
         int counter = 0;
-        try (BufferedReader bufferedReader = getReader(file)) {
+        try (BufferedReader bufferedReader = getReader(file);
+                BulkIndexer bulkIndexer = client.getBulkIndexer()) {
             String line = bufferedReader.readLine();
             while (line != null) {
                 StoredDocument sd = new StoredDocument(Integer.toString(counter++));
                 sd.addNonBlankField(field, line);
-                docs.add(sd);
-                if (docs.size() > DOCS_PER_BATCH) {
-                    client.addDocuments(docs);
-                    docs.clear();
-                }
+                bulkIndexer.add(sd);
                 line = bufferedReader.readLine();
             }
         }
-        if (docs.size() > 0) {
-            client.addDocuments(docs);
-        }
     }
 
     private BufferedReader getReader(Path file) throws IOException {
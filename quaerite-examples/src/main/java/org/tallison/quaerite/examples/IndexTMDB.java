@@ -33,6 +33,7 @@ import java.util.Locale;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import org.apache.commons.lang3.StringUtils;
+import org.tallison.quaerite.connectors.BulkIndexer;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientFactory;
 import org.tallison.quaerite.core.StoredDocument;
@@ -49,37 +50,25 @@ public class IndexTMDB {
         SearchClient searchClient = SearchClientFactory.getClient(args[1]);
         int cnt = 0;
         long start = System.currentTimeMillis();
-        List<Movie> movies = new ArrayList<>();
-        String idField = searchClient.getDefaultIdField();
-        try (Reader reader = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+        try (Reader reader = Files.newBufferedReader(p, StandardCharsets.UTF_8);
+                BulkIndexer bulkIndexer = searchClient.getBulkIndexer()) {
             JsonReader jsonReader = new JsonReader(reader);
             jsonReader.beginObject();
             while (jsonReader.hasNext()) {
                 Movie movie = nextMovie(jsonReader);
-                movies.add(movie);
+                bulkIndexer.add(buildDocument(movie));
                 cnt++;
-                if (movies.size() >= 1000) {
-                    searchClient.addDocuments(buildDocuments(movies));
-                    movies.clear();
+                if (cnt % 1000 == 0) {
                     System.out.println("indexed " + cnt + " in " +
                             (System.currentTimeMillis() - start) + " ms");
                 }
             }
             jsonReader.endObject();
         }
-        searchClient.addDocuments(buildDocuments(movies));
         System.out.println("finished indexing " + cnt + " in " +
                 (System.currentTimeMillis() - start) + " ms");
     }
 
-    private static List<StoredDocument> buildDocuments(List<Movie> movies) {
-        List<StoredDocument> docs = new ArrayList<>();
-        for (Movie movie : movies) {
-            docs.add(buildDocument(movie));
-        }
-        return docs;
-    }
-
     private static StoredDocument buildDocument(Movie movie) {
         StoredDocument storedDocument = new StoredDocument(movie.id);
         storedDocument.addNonBlankField("original_language", movie.originalLanguage);